@@ -0,0 +1,15 @@
+package com.alfre.DHHotel.notificationworker.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public record GroupBookingCreatedEvent(
+        List<Long> bookingIds,
+        String guestEmail,
+        String guestName,
+        List<String> roomNumbers,
+        LocalDate checkIn,
+        LocalDate checkOut,
+        BigDecimal totalPrice
+) { }
@@ -2,6 +2,7 @@ package com.alfre.DHHotel.notificationworker.listener;
 
 import com.alfre.DHHotel.notificationworker.config.RabbitMQConfig;
 import com.alfre.DHHotel.notificationworker.event.BookingCreatedEvent;
+import com.alfre.DHHotel.notificationworker.event.GroupBookingCreatedEvent;
 import com.alfre.DHHotel.notificationworker.service.EmailService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,6 +19,8 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class NotificationListener {
 
+    public static final String GROUP_LISTENER_ID = "groupBookingNotifications";
+
     private final EmailService emailService;
 
     @RabbitListener(queues = RabbitMQConfig.NOTIFICATIONS_QUEUE)
@@ -39,6 +42,25 @@ public class NotificationListener {
         }
     }
 
+    @RabbitListener(id = GROUP_LISTENER_ID, queues = RabbitMQConfig.GROUP_NOTIFICATIONS_QUEUE)
+    public void onGroupBookingCreated(GroupBookingCreatedEvent event, Message message) {
+        long attempt = resolveAttempt(message);
+        log.info("Procesando notificación de las reservas de grupo {} para {}. Intento {}",
+                event.bookingIds(), event.guestEmail(), attempt);
+
+        try {
+            emailService.sendGroupBookingConfirmation(event);
+            log.info("Email de confirmación enviado para las reservas de grupo {}", event.bookingIds());
+        } catch (Exception ex) {
+            log.error("Falló el envío de email para las reservas de grupo {} en intento {}",
+                    event.bookingIds(), attempt, ex);
+            throw new AmqpRejectAndDontRequeueException(
+                    "Falló el envío de email para las reservas de grupo " + event.bookingIds(),
+                    ex
+            );
+        }
+    }
+
     private long resolveAttempt(Message message) {
         Object xDeath = message.getMessageProperties().getHeaders().get("x-death");
         if (!(xDeath instanceof List<?> deaths) || deaths.isEmpty()) {
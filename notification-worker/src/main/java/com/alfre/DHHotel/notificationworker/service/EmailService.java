@@ -1,6 +1,7 @@
 package com.alfre.DHHotel.notificationworker.service;
 
 import com.alfre.DHHotel.notificationworker.event.BookingCreatedEvent;
+import com.alfre.DHHotel.notificationworker.event.GroupBookingCreatedEvent;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
@@ -33,7 +34,24 @@ public class EmailService {
 
         String html = templateEngine.process("booking-confirmation", context);
         String subject = "Confirmación de reserva #" + event.bookingId() + " - DH Hotel";
+        send(event.guestEmail(), subject, html);
+    }
+
+    public void sendGroupBookingConfirmation(GroupBookingCreatedEvent event) {
+        Context context = new Context();
+        context.setVariable("bookingIds", event.bookingIds());
+        context.setVariable("guestName", event.guestName());
+        context.setVariable("roomNumbers", event.roomNumbers());
+        context.setVariable("checkIn", event.checkIn());
+        context.setVariable("checkOut", event.checkOut());
+        context.setVariable("totalPrice", event.totalPrice());
+
+        String html = templateEngine.process("group-booking-confirmation", context);
+        String subject = "Confirmación de las reservas de grupo #" + event.bookingIds().getFirst() + " - DH Hotel";
+        send(event.guestEmail(), subject, html);
+    }
 
+    private void send(String to, String subject, String html) {
         try {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(
@@ -42,7 +60,7 @@ public class EmailService {
                     StandardCharsets.UTF_8.name()
             );
             helper.setFrom(fromAddress);
-            helper.setTo(event.guestEmail());
+            helper.setTo(to);
             helper.setSubject(subject);
             helper.setText(html, true);
             mailSender.send(message);
@@ -1,6 +1,7 @@
 package com.alfre.DHHotel.notificationworker.listener;
 
 import com.alfre.DHHotel.notificationworker.event.BookingCreatedEvent;
+import com.alfre.DHHotel.notificationworker.event.GroupBookingCreatedEvent;
 import com.alfre.DHHotel.notificationworker.service.EmailService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -8,14 +9,22 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.amqp.AmqpRejectAndDontRequeueException;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.config.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -40,6 +49,9 @@ public class NotificationListenerTest {
     @Autowired
     private NotificationListener notificationListener;
 
+    @Autowired
+    private RabbitListenerEndpointRegistry listenerRegistry;
+
     @MockitoBean
     private EmailService emailService;
 
@@ -74,6 +86,64 @@ public class NotificationListenerTest {
                 () -> notificationListener.onBookingCreated(event, message));
     }
 
+    /**
+     * Tests that a group booking message, as published by the API with routing key booking.group.created,
+     * is converted into a group event by the listener of the group queue and sends one group confirmation
+     * instead of a single booking confirmation.
+     */
+    @Test
+    void testOnGroupBookingCreated_PublishedMessage_SendsGroupConfirmation() throws Exception {
+        // Arrange
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setHeader("__TypeId__", "com.alfre.DHHotel.domain.event.GroupBookingCreatedEvent");
+        String body = """
+                {"bookingIds":[7,8],"guestEmail":"group-client@test.com","guestName":"Group Client",
+                "roomNumbers":["101","102"],"checkIn":"2026-06-01","checkOut":"2026-06-05","totalPrice":640.00}
+                """;
+        Message message = new Message(body.getBytes(StandardCharsets.UTF_8), properties);
+        AbstractMessageListenerContainer container = (AbstractMessageListenerContainer)
+                listenerRegistry.getListenerContainer(NotificationListener.GROUP_LISTENER_ID);
+
+        // Act
+        ((ChannelAwareMessageListener) container.getMessageListener()).onMessage(message, null);
+
+        // Assert
+        verify(emailService, times(1)).sendGroupBookingConfirmation(new GroupBookingCreatedEvent(
+                List.of(7L, 8L),
+                "group-client@test.com",
+                "Group Client",
+                List.of("101", "102"),
+                LocalDate.of(2026, 6, 1),
+                LocalDate.of(2026, 6, 5),
+                new BigDecimal("640.00")
+        ));
+        verify(emailService, never()).sendBookingConfirmation(any());
+    }
+
+    /**
+     * Tests that email delivery failures of a group booking reject the message without requeueing.
+     */
+    @Test
+    void testOnGroupBookingCreated_EmailServiceThrows_RejectsWithoutRequeue() {
+        // Arrange
+        GroupBookingCreatedEvent event = new GroupBookingCreatedEvent(
+                List.of(7L, 8L),
+                "group-client@test.com",
+                "Group Client",
+                List.of("101", "102"),
+                LocalDate.now().plusDays(3),
+                LocalDate.now().plusDays(5),
+                new BigDecimal("640.00")
+        );
+        Message message = new Message(new byte[0], new MessageProperties());
+        doThrow(new RuntimeException("SMTP failure")).when(emailService).sendGroupBookingConfirmation(event);
+
+        // Act & Assert
+        assertThrows(AmqpRejectAndDontRequeueException.class,
+                () -> notificationListener.onGroupBookingCreated(event, message));
+    }
+
     private BookingCreatedEvent bookingCreatedEvent() {
         return new BookingCreatedEvent(
                 1L,
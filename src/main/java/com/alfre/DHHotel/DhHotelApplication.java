@@ -3,6 +3,7 @@ package com.alfre.DHHotel;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * This class contains main method of the application the start point of the app execution.
@@ -11,6 +12,7 @@ import org.springframework.cache.annotation.EnableCaching;
  */
 @SpringBootApplication
 @EnableCaching
+@EnableScheduling
 public class DhHotelApplication {
 
 	public static void main(String[] args) {
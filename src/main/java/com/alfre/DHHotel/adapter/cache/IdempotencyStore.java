@@ -0,0 +1,390 @@
+package com.alfre.DHHotel.adapter.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Store of the responses of the creation requests sent with an {@code Idempotency-Key} header, so a client that
+ * retries a request whose response it never got receives the original response instead of creating the
+ * reservation or the payment twice.
+ * <p>
+ * The first request with a key claims it in the shared tier, Redis for every API node or a local stand-in, and
+ * runs; its response, the ID of what it created, is then kept in the shared tier and in a bounded in-process L1
+ * for the retention period, and the retries are answered from them without running again. Duplicates that reach
+ * this node while the first request is still running wait for it and get its response; duplicates that reach
+ * another node meanwhile are refused as a conflict, to be retried. A request that fails releases its key, so it
+ * can be retried with the same key.
+ * </p>
+ * <p>
+ * The claim and the response are stored with a {@link #fingerprint(Object...) fingerprint} of the request body, and
+ * a request that reuses a key with a different body is refused with a {@link KeyReusedException} instead of getting
+ * the response of another request.
+ * </p>
+ * <p>
+ * When Redis cannot be reached the requests go ahead with the L1 alone, which still answers the retries that
+ * reach this node.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+public class IdempotencyStore {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+    private static final String PREFIX = "dhhotel:idempotency:";
+    private static final String IN_PROGRESS = "Ya se está procesando una petición con la misma clave de idempotencia";
+    private static final String SEPARATOR = ":";
+
+    /**
+     * Value of a claimed key whose request is still running.
+     */
+    static final String PENDING = "pending";
+
+    /**
+     * How long a key stays claimed by a request that never finishes, such as one whose node went down: longer than
+     * any creation request takes, and short enough for the client to retry it.
+     */
+    static final Duration PENDING_TTL = Duration.ofMinutes(1);
+
+    /**
+     * Longest key accepted.
+     */
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final Shared shared;
+    private final Cache<String, Response> local;
+    private final Duration retention;
+    private final Map<String, Response> running = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a store kept in the memory of this node, with up to 10000 responses kept for a day.
+     */
+    public IdempotencyStore() {
+        this(Shared.local(10000, Duration.ofDays(1)), 10000, Duration.ofDays(1));
+    }
+
+    /**
+     * Constructs the store.
+     *
+     * @param shared the tier shared by every API node
+     * @param localMaximumSize the maximum number of responses kept in L1
+     * @param retention how long a response is kept after its request finished
+     */
+    public IdempotencyStore(Shared shared, long localMaximumSize, Duration retention) {
+        if (localMaximumSize <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo de la caché local debe ser mayor que 0");
+        }
+        this.shared = shared;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(retention)
+                .build();
+        this.retention = retention;
+    }
+
+    /**
+     * Checks a key sent by a client.
+     *
+     * @param key the {@code Idempotency-Key} header, may be null
+     * @throws IllegalArgumentException if the key is blank or longer than {@value #MAX_KEY_LENGTH} characters
+     */
+    public static void checkKey(String key) {
+        if (key != null && (key.isBlank() || key.length() > MAX_KEY_LENGTH)) {
+            throw new IllegalArgumentException(
+                    "La clave de idempotencia debe tener entre 1 y " + MAX_KEY_LENGTH + " caracteres");
+        }
+    }
+
+    /**
+     * Builds the fingerprint of a request body from the fields it carries, so two requests with the same key can be
+     * told apart.
+     *
+     * @param fields the fields of the body, in a fixed order
+     * @return the SHA-256 hash of the fields, in hexadecimal
+     */
+    public static String fingerprint(Object... fields) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (Object field : fields) {
+            digest.update(String.valueOf(field).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Runs a creation request once per key, without checking the body of the retries.
+     *
+     * @param key the key of the request, scoped by the caller to the operation and the user, or {@code null} to
+     *            run the request without deduplication
+     * @param action the request, returning the ID of what it created
+     * @return the ID created by the request, or by the first request with the same key
+     * @throws ConcurrencyFailureException if a request with the same key is running on another node
+     */
+    public long execute(String key, LongSupplier action) {
+        return execute(key, null, action);
+    }
+
+    /**
+     * Runs a creation request once per key.
+     *
+     * @param key the key of the request, scoped by the caller to the operation and the user, or {@code null} to
+     *            run the request without deduplication
+     * @param fingerprint the {@link #fingerprint(Object...) fingerprint} of the request body, or {@code null} to
+     *                    answer any request with the same key
+     * @param action the request, returning the ID of what it created
+     * @return the ID created by the request, or by the first request with the same key
+     * @throws ConcurrencyFailureException if a request with the same key is running on another node
+     * @throws KeyReusedException if the first request with the same key had a different body
+     */
+    public long execute(String key, String fingerprint, LongSupplier action) {
+        if (key == null) {
+            return action.getAsLong();
+        }
+        Response stored = local.getIfPresent(key);
+        if (stored != null) {
+            return stored.checked(fingerprint).id().join();
+        }
+
+        Response own = new Response(fingerprint, new CompletableFuture<>());
+        Response first = running.putIfAbsent(key, own);
+        if (first != null) {
+            return await(first.checked(fingerprint).id());
+        }
+        try {
+            long id = claimAndRun(key, fingerprint, action);
+            own.id().complete(id);
+            return id;
+        } catch (RuntimeException e) {
+            own.id().completeExceptionally(e);
+            throw e;
+        } finally {
+            running.remove(key, own);
+        }
+    }
+
+    /**
+     * Claims the key in the shared tier and runs the request, or returns the response already stored there.
+     */
+    private long claimAndRun(String key, String fingerprint, LongSupplier action) {
+        boolean sharedAvailable = true;
+        String previous = null;
+        try {
+            previous = shared.putIfAbsent(PREFIX + key, withFingerprint(PENDING, fingerprint), PENDING_TTL);
+        } catch (DataAccessException e) {
+            logger.warn("No se ha podido reservar la clave de idempotencia en Redis, se sigue sin ella: {}",
+                    e.getMessage());
+            sharedAvailable = false;
+        }
+        if (previous != null) {
+            String[] parts = previous.split(SEPARATOR, 2);
+            Response response = new Response(parts.length > 1 ? parts[1] : null, new CompletableFuture<>())
+                    .checked(fingerprint);
+            if (PENDING.equals(parts[0])) {
+                throw new ConcurrencyFailureException(IN_PROGRESS);
+            }
+            long id = Long.parseLong(parts[0]);
+            response.id().complete(id);
+            local.put(key, response);
+            return id;
+        }
+
+        long id;
+        try {
+            id = action.getAsLong();
+        } catch (RuntimeException e) {
+            if (sharedAvailable) {
+                release(key);
+            }
+            throw e;
+        }
+        local.put(key, new Response(fingerprint, CompletableFuture.completedFuture(id)));
+        if (sharedAvailable) {
+            try {
+                shared.put(PREFIX + key, withFingerprint(Long.toString(id), fingerprint), retention);
+            } catch (DataAccessException e) {
+                logger.warn("No se ha podido guardar la respuesta de la clave de idempotencia en Redis: {}",
+                        e.getMessage());
+            }
+        }
+        return id;
+    }
+
+    private static String withFingerprint(String value, String fingerprint) {
+        return fingerprint == null ? value : value + SEPARATOR + fingerprint;
+    }
+
+    private void release(String key) {
+        try {
+            shared.remove(PREFIX + key);
+        } catch (DataAccessException e) {
+            logger.warn("No se ha podido liberar la clave de idempotencia en Redis: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Waits for the first request with the same key and returns its response, or throws its error.
+     */
+    private static long await(CompletableFuture<Long> first) {
+        try {
+            return first.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The response of the first request with a key and the fingerprint of its body.
+     *
+     * @param fingerprint the fingerprint of the body, or {@code null} if it is not known
+     * @param id the ID created by the request, completed once it finishes
+     */
+    private record Response(String fingerprint, CompletableFuture<Long> id) {
+        /**
+         * Checks that a request with the same key has the same body.
+         *
+         * @param requested the fingerprint of the body of the new request, or {@code null} to skip the check
+         * @return this response
+         * @throws KeyReusedException if both fingerprints are known and differ
+         */
+        Response checked(String requested) {
+            if (fingerprint != null && requested != null && !fingerprint.equals(requested)) {
+                throw new KeyReusedException();
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Thrown when a request reuses the idempotency key of an earlier request with a different body.
+     */
+    public static class KeyReusedException extends RuntimeException {
+        /**
+         * Constructs the exception with its message.
+         */
+        public KeyReusedException() {
+            super("La clave de idempotencia ya se ha usado con una petición distinta");
+        }
+    }
+
+    /**
+     * Tier of the store shared by every API node, holding {@link #PENDING} for a claimed key and the response once
+     * its request finished, each followed by the fingerprint of the request body when it is known.
+     */
+    public interface Shared {
+        /**
+         * Stores a value unless the key already has one.
+         *
+         * @param key the key
+         * @param value the value
+         * @param ttl how long the value is kept
+         * @return the value the key already had, or {@code null} if the value was stored
+         */
+        String putIfAbsent(String key, String value, Duration ttl);
+
+        /**
+         * Stores a value, replacing the one of the key.
+         *
+         * @param key the key
+         * @param value the value
+         * @param ttl how long the value is kept
+         */
+        void put(String key, String value, Duration ttl);
+
+        /**
+         * Removes the value of a key.
+         *
+         * @param key the key
+         */
+        void remove(String key);
+
+        /**
+         * Builds the tier over Redis, whose values expire on their own.
+         *
+         * @param redisTemplate the template of the Redis server shared by every API node
+         * @return the tier
+         */
+        static Shared redis(StringRedisTemplate redisTemplate) {
+            ValueOperations<String, String> values = redisTemplate.opsForValue();
+            return new Shared() {
+                @Override
+                public String putIfAbsent(String key, String value, Duration ttl) {
+                    while (true) {
+                        if (Boolean.TRUE.equals(values.setIfAbsent(key, value, ttl))) {
+                            return null;
+                        }
+                        // The value may expire or be released between both commands
+                        String current = values.get(key);
+                        if (current != null) {
+                            return current;
+                        }
+                    }
+                }
+
+                @Override
+                public void put(String key, String value, Duration ttl) {
+                    values.set(key, value, ttl);
+                }
+
+                @Override
+                public void remove(String key) {
+                    redisTemplate.delete(key);
+                }
+            };
+        }
+
+        /**
+         * Builds a stand-in of the tier kept in the memory of this node, for a single node or when there is no
+         * Redis. Its values are bounded in number and expire after the retention period, whatever their TTL.
+         *
+         * @param maximumSize the maximum number of values kept
+         * @param retention how long a value is kept after being written
+         * @return the tier
+         */
+        static Shared local(long maximumSize, Duration retention) {
+            Map<String, String> values = Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterWrite(retention)
+                    .<String, String>build()
+                    .asMap();
+            return new Shared() {
+                @Override
+                public String putIfAbsent(String key, String value, Duration ttl) {
+                    return values.putIfAbsent(key, value);
+                }
+
+                @Override
+                public void put(String key, String value, Duration ttl) {
+                    values.put(key, value);
+                }
+
+                @Override
+                public void remove(String key) {
+                    values.remove(key);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.alfre.DHHotel.adapter.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.lang.NonNull;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * Cache that keeps a bounded in-process copy (L1) of the entries of a shared cache (L2, Redis).
+ * <p>
+ * Reads are answered from L1 when possible and only go over the network on an L1 miss, filling L1 with the value
+ * found in L2. Lookups with a loader go through L1 too, so concurrent misses of a key load it only once per
+ * node. Writes and evictions go to L2 first, then to L1, and are broadcast so the other API nodes drop their
+ * own L1 copy of the entry. L1 keys are the string form of the cache keys, which is how Redis stores them too.
+ * </p>
+ * <p>
+ * Every lookup is counted in {@code dhhotel.cache.gets}, tagged with the cache, the tier that answered it and
+ * whether it was a hit or a miss.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+public class TieredCache implements Cache {
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local;
+    private final Cache shared;
+    private final BiConsumer<String, String> invalidationPublisher;
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter sharedHits;
+    private final Counter sharedMisses;
+
+    /**
+     * Constructs a two-tier cache.
+     *
+     * @param name the name of the cache
+     * @param local the bounded in-process cache
+     * @param shared the cache shared by every API node
+     * @param invalidationPublisher receives the cache name and the key (or {@code null} for the whole cache) of
+     *                              every change that the other nodes must drop from their L1
+     * @param meterRegistry the registry the hit and miss counters are published to
+     */
+    public TieredCache(String name, com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local,
+                       Cache shared, BiConsumer<String, String> invalidationPublisher,
+                       MeterRegistry meterRegistry) {
+        this.name = name;
+        this.local = local;
+        this.shared = shared;
+        this.invalidationPublisher = invalidationPublisher;
+        this.localHits = counter(meterRegistry, name, "l1", "hit");
+        this.localMisses = counter(meterRegistry, name, "l1", "miss");
+        this.sharedHits = counter(meterRegistry, name, "l2", "hit");
+        this.sharedMisses = counter(meterRegistry, name, "l2", "miss");
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    @NonNull
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(@NonNull Object key) {
+        String localKey = localKey(key);
+        ValueWrapper wrapper = local.getIfPresent(localKey);
+        if (wrapper != null) {
+            localHits.increment();
+            return wrapper;
+        }
+        localMisses.increment();
+
+        wrapper = shared.get(key);
+        if (wrapper == null) {
+            sharedMisses.increment();
+            return null;
+        }
+        sharedHits.increment();
+        wrapper = new SimpleValueWrapper(wrapper.get());
+        local.put(localKey, wrapper);
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("El valor en caché no es del tipo " + type.getName() + ": " + value);
+        }
+        return (T) value;
+    }
+
+    /**
+     * Returns the value of a key, loading it on a miss of both tiers. Concurrent misses of the same key on this node
+     * are coalesced through L1: only one of them reads L2 and, if L2 misses too, runs the loader and stores the
+     * value in L2, while the others wait for its value.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        ValueWrapper wrapper = local.getIfPresent(localKey);
+        if (wrapper != null) {
+            localHits.increment();
+            return (T) wrapper.get();
+        }
+        localMisses.increment();
+
+        AtomicBoolean loaded = new AtomicBoolean();
+        wrapper = local.get(localKey, ignored -> {
+            ValueWrapper found = shared.get(key);
+            if (found != null) {
+                sharedHits.increment();
+                return new SimpleValueWrapper(found.get());
+            }
+            sharedMisses.increment();
+            T value;
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            shared.put(key, value);
+            loaded.set(true);
+            return new SimpleValueWrapper(value);
+        });
+        if (loaded.get()) {
+            invalidationPublisher.accept(name, localKey);
+        }
+        return (T) wrapper.get();
+    }
+
+    @Override
+    public void put(@NonNull Object key, Object value) {
+        shared.put(key, value);
+        local.put(localKey(key), new SimpleValueWrapper(value));
+        invalidationPublisher.accept(name, localKey(key));
+    }
+
+    @Override
+    public void evict(@NonNull Object key) {
+        shared.evict(key);
+        local.invalidate(localKey(key));
+        invalidationPublisher.accept(name, localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        shared.clear();
+        local.invalidateAll();
+        invalidationPublisher.accept(name, null);
+    }
+
+    /**
+     * Drops an entry, or every entry, from L1 after another node changed it in L2.
+     *
+     * @param key the string form of the key, or {@code null} to drop the whole cache
+     */
+    public void invalidateLocal(String key) {
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+
+    /**
+     * @return the approximate number of entries in L1
+     */
+    public long localSize() {
+        return local.estimatedSize();
+    }
+
+    static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String cache, String tier, String result) {
+        return Counter.builder("dhhotel.cache.gets")
+                .description("Cache lookups per tier")
+                .tag("cache", cache)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,149 @@
+package com.alfre.DHHotel.adapter.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.lang.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Cache manager that puts a bounded in-process cache (L1) in front of every cache of a shared cache manager (L2).
+ * <p>
+ * Each change made through a {@link TieredCache} is broadcast as a message with the identifier of this node, the
+ * cache name and the key, and every node that receives it drops that entry from its L1, so a node never keeps
+ * serving an entry changed by another node. Messages sent by this node are ignored. Should a message be lost, the
+ * L1 entries also expire after a short time.
+ * </p>
+ * <p>
+ * The size of each L1 is published as the {@code dhhotel.cache.l1.size} gauge.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+public class TieredCacheManager implements CacheManager, MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(TieredCacheManager.class);
+    private static final String SEPARATOR = "\n";
+
+    private final CacheManager sharedCacheManager;
+    private final Consumer<String> broadcaster;
+    private final MeterRegistry meterRegistry;
+    private final long localMaximumSize;
+    private final Duration localTtl;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, TieredCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs the manager.
+     *
+     * @param sharedCacheManager the manager of the caches shared by every API node
+     * @param broadcaster sends an invalidation message to every API node, this one included
+     * @param meterRegistry the registry the cache metrics are published to
+     * @param localMaximumSize the maximum number of entries of each L1
+     * @param localTtl how long an entry stays in L1 after being written
+     */
+    public TieredCacheManager(CacheManager sharedCacheManager, Consumer<String> broadcaster,
+                              MeterRegistry meterRegistry, long localMaximumSize, Duration localTtl) {
+        if (localMaximumSize <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo de la caché local debe ser mayor que 0");
+        }
+        this.sharedCacheManager = sharedCacheManager;
+        this.broadcaster = broadcaster;
+        this.meterRegistry = meterRegistry;
+        this.localMaximumSize = localMaximumSize;
+        this.localTtl = localTtl;
+    }
+
+    @Override
+    public Cache getCache(@NonNull String name) {
+        TieredCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache shared = sharedCacheManager.getCache(name);
+        if (shared == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, ignored -> createCache(name, shared));
+    }
+
+    @Override
+    @NonNull
+    public Collection<String> getCacheNames() {
+        return sharedCacheManager.getCacheNames();
+    }
+
+    /**
+     * Drops from L1 the entry named by an invalidation message sent by another node.
+     *
+     * @param message the invalidation message
+     * @param pattern the channel pattern the message matched, if any
+     */
+    @Override
+    public void onMessage(@NonNull Message message, byte[] pattern) {
+        handleInvalidation(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Drops from L1 the entry named by an invalidation message, unless this node sent it.
+     *
+     * @param payload the body of the message
+     */
+    void handleInvalidation(String payload) {
+        String[] parts = payload.split(SEPARATOR, 3);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TieredCache cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.invalidateLocal(parts.length == 3 ? parts[2] : null);
+        }
+    }
+
+    /**
+     * @return the identifier of this node in the invalidation messages
+     */
+    String getNodeId() {
+        return nodeId;
+    }
+
+    private TieredCache createCache(String name, Cache shared) {
+        com.github.benmanes.caffeine.cache.Cache<String, Cache.ValueWrapper> local = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localTtl)
+                .build();
+        TieredCache cache = new TieredCache(name, local, shared, this::publish, meterRegistry);
+        Gauge.builder("dhhotel.cache.l1.size", cache, TieredCache::localSize)
+                .description("Entries held in the in-process cache")
+                .tag("cache", name)
+                .register(meterRegistry);
+        return cache;
+    }
+
+    /**
+     * Broadcasts a change. A failed broadcast does not fail the write: the other nodes will see the change once
+     * their L1 entry expires.
+     */
+    private void publish(String cacheName, String key) {
+        String payload = key == null
+                ? nodeId + SEPARATOR + cacheName
+                : nodeId + SEPARATOR + cacheName + SEPARATOR + key;
+        try {
+            broadcaster.accept(payload);
+        } catch (RuntimeException e) {
+            logger.warn("No se ha podido difundir la invalidación de la caché {}: {}", cacheName, e.getMessage());
+        }
+    }
+}
@@ -55,6 +55,22 @@ public class AdministratorJdbcRepository implements AdministratorRepository {
         return jdbcTemplate.query(sql, mapper);
     }
 
+    /**
+     * Retrieves a page of the administrators, ordered by identifier, starting right after the given identifier.
+     *
+     * @param afterId the identifier the page starts after, 0 for the first page
+     * @param limit the maximum number of administrators of the page
+     * @return a list of up to {@code limit} Administrator objects
+     */
+    @Override
+    public List<Administrator> getAdministratorsPage(long afterId, int limit) {
+        String sql = "SELECT * FROM " + table + " WHERE id > :afterId ORDER BY id LIMIT :limit";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("afterId", afterId)
+                .addValue("limit", limit);
+        return jdbcTemplate.query(sql, params, mapper);
+    }
+
     /**
      * Retrieves an administrator by the given user ID (as a String).
      *
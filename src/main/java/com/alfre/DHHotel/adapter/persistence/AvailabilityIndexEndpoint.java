@@ -0,0 +1,48 @@
+package com.alfre.DHHotel.adapter.persistence;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint ({@code /actuator/availability}) that checks the in-memory availability index against the
+ * reservation table and allows reloading it when both sides have drifted apart.
+ *
+ * @author Alfredo Sobrados González
+ */
+@Component
+@Endpoint(id = "availability")
+public class AvailabilityIndexEndpoint {
+    private final ReservationJdbcRepository reservationRepository;
+
+    /**
+     * Constructs the endpoint over the reservation repository that owns the index.
+     *
+     * @param reservationRepository the repository that keeps the availability index up to date
+     */
+    public AvailabilityIndexEndpoint(ReservationJdbcRepository reservationRepository) {
+        this.reservationRepository = reservationRepository;
+    }
+
+    /**
+     * Compares the index with the reservation table.
+     *
+     * @return the consistency report
+     */
+    @ReadOperation
+    public RoomAvailabilityIndex.ConsistencyReport check() {
+        return reservationRepository.checkAvailabilityIndex();
+    }
+
+    /**
+     * Reloads the index from the reservation table and checks it again.
+     *
+     * @return the consistency report after the reload
+     */
+    @WriteOperation
+    public RoomAvailabilityIndex.ConsistencyReport rebuild() {
+        reservationRepository.loadAvailabilityIndex();
+        return reservationRepository.checkAvailabilityIndex();
+    }
+}
@@ -1,6 +1,7 @@
 package com.alfre.DHHotel.adapter.persistence;
 
 import com.alfre.DHHotel.domain.model.Client;
+import com.alfre.DHHotel.domain.model.FieldSet;
 import com.alfre.DHHotel.domain.repository.ClientRepository;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.RowMapper;
@@ -23,6 +24,11 @@ import java.util.Optional;
  */
 @Repository
 public class ClientJdbcRepository implements ClientRepository {
+    /**
+     * Columns of the client table a list may select, in the order of the entity.
+     */
+    static final List<String> COLUMNS = List.of("id", "user_id", "first_name", "last_name", "phone");
+
     private final NamedParameterJdbcTemplate jdbcTemplate;
 
     private final SimpleJdbcInsert insert;
@@ -55,6 +61,26 @@ public class ClientJdbcRepository implements ClientRepository {
         return jdbcTemplate.query(sql, mapper);
     }
 
+    /**
+     * Retrieves a page of the clients, ordered by identifier, starting right after the given identifier.
+     * Only the fields asked are selected and mapped.
+     *
+     * @param afterId the identifier the page starts after, 0 for the first page
+     * @param limit the maximum number of clients of the page
+     * @param fields the fields to read
+     * @return a list of up to {@code limit} Client objects
+     * @throws IllegalArgumentException if a field is not a column of the client table
+     */
+    @Override
+    public List<Client> getClientsPage(long afterId, int limit, FieldSet fields) {
+        String sql = "SELECT " + String.join(", ", fields.within(COLUMNS)) + " FROM " + table +
+                " WHERE id > :afterId ORDER BY id LIMIT :limit";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("afterId", afterId)
+                .addValue("limit", limit);
+        return jdbcTemplate.query(sql, params, fields.isAll() ? mapper : new ClientMapper(fields));
+    }
+
     /**
      * Retrieves a client by its unique identifier.
      *
@@ -139,6 +165,23 @@ public class ClientJdbcRepository implements ClientRepository {
      * Maps rows of a SQL ResultSet to Client objects.
      */
     public static class ClientMapper implements RowMapper<Client> {
+        private final FieldSet fields;
+
+        /**
+         * Constructs a mapper of rows holding every column.
+         */
+        public ClientMapper() {
+            this(FieldSet.ALL);
+        }
+
+        /**
+         * Constructs a mapper of rows holding only the given fields, which leaves the others unset.
+         *
+         * @param fields the fields selected
+         */
+        public ClientMapper(FieldSet fields) {
+            this.fields = fields;
+        }
 
         /**
          * Maps the current row of the given ResultSet to a Client object.
@@ -151,10 +194,10 @@ public class ClientJdbcRepository implements ClientRepository {
         @Override
         public Client mapRow(ResultSet rs, int rowNum) throws SQLException {
             long id = rs.getLong("id");
-            long userId = rs.getLong("user_id");
-            String firstName = rs.getString("first_name");
-            String lastName = rs.getString("last_name");
-            String phone = rs.getString("phone");
+            long userId = fields.has("user_id") ? rs.getLong("user_id") : 0;
+            String firstName = fields.has("first_name") ? rs.getString("first_name") : null;
+            String lastName = fields.has("last_name") ? rs.getString("last_name") : null;
+            String phone = fields.has("phone") ? rs.getString("phone") : null;
 
             return new Client(id, userId, firstName, lastName, phone);
         }
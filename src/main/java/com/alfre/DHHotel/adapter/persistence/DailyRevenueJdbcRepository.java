@@ -0,0 +1,413 @@
+package com.alfre.DHHotel.adapter.persistence;
+
+import com.alfre.DHHotel.domain.model.DailyRevenue;
+import com.alfre.DHHotel.domain.model.Payment;
+import com.alfre.DHHotel.domain.model.Reservation;
+import com.alfre.DHHotel.domain.model.ReservationStatus;
+import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.domain.repository.DailyRevenueRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This class contains the attributes and methods of the daily revenue repository in the adapter layer that access
+ * to the database of the API and keeps the revenue and occupancy rollups of each day by room type.
+ * <p>
+ * The rollups change by the difference of every reservation and payment write: each night of a reservation, from the
+ * check-in date up to but not including the check-out date, adds one room sold and its share of the price to the row
+ * of the night and the type of the room, and each payment adds its amount to the row of its date. The share of a
+ * night is the price divided by the nights and rounded to cents, with the rounding difference on the last night, so
+ * the shares of a reservation always add up to its price. A stay that checks out on its check-in date sells nothing.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Repository
+public class DailyRevenueJdbcRepository implements DailyRevenueRepository, RevenueRollup {
+    private static final Logger logger = LoggerFactory.getLogger(DailyRevenueJdbcRepository.class);
+
+    /**
+     * Adds rooms sold and revenue to the row of a day and the type of a room.
+     */
+    private static final String ADD_NIGHTS = "INSERT INTO DailyRevenue (day, room_type, rooms_sold, room_revenue) " +
+            "SELECT :day, type, :roomsSold, :roomRevenue FROM Room WHERE id = :roomId " +
+            "ON DUPLICATE KEY UPDATE rooms_sold = rooms_sold + VALUES(rooms_sold), " +
+            "room_revenue = room_revenue + VALUES(room_revenue)";
+
+    /**
+     * Adds payments to the row of a day and the type of the room of a reservation.
+     */
+    private static final String ADD_PAYMENTS = "INSERT INTO DailyRevenue (day, room_type, payments_total) " +
+            "SELECT :day, ro.type, :amount FROM Reservation r JOIN Room ro ON ro.id = r.room_id " +
+            "WHERE r.id = :reservationId " +
+            "ON DUPLICATE KEY UPDATE payments_total = payments_total + VALUES(payments_total)";
+
+    /**
+     * Creates the row of a day and a type if it is missing and locks it until the end of the transaction. The
+     * update leaves the row as it is, but takes the same exclusive lock as the writes that add to it.
+     */
+    private static final String LOCK_ROW = "INSERT INTO DailyRevenue (day, room_type) VALUES (:day, :roomType) " +
+            "ON DUPLICATE KEY UPDATE rooms_sold = rooms_sold";
+
+    /**
+     * Reads the row of a day and a type.
+     */
+    private static final String GET_ROW = "SELECT * FROM DailyRevenue WHERE day = :day AND room_type = :roomType";
+
+    /**
+     * Sets the whole row of a day and a type.
+     */
+    private static final String SET_ROW = "UPDATE DailyRevenue SET rooms_sold = :roomsSold, " +
+            "room_revenue = :roomRevenue, payments_total = :paymentsTotal WHERE day = :day AND room_type = :roomType";
+
+    /**
+     * Rollups added up from the room-night ledger and the payments, with the same shares as
+     * {@link #reservationsChanged}. The ledger also holds the check-out day of each stay, which is left out. The
+     * two placeholders take the conditions of the nights and of the payments.
+     */
+    private static final String EXPECTED = """
+    SELECT day, room_type, SUM(rooms_sold) AS rooms_sold, SUM(room_revenue) AS room_revenue,
+           SUM(payments_total) AS payments_total
+    FROM (
+        SELECT n.night AS day, ro.type AS room_type, COUNT(*) AS rooms_sold,
+               SUM(CASE WHEN n.night = DATE_SUB(r.end_date, INTERVAL 1 DAY)
+                   THEN r.total_price - ROUND(r.total_price / DATEDIFF(r.end_date, r.start_date), 2)
+                        * (DATEDIFF(r.end_date, r.start_date) - 1)
+                   ELSE ROUND(r.total_price / DATEDIFF(r.end_date, r.start_date), 2) END) AS room_revenue,
+               0 AS payments_total
+        FROM RoomNight n
+        JOIN Reservation r ON r.id = n.reservation_id
+        JOIN Room ro ON ro.id = n.room_id
+        WHERE n.night < r.end_date%s
+        GROUP BY n.night, ro.type
+        UNION ALL
+        SELECT p.payment_date, ro.type, 0, 0, SUM(p.amount)
+        FROM Payment p
+        JOIN Reservation r ON r.id = p.reservation_id
+        JOIN Room ro ON ro.id = r.room_id%s
+        GROUP BY p.payment_date, ro.type
+    ) t
+    GROUP BY day, room_type""";
+
+    /**
+     * Rollups of every day.
+     */
+    private static final String EXPECTED_ROWS = EXPECTED.formatted("", "");
+
+    /**
+     * Rollup of one day and one type, read through the night and payment date indexes.
+     */
+    private static final String EXPECTED_ROW = EXPECTED.formatted(
+            " AND n.night = :day AND ro.type = :roomType",
+            "\n        WHERE p.payment_date = :day AND ro.type = :roomType");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final DailyRevenueMapper mapper = new DailyRevenueMapper();
+
+    private final String table = "DailyRevenue";
+
+    /**
+     * Constructs a DailyRevenueJdbcRepository with the provided NamedParameterJdbcTemplate.
+     * Each rollup is corrected in its own read-committed transaction, so every statement of the correction sees
+     * the writes committed while it waited for the lock of the row.
+     *
+     * @param namedParameterJdbcTemplate the template for executing parameterized SQL queries
+     * @param transactionManager the manager of the transactions the rollups are corrected in
+     */
+    public DailyRevenueJdbcRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                      PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    /**
+     * Retrieves the rollups of the days of a date range with a single range query on the primary key.
+     *
+     * @param from the first day of the range
+     * @param to the last day of the range
+     * @return the DailyRevenue rows of the range ordered by day and room type
+     */
+    @Override
+    public List<DailyRevenue> getDailyRevenue(LocalDate from, LocalDate to) {
+        String sql = "SELECT * FROM " + table + " WHERE day BETWEEN :from AND :to ORDER BY day, room_type";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", from)
+                .addValue("to", to);
+        return jdbcTemplate.query(sql, params, mapper);
+    }
+
+    /**
+     * Adds the difference of the nights of the given reservations to the rollups, with one batched upsert holding a
+     * statement per night and room whose count or revenue changes. A write that leaves the dates and the price of a
+     * reservation as they were runs nothing.
+     *
+     * @param removed the reservations as they were before the write
+     * @param added the reservations as they are after the write
+     */
+    @Override
+    public void reservationsChanged(Collection<Reservation> removed, Collection<Reservation> added) {
+        Map<Cell, Amounts> deltas = new LinkedHashMap<>();
+        removed.forEach(reservation -> addNights(deltas, reservation, BigDecimal.ONE.negate()));
+        added.forEach(reservation -> addNights(deltas, reservation, BigDecimal.ONE));
+        SqlParameterSource[] batch = deltas.entrySet().stream()
+                .filter(delta -> !delta.getValue().isZero())
+                .map(delta -> new MapSqlParameterSource()
+                        .addValue("day", delta.getKey().day())
+                        .addValue("roomId", delta.getKey().id())
+                        .addValue("roomsSold", delta.getValue().count)
+                        .addValue("roomRevenue", delta.getValue().amount))
+                .toArray(SqlParameterSource[]::new);
+        if (batch.length > 0) {
+            jdbcTemplate.batchUpdate(ADD_NIGHTS, batch);
+        }
+    }
+
+    /**
+     * Adds the difference of the given payments to the rollups, with one batched upsert holding a statement per
+     * day and reservation whose payments change.
+     *
+     * @param removed the payments as they were before the write
+     * @param added the payments as they are after the write
+     */
+    @Override
+    public void paymentsChanged(Collection<Payment> removed, Collection<Payment> added) {
+        Map<Cell, Amounts> deltas = new LinkedHashMap<>();
+        removed.forEach(payment -> deltas.computeIfAbsent(new Cell(payment.payment_date, payment.reservation_id),
+                cell -> new Amounts()).add(0, payment.amount.negate()));
+        added.forEach(payment -> deltas.computeIfAbsent(new Cell(payment.payment_date, payment.reservation_id),
+                cell -> new Amounts()).add(0, payment.amount));
+        SqlParameterSource[] batch = deltas.entrySet().stream()
+                .filter(delta -> !delta.getValue().isZero())
+                .map(delta -> new MapSqlParameterSource()
+                        .addValue("day", delta.getKey().day())
+                        .addValue("reservationId", delta.getKey().id())
+                        .addValue("amount", delta.getValue().amount))
+                .toArray(SqlParameterSource[]::new);
+        if (batch.length > 0) {
+            jdbcTemplate.batchUpdate(ADD_PAYMENTS, batch);
+        }
+    }
+
+    /**
+     * Deletes every rollup.
+     */
+    @Override
+    public void reservationsCleared() {
+        jdbcTemplate.update("DELETE FROM " + table, new MapSqlParameterSource());
+    }
+
+    /**
+     * Takes the payments out of every rollup.
+     */
+    @Override
+    public void paymentsCleared() {
+        jdbcTemplate.update("UPDATE " + table + " SET payments_total = 0", new MapSqlParameterSource());
+    }
+
+    /**
+     * Finds the rollups that do not match the room-night ledger and the payments, adding them up again.
+     *
+     * @return the rollups that have drifted, ordered by day and room type
+     */
+    public List<RollupDrift> findDrift() {
+        Map<Row, DailyRevenue> stored = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT * FROM " + table, new MapSqlParameterSource(), mapper)
+                .forEach(row -> stored.put(new Row(row.day, row.room_type), row));
+        Map<Row, DailyRevenue> expected = new LinkedHashMap<>();
+        jdbcTemplate.query(EXPECTED_ROWS, new MapSqlParameterSource(), mapper)
+                .forEach(row -> expected.put(new Row(row.day, row.room_type), row));
+
+        List<RollupDrift> drift = new ArrayList<>();
+        for (Row row : stored.keySet()) {
+            expected.putIfAbsent(row, new DailyRevenue(row.day(), row.roomType(), 0, BigDecimal.ZERO,
+                    BigDecimal.ZERO));
+        }
+        expected.forEach((row, rollup) -> {
+            DailyRevenue current = stored.getOrDefault(row, new DailyRevenue(row.day(), row.roomType(), 0,
+                    BigDecimal.ZERO, BigDecimal.ZERO));
+            if (!sameAmounts(current, rollup)) {
+                drift.add(new RollupDrift(current, rollup));
+            }
+        });
+        drift.sort((a, b) -> {
+            int byDay = a.expected().day.compareTo(b.expected().day);
+            return byDay != 0 ? byDay : a.expected().room_type.compareTo(b.expected().room_type);
+        });
+        return drift;
+    }
+
+    /**
+     * Checks the rollups against the room-night ledger and the payments, and sets the ones that do not match to the
+     * amounts added up again, so a rollup that drifted, for instance because a room changed its type or a row was
+     * written without going through the repositories, is corrected. Only the rows that drifted are written.
+     * <p>
+     * The rows found by {@link #findDrift()} are read without locks, so a reservation or payment may change them
+     * in the meantime. Each one is therefore checked again in its own transaction that first locks the row, the
+     * same lock the writes take to add to it, and then adds it up again: a write that committed before is seen by
+     * both sides, and one that did not waits for the correction and adds its difference on top of it. If the
+     * database cannot be read nothing more is corrected.
+     * </p>
+     *
+     * @return the number of rollups corrected
+     */
+    public int rebuild() {
+        try {
+            int corrected = 0;
+            for (RollupDrift cell : findDrift()) {
+                LocalDate day = cell.expected().day;
+                RoomType roomType = cell.expected().room_type;
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> correct(day, roomType)))) {
+                    corrected++;
+                }
+            }
+            if (corrected > 0) {
+                logger.warn("Resumen de ingresos corregido en {} días y tipos de habitación", corrected);
+            }
+            return corrected;
+        } catch (DataAccessException e) {
+            logger.warn("No se ha podido comprobar el resumen de ingresos: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Locks the rollup of a day and a type, adds it up again and sets it if it still does not match.
+     *
+     * @return {@code true} if the rollup was written
+     */
+    private boolean correct(LocalDate day, RoomType roomType) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("day", day)
+                .addValue("roomType", roomType.name());
+        jdbcTemplate.update(LOCK_ROW, params);
+        DailyRevenue stored = jdbcTemplate.queryForObject(GET_ROW, params, mapper);
+        DailyRevenue expected = jdbcTemplate.query(EXPECTED_ROW, params, mapper).stream().findFirst()
+                .orElse(new DailyRevenue(day, roomType, 0, BigDecimal.ZERO, BigDecimal.ZERO));
+        if (stored == null || sameAmounts(stored, expected)) {
+            return false;
+        }
+        logger.debug("El resumen de ingresos del {} de {} tenía {} y debía tener {}", day, roomType, stored,
+                expected);
+        jdbcTemplate.update(SET_ROW, params
+                .addValue("roomsSold", expected.rooms_sold)
+                .addValue("roomRevenue", expected.room_revenue)
+                .addValue("paymentsTotal", expected.payments_total));
+        return true;
+    }
+
+    /**
+     * Adds the nights of a reservation, from the check-in date up to but not including the check-out date, to the
+     * deltas of its room.
+     *
+     * @param sign {@code 1} to add the nights, {@code -1} to take them away
+     */
+    private static void addNights(Map<Cell, Amounts> deltas, Reservation reservation, BigDecimal sign) {
+        long nights = ChronoUnit.DAYS.between(reservation.start_date, reservation.end_date);
+        if (reservation.status == ReservationStatus.CANCELED || nights <= 0) {
+            return;
+        }
+        BigDecimal share = reservation.total_price.divide(BigDecimal.valueOf(nights), 2, RoundingMode.HALF_UP);
+        BigDecimal lastShare = reservation.total_price.subtract(share.multiply(BigDecimal.valueOf(nights - 1)));
+        LocalDate day = reservation.start_date;
+        for (long i = 0; i < nights; i++, day = day.plusDays(1)) {
+            BigDecimal revenue = i == nights - 1 ? lastShare : share;
+            deltas.computeIfAbsent(new Cell(day, reservation.room_id), cell -> new Amounts())
+                    .add(sign.intValue(), revenue.multiply(sign));
+        }
+    }
+
+    private static boolean sameAmounts(DailyRevenue a, DailyRevenue b) {
+        return a.rooms_sold == b.rooms_sold
+                && a.room_revenue.compareTo(b.room_revenue) == 0
+                && a.payments_total.compareTo(b.payments_total) == 0;
+    }
+
+    /**
+     * A rollup that does not match the room-night ledger and the payments.
+     *
+     * @param stored the rollup as stored
+     * @param expected the rollup added up again
+     */
+    public record RollupDrift(DailyRevenue stored, DailyRevenue expected) {
+    }
+
+    /**
+     * A day and the room, or the reservation, whose deltas are added up together.
+     */
+    private record Cell(LocalDate day, long id) {
+    }
+
+    /**
+     * A day and a room type, which identify a rollup.
+     */
+    private record Row(LocalDate day, RoomType roomType) {
+    }
+
+    /**
+     * The rooms sold and the amount a write adds to a cell.
+     */
+    private static final class Amounts {
+        private int count;
+        private BigDecimal amount = BigDecimal.ZERO;
+
+        void add(int count, BigDecimal amount) {
+            this.count += count;
+            this.amount = this.amount.add(amount);
+        }
+
+        boolean isZero() {
+            return count == 0 && amount.signum() == 0;
+        }
+    }
+
+    /**
+     * Maps rows of a SQL ResultSet to DailyRevenue objects.
+     */
+    public static class DailyRevenueMapper implements RowMapper<DailyRevenue> {
+        /**
+         * Maps the current row of the given ResultSet to a DailyRevenue object.
+         *
+         * @param rs the ResultSet to map (pre-initialized for the current row)
+         * @param rowNum the number of the current row
+         * @return the mapped DailyRevenue object
+         * @throws SQLException if an SQL error occurs while mapping the row
+         */
+        @Override
+        public DailyRevenue mapRow(ResultSet rs, int rowNum) throws SQLException {
+            LocalDate day = rs.getObject("day", LocalDate.class);
+            RoomType roomType = RoomType.valueOf(rs.getString("room_type").toUpperCase());
+            int roomsSold = rs.getInt("rooms_sold");
+            BigDecimal roomRevenue = Objects.requireNonNullElse(rs.getBigDecimal("room_revenue"), BigDecimal.ZERO);
+            BigDecimal paymentsTotal = Objects.requireNonNullElse(rs.getBigDecimal("payments_total"),
+                    BigDecimal.ZERO);
+
+            return new DailyRevenue(day, roomType, roomsSold, roomRevenue, paymentsTotal);
+        }
+    }
+}
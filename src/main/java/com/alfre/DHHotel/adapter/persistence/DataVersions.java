@@ -0,0 +1,192 @@
+package com.alfre.DHHotel.adapter.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.lang.NonNull;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Version counters of the aggregates served by the read endpoints, used to build their entity tags.
+ * <p>
+ * Every write to an aggregate increments its counter once the transaction commits, so a read endpoint can tell
+ * whether anything changed since a client last read it by comparing counters, without touching the database or
+ * the caches. Counters start at zero on every start of the node, so the tags also carry a random epoch chosen at
+ * start: a tag handed out before a restart never matches again.
+ * </p>
+ * <p>
+ * Each change is broadcast with the identifier of this node, and every other node increments its own counter
+ * when it receives it. Tags are therefore only equal within one node; on another node the client just gets the
+ * full response again. Should a message be lost, the tags also change every {@link #TAG_PERIOD} anyway.
+ * </p>
+ * <p>
+ * A counter is not derived from the committed data, so it may move before the data a node serves does: the
+ * caches of a node are dropped by messages on other channels, which arrive in no set order with the version
+ * messages, and may even be refilled with the old data by a read that overlaps the commit. A tag handed out right
+ * after a change may therefore come with stale data. To bound that, for {@link #SETTLE_TIME} after every change,
+ * local or remote, the tags of the aggregate carry a mark; once the time is over the mark goes away, so a client
+ * that got a tag during that window never gets a 304 for it afterwards and reads the settled data again. The
+ * opposite pairing is harmless: controllers build the tag before reading, so a change committed halfway gives
+ * an old tag with newer data, which the next request replaces.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+public class DataVersions implements MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(DataVersions.class);
+    private static final String SEPARATOR = "\n";
+
+    /**
+     * Longest time a tag stays valid, which bounds how long a node that missed a change keeps answering that
+     * nothing changed.
+     */
+    static final Duration TAG_PERIOD = Duration.ofMinutes(1);
+
+    /**
+     * Time after a change during which the caches of a node may still serve the data from before it.
+     */
+    static final Duration SETTLE_TIME = Duration.ofSeconds(5);
+
+    /**
+     * The aggregates with a version counter.
+     */
+    public enum Aggregate {
+        ROOMS,
+        RESERVATIONS,
+        PAYMENTS
+    }
+
+    private final Consumer<String> broadcaster;
+    private final Clock clock;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final String epoch = Long.toString(UUID.randomUUID().getMostSignificantBits() & Long.MAX_VALUE, 36);
+    private final AtomicLongArray versions = new AtomicLongArray(Aggregate.values().length);
+    private final AtomicLongArray settlesAt = new AtomicLongArray(Aggregate.values().length);
+
+    /**
+     * Constructs the counters without telling other nodes about the changes.
+     */
+    public DataVersions() {
+        this(payload -> { });
+    }
+
+    /**
+     * Constructs the counters.
+     *
+     * @param broadcaster sends a change message to every API node, this one included
+     */
+    public DataVersions(Consumer<String> broadcaster) {
+        this(broadcaster, Clock.systemUTC());
+    }
+
+    /**
+     * Constructs the counters with the given clock.
+     *
+     * @param broadcaster sends a change message to every API node, this one included
+     * @param clock the clock the tag periods are measured with
+     */
+    public DataVersions(Consumer<String> broadcaster, Clock clock) {
+        this.broadcaster = broadcaster;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the current version of an aggregate.
+     *
+     * @param aggregate the aggregate
+     * @return the number of changes of the aggregate seen by this node since it started
+     */
+    public long get(Aggregate aggregate) {
+        return versions.get(aggregate.ordinal());
+    }
+
+    /**
+     * Returns the entity tag of the current state of some aggregates, without quotes.
+     *
+     * @param aggregates the aggregates a response is built from
+     * @return the epoch of this node and the current tag period, followed by the version of every aggregate,
+     * marked with {@code u} while its last change has not settled yet
+     */
+    public String tag(Aggregate... aggregates) {
+        long now = clock.millis();
+        StringBuilder tag = new StringBuilder(epoch)
+                .append('.').append(now / TAG_PERIOD.toMillis());
+        for (Aggregate aggregate : aggregates) {
+            tag.append('-').append(get(aggregate));
+            if (now < settlesAt.get(aggregate.ordinal())) {
+                tag.append('u');
+            }
+        }
+        return tag.toString();
+    }
+
+    /**
+     * Increments the version of an aggregate once the current transaction commits, or at once without a
+     * transaction, and tells the other nodes about it.
+     *
+     * @param aggregate the aggregate that changed
+     */
+    public void changed(Aggregate aggregate) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(aggregate);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(aggregate);
+            }
+        });
+    }
+
+    /**
+     * Increments the version of an aggregate changed by another node.
+     *
+     * @param message the change message
+     * @param pattern the channel pattern the message matched, if any
+     */
+    @Override
+    public void onMessage(@NonNull Message message, byte[] pattern) {
+        handleChange(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Increments the version named by a change message, unless this node sent it.
+     *
+     * @param payload the body of the message
+     */
+    void handleChange(String payload) {
+        String[] parts = payload.split(SEPARATOR, 2);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            increment(Aggregate.valueOf(parts[1]));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Cambio de versión recibido no válido: {}", parts[1]);
+        }
+    }
+
+    private void apply(Aggregate aggregate) {
+        increment(aggregate);
+        try {
+            broadcaster.accept(nodeId + SEPARATOR + aggregate.name());
+        } catch (RuntimeException e) {
+            logger.warn("No se ha podido difundir el cambio de versión de {}: {}", aggregate, e.getMessage());
+        }
+    }
+
+    private void increment(Aggregate aggregate) {
+        settlesAt.accumulateAndGet(aggregate.ordinal(), clock.millis() + SETTLE_TIME.toMillis(), Math::max);
+        versions.incrementAndGet(aggregate.ordinal());
+    }
+}
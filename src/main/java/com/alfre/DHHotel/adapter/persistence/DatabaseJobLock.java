@@ -0,0 +1,73 @@
+package com.alfre.DHHotel.adapter.persistence;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Runs a scheduled job on one API node at a time, with a named advisory lock of the database.
+ * <p>
+ * Every node schedules the same jobs at the same time. The first one to take {@code GET_LOCK} runs the job and the
+ * others skip it at once instead of waiting, so a job that rewrites many rows never runs twice over the same data.
+ * The lock belongs to the connection that took it, which is held until the job ends; the job itself may use any
+ * other connection. Should the node die, the database releases the lock when the connection closes.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Component
+public class DatabaseJobLock {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructs the lock over the given template.
+     *
+     * @param jdbcTemplate the template whose data source holds the lock connections
+     */
+    public DatabaseJobLock(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Runs a job unless another node is already running a job with the same name.
+     *
+     * @param name the name of the job, shared by every node
+     * @param job the work to do while holding the lock
+     * @return {@code true} if the job ran on this node, {@code false} if another node holds the lock
+     */
+    public boolean runExclusively(String name, Runnable job) {
+        Boolean ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!lock(connection, name)) {
+                return false;
+            }
+            try {
+                job.run();
+                return true;
+            } finally {
+                release(connection, name);
+            }
+        });
+        return Boolean.TRUE.equals(ran);
+    }
+
+    private static boolean lock(Connection connection, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+            statement.setString(1, name);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private static void release(Connection connection, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            statement.setString(1, name);
+            statement.executeQuery().close();
+        }
+    }
+}
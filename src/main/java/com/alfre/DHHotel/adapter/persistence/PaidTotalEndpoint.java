@@ -0,0 +1,92 @@
+package com.alfre.DHHotel.adapter.persistence;
+
+import com.alfre.DHHotel.adapter.persistence.DataVersions.Aggregate;
+import com.alfre.DHHotel.adapter.persistence.PaymentJdbcRepository.PaidTotalMismatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint ({@code /actuator/paidtotals}) that checks the paid total of the reservations against their
+ * payments and allows correcting the ones that have drifted apart without restarting the application.
+ * The same correction runs every night on one of the nodes.
+ *
+ * @author Alfredo Sobrados González
+ */
+@Component
+@Endpoint(id = "paidtotals")
+public class PaidTotalEndpoint {
+    private static final Logger logger = LoggerFactory.getLogger(PaidTotalEndpoint.class);
+
+    /**
+     * Name of the database lock held by the node that runs the nightly correction.
+     */
+    static final String RECONCILE_LOCK = "dhhotel.paid-totals.reconcile";
+
+    private final PaymentJdbcRepository paymentRepository;
+    private final DataVersions versions;
+    private final DatabaseJobLock jobLock;
+
+    /**
+     * Constructs the endpoint over the payment repository that keeps the paid totals.
+     *
+     * @param paymentRepository the repository that keeps the paid totals up to date
+     * @param versions the version counters incremented when a paid total is corrected
+     * @param jobLock the lock that keeps the nightly correction to one node
+     */
+    public PaidTotalEndpoint(PaymentJdbcRepository paymentRepository, DataVersions versions,
+                             DatabaseJobLock jobLock) {
+        this.paymentRepository = paymentRepository;
+        this.versions = versions;
+        this.jobLock = jobLock;
+    }
+
+    /**
+     * Compares the paid total of every reservation with the sum of its payments.
+     *
+     * @return the reservations whose paid total does not match
+     */
+    @ReadOperation
+    public List<PaidTotalMismatch> check() {
+        return paymentRepository.findPaidTotalMismatches();
+    }
+
+    /**
+     * Corrects the paid totals that do not match and checks them again.
+     *
+     * @return the reservations whose paid total still does not match after the correction
+     */
+    @WriteOperation
+    public List<PaidTotalMismatch> reconcile() {
+        correct();
+        return paymentRepository.findPaidTotalMismatches();
+    }
+
+    /**
+     * Corrects the paid totals that do not match every night, on the node that takes the lock first; the other
+     * nodes skip it. Nothing runs when the application starts.
+     */
+    @Scheduled(cron = "${payments.paid-totals.reconcile-cron:0 45 3 * * *}")
+    public void reconcileNightly() {
+        try {
+            if (!jobLock.runExclusively(RECONCILE_LOCK, this::correct)) {
+                logger.debug("El total pagado de las reservas ya se está comprobando en otro nodo");
+            }
+        } catch (DataAccessException e) {
+            logger.warn("No se ha podido comprobar el total pagado de las reservas: {}", e.getMessage());
+        }
+    }
+
+    private void correct() {
+        if (paymentRepository.reconcilePaidTotals() > 0) {
+            versions.changed(Aggregate.RESERVATIONS);
+        }
+    }
+}
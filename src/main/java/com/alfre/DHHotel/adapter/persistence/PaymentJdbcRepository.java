@@ -1,13 +1,23 @@
 package com.alfre.DHHotel.adapter.persistence;
 
+import com.alfre.DHHotel.domain.model.FieldSet;
 import com.alfre.DHHotel.domain.model.MethodPayment;
 import com.alfre.DHHotel.domain.model.Payment;
+import com.alfre.DHHotel.domain.model.PaymentFilter;
 import com.alfre.DHHotel.domain.repository.PaymentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
@@ -15,8 +25,12 @@ import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * This class contains the attributes and methods of the payment repository in the adapter layer that access to
@@ -26,24 +40,57 @@ import java.util.Optional;
  */
 @Repository
 public class PaymentJdbcRepository implements PaymentRepository {
+    private static final Logger logger = LoggerFactory.getLogger(PaymentJdbcRepository.class);
+
+    /**
+     * Rows fetched from the database per round trip while streaming an export.
+     */
+    static final int EXPORT_FETCH_SIZE = 1000;
+
+    /**
+     * Columns of the payment table a list may select, in the order of the entity.
+     */
+    static final List<String> COLUMNS = List.of("id", "reservation_id", "amount", "payment_date", "method",
+            "version");
+
+    /**
+     * Adds the difference between the new amount of a payment and its stored one to the paid total of its
+     * reservation, while the payment still has the version read.
+     */
+    private static final String UPDATE_PAID_TOTAL = "UPDATE Reservation r JOIN Payment p ON p.reservation_id = r.id " +
+            "SET r.paid_total = r.paid_total + :amount - p.amount WHERE p.id = :id AND p.version = :version";
+
+    /**
+     * Takes the amount of a payment out of the paid total of its reservation.
+     */
+    private static final String SUBTRACT_PAID_TOTAL = "UPDATE Reservation r JOIN Payment p " +
+            "ON p.reservation_id = r.id SET r.paid_total = r.paid_total - p.amount WHERE p.id = :id";
 
     private final NamedParameterJdbcTemplate jdbcTemplate;
 
+    private final NamedParameterJdbcTemplate exportTemplate;
+
     private final SimpleJdbcInsert insert;
 
     private final PaymentMapper mapper = new PaymentMapper();
 
     private final String table = "Payment";
 
+    private final String reservationTable = "Reservation";
+
     /**
      * Constructs a PaymentJdbcRepository with the provided NamedParameterJdbcTemplate and DataSource.
-     * This constructor initializes the jdbcTemplate and configures a SimpleJdbcInsert for the payment table.
+     * This constructor initializes the jdbcTemplate and configures a SimpleJdbcInsert for the payment table, plus a
+     * template that fetches {@value #EXPORT_FETCH_SIZE} rows per round trip for the exports.
      *
      * @param namedParameterJdbcTemplate the template for executing parameterized SQL queries
      * @param dataSource the DataSource for obtaining database connections
      */
     public PaymentJdbcRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate, DataSource dataSource) {
         this.jdbcTemplate = namedParameterJdbcTemplate;
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(EXPORT_FETCH_SIZE);
+        this.exportTemplate = new NamedParameterJdbcTemplate(streaming);
         this.insert = new SimpleJdbcInsert(dataSource).withTableName(table)
                 .usingGeneratedKeyColumns("id");
     }
@@ -59,6 +106,75 @@ public class PaymentJdbcRepository implements PaymentRepository {
         return jdbcTemplate.query(sql, mapper);
     }
 
+    /**
+     * Retrieves a page of the payments that match the given criteria, ordered by identifier.
+     * The page starts right after the given identifier instead of skipping rows with an offset; only the criteria
+     * provided are added to the query, and only the fields asked are selected and mapped.
+     *
+     * @param filter the criteria the payments must match
+     * @param afterId the identifier the page starts after, 0 for the first page
+     * @param limit the maximum number of payments of the page
+     * @param fields the fields to read
+     * @return a list of up to {@code limit} Payment objects
+     * @throws IllegalArgumentException if a field is not a column of the payment table
+     */
+    @Override
+    public List<Payment> getPaymentsPage(PaymentFilter filter, long afterId, int limit, FieldSet fields) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("afterId", afterId)
+                .addValue("limit", limit);
+        List<String> conditions = new ArrayList<>(List.of("id > :afterId"));
+        String sql = "SELECT " + String.join(", ", fields.within(COLUMNS)) + " FROM " + table +
+                where(conditions, filter, params) + " ORDER BY id LIMIT :limit";
+        return jdbcTemplate.query(sql, params, fields.isAll() ? mapper : new PaymentMapper(fields));
+    }
+
+    /**
+     * Reads the payments that match the given criteria one row at a time, ordered by identifier, and hands each
+     * one to the given action as soon as it is read.
+     * <p>
+     * The query runs on a forward-only result set with a driver fetch size, so the memory used does not depend on
+     * the number of payments. The connection is held until the last row has been handled.
+     * </p>
+     *
+     * @param filter the criteria the payments must match
+     * @param action the action run on every payment
+     */
+    @Override
+    public void streamPayments(PaymentFilter filter, Consumer<Payment> action) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT * FROM " + table + where(new ArrayList<>(), filter, params) + " ORDER BY id";
+        exportTemplate.query(sql, params, (RowCallbackHandler) rs -> action.accept(mapper.mapRow(rs, 0)));
+    }
+
+    /**
+     * Builds the WHERE clause of the given conditions plus the criteria provided, adding their parameters.
+     *
+     * @param conditions the conditions the clause starts with
+     * @param filter the criteria of the payments
+     * @param params the parameters of the query
+     * @return the clause, or an empty string if there is no condition
+     */
+    private static String where(List<String> conditions, PaymentFilter filter, MapSqlParameterSource params) {
+        if (filter.reservation_id() != null) {
+            conditions.add("reservation_id = :reservationId");
+            params.addValue("reservationId", filter.reservation_id());
+        }
+        if (filter.method() != null) {
+            conditions.add("method = :method");
+            params.addValue("method", filter.method().name());
+        }
+        if (filter.from() != null) {
+            conditions.add("payment_date >= :from");
+            params.addValue("from", filter.from());
+        }
+        if (filter.to() != null) {
+            conditions.add("payment_date <= :to");
+            params.addValue("to", filter.to());
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
     /**
      * Retrieves a payment by its unique identifier.
      *
@@ -90,43 +206,111 @@ public class PaymentJdbcRepository implements PaymentRepository {
     }
 
     /**
-     * Creates a new payment record in the database.
+     * Creates a new payment record in the database and adds its amount to the paid total of its reservation.
+     * Both statements must run in the transaction of the caller, so the paid total never misses a payment.
      *
      * @param payment the Payment object to be inserted
      * @return the generated identifier of the newly created payment
      */
     @Override
     public long createPayment(Payment payment) {
-        return insert.executeAndReturnKey(
+        long id = insert.executeAndReturnKey(
                 new MapSqlParameterSource()
                         .addValue("reservationId", payment.reservation_id)
                         .addValue("amount", payment.amount)
                         .addValue("payment_date", payment.payment_date)
                         .addValue("method", payment.method.name())
         ).longValue();
+        String sql = "UPDATE " + reservationTable + " SET paid_total = paid_total + :amount WHERE id = :reservationId";
+        jdbcTemplate.update(sql, new MapSqlParameterSource()
+                .addValue("reservationId", payment.reservation_id)
+                .addValue("amount", payment.amount));
+        return id;
+    }
+
+    /**
+     * Creates several payment records with one batched insert, then adds their amounts to the paid total of their
+     * reservations with one batched update holding a statement per reservation. Both batches must run in the
+     * transaction of the caller, so the paid totals never miss a payment.
+     *
+     * @param payments the Payment objects to be inserted
+     * @return the generated identifiers, in the same order as the payments
+     */
+    @Override
+    public List<Long> createPayments(List<Payment> payments) {
+        if (payments.isEmpty()) {
+            return List.of();
+        }
+        String sql = "INSERT INTO " + table + " (reservation_id, amount, payment_date, method) " +
+                "VALUES (:reservationId, :amount, :paymentDate, :method)";
+        SqlParameterSource[] batch = payments.stream()
+                .map(payment -> new MapSqlParameterSource()
+                        .addValue("reservationId", payment.reservation_id)
+                        .addValue("amount", payment.amount)
+                        .addValue("paymentDate", payment.payment_date)
+                        .addValue("method", payment.method.name()))
+                .toArray(SqlParameterSource[]::new);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(sql, batch, keyHolder, new String[]{"id"});
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != payments.size()) {
+            throw new IllegalStateException("No se han podido obtener los identificadores de los pagos creados");
+        }
+        List<Long> ids = new ArrayList<>(keys.size());
+        Map<Long, BigDecimal> paidByReservation = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            Payment payment = payments.get(i);
+            long id = ((Number) keys.get(i).values().iterator().next()).longValue();
+            payment.setId(id);
+            ids.add(id);
+            paidByReservation.merge(payment.reservation_id, payment.amount, BigDecimal::add);
+        }
+
+        String paidSql = "UPDATE " + reservationTable + " SET paid_total = paid_total + :amount " +
+                "WHERE id = :reservationId";
+        jdbcTemplate.batchUpdate(paidSql, paidByReservation.entrySet().stream()
+                .map(paid -> new MapSqlParameterSource()
+                        .addValue("reservationId", paid.getKey())
+                        .addValue("amount", paid.getValue()))
+                .toArray(SqlParameterSource[]::new));
+        return ids;
     }
 
     /**
      * Updates an existing payment record in the database.
+     * The row is only updated while it still has the version read by the caller; on success the version of the
+     * given payment is increased to match the new row.
+     * <p>
+     * The difference between the new amount and the stored one is added to the paid total of the reservation first,
+     * under the same version check, which locks the payment row until the transaction of the caller ends.
+     * </p>
      *
      * @param payment the Payment object containing updated data
      * @param id the unique identifier of the payment to update
-     * @return the number of rows affected by the update
+     * @return the number of rows affected by the update, 0 if the payment was changed by someone else
      */
     @Override
     public int updatePayment(Payment payment, long id) {
-        String sql = "UPDATE " + table + " SET amount = :amount, " +
-                "payment_date = :paymentDate, method = :method WHERE id = :id";
+        String sql = "UPDATE " + table + " SET amount = :amount, payment_date = :paymentDate, method = :method, " +
+                "version = version + 1 WHERE id = :id AND version = :version";
         MapSqlParameterSource params = new MapSqlParameterSource()
                 .addValue("id", id)
                 .addValue("amount", payment.amount)
                 .addValue("paymentDate", payment.payment_date)
-                .addValue("method", payment.method.name());
-        return jdbcTemplate.update(sql, params);
+                .addValue("method", payment.method.name())
+                .addValue("version", payment.version);
+        jdbcTemplate.update(UPDATE_PAID_TOTAL, params);
+        int rowsAffected = jdbcTemplate.update(sql, params);
+        if (rowsAffected > 0 && payment.version != null) {
+            payment.setVersion(payment.version + 1);
+        }
+        return rowsAffected;
     }
 
     /**
-     * Deletes a payment record from the database by its unique identifier.
+     * Deletes a payment record from the database by its unique identifier, taking its amount out of the paid total
+     * of its reservation first. Both statements must run in the transaction of the caller.
      *
      * @param id the unique identifier of the payment to delete
      * @return the number of rows affected by the delete operation
@@ -135,11 +319,13 @@ public class PaymentJdbcRepository implements PaymentRepository {
     public int deletePayment(long id) {
         String sql = "DELETE FROM " + table + " WHERE id = :id";
         MapSqlParameterSource params = new MapSqlParameterSource().addValue("id", id);
+        jdbcTemplate.update(SUBTRACT_PAID_TOTAL, params);
         return jdbcTemplate.update(sql, params);
     }
 
     /**
-     * Retrieves the total amount paid for a given reservation.
+     * Retrieves the total amount paid for a given reservation, adding up its payments.
+     * The paid total stored in the reservation holds the same amount without reading the payments.
      *
      * @param reservationId the identifier of the reservation
      * @return a BigDecimal representing the sum of all payments for the reservation; returns 0 if no payments exist
@@ -171,18 +357,100 @@ public class PaymentJdbcRepository implements PaymentRepository {
     }
 
     /**
-     * Deletes all payment records from the database.
+     * Finds the reservations whose paid total does not match the sum of their payments.
+     *
+     * @return the mismatches found, ordered by reservation
+     */
+    public List<PaidTotalMismatch> findPaidTotalMismatches() {
+        String sql = """
+    SELECT r.id, r.paid_total, COALESCE(SUM(p.amount), 0) AS payments_total
+    FROM Reservation r
+    LEFT JOIN Payment p ON p.reservation_id = r.id
+    GROUP BY r.id, r.paid_total
+    HAVING r.paid_total <> COALESCE(SUM(p.amount), 0)
+    ORDER BY r.id""";
+        return jdbcTemplate.query(sql, new MapSqlParameterSource(), (rs, rowNum) -> new PaidTotalMismatch(
+                rs.getLong("id"), rs.getBigDecimal("paid_total"), rs.getBigDecimal("payments_total")));
+    }
+
+    /**
+     * Checks the paid total of every reservation against its payments, and sets the ones that do not match to the
+     * sum of the payments, logging each of them since a mismatch means a payment was written without going through
+     * this repository. Only the reservations found are updated, and each one only if it still does not match, so a
+     * payment committed after the check is kept. If the database cannot be read nothing is corrected.
+     * <p>
+     * Nothing calls this when the application starts: {@link PaidTotalEndpoint} runs it every night on one node,
+     * or on demand.
+     * </p>
+     *
+     * @return the number of reservations corrected
+     */
+    public int reconcilePaidTotals() {
+        String sql = """
+    UPDATE Reservation r
+    SET r.paid_total = (SELECT COALESCE(SUM(p.amount), 0) FROM Payment p WHERE p.reservation_id = r.id)
+    WHERE r.id IN (:ids)
+    AND r.paid_total <> (SELECT COALESCE(SUM(p.amount), 0) FROM Payment p WHERE p.reservation_id = r.id)""";
+        try {
+            List<PaidTotalMismatch> mismatches = findPaidTotalMismatches();
+            if (mismatches.isEmpty()) {
+                return 0;
+            }
+            for (PaidTotalMismatch mismatch : mismatches) {
+                logger.warn("La reserva {} tenía un total pagado de {} y sus pagos suman {}",
+                        mismatch.reservation_id(), mismatch.paid_total(), mismatch.payments_total());
+            }
+            int corrected = jdbcTemplate.update(sql, new MapSqlParameterSource("ids", mismatches.stream()
+                    .map(PaidTotalMismatch::reservation_id).toList()));
+            logger.info("Total pagado corregido en {} reservas", corrected);
+            return corrected;
+        } catch (DataAccessException e) {
+            logger.warn("No se ha podido comprobar el total pagado de las reservas: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Deletes all payment records from the database, leaving every reservation with nothing paid.
      */
     @Override
     public void deleteAll() {
         String sql = "DELETE FROM " + table;
         jdbcTemplate.update(sql, new MapSqlParameterSource());
+        jdbcTemplate.update("UPDATE " + reservationTable + " SET paid_total = 0", new MapSqlParameterSource());
+    }
+
+    /**
+     * A reservation whose paid total does not match the sum of its payments.
+     *
+     * @param reservation_id the identifier of the reservation
+     * @param paid_total the paid total stored in the reservation
+     * @param payments_total the sum of the payments of the reservation
+     */
+    public record PaidTotalMismatch(long reservation_id, BigDecimal paid_total, BigDecimal payments_total) {
     }
 
     /**
      * Maps rows of a SQL ResultSet to Payment objects.
      */
     public static class PaymentMapper implements RowMapper<Payment> {
+        private final FieldSet fields;
+
+        /**
+         * Constructs a mapper of rows holding every column.
+         */
+        public PaymentMapper() {
+            this(FieldSet.ALL);
+        }
+
+        /**
+         * Constructs a mapper of rows holding only the given fields, which leaves the others unset.
+         *
+         * @param fields the fields selected
+         */
+        public PaymentMapper(FieldSet fields) {
+            this.fields = fields;
+        }
 
         /**
          * Maps the current row of the given ResultSet to a Payment object.
@@ -195,12 +463,14 @@ public class PaymentJdbcRepository implements PaymentRepository {
         @Override
         public Payment mapRow(ResultSet rs, int rowNum) throws SQLException {
             long id = rs.getLong("id");
-            long reservationId = rs.getLong("reservation_id");
-            BigDecimal amount = rs.getBigDecimal("amount");
-            LocalDate paymentDate = rs.getObject("payment_date", LocalDate.class);
-            MethodPayment method = MethodPayment.valueOf(rs.getString("method").toUpperCase());
+            long reservationId = fields.has("reservation_id") ? rs.getLong("reservation_id") : 0;
+            BigDecimal amount = fields.has("amount") ? rs.getBigDecimal("amount") : null;
+            LocalDate paymentDate = fields.has("payment_date") ? rs.getObject("payment_date", LocalDate.class) : null;
+            MethodPayment method = fields.has("method")
+                    ? MethodPayment.valueOf(rs.getString("method").toUpperCase()) : null;
+            Long version = fields.has("version") ? rs.getLong("version") : null;
 
-            return new Payment(id, reservationId, amount, paymentDate, method);
+            return new Payment(id, reservationId, amount, paymentDate, method, version);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.alfre.DHHotel.adapter.persistence;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * Data source that counts the statements prepared on its connections in the current {@link UnitOfWork}.
+ * Every {@code JdbcTemplate} operation and {@code SimpleJdbcInsert} prepares one statement, so the count
+ * matches the number of round trips a request makes to the database.
+ *
+ * @author Alfredo Sobrados González
+ */
+public class QueryCountingDataSource extends DelegatingDataSource implements AutoCloseable {
+    private static final Set<String> STATEMENT_METHODS = Set.of("createStatement", "prepareStatement", "prepareCall");
+
+    /**
+     * Creates a counting data source around the connection pool.
+     *
+     * @param targetDataSource the data source that provides the connections
+     */
+    public QueryCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    /**
+     * Closes the underlying pool when the application shuts down.
+     *
+     * @throws Exception if the pool cannot be closed
+     */
+    @Override
+    public void close() throws Exception {
+        if (obtainTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Connection counting(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("equals")) {
+                        return proxy == args[0];
+                    } else if (method.getName().equals("hashCode")) {
+                        return System.identityHashCode(proxy);
+                    } else if (STATEMENT_METHODS.contains(method.getName())) {
+                        UnitOfWork.countQuery();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
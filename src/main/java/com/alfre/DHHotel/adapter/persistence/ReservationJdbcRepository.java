@@ -1,56 +1,184 @@
 package com.alfre.DHHotel.adapter.persistence;
 
+import com.alfre.DHHotel.domain.model.FieldSet;
 import com.alfre.DHHotel.domain.model.Reservation;
+import com.alfre.DHHotel.domain.model.ReservationFilter;
 import com.alfre.DHHotel.domain.repository.ReservationRepository;
 import com.alfre.DHHotel.domain.model.ReservationStatus;
+import com.alfre.DHHotel.domain.model.RoomType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.sql.DataSource;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * This class contains the attributes and methods of the reservation repository in the adapter layer that access to
  * the database of the API and performs the operations relation to reservations
+ * <p>
+ * Every non-canceled reservation also owns one row per booked day in the {@code RoomNight} ledger, written in the
+ * same transaction as the reservation. Days run from the check-in to the check-out date, both included, as in the
+ * availability checks, and the {@code (room_id, night)} primary key makes the database reject double bookings.
+ * </p>
  *
  * @author Alfredo Sobrados González
  */
 @Repository
 public class ReservationJdbcRepository implements ReservationRepository {
 
+    /**
+     * Rows fetched from the database per round trip while streaming an export.
+     */
+    static final int EXPORT_FETCH_SIZE = 1000;
+
+    /**
+     * Columns of the reservation table a list may select, in the order of the entity.
+     */
+    static final List<String> COLUMNS = List.of("id", "client_id", "room_id", "total_price", "start_date",
+            "end_date", "status", "version", "paid_total");
+
     private final NamedParameterJdbcTemplate jdbcTemplate;
 
+    private final NamedParameterJdbcTemplate exportTemplate;
+
     private final SimpleJdbcInsert insert;
 
     private final ReservationMapper mapper = new ReservationMapper();
 
+    private final RoomAvailabilityIndex availabilityIndex;
+
     private final String table = "Reservation";
 
+    private final String nightTable = "RoomNight";
+
     private static final Logger logger = LoggerFactory.getLogger(ReservationJdbcRepository.class);
 
     /**
      * Constructs a ReservationJdbcRepository with the provided NamedParameterJdbcTemplate and DataSource.
      * This constructor initializes the jdbcTemplate and configures a SimpleJdbcInsert for the reservation table.
+     * The repository gets its own availability index, which stays unloaded so every check goes to the database.
      *
      * @param namedParameterJdbcTemplate the template used for executing parameterized SQL queries
      * @param dataSource the DataSource for obtaining database connections
      */
     public ReservationJdbcRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate, DataSource dataSource) {
+        this(namedParameterJdbcTemplate, dataSource, new RoomAvailabilityIndex());
+    }
+
+    /**
+     * Constructs a ReservationJdbcRepository backed by the shared in-memory availability index.
+     * The exports run on their own template, which fetches {@value #EXPORT_FETCH_SIZE} rows per round trip.
+     *
+     * @param namedParameterJdbcTemplate the template used for executing parameterized SQL queries
+     * @param dataSource the DataSource for obtaining database connections
+     * @param availabilityIndex the index that answers availability checks without a database round trip
+     */
+    @Autowired
+    public ReservationJdbcRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate, DataSource dataSource,
+                                     RoomAvailabilityIndex availabilityIndex) {
         this.jdbcTemplate = namedParameterJdbcTemplate;
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(EXPORT_FETCH_SIZE);
+        this.exportTemplate = new NamedParameterJdbcTemplate(streaming);
         this.insert = new SimpleJdbcInsert(dataSource).withTableName(table)
                 .usingGeneratedKeyColumns("id");
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    /**
+     * Loads the availability index from the reservation table once the application is ready, and reloads it every
+     * night so its window moves forward with the current date and any change missed from another node is dropped.
+     * If the database cannot be read the index keeps its previous state, or stays unloaded so availability checks
+     * keep using SQL.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${availability.index.reload-cron:0 15 3 * * *}")
+    public void loadAvailabilityIndex() {
+        try {
+            LocalDate today = LocalDate.now();
+            availabilityIndex.rebuild(getActiveReservations(today.minusDays(RoomAvailabilityIndex.PAST_DAYS)), today);
+            logger.info("Índice de disponibilidad cargado desde {}", availabilityIndex.getOrigin());
+        } catch (DataAccessException e) {
+            logger.warn("No se ha podido cargar el índice de disponibilidad: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Fills the room-night ledger for the non-canceled reservations that have no nights yet, such as the ones
+     * created before the ledger existed. Reservations whose nights clash with another reservation are skipped and
+     * logged so they can be fixed by hand.
+     *
+     * @return the number of reservations whose nights were written
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public int backfillRoomNights() {
+        String sql = "SELECT * FROM " + table + " r WHERE r.status <> 'CANCELED' AND NOT EXISTS (" +
+                "SELECT 1 FROM " + nightTable + " n WHERE n.reservation_id = r.id)";
+        List<Reservation> pending;
+        try {
+            pending = jdbcTemplate.query(sql, mapper);
+        } catch (DataAccessException e) {
+            logger.warn("No se ha podido completar el registro de noches reservadas: {}", e.getMessage());
+            return 0;
+        }
+
+        int written = 0;
+        for (Reservation reservation : pending) {
+            try {
+                insertRoomNights(reservation);
+                written++;
+            } catch (DuplicateKeyException e) {
+                deleteRoomNights(reservation.id);
+                logger.warn("La reserva {} se solapa con otra reserva de la habitación {}", reservation.id,
+                        reservation.room_id);
+            }
+        }
+        if (written > 0) {
+            logger.info("Noches reservadas registradas para {} reservas", written);
+        }
+        return written;
+    }
+
+    /**
+     * Retrieves the non-canceled reservations that end on or after the given date.
+     *
+     * @param from the earliest end date to include
+     * @return a list of active Reservation objects
+     */
+    public List<Reservation> getActiveReservations(LocalDate from) {
+        String sql = "SELECT * FROM " + table + " WHERE status <> 'CANCELED' AND end_date >= :from";
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("from", from);
+        return jdbcTemplate.query(sql, params, mapper);
     }
 
     /**
@@ -64,6 +192,82 @@ public class ReservationJdbcRepository implements ReservationRepository {
         return jdbcTemplate.query(sql, mapper);
     }
 
+    /**
+     * Retrieves a page of the reservations that match the given criteria, ordered by identifier.
+     * The page starts right after the given identifier instead of skipping rows with an offset, so every page is a
+     * range read of the primary key or of the index of the criterion. Only the criteria provided are added to the
+     * query, and only the fields asked are selected and mapped; the rest are left {@code null}.
+     *
+     * @param filter the criteria the reservations must match
+     * @param afterId the identifier the page starts after, 0 for the first page
+     * @param limit the maximum number of reservations of the page
+     * @param fields the fields to read
+     * @return a list of up to {@code limit} Reservation objects
+     * @throws IllegalArgumentException if a field is not a column of the reservation table
+     */
+    @Override
+    public List<Reservation> getReservationsPage(ReservationFilter filter, long afterId, int limit,
+                                                 FieldSet fields) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("afterId", afterId)
+                .addValue("limit", limit);
+        List<String> conditions = new ArrayList<>(List.of("id > :afterId"));
+        String sql = "SELECT " + String.join(", ", fields.within(COLUMNS)) + " FROM " + table +
+                where(conditions, filter, params) + " ORDER BY id LIMIT :limit";
+        return jdbcTemplate.query(sql, params, fields.isAll() ? mapper : new ReservationMapper(fields));
+    }
+
+    /**
+     * Reads the reservations that match the given criteria one row at a time, ordered by identifier, and hands
+     * each one to the given action as soon as it is read.
+     * <p>
+     * The query runs on a forward-only result set with a driver fetch size, so the driver only holds one batch of
+     * rows and the memory used does not depend on the number of reservations. The connection is held until the
+     * last row has been handled.
+     * </p>
+     *
+     * @param filter the criteria the reservations must match
+     * @param action the action run on every reservation
+     */
+    @Override
+    public void streamReservations(ReservationFilter filter, Consumer<Reservation> action) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT * FROM " + table + where(new ArrayList<>(), filter, params) + " ORDER BY id";
+        exportTemplate.query(sql, params, (RowCallbackHandler) rs -> action.accept(mapper.mapRow(rs, 0)));
+    }
+
+    /**
+     * Builds the WHERE clause of the given conditions plus the criteria provided, adding their parameters.
+     *
+     * @param conditions the conditions the clause starts with
+     * @param filter the criteria of the reservations
+     * @param params the parameters of the query
+     * @return the clause, or an empty string if there is no condition
+     */
+    private static String where(List<String> conditions, ReservationFilter filter, MapSqlParameterSource params) {
+        if (filter.status() != null) {
+            conditions.add("status = :status");
+            params.addValue("status", filter.status().name());
+        }
+        if (filter.room_id() != null) {
+            conditions.add("room_id = :roomId");
+            params.addValue("roomId", filter.room_id());
+        }
+        if (filter.client_id() != null) {
+            conditions.add("client_id = :clientId");
+            params.addValue("clientId", filter.client_id());
+        }
+        if (filter.from() != null) {
+            conditions.add("end_date >= :from");
+            params.addValue("from", filter.from());
+        }
+        if (filter.to() != null) {
+            conditions.add("start_date <= :to");
+            params.addValue("to", filter.to());
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
     /**
      * Retrieves a reservation by its unique identifier.
      *
@@ -94,15 +298,56 @@ public class ReservationJdbcRepository implements ReservationRepository {
         return jdbcTemplate.query(sql, params, mapper);
     }
 
+    /**
+     * Retrieves the reservations with the given identifiers with a single {@code IN} query.
+     *
+     * @param ids the identifiers of the reservations
+     * @return the Reservation objects found; identifiers without a reservation are left out
+     */
+    @Override
+    public List<Reservation> getReservationsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String sql = "SELECT * FROM " + table + " WHERE id IN (:ids)";
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("ids", ids);
+        return jdbcTemplate.query(sql, params, mapper);
+    }
+
+    /**
+     * Retrieves several reservations by their IDs and locks their rows with {@code SELECT ... FOR UPDATE}. Rows are
+     * locked in ID order and the locks are held until the current transaction commits or rolls back.
+     *
+     * @param ids the identifiers of the reservations to lock
+     * @return the locked Reservation objects ordered by ID
+     */
+    @Override
+    public List<Reservation> lockReservations(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String sql = "SELECT * FROM " + table + " WHERE id IN (:ids) ORDER BY id FOR UPDATE";
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("ids", ids);
+        return jdbcTemplate.query(sql, params, mapper);
+    }
+
     /**
      * Creates a new reservation record in the database.
+     * <p>
+     * The booked nights are written to the room-night ledger right after the reservation, so an overlapping
+     * reservation of the same room is rejected by the ledger primary key instead of a range-overlap scan. The
+     * availability index is updated once the surrounding transaction commits.
+     * </p>
      *
      * @param newReservation the Reservation object to be inserted
      * @return the generated unique identifier for the newly created reservation
+     * @throws IllegalStateException if the room already has a reservation overlapping the requested dates
      */
     @Override
     public long createReservation(Reservation newReservation) {
-        return insert.executeAndReturnKey(
+        validateAvailabilityParameters(newReservation.room_id, newReservation.start_date, newReservation.end_date);
+
+        long id = insert.executeAndReturnKey(
                 new MapSqlParameterSource()
                         .addValue("client_id", newReservation.client_id)
                         .addValue("roomId", newReservation.room_id)
@@ -110,20 +355,139 @@ public class ReservationJdbcRepository implements ReservationRepository {
                         .addValue("startDate", newReservation.start_date)
                         .addValue("endDate", newReservation.end_date)
                         .addValue("status", newReservation.status.name())
+                        .addValue("paid_total", BigDecimal.ZERO)
         ).longValue();
+        newReservation.setId(id);
+        newReservation.setPaid_total(BigDecimal.ZERO);
+
+        if (newReservation.status != ReservationStatus.CANCELED) {
+            try {
+                insertRoomNights(newReservation);
+            } catch (DuplicateKeyException e) {
+                // Without a surrounding transaction nothing else would undo the reservation row
+                jdbcTemplate.update("DELETE FROM " + table + " WHERE id = :id",
+                        new MapSqlParameterSource().addValue("id", id));
+                if (availabilityIndex.covers(newReservation.start_date, newReservation.end_date)) {
+                    logger.warn("El índice de disponibilidad no reflejaba una reserva de la habitación {}",
+                            newReservation.room_id);
+                }
+                throw new IllegalStateException("Habitación no disponible en las fechas solicitadas", e);
+            }
+        }
+
+        indexAfterCommit(newReservation);
+        return id;
+    }
+
+    /**
+     * Creates several reservations with one batched insert, followed by one batched insert of all their nights
+     * into the room-night ledger. If any night is already booked, the inserted reservations are removed again and
+     * none of them is created.
+     *
+     * @param newReservations the Reservation objects to be inserted
+     * @return the generated identifiers, in the same order as the reservations
+     * @throws IllegalStateException if any of the rooms already has a reservation overlapping the requested dates
+     */
+    @Override
+    public List<Long> createReservations(List<Reservation> newReservations) {
+        if (newReservations.isEmpty()) {
+            return List.of();
+        }
+        for (Reservation reservation : newReservations) {
+            validateAvailabilityParameters(reservation.room_id, reservation.start_date, reservation.end_date);
+        }
+
+        String sql = "INSERT INTO " + table + " (client_id, room_id, total_price, start_date, end_date, status) " +
+                "VALUES (:clientId, :roomId, :totalPrice, :startDate, :endDate, :status)";
+        SqlParameterSource[] batch = newReservations.stream()
+                .map(reservation -> new MapSqlParameterSource()
+                        .addValue("clientId", reservation.client_id)
+                        .addValue("roomId", reservation.room_id)
+                        .addValue("totalPrice", reservation.total_price)
+                        .addValue("startDate", reservation.start_date)
+                        .addValue("endDate", reservation.end_date)
+                        .addValue("status", reservation.status.name()))
+                .toArray(SqlParameterSource[]::new);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(sql, batch, keyHolder, new String[]{"id"});
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != newReservations.size()) {
+            throw new IllegalStateException("No se han podido obtener los identificadores de las reservas creadas");
+        }
+        List<Long> ids = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            long id = ((Number) keys.get(i).values().iterator().next()).longValue();
+            newReservations.get(i).setId(id);
+            ids.add(id);
+        }
+
+        try {
+            insertRoomNights(newReservations.stream()
+                    .filter(reservation -> reservation.status != ReservationStatus.CANCELED)
+                    .toList());
+        } catch (DuplicateKeyException e) {
+            // Without a surrounding transaction nothing else would undo the reservation rows
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE id IN (:ids)",
+                    new MapSqlParameterSource().addValue("ids", ids));
+            throw new IllegalStateException("Habitación no disponible en las fechas solicitadas", e);
+        }
+
+        newReservations.forEach(this::indexAfterCommit);
+        return ids;
+    }
+
+    /**
+     * Confirms the pending reservations among the given ones whose paid total has reached their price, with a
+     * single update that increases their version. Their nights stay booked, so the room-night ledger and the
+     * availability index are left as they are.
+     *
+     * @param ids the identifiers of the reservations to check
+     * @return the number of reservations confirmed
+     */
+    @Override
+    public int confirmPaidReservations(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String sql = "UPDATE " + table + " SET status = 'CONFIRMED', version = version + 1 " +
+                "WHERE id IN (:ids) AND status = 'PENDING' AND paid_total >= total_price";
+        return jdbcTemplate.update(sql, new MapSqlParameterSource().addValue("ids", ids));
+    }
+
+    /**
+     * Sets back to pending the confirmed reservations among the given ones whose paid total has fallen below their
+     * price, with a single update that increases their version. Their nights stay booked, so the room-night ledger
+     * and the availability index are left as they are.
+     *
+     * @param ids the identifiers of the reservations to check
+     * @return the number of reservations set back to pending
+     */
+    @Override
+    public int reopenUnpaidReservations(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String sql = "UPDATE " + table + " SET status = 'PENDING', version = version + 1 " +
+                "WHERE id IN (:ids) AND status = 'CONFIRMED' AND paid_total < total_price";
+        return jdbcTemplate.update(sql, new MapSqlParameterSource().addValue("ids", ids));
     }
 
     /**
      * Updates an existing reservation record in the database.
+     * The row is only updated while it still has the version read by the caller; on success the version of the
+     * given reservation is increased to match the new row. The nights of the reservation are rewritten in the
+     * room-night ledger, or released if it is canceled.
      *
      * @param updatedReservation the Reservation object containing updated values
-     * @return the number of rows affected by the update operation
+     * @return the number of rows affected by the update operation, 0 if the reservation was changed by someone else
+     * @throws IllegalStateException if the new dates overlap another reservation of the room
      */
     @Override
     public int updateReservation(Reservation updatedReservation) {
         String sql = "UPDATE " + table + " SET client_id = :clientId, room_id = :roomId, " +
-                "total_price = :totalPrice, start_date = :startDate, end_date = :endDate, status = :status" +
-                " WHERE id = :id";
+                "total_price = :totalPrice, start_date = :startDate, end_date = :endDate, status = :status, " +
+                "version = version + 1 WHERE id = :id AND version = :version";
         MapSqlParameterSource params = new MapSqlParameterSource()
                 .addValue("id", updatedReservation.id)
                 .addValue("clientId", updatedReservation.client_id)
@@ -131,13 +495,31 @@ public class ReservationJdbcRepository implements ReservationRepository {
                 .addValue("totalPrice", updatedReservation.total_price)
                 .addValue("startDate", updatedReservation.start_date)
                 .addValue("endDate", updatedReservation.end_date)
-                .addValue("status", updatedReservation.status.name());
-        return jdbcTemplate.update(sql, params);
+                .addValue("status", updatedReservation.status.name())
+                .addValue("version", updatedReservation.version);
+        int rowsAffected = jdbcTemplate.update(sql, params);
+        if (rowsAffected > 0) {
+            if (updatedReservation.version != null) {
+                updatedReservation.setVersion(updatedReservation.version + 1);
+            }
+            deleteRoomNights(updatedReservation.id);
+            if (updatedReservation.status != ReservationStatus.CANCELED) {
+                try {
+                    insertRoomNights(updatedReservation);
+                } catch (DuplicateKeyException e) {
+                    throw new IllegalStateException("Habitación no disponible en las fechas solicitadas", e);
+                }
+            }
+            indexAfterCommit(updatedReservation);
+        }
+        return rowsAffected;
     }
 
     /**
      * Determines if a room is available for reservation within a specified date range.
-     * Validates the input parameters before executing the query.
+     * Validates the input parameters and answers from the in-memory availability index when it covers the range;
+     * otherwise the reservation table is queried. A room the index reports as busy is confirmed against the
+     * reservation table too, since the index may still hold a stay released on another node.
      *
      * @param roomId the identifier of the room to check availability for
      * @param startDate the start date of the desired reservation period
@@ -148,7 +530,116 @@ public class ReservationJdbcRepository implements ReservationRepository {
      */
     @Override
     public boolean isRoomAvailable(Long roomId, LocalDate startDate, LocalDate endDate) {
-        // Validate input parameters
+        validateAvailabilityParameters(roomId, startDate, endDate);
+
+        if (availabilityIndex.covers(startDate, endDate)
+                && availabilityIndex.isAvailable(roomId, startDate, endDate)) {
+            return true;
+        }
+        return countOverlappingReservations(roomId, startDate, endDate) == 0;
+    }
+
+    /**
+     * Finds which of the given rooms already have a booked night within the date range, with a single lookup on
+     * the room-night ledger primary key.
+     *
+     * @param roomIds the identifiers of the rooms to check
+     * @param startDate the start date of the desired reservation period
+     * @param endDate the end date of the desired reservation period
+     * @return the identifiers of the rooms that are not available, in ascending order
+     */
+    @Override
+    public List<Long> getUnavailableRoomIds(Collection<Long> roomIds, LocalDate startDate, LocalDate endDate) {
+        if (roomIds.isEmpty()) {
+            return List.of();
+        }
+        String sql = "SELECT DISTINCT room_id FROM " + nightTable + " WHERE room_id IN (:roomIds) " +
+                "AND night BETWEEN :startDate AND :endDate ORDER BY room_id";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("roomIds", roomIds)
+                .addValue("startDate", startDate)
+                .addValue("endDate", endDate);
+        return jdbcTemplate.queryForList(sql, params, Long.class);
+    }
+
+    /**
+     * Retrieves the booked nights of the rooms of a type within a date range, with a single range lookup on the
+     * room-night ledger.
+     *
+     * @param type the room type
+     * @param startDate the first day of the range
+     * @param endDate the last day of the range
+     * @return the booked nights within the range by room ID
+     */
+    @Override
+    public Map<Long, List<LocalDate>> getBookedNights(RoomType type, LocalDate startDate, LocalDate endDate) {
+        String sql = "SELECT n.room_id, n.night FROM " + nightTable + " n JOIN Room r ON r.id = n.room_id " +
+                "WHERE r.type = :type AND n.night BETWEEN :startDate AND :endDate ORDER BY n.room_id, n.night";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("type", type.name())
+                .addValue("startDate", startDate)
+                .addValue("endDate", endDate);
+        return jdbcTemplate.query(sql, params, (ResultSet rs) -> {
+            Map<Long, List<LocalDate>> nights = new LinkedHashMap<>();
+            while (rs.next()) {
+                nights.computeIfAbsent(rs.getLong("room_id"), ignored -> new ArrayList<>())
+                        .add(rs.getDate("night").toLocalDate());
+            }
+            return nights;
+        });
+    }
+
+    /**
+     * Retrieves the months a room has at least one booked night in, with a lookup on the room-night ledger primary
+     * key.
+     *
+     * @param roomId the ID of the room
+     * @return the months with booked nights of the room, in chronological order
+     */
+    @Override
+    public List<YearMonth> getBookedMonths(long roomId) {
+        String sql = "SELECT DISTINCT YEAR(night) AS night_year, MONTH(night) AS night_month FROM " + nightTable +
+                " WHERE room_id = :roomId ORDER BY night_year, night_month";
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("roomId", roomId);
+        return jdbcTemplate.query(sql, params,
+                (rs, rowNum) -> YearMonth.of(rs.getInt("night_year"), rs.getInt("night_month")));
+    }
+
+    /**
+     * Retrieves the non-canceled reservations overlapping a date range, with a single range query.
+     *
+     * @param startDate the first day of the range
+     * @param endDate the last day of the range
+     * @return the reservations ordered by room and start date
+     */
+    @Override
+    public List<Reservation> getReservationsBetween(LocalDate startDate, LocalDate endDate) {
+        String sql = "SELECT * FROM " + table + " WHERE status <> 'CANCELED' AND start_date <= :endDate " +
+                "AND end_date >= :startDate ORDER BY room_id, start_date";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("startDate", startDate)
+                .addValue("endDate", endDate);
+        return jdbcTemplate.query(sql, params, mapper);
+    }
+
+    /**
+     * Compares the in-memory availability index with the reservation table.
+     *
+     * @return a report with the reservations that differ between the index and the database
+     */
+    public RoomAvailabilityIndex.ConsistencyReport checkAvailabilityIndex() {
+        return availabilityIndex.verify(getActiveReservations(availabilityIndex.getOrigin()));
+    }
+
+    /**
+     * Validates the parameters of an availability check.
+     *
+     * @param roomId the identifier of the room
+     * @param startDate the start date of the period
+     * @param endDate the end date of the period
+     * @throws IllegalArgumentException if any of the parameters are null or if endDate is before startDate
+     */
+    private void validateAvailabilityParameters(Long roomId, LocalDate startDate, LocalDate endDate) {
         if (roomId == null) {
             throw new IllegalArgumentException("El ID de la habitación no puede ser null");
         }
@@ -161,7 +652,18 @@ public class ReservationJdbcRepository implements ReservationRepository {
         if (endDate.isBefore(startDate)) {
             throw new IllegalArgumentException("La fecha de salida no puede ser anterior a la fecha de entrada.");
         }
+    }
 
+    /**
+     * Counts the non-canceled reservations of a room that overlap the given period.
+     *
+     * @param roomId the identifier of the room
+     * @param startDate the start date of the period
+     * @param endDate the end date of the period
+     * @return the number of overlapping reservations
+     * @throws RuntimeException if a data access error occurs while checking availability
+     */
+    private int countOverlappingReservations(Long roomId, LocalDate startDate, LocalDate endDate) {
         String sql = """
         SELECT COALESCE(COUNT(*), 0)
         FROM %s
@@ -184,13 +686,76 @@ public class ReservationJdbcRepository implements ReservationRepository {
 
         try {
             Integer count = jdbcTemplate.queryForObject(sql, params, Integer.class);
-            return count == null || count == 0;
+            return count == null ? 0 : count;
         } catch (DataAccessException e) {
             logger.error("Error al verificar la disponibilidad de la habitación: {}", e.getMessage());
             throw new RuntimeException("Error al verificar la disponibilidad de la habitación", e);
         }
     }
 
+    /**
+     * Writes one room-night row per booked day of the reservation with a single batched insert.
+     *
+     * @param reservation the reservation whose nights must be written
+     * @throws DuplicateKeyException if any of the nights is already booked
+     */
+    private void insertRoomNights(Reservation reservation) {
+        insertRoomNights(List.of(reservation));
+    }
+
+    /**
+     * Writes one room-night row per booked day of every given reservation with a single batched insert.
+     *
+     * @param reservations the reservations whose nights must be written
+     * @throws DuplicateKeyException if any of the nights is already booked
+     */
+    private void insertRoomNights(List<Reservation> reservations) {
+        String sql = "INSERT INTO " + nightTable + " (room_id, night, reservation_id) " +
+                "VALUES (:roomId, :night, :reservationId)";
+        SqlParameterSource[] batch = reservations.stream()
+                .flatMap(reservation -> reservation.start_date.datesUntil(reservation.end_date.plusDays(1))
+                        .map(night -> new MapSqlParameterSource()
+                                .addValue("roomId", reservation.room_id)
+                                .addValue("night", night)
+                                .addValue("reservationId", reservation.id)))
+                .toArray(SqlParameterSource[]::new);
+        if (batch.length > 0) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+    }
+
+    /**
+     * Releases every night held by the given reservation.
+     *
+     * @param reservationId the identifier of the reservation
+     */
+    private void deleteRoomNights(long reservationId) {
+        String sql = "DELETE FROM " + nightTable + " WHERE reservation_id = :reservationId";
+        jdbcTemplate.update(sql, new MapSqlParameterSource().addValue("reservationId", reservationId));
+    }
+
+    /**
+     * Applies the given reservation state to the availability index and broadcasts it to the other nodes once the
+     * current transaction commits, or immediately when no transaction is active. The state is copied first so later
+     * changes to the object are not reflected in the index.
+     *
+     * @param reservation the reservation whose state must be indexed
+     */
+    private void indexAfterCommit(Reservation reservation) {
+        Reservation snapshot = new Reservation(reservation.id, reservation.client_id, reservation.room_id,
+                reservation.total_price, reservation.start_date, reservation.end_date, reservation.status);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    availabilityIndex.publish(snapshot);
+                }
+            });
+        } else {
+            availabilityIndex.publish(snapshot);
+        }
+    }
+
     /**
      * Deletes all reservation records from the database.
      */
@@ -198,12 +763,30 @@ public class ReservationJdbcRepository implements ReservationRepository {
     public void deleteAll() {
         String sql = "DELETE FROM " + table;
         jdbcTemplate.update(sql, new MapSqlParameterSource());
+        availabilityIndex.clear();
     }
 
     /**
      * Maps rows of a ResultSet to Reservation objects.
      */
     public static class ReservationMapper implements RowMapper<Reservation> {
+        private final FieldSet fields;
+
+        /**
+         * Constructs a mapper of rows holding every column.
+         */
+        public ReservationMapper() {
+            this(FieldSet.ALL);
+        }
+
+        /**
+         * Constructs a mapper of rows holding only the given fields, which leaves the others {@code null}.
+         *
+         * @param fields the fields selected
+         */
+        public ReservationMapper(FieldSet fields) {
+            this.fields = fields;
+        }
 
         /**
          * Maps the current row of the given ResultSet to a Reservation object.
@@ -216,14 +799,17 @@ public class ReservationJdbcRepository implements ReservationRepository {
         @Override
         public Reservation mapRow(ResultSet rs, int rowNum) throws SQLException {
             long id = rs.getInt("id");
-            long clientId = rs.getInt("client_id");
-            long roomId = rs.getInt("room_id");
-            BigDecimal totalPrice = rs.getBigDecimal("total_price");
-            LocalDate startDate = rs.getObject("start_date", LocalDate.class);
-            LocalDate endDate = rs.getObject("end_date", LocalDate.class);
-            ReservationStatus status = ReservationStatus.valueOf(rs.getString("status").toUpperCase());
-
-            return new Reservation(id, clientId, roomId, totalPrice, startDate, endDate, status);
+            Long clientId = fields.has("client_id") ? (long) rs.getInt("client_id") : null;
+            Long roomId = fields.has("room_id") ? (long) rs.getInt("room_id") : null;
+            BigDecimal totalPrice = fields.has("total_price") ? rs.getBigDecimal("total_price") : null;
+            LocalDate startDate = fields.has("start_date") ? rs.getObject("start_date", LocalDate.class) : null;
+            LocalDate endDate = fields.has("end_date") ? rs.getObject("end_date", LocalDate.class) : null;
+            ReservationStatus status = fields.has("status")
+                    ? ReservationStatus.valueOf(rs.getString("status").toUpperCase()) : null;
+            Long version = fields.has("version") ? rs.getLong("version") : null;
+            BigDecimal paidTotal = fields.has("paid_total") ? rs.getBigDecimal("paid_total") : null;
+
+            return new Reservation(id, clientId, roomId, totalPrice, startDate, endDate, status, version, paidTotal);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.alfre.DHHotel.adapter.persistence;
+
+import com.alfre.DHHotel.domain.model.Payment;
+import com.alfre.DHHotel.domain.model.Reservation;
+
+import java.util.Collection;
+
+/**
+ * Keeps the daily revenue and occupancy rollups up to date with the writes of reservations and payments.
+ * The repositories call it right after each write, in the same transaction, with what the write took away and what
+ * it added, so the rollups only change by the difference.
+ *
+ * @author Alfredo Sobrados González
+ */
+public interface RevenueRollup {
+    /**
+     * Rollup that keeps nothing, for repositories built without one.
+     */
+    RevenueRollup NONE = new RevenueRollup() {
+        @Override
+        public void reservationsChanged(Collection<Reservation> removed, Collection<Reservation> added) {
+        }
+
+        @Override
+        public void paymentsChanged(Collection<Payment> removed, Collection<Payment> added) {
+        }
+
+        @Override
+        public void reservationsCleared() {
+        }
+
+        @Override
+        public void paymentsCleared() {
+        }
+    };
+
+    /**
+     * Takes the nights of some reservations out of the rollups and adds those of others. The check-out date is
+     * not a night of the stay, and canceled reservations have no nights and are skipped.
+     *
+     * @param removed the reservations as they were before the write
+     * @param added the reservations as they are after the write
+     */
+    void reservationsChanged(Collection<Reservation> removed, Collection<Reservation> added);
+
+    /**
+     * Takes some payments out of the rollups and adds others.
+     *
+     * @param removed the payments as they were before the write
+     * @param added the payments as they are after the write
+     */
+    void paymentsChanged(Collection<Payment> removed, Collection<Payment> added);
+
+    /**
+     * Empties the rollups once every reservation, and so every payment, has been deleted.
+     */
+    void reservationsCleared();
+
+    /**
+     * Takes every payment out of the rollups once they have all been deleted.
+     */
+    void paymentsCleared();
+}
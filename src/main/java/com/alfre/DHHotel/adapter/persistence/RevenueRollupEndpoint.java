@@ -0,0 +1,81 @@
+package com.alfre.DHHotel.adapter.persistence;
+
+import com.alfre.DHHotel.adapter.persistence.DailyRevenueJdbcRepository.RollupDrift;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint ({@code /actuator/revenuerollups}) that checks the daily revenue rollups against the room-night
+ * ledger and the payments and allows rebuilding the ones that have drifted without restarting the application.
+ * The same rebuild runs every night on one of the nodes.
+ *
+ * @author Alfredo Sobrados González
+ */
+@Component
+@Endpoint(id = "revenuerollups")
+public class RevenueRollupEndpoint {
+    private static final Logger logger = LoggerFactory.getLogger(RevenueRollupEndpoint.class);
+
+    /**
+     * Name of the database lock held by the node that runs the nightly rebuild.
+     */
+    static final String REBUILD_LOCK = "dhhotel.revenue-rollups.rebuild";
+
+    private final DailyRevenueJdbcRepository dailyRevenueRepository;
+    private final DatabaseJobLock jobLock;
+
+    /**
+     * Constructs the endpoint over the repository that keeps the rollups.
+     *
+     * @param dailyRevenueRepository the repository that keeps the daily revenue rollups up to date
+     * @param jobLock the lock that keeps the nightly rebuild to one node
+     */
+    public RevenueRollupEndpoint(DailyRevenueJdbcRepository dailyRevenueRepository, DatabaseJobLock jobLock) {
+        this.dailyRevenueRepository = dailyRevenueRepository;
+        this.jobLock = jobLock;
+    }
+
+    /**
+     * Compares every rollup with the amounts added up again from the reservations and payments.
+     *
+     * @return the rollups that do not match
+     */
+    @ReadOperation
+    public List<RollupDrift> check() {
+        return dailyRevenueRepository.findDrift();
+    }
+
+    /**
+     * Rebuilds the rollups that do not match and checks them again.
+     *
+     * @return the rollups that still do not match after the rebuild
+     */
+    @WriteOperation
+    public List<RollupDrift> rebuild() {
+        dailyRevenueRepository.rebuild();
+        return dailyRevenueRepository.findDrift();
+    }
+
+    /**
+     * Rebuilds the rollups that do not match every night, on the node that takes the lock first; the other nodes
+     * skip it.
+     */
+    @Scheduled(cron = "${revenue.rollups.rebuild-cron:0 30 3 * * *}")
+    public void rebuildNightly() {
+        try {
+            if (!jobLock.runExclusively(REBUILD_LOCK, dailyRevenueRepository::rebuild)) {
+                logger.debug("El resumen de ingresos ya se está comprobando en otro nodo");
+            }
+        } catch (DataAccessException e) {
+            logger.warn("No se ha podido comprobar el resumen de ingresos: {}", e.getMessage());
+        }
+    }
+}
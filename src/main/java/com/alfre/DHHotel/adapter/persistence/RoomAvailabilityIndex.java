@@ -0,0 +1,359 @@
+package com.alfre.DHHotel.adapter.persistence;
+
+import com.alfre.DHHotel.domain.model.Reservation;
+import com.alfre.DHHotel.domain.model.ReservationStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.lang.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * In-memory availability index with one day-granular bitmap per room.
+ * <p>
+ * Bit {@code n} of a room bitmap is set when a non-canceled reservation of that room touches the day
+ * {@code origin + n}. A reservation touches every day from its start date to its end date, both inclusive, which
+ * mirrors the overlap condition of the SQL availability query so both paths always agree.
+ * </p>
+ * <p>
+ * The index only answers for the window of days it covers. Until it has been loaded, or when a range falls outside
+ * the window, {@link #covers(LocalDate, LocalDate)} returns {@code false} and callers must fall back to the database.
+ * </p>
+ * <p>
+ * Every change recorded with {@link #publish(Reservation)} is broadcast with the identifier of this node, and the
+ * other nodes apply it to their own index when they receive it. A node that misses a message may still hold a stay
+ * that was released elsewhere, so callers must confirm a room reported as busy against the database; a missed
+ * booking is caught by the room-night ledger when the reservation is inserted.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+public class RoomAvailabilityIndex implements MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(RoomAvailabilityIndex.class);
+    private static final String SEPARATOR = "\n";
+
+    /**
+     * Number of past days kept in the window, so stays that already started can still be checked.
+     */
+    static final int PAST_DAYS = 31;
+
+    /**
+     * Total number of days covered by the window.
+     */
+    static final int WINDOW_DAYS = PAST_DAYS + 3 * 366;
+
+    private final Map<Long, RoomCalendar> calendars = new ConcurrentHashMap<>();
+    private final Map<Long, Stay> stays = new ConcurrentHashMap<>();
+    private final Consumer<String> broadcaster;
+    private final String nodeId = UUID.randomUUID().toString();
+    private volatile long originDay;
+    private volatile boolean loaded;
+
+    /**
+     * Constructs an unloaded index without telling other nodes about the changes.
+     */
+    public RoomAvailabilityIndex() {
+        this(payload -> { });
+    }
+
+    /**
+     * Constructs an unloaded index.
+     *
+     * @param broadcaster sends a change message to every API node, this one included
+     */
+    public RoomAvailabilityIndex(Consumer<String> broadcaster) {
+        this.broadcaster = broadcaster;
+    }
+
+    /**
+     * Replaces the content of the index with the given reservations and moves the window so it starts
+     * {@link #PAST_DAYS} days before {@code today}.
+     *
+     * @param reservations the non-canceled reservations that end on or after the new window origin
+     * @param today the reference date used to place the window
+     */
+    public synchronized void rebuild(Collection<Reservation> reservations, LocalDate today) {
+        loaded = false;
+        calendars.clear();
+        stays.clear();
+        originDay = today.minusDays(PAST_DAYS).toEpochDay();
+        reservations.forEach(this::apply);
+        loaded = true;
+    }
+
+    /**
+     * Returns the first day covered by the window.
+     *
+     * @return the window origin date
+     */
+    public LocalDate getOrigin() {
+        return LocalDate.ofEpochDay(originDay);
+    }
+
+    /**
+     * Indicates whether the index has been loaded and can answer for the whole range.
+     *
+     * @param startDate the first day of the range
+     * @param endDate the last day of the range
+     * @return {@code true} if the index can answer availability questions for the range
+     */
+    public boolean covers(LocalDate startDate, LocalDate endDate) {
+        if (!loaded) {
+            return false;
+        }
+        long from = startDate.toEpochDay() - originDay;
+        long to = endDate.toEpochDay() - originDay;
+        return from >= 0 && to < WINDOW_DAYS;
+    }
+
+    /**
+     * Checks whether no active reservation of the room touches any day of the range.
+     * Runs in time proportional to the number of days of the range.
+     *
+     * @param roomId the identifier of the room
+     * @param startDate the first day of the range
+     * @param endDate the last day of the range
+     * @return {@code true} if the room is free for the whole range
+     * @throws IllegalStateException if the index does not cover the range
+     */
+    public boolean isAvailable(long roomId, LocalDate startDate, LocalDate endDate) {
+        if (!covers(startDate, endDate)) {
+            throw new IllegalStateException("El índice de disponibilidad no cubre el rango solicitado");
+        }
+        RoomCalendar calendar = calendars.get(roomId);
+        if (calendar == null) {
+            return true;
+        }
+        return calendar.isFree(toBit(startDate), toBit(endDate));
+    }
+
+    /**
+     * Records the current state of a reservation. Canceled reservations and stays that ended before the window are
+     * removed from the index, and any previous version of the reservation, possibly on another room, is replaced.
+     *
+     * @param reservation the reservation to index
+     */
+    public void apply(Reservation reservation) {
+        if (reservation.status == ReservationStatus.CANCELED || reservation.room_id == null
+                || reservation.start_date == null || reservation.end_date == null) {
+            remove(reservation.id);
+            return;
+        }
+        apply(new Stay(reservation.id, reservation.room_id, reservation.start_date.toEpochDay(),
+                reservation.end_date.toEpochDay()));
+    }
+
+    /**
+     * Records the current state of a reservation and tells the other nodes about it.
+     *
+     * @param reservation the committed state of the reservation
+     */
+    public void publish(Reservation reservation) {
+        apply(reservation);
+        Stay stay = stays.get(reservation.id);
+        String payload = nodeId + SEPARATOR + reservation.id;
+        if (stay != null) {
+            payload += SEPARATOR + stay.roomId() + SEPARATOR + stay.startDay() + SEPARATOR + stay.endDay();
+        }
+        try {
+            broadcaster.accept(payload);
+        } catch (RuntimeException e) {
+            logger.warn("No se ha podido difundir el cambio de disponibilidad de la reserva {}: {}",
+                    reservation.id, e.getMessage());
+        }
+    }
+
+    /**
+     * Applies a change made by another node.
+     *
+     * @param message the change message
+     * @param pattern the channel pattern the message matched, if any
+     */
+    @Override
+    public void onMessage(@NonNull Message message, byte[] pattern) {
+        handleChange(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Applies the stay carried by a change message, or removes the reservation when the message carries no stay,
+     * unless this node sent it.
+     *
+     * @param payload the body of the message
+     */
+    void handleChange(String payload) {
+        String[] parts = payload.split(SEPARATOR);
+        if (nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            if (parts.length == 2) {
+                remove(Long.parseLong(parts[1]));
+            } else if (parts.length == 5) {
+                apply(new Stay(Long.parseLong(parts[1]), Long.parseLong(parts[2]), Long.parseLong(parts[3]),
+                        Long.parseLong(parts[4])));
+            } else {
+                logger.warn("Cambio de disponibilidad recibido no válido: {}", payload);
+            }
+        } catch (NumberFormatException e) {
+            logger.warn("Cambio de disponibilidad recibido no válido: {}", payload);
+        }
+    }
+
+    private synchronized void apply(Stay stay) {
+        if (stay.endDay() < originDay) {
+            remove(stay.reservationId());
+            return;
+        }
+        Stay previous = stays.put(stay.reservationId(), stay);
+        if (previous != null && previous.roomId() != stay.roomId()) {
+            calendarOf(previous.roomId()).remove(previous, this);
+        }
+        calendarOf(stay.roomId()).put(stay, this);
+    }
+
+    /**
+     * Removes a reservation from the index.
+     *
+     * @param reservationId the identifier of the reservation
+     */
+    public synchronized void remove(long reservationId) {
+        Stay previous = stays.remove(reservationId);
+        if (previous != null) {
+            calendarOf(previous.roomId()).remove(previous, this);
+        }
+    }
+
+    /**
+     * Removes every reservation from the index, keeping it loaded.
+     */
+    public synchronized void clear() {
+        calendars.clear();
+        stays.clear();
+    }
+
+    /**
+     * Compares the content of the index with the reservations stored in the database.
+     *
+     * @param reservations the non-canceled reservations that end inside the window, read from the database
+     * @return a report listing missing, stale and mismatched reservations
+     */
+    public ConsistencyReport verify(Collection<Reservation> reservations) {
+        Map<Long, Stay> expected = new HashMap<>();
+        for (Reservation reservation : reservations) {
+            expected.put(reservation.id, new Stay(reservation.id, reservation.room_id,
+                    reservation.start_date.toEpochDay(), reservation.end_date.toEpochDay()));
+        }
+
+        List<Long> missing = new ArrayList<>();
+        List<Long> mismatched = new ArrayList<>();
+        expected.forEach((id, stay) -> {
+            Stay indexed = stays.get(id);
+            if (indexed == null) {
+                missing.add(id);
+            } else if (!indexed.equals(stay)) {
+                mismatched.add(id);
+            }
+        });
+
+        List<Long> stale = stays.keySet().stream()
+                .filter(id -> !expected.containsKey(id))
+                .sorted()
+                .toList();
+        Collections.sort(missing);
+        Collections.sort(mismatched);
+
+        return new ConsistencyReport(loaded, stays.size(), expected.size(), missing, stale, mismatched);
+    }
+
+    private RoomCalendar calendarOf(long roomId) {
+        return calendars.computeIfAbsent(roomId, id -> new RoomCalendar());
+    }
+
+    private int toBit(LocalDate date) {
+        return (int) (date.toEpochDay() - originDay);
+    }
+
+    private int clampBit(long epochDay) {
+        return (int) Math.max(0, Math.min(WINDOW_DAYS, epochDay - originDay));
+    }
+
+    /**
+     * A reservation reduced to the data the index needs.
+     *
+     * @param reservationId the identifier of the reservation
+     * @param roomId the identifier of the booked room
+     * @param startDay the epoch day of the start date
+     * @param endDay the epoch day of the end date
+     */
+    record Stay(long reservationId, long roomId, long startDay, long endDay) { }
+
+    /**
+     * Result of comparing the index with the database.
+     *
+     * @param loaded whether the index was loaded when the check ran
+     * @param indexed the number of reservations held in the index
+     * @param expected the number of active reservations found in the database
+     * @param missing reservations present in the database but not in the index
+     * @param stale reservations present in the index but not in the database
+     * @param mismatched reservations whose room or dates differ between both sides
+     */
+    public record ConsistencyReport(boolean loaded, int indexed, int expected, List<Long> missing, List<Long> stale,
+                                    List<Long> mismatched) {
+        /**
+         * Indicates whether the index matches the database.
+         *
+         * @return {@code true} if no difference was found
+         */
+        public boolean consistent() {
+            return missing.isEmpty() && stale.isEmpty() && mismatched.isEmpty();
+        }
+    }
+
+    /**
+     * Bitmap of the occupied days of one room plus the stays that produced it, so a removal can rebuild the bits
+     * shared with other overlapping stays.
+     */
+    private static final class RoomCalendar {
+        private final BitSet days = new BitSet();
+        private final Map<Long, Stay> roomStays = new HashMap<>();
+
+        synchronized void put(Stay stay, RoomAvailabilityIndex index) {
+            Stay previous = roomStays.put(stay.reservationId(), stay);
+            if (previous != null) {
+                rebuild(index);
+            } else {
+                mark(stay, index);
+            }
+        }
+
+        synchronized void remove(Stay stay, RoomAvailabilityIndex index) {
+            if (roomStays.remove(stay.reservationId()) != null) {
+                rebuild(index);
+            }
+        }
+
+        synchronized boolean isFree(int fromBit, int toBit) {
+            int next = days.nextSetBit(fromBit);
+            return next < 0 || next > toBit;
+        }
+
+        private void rebuild(RoomAvailabilityIndex index) {
+            days.clear();
+            roomStays.values().forEach(stay -> mark(stay, index));
+        }
+
+        private void mark(Stay stay, RoomAvailabilityIndex index) {
+            int from = index.clampBit(stay.startDay());
+            int to = index.clampBit(stay.endDay() + 1);
+            if (from < to) {
+                days.set(from, to);
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.alfre.DHHotel.adapter.persistence;
+
+import com.alfre.DHHotel.domain.model.Room;
+import com.alfre.DHHotel.domain.model.RoomStatus;
+import com.alfre.DHHotel.domain.model.RoomType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.lang.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory catalog of the rooms, read without locks.
+ * <p>
+ * The catalog holds an immutable {@link Snapshot} of every room with its secondary indexes by type and status. Every
+ * change builds a new snapshot and swaps it in a single volatile write, so readers always see a whole snapshot, old
+ * or new, and never wait for a writer.
+ * </p>
+ * <p>
+ * Each change made on this node is broadcast with the identifier of the node, and every other node that receives it
+ * drops its snapshot, which is loaded again from the database on the next read. Messages sent by this node are
+ * ignored.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+public class RoomCatalog implements MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(RoomCatalog.class);
+
+    private final Consumer<String> broadcaster;
+    private final String nodeId = UUID.randomUUID().toString();
+    private volatile Snapshot snapshot;
+    private long changes;
+
+    /**
+     * Constructs a catalog that does not tell other nodes about its changes.
+     */
+    public RoomCatalog() {
+        this(payload -> { });
+    }
+
+    /**
+     * Constructs a catalog.
+     *
+     * @param broadcaster sends a change message to every API node, this one included
+     */
+    public RoomCatalog(Consumer<String> broadcaster) {
+        this.broadcaster = broadcaster;
+    }
+
+    /**
+     * Returns the current snapshot.
+     *
+     * @return the snapshot, or {@code null} while the catalog is not loaded
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns a counter of the changes applied to the catalog, to be passed to {@link #rebuild(Collection, long)}.
+     *
+     * @return the number of changes applied so far
+     */
+    public synchronized long changes() {
+        return changes;
+    }
+
+    /**
+     * Builds a snapshot with the given rooms and makes it the current one, unless the catalog changed after the
+     * rooms were read: the rooms may then be older than the change, so the snapshot is returned without being kept.
+     *
+     * @param rooms every room, read from the database
+     * @param changesBeforeRead the value of {@link #changes()} before the rooms were read
+     * @return the snapshot of the given rooms
+     */
+    public synchronized Snapshot rebuild(Collection<Room> rooms, long changesBeforeRead) {
+        Map<Long, Room> byId = new HashMap<>();
+        rooms.forEach(room -> byId.put(room.id, copyOf(room)));
+        Snapshot rebuilt = new Snapshot(byId);
+        if (changes == changesBeforeRead) {
+            snapshot = rebuilt;
+        }
+        return rebuilt;
+    }
+
+    /**
+     * Adds a room to the catalog, or replaces it if a room with the same ID is already present.
+     * Only the snapshot is rebuilt while the catalog is not loaded.
+     *
+     * @param room the current state of the room
+     */
+    public void put(Room room) {
+        putAll(List.of(room));
+    }
+
+    /**
+     * Adds several rooms to the catalog, or replaces those already present, with a single new snapshot.
+     * Only the snapshot is rebuilt while the catalog is not loaded.
+     *
+     * @param rooms the current state of the rooms
+     */
+    public synchronized void putAll(Collection<Room> rooms) {
+        changes++;
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        Map<Long, Room> byId = new HashMap<>(current.byId);
+        rooms.forEach(room -> byId.put(room.id, copyOf(room)));
+        snapshot = new Snapshot(byId);
+    }
+
+    /**
+     * Removes a room from the catalog.
+     *
+     * @param id the ID of the room
+     */
+    public synchronized void remove(long id) {
+        changes++;
+        Snapshot current = snapshot;
+        if (current == null || !current.byId.containsKey(id)) {
+            return;
+        }
+        Map<Long, Room> byId = new HashMap<>(current.byId);
+        byId.remove(id);
+        snapshot = new Snapshot(byId);
+    }
+
+    /**
+     * Drops the snapshot, so the catalog is loaded again from the database on the next read.
+     */
+    public synchronized void invalidate() {
+        changes++;
+        snapshot = null;
+    }
+
+    /**
+     * Tells the other nodes that a room changed. A failed broadcast does not fail the write: the other nodes keep
+     * their snapshot until they receive a later change or restart.
+     */
+    public void publishChange() {
+        try {
+            broadcaster.accept(nodeId);
+        } catch (RuntimeException e) {
+            logger.warn("No se ha podido difundir el cambio del catálogo de habitaciones: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drops the snapshot when another node changed a room.
+     *
+     * @param message the change message
+     * @param pattern the channel pattern the message matched, if any
+     */
+    @Override
+    public void onMessage(@NonNull Message message, byte[] pattern) {
+        handleChange(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Drops the snapshot, unless the change message was sent by this node.
+     *
+     * @param payload the body of the message
+     */
+    void handleChange(String payload) {
+        if (!nodeId.equals(payload)) {
+            invalidate();
+        }
+    }
+
+    private static List<Room> copyOf(List<Room> rooms) {
+        return rooms.stream().map(RoomCatalog::copyOf).collect(Collectors.toList());
+    }
+
+    private static Room copyOf(Room room) {
+        return new Room(room.id, room.room_number, room.type, room.price_per_night, room.status);
+    }
+
+    /**
+     * Immutable set of rooms with a map by ID and one list per {@link RoomType} and per {@link RoomStatus}, indexed
+     * by the ordinal of the enum. Rooms are copied on the way out, so callers can never change a snapshot.
+     */
+    public static final class Snapshot {
+        private static final RoomType[] TYPES = RoomType.values();
+        private static final RoomStatus[] STATUSES = RoomStatus.values();
+
+        private final List<Room> rooms;
+        private final Map<Long, Room> byId;
+        private final List<List<Room>> byType = new ArrayList<>();
+        private final List<List<Room>> byStatus = new ArrayList<>();
+
+        private Snapshot(Map<Long, Room> byId) {
+            this.byId = Map.copyOf(byId);
+            this.rooms = byId.values().stream()
+                    .sorted(Comparator.comparingLong(room -> room.id))
+                    .toList();
+            for (RoomType type : TYPES) {
+                byType.add(rooms.stream().filter(room -> room.type == type).toList());
+            }
+            for (RoomStatus status : STATUSES) {
+                byStatus.add(rooms.stream().filter(room -> room.status == status).toList());
+            }
+        }
+
+        /**
+         * Returns every room, ordered by ID.
+         *
+         * @return copies of the rooms
+         */
+        public List<Room> getAllRooms() {
+            return copyOf(rooms);
+        }
+
+        /**
+         * Returns a page of the rooms of a type and status, ordered by ID.
+         *
+         * @param type the room type, or {@code null} for every type
+         * @param status the room status, or {@code null} for every status
+         * @param afterId the ID the page starts after
+         * @param limit the maximum number of rooms of the page
+         * @return copies of the rooms
+         */
+        public List<Room> getRoomsPage(RoomType type, RoomStatus status, long afterId, int limit) {
+            List<Room> candidates = type != null ? byType.get(type.ordinal())
+                    : status != null ? byStatus.get(status.ordinal())
+                    : rooms;
+            return candidates.stream()
+                    .dropWhile(room -> room.id <= afterId)
+                    .filter(room -> status == null || room.status == status)
+                    .limit(limit)
+                    .map(RoomCatalog::copyOf)
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * Returns a room.
+         *
+         * @param id the ID of the room
+         * @return a copy of the room, or {@code null} if it does not exist
+         */
+        public Room getRoom(long id) {
+            Room room = byId.get(id);
+            return room == null ? null : copyOf(room);
+        }
+
+        /**
+         * Returns the rooms with the given IDs, ordered by ID; IDs without room are skipped.
+         *
+         * @param ids the IDs of the rooms
+         * @return copies of the rooms
+         */
+        public List<Room> getRooms(Collection<Long> ids) {
+            return ids.stream()
+                    .distinct()
+                    .map(byId::get)
+                    .filter(Objects::nonNull)
+                    .sorted(Comparator.comparingLong(room -> room.id))
+                    .map(RoomCatalog::copyOf)
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * Returns the rooms of a type, ordered by ID.
+         *
+         * @param type the room type
+         * @return copies of the rooms
+         */
+        public List<Room> getRoomsByType(RoomType type) {
+            return copyOf(byType.get(type.ordinal()));
+        }
+
+        /**
+         * Returns the rooms in a status, ordered by ID.
+         *
+         * @param status the room status
+         * @return copies of the rooms
+         */
+        public List<Room> getRoomsByStatus(RoomStatus status) {
+            return copyOf(byStatus.get(status.ordinal()));
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.alfre.DHHotel.adapter.persistence;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
-import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
@@ -10,9 +10,14 @@ import javax.sql.DataSource;
  * Backwards-compatible alias for {@link SqlRoomRepository}.
  */
 @Repository
-@Primary
 public class RoomJdbcRepository extends SqlRoomRepository {
     public RoomJdbcRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate, DataSource dataSource) {
         super(namedParameterJdbcTemplate, dataSource);
     }
+
+    @Autowired
+    public RoomJdbcRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate, DataSource dataSource,
+                              RoomCatalog catalog) {
+        super(namedParameterJdbcTemplate, dataSource, catalog);
+    }
 }
@@ -0,0 +1,116 @@
+package com.alfre.DHHotel.adapter.persistence;
+
+import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.domain.model.SeasonalRate;
+import com.alfre.DHHotel.domain.repository.SeasonalRateRepository;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * This class contains the attributes and methods of the seasonal rate repository in the adapter layer that access to
+ * the database of the API and performs the operations relation to the rate calendar
+ *
+ * @author Alfredo Sobrados González
+ */
+@Repository
+public class SeasonalRateJdbcRepository implements SeasonalRateRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final SimpleJdbcInsert insert;
+
+    private final SeasonalRateMapper mapper = new SeasonalRateMapper();
+
+    private final String table = "SeasonalRate";
+
+    /**
+     * Constructs a SeasonalRateJdbcRepository with the provided NamedParameterJdbcTemplate and DataSource.
+     * This constructor initializes the jdbcTemplate and configures a SimpleJdbcInsert for the seasonal rate table.
+     *
+     * @param namedParameterJdbcTemplate the template for executing parameterized SQL queries
+     * @param dataSource the DataSource for obtaining database connections
+     */
+    public SeasonalRateJdbcRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate, DataSource dataSource) {
+        this.jdbcTemplate = namedParameterJdbcTemplate;
+        this.insert = new SimpleJdbcInsert(dataSource).withTableName(table)
+                .usingGeneratedKeyColumns("id");
+    }
+
+    /**
+     * Retrieves all seasonal rates from the database, in creation order.
+     *
+     * @return a list of all SeasonalRate objects
+     */
+    @Override
+    public List<SeasonalRate> getAllRates() {
+        String sql = "SELECT * FROM " + table + " ORDER BY id";
+        return jdbcTemplate.query(sql, mapper);
+    }
+
+    /**
+     * Inserts a new seasonal rate into the database.
+     *
+     * @param newRate the SeasonalRate object to be inserted
+     * @return the generated identifier of the newly created rate
+     */
+    @Override
+    public long createRate(SeasonalRate newRate) {
+        return insert.executeAndReturnKey(
+                new MapSqlParameterSource()
+                        .addValue("room_type", newRate.room_type == null ? null : newRate.room_type.name())
+                        .addValue("start_date", newRate.start_date)
+                        .addValue("end_date", newRate.end_date)
+                        .addValue("percentage", newRate.percentage)
+                        .addValue("weekend_percentage", newRate.weekend_percentage)
+        ).longValue();
+    }
+
+    /**
+     * Deletes a seasonal rate from the database by its unique identifier.
+     *
+     * @param id the unique identifier of the rate to delete
+     * @return the number of rows affected by the delete operation
+     */
+    @Override
+    public int deleteRate(long id) {
+        String sql = "DELETE FROM " + table + " WHERE id = :id";
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("id", id);
+        return jdbcTemplate.update(sql, params);
+    }
+
+    /**
+     * Maps rows of a SQL ResultSet to SeasonalRate objects.
+     */
+    public static class SeasonalRateMapper implements RowMapper<SeasonalRate> {
+
+        /**
+         * Maps the current row of the given ResultSet to a SeasonalRate object.
+         *
+         * @param rs the ResultSet to map (pre-initialized for the current row)
+         * @param rowNum the number of the current row
+         * @return the mapped SeasonalRate object
+         * @throws SQLException if an SQL error occurs while mapping the row
+         */
+        @Override
+        public SeasonalRate mapRow(ResultSet rs, int rowNum) throws SQLException {
+            long id = rs.getLong("id");
+            String type = rs.getString("room_type");
+            RoomType roomType = type == null ? null : RoomType.valueOf(type.toUpperCase());
+            LocalDate startDate = rs.getObject("start_date", LocalDate.class);
+            LocalDate endDate = rs.getObject("end_date", LocalDate.class);
+            int percentage = rs.getInt("percentage");
+            Integer weekendPercentage = rs.getObject("weekend_percentage", Integer.class);
+
+            return new SeasonalRate(id, roomType, startDate, endDate, percentage, weekendPercentage);
+        }
+    }
+}
@@ -4,24 +4,39 @@ import com.alfre.DHHotel.domain.model.Room;
 import com.alfre.DHHotel.domain.repository.RoomRepository;
 import com.alfre.DHHotel.domain.model.RoomStatus;
 import com.alfre.DHHotel.domain.model.RoomType;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.sql.DataSource;
+import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * This class contains the attributes and methods of the room repository in the adapter layer that access to the
  * database of the API and performs the operations relation to rooms
+ * <p>
+ * When built with a {@link RoomCatalog}, every room read that does not lock rows is served from the in-memory
+ * catalog, which is loaded with a single query on the first read and refreshed room by room once each write commits.
+ * Availability searches and row locks always go to the database.
+ * </p>
  *
  * @author Alfredo Sobrados González
  */
@@ -30,6 +45,7 @@ public class SqlRoomRepository implements RoomRepository {
     private final NamedParameterJdbcTemplate jdbcTemplate;
     private final SimpleJdbcInsert insert;
     private final RoomMapper mapper = new RoomMapper();
+    private final RoomCatalog catalog;
     private final String table = "Room";
 
     /**
@@ -44,10 +60,24 @@ public class SqlRoomRepository implements RoomRepository {
      * @param dataSource the data source from which database connections are obtained
      */
     public SqlRoomRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate, DataSource dataSource) {
+        this(namedParameterJdbcTemplate, dataSource, null);
+    }
+
+    /**
+     * Constructs a new SqlRoomRepository that serves the room reads from the given catalog.
+     *
+     * @param namedParameterJdbcTemplate the JDBC template used for executing SQL queries with named parameters
+     * @param dataSource the data source from which database connections are obtained
+     * @param catalog the in-memory room catalog, or {@code null} to read every room from the database
+     */
+    @Autowired
+    public SqlRoomRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate, DataSource dataSource,
+                             RoomCatalog catalog) {
         this.jdbcTemplate = namedParameterJdbcTemplate;
         this.insert = new SimpleJdbcInsert(dataSource)
                 .withTableName(table)
                 .usingGeneratedKeyColumns("id");
+        this.catalog = catalog;
     }
 
     /**
@@ -56,12 +86,47 @@ public class SqlRoomRepository implements RoomRepository {
      * @return List of all rooms
      */
     @Override
-    @Cacheable(value = "rooms", key = "'all'")
     public List<Room> getAllRooms() {
+        if (catalog != null) {
+            return rooms().getAllRooms();
+        }
         String sql = "SELECT * FROM " + table;
         return jdbcTemplate.query(sql, mapper);
     }
 
+    /**
+     * Retrieves a page of the rooms of the given type and status, ordered by ID and starting right after the given
+     * ID. Only the criteria provided are added to the query.
+     *
+     * @param type the type of the rooms, or null for every type
+     * @param status the status of the rooms, or null for every status
+     * @param afterId the ID the page starts after, 0 for the first page
+     * @param limit the maximum number of rooms of the page
+     * @return List of up to {@code limit} rooms
+     */
+    @Override
+    public List<Room> getRoomsPage(RoomType type, RoomStatus status, long afterId, int limit) {
+        if (catalog != null) {
+            return rooms().getRoomsPage(type, status, afterId, limit);
+        }
+        StringBuilder sql = new StringBuilder("SELECT * FROM " + table + " WHERE id > :afterId");
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("afterId", afterId)
+                .addValue("limit", limit);
+
+        if (type != null) {
+            sql.append(" AND type = :type");
+            params.addValue("type", type.name());
+        }
+        if (status != null) {
+            sql.append(" AND status = :status");
+            params.addValue("status", status.name());
+        }
+
+        sql.append(" ORDER BY id LIMIT :limit");
+        return jdbcTemplate.query(sql.toString(), params, mapper);
+    }
+
     /**
      * Retrieves a room by its ID from database.
      *
@@ -69,8 +134,17 @@ public class SqlRoomRepository implements RoomRepository {
      * @return Optional containing the room if found, empty otherwise
      */
     @Override
-    @Cacheable(value = "rooms", key = "#id")
     public Optional<Room> getRoomById(long id) {
+        if (catalog != null) {
+            return Optional.ofNullable(rooms().getRoom(id));
+        }
+        return selectRoomById(id);
+    }
+
+    /**
+     * Reads a room from the database, bypassing the catalog.
+     */
+    private Optional<Room> selectRoomById(long id) {
         String sql = "SELECT * FROM " + table + " WHERE id = :id";
         MapSqlParameterSource params = new MapSqlParameterSource().addValue("id", id);
         try {
@@ -80,6 +154,55 @@ public class SqlRoomRepository implements RoomRepository {
         }
     }
 
+    /**
+     * Locks the row of a room with {@code SELECT ... FOR UPDATE}. The lock is held until the current transaction
+     * commits or rolls back.
+     *
+     * @param id The ID of the room to lock
+     */
+    @Override
+    public void lockRoom(long id) {
+        String sql = "SELECT id FROM " + table + " WHERE id = :id FOR UPDATE";
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("id", id);
+        jdbcTemplate.queryForList(sql, params, Long.class);
+    }
+
+    /**
+     * Retrieves several rooms by their IDs with a single {@code IN} query.
+     *
+     * @param ids The IDs of the rooms to retrieve
+     * @return List of the rooms found ordered by ID
+     */
+    @Override
+    public List<Room> getRoomsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        if (catalog != null) {
+            return rooms().getRooms(ids);
+        }
+        String sql = "SELECT * FROM " + table + " WHERE id IN (:ids) ORDER BY id";
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("ids", ids);
+        return jdbcTemplate.query(sql, params, mapper);
+    }
+
+    /**
+     * Retrieves several rooms by their IDs and locks their rows with {@code SELECT ... FOR UPDATE}. Rows are locked
+     * in ID order and the locks are held until the current transaction commits or rolls back.
+     *
+     * @param ids The IDs of the rooms to lock
+     * @return List of the locked rooms ordered by ID
+     */
+    @Override
+    public List<Room> lockRooms(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String sql = "SELECT * FROM " + table + " WHERE id IN (:ids) ORDER BY id FOR UPDATE";
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("ids", ids);
+        return jdbcTemplate.query(sql, params, mapper);
+    }
+
     /**
      * Creates a new room in the database.
      *
@@ -87,14 +210,65 @@ public class SqlRoomRepository implements RoomRepository {
      * @return The ID of the newly created room
      */
     @Override
-    @CacheEvict(value = "rooms", allEntries = true)
     public long createRoom(Room newRoom) {
         MapSqlParameterSource params = new MapSqlParameterSource()
                 .addValue("room_number", newRoom.room_number)
                 .addValue("type", newRoom.type.name())
                 .addValue("price_per_night", newRoom.price_per_night)
                 .addValue("status", newRoom.status.name());
-        return insert.executeAndReturnKey(params).longValue();
+        long id = insert.executeAndReturnKey(params).longValue();
+        refreshAfterCommit(id);
+        return id;
+    }
+
+    /**
+     * Creates several rooms with a single multi-row insert, which the database applies as a whole: when one row is
+     * rejected, for instance because its room number already exists, none of them is created. Once the insert
+     * commits the new rooms are added to the catalog in one go.
+     *
+     * @param newRooms The rooms to create
+     * @return The IDs of the new rooms, in the same order as the rooms
+     */
+    @Override
+    public List<Long> createRooms(List<Room> newRooms) {
+        if (newRooms.isEmpty()) {
+            return List.of();
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO " + table +
+                " (room_number, type, price_per_night, status) VALUES ");
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        for (int i = 0; i < newRooms.size(); i++) {
+            Room room = newRooms.get(i);
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(:room_number").append(i).append(", :type").append(i)
+                    .append(", :price_per_night").append(i).append(", :status").append(i).append(')');
+            params.addValue("room_number" + i, room.room_number)
+                    .addValue("type" + i, room.type.name())
+                    .addValue("price_per_night" + i, room.price_per_night)
+                    .addValue("status" + i, room.status.name());
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(sql.toString(), params, keyHolder, new String[]{"id"});
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != newRooms.size()) {
+            throw new IllegalStateException("No se han podido obtener los identificadores de las habitaciones creadas");
+        }
+        List<Long> ids = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            long id = ((Number) keys.get(i).values().iterator().next()).longValue();
+            newRooms.get(i).setId(id);
+            ids.add(id);
+        }
+
+        if (catalog != null) {
+            List<Room> created = List.copyOf(newRooms);
+            afterCommit(() -> {
+                catalog.putAll(created);
+                catalog.publishChange();
+            });
+        }
+        return ids;
     }
 
     /**
@@ -104,7 +278,6 @@ public class SqlRoomRepository implements RoomRepository {
      * @return The number of rows affected (should be 1 if successful)
      */
     @Override
-    @CacheEvict(value = "rooms", key = "#id")
     public int updateRoom(Room room, long id) {
         String sql = "UPDATE " + table + " SET room_number = :room_number, type = :type, " +
                 "price_per_night = :price_per_night, status = :status WHERE id = :id";
@@ -114,7 +287,9 @@ public class SqlRoomRepository implements RoomRepository {
                 .addValue("type", room.type.name())
                 .addValue("price_per_night", room.price_per_night)
                 .addValue("status", room.status.name());
-        return jdbcTemplate.update(sql, params);
+        int rowsAffected = jdbcTemplate.update(sql, params);
+        refreshAfterCommit(id);
+        return rowsAffected;
     }
 
     /**
@@ -124,11 +299,12 @@ public class SqlRoomRepository implements RoomRepository {
      * @return The number of rows affected (should be 1 if successful)
      */
     @Override
-    @CacheEvict(value = "rooms", key = "#id")
     public int deleteRoom(long id) {
         String sql = "DELETE FROM " + table + " WHERE id = :id";
         MapSqlParameterSource params = new MapSqlParameterSource().addValue("id", id);
-        return jdbcTemplate.update(sql, params);
+        int rowsAffected = jdbcTemplate.update(sql, params);
+        refreshAfterCommit(id);
+        return rowsAffected;
     }
 
     /**
@@ -139,6 +315,9 @@ public class SqlRoomRepository implements RoomRepository {
      */
     @Override
     public List<Room> getRoomsByType(RoomType type) {
+        if (catalog != null) {
+            return rooms().getRoomsByType(type);
+        }
         String sql = "SELECT * FROM " + table + " WHERE type = :type";
         MapSqlParameterSource params = new MapSqlParameterSource().addValue("type", type.name());
         return jdbcTemplate.query(sql, params, mapper);
@@ -151,11 +330,59 @@ public class SqlRoomRepository implements RoomRepository {
      */
     @Override
     public List<Room> getAvailableRooms() {
+        if (catalog != null) {
+            return rooms().getRoomsByStatus(RoomStatus.AVAILABLE);
+        }
         String sql = "SELECT * FROM " + table + " WHERE status = :status";
         MapSqlParameterSource params = new MapSqlParameterSource().addValue("status", RoomStatus.AVAILABLE.name());
         return jdbcTemplate.query(sql, params, mapper);
     }
 
+    /**
+     * Retrieves the rooms free for a whole date range with a single anti-join against the room-night ledger, which
+     * is a primary key lookup per room instead of a range-overlap scan of the reservation table.
+     * Optional filters are only added to the query when they are provided.
+     *
+     * @param startDate the check-in date of the stay
+     * @param endDate the check-out date of the stay
+     * @param type the room type to filter by, or null for any type
+     * @param minPrice the minimum price per night, or null for no lower bound
+     * @param maxPrice the maximum price per night, or null for no upper bound
+     * @return List of free rooms ordered by price and room number
+     */
+    @Override
+    public List<Room> searchAvailableRooms(LocalDate startDate, LocalDate endDate, RoomType type,
+                                           BigDecimal minPrice, BigDecimal maxPrice) {
+        StringBuilder sql = new StringBuilder("SELECT r.* FROM " + table + " r WHERE r.status <> 'MAINTENANCE'");
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("startDate", startDate)
+                .addValue("endDate", endDate);
+
+        if (type != null) {
+            sql.append(" AND r.type = :type");
+            params.addValue("type", type.name());
+        }
+        if (minPrice != null) {
+            sql.append(" AND r.price_per_night >= :minPrice");
+            params.addValue("minPrice", minPrice);
+        }
+        if (maxPrice != null) {
+            sql.append(" AND r.price_per_night <= :maxPrice");
+            params.addValue("maxPrice", maxPrice);
+        }
+
+        sql.append("""
+                 AND NOT EXISTS (
+                    SELECT 1
+                    FROM RoomNight n
+                    WHERE n.room_id = r.id
+                    AND n.night BETWEEN :startDate AND :endDate
+                )
+                ORDER BY r.price_per_night, r.room_number""");
+
+        return jdbcTemplate.query(sql.toString(), params, mapper);
+    }
+
     /**
      * Update the status of a single room in the database.
      *
@@ -164,13 +391,49 @@ public class SqlRoomRepository implements RoomRepository {
      * @return Number of rows affected after the update
      */
     @Override
-    @CacheEvict(value = "rooms", key = "#id")
     public int updateStatus(long id, RoomStatus status) {
         String sql = "UPDATE " + table + " SET status = :status WHERE id = :id";
         MapSqlParameterSource params = new MapSqlParameterSource()
                 .addValue("id", id)
                 .addValue("status", status.name());
-        return jdbcTemplate.update(sql, params);
+        int rowsAffected = jdbcTemplate.update(sql, params);
+        refreshAfterCommit(id);
+        return rowsAffected;
+    }
+
+    /**
+     * Updates the status of several rooms with one batched statement. Once the update commits the rooms are read
+     * back with a single query and swapped into the catalog in one go.
+     *
+     * @param statuses the new status of each room, by room ID
+     * @return Number of rows affected after the update
+     */
+    @Override
+    public int updateStatuses(Map<Long, RoomStatus> statuses) {
+        if (statuses.isEmpty()) {
+            return 0;
+        }
+        String sql = "UPDATE " + table + " SET status = :status WHERE id = :id";
+        SqlParameterSource[] batch = statuses.entrySet().stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("id", entry.getKey())
+                        .addValue("status", entry.getValue().name()))
+                .toArray(SqlParameterSource[]::new);
+        int rowsAffected = 0;
+        for (int count : jdbcTemplate.batchUpdate(sql, batch)) {
+            // Drivers that rewrite the batch only report that each statement succeeded
+            rowsAffected += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+        }
+
+        if (catalog != null) {
+            List<Long> ids = List.copyOf(statuses.keySet());
+            afterCommit(() -> {
+                String select = "SELECT * FROM " + table + " WHERE id IN (:ids)";
+                catalog.putAll(jdbcTemplate.query(select, new MapSqlParameterSource().addValue("ids", ids), mapper));
+                catalog.publishChange();
+            });
+        }
+        return rowsAffected;
     }
 
     /**
@@ -180,6 +443,9 @@ public class SqlRoomRepository implements RoomRepository {
      */
     @Override
     public List<Room> getRoomsInMaintenance() {
+        if (catalog != null) {
+            return rooms().getRoomsByStatus(RoomStatus.MAINTENANCE);
+        }
         String sql = "SELECT * FROM " + table + " WHERE status = 'MAINTENANCE'";
         return jdbcTemplate.query(sql, mapper);
     }
@@ -188,10 +454,58 @@ public class SqlRoomRepository implements RoomRepository {
      * Delete all rooms in the database
      */
     @Override
-    @CacheEvict(value = "rooms", allEntries = true)
     public void deleteAll() {
         String sql = "DELETE FROM " + table;
         jdbcTemplate.update(sql, new MapSqlParameterSource());
+        if (catalog != null) {
+            afterCommit(() -> {
+                catalog.invalidate();
+                catalog.publishChange();
+            });
+        }
+    }
+
+    /**
+     * Returns the current catalog snapshot, loading every room with a single query when the catalog is not loaded.
+     */
+    private RoomCatalog.Snapshot rooms() {
+        RoomCatalog.Snapshot snapshot = catalog.snapshot();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        long changes = catalog.changes();
+        return catalog.rebuild(jdbcTemplate.query("SELECT * FROM " + table, mapper), changes);
+    }
+
+    /**
+     * Reads a changed room again from the database once the current transaction commits, or immediately when no
+     * transaction is active, stores it in the catalog and tells the other nodes about the change. Reading the row
+     * back instead of applying the written values keeps the catalog right when two writes to the same room commit
+     * in a different order than they were made.
+     *
+     * @param id the ID of the changed room
+     */
+    private void refreshAfterCommit(long id) {
+        if (catalog == null) {
+            return;
+        }
+        afterCommit(() -> {
+            selectRoomById(id).ifPresentOrElse(catalog::put, () -> catalog.remove(id));
+            catalog.publishChange();
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 
     /**
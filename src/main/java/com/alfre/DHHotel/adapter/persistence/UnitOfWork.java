@@ -0,0 +1,131 @@
+package com.alfre.DHHotel.adapter.persistence;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Identity map and query counter of the request being served by the current thread.
+ * <p>
+ * While a unit of work is open, the repository decorators fetch each entity at most once: later lookups of the
+ * same entity return the instance loaded first, and any write to an entity type forgets every entity of that type.
+ * The statements sent to the database are counted so the number of queries per request can be monitored.
+ * Outside a unit of work, such as in scheduled jobs or event listeners, every lookup goes to the repository.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+public final class UnitOfWork implements AutoCloseable {
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final UnitOfWork previous;
+    private final Map<Class<?>, Map<String, Optional<?>>> entities = new HashMap<>();
+    private int queries;
+    private int identityHits;
+
+    private UnitOfWork(UnitOfWork previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * Opens a unit of work on the current thread. It must be closed by the same thread.
+     *
+     * @return the new unit of work
+     */
+    public static UnitOfWork begin() {
+        UnitOfWork unitOfWork = new UnitOfWork(CURRENT.get());
+        CURRENT.set(unitOfWork);
+        return unitOfWork;
+    }
+
+    /**
+     * Returns the unit of work open on the current thread.
+     *
+     * @return the current unit of work, or empty if there is none
+     */
+    public static Optional<UnitOfWork> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Looks an entity up in the identity map, loading it with the given loader the first time it is requested.
+     * Missing entities are remembered too, until the next write to their type.
+     *
+     * @param type the entity type
+     * @param attribute the attribute the entity is looked up by, e.g. {@code id} or {@code user_id}
+     * @param value the value of the attribute
+     * @param loader the repository lookup to use on a miss
+     * @param <T> the entity type
+     * @return the entity, or empty if it does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Optional<T> find(Class<T> type, String attribute, Object value,
+                                       Supplier<Optional<T>> loader) {
+        UnitOfWork unitOfWork = CURRENT.get();
+        if (unitOfWork == null) {
+            return loader.get();
+        }
+
+        Map<String, Optional<?>> byKey = unitOfWork.entities.computeIfAbsent(type, ignored -> new HashMap<>());
+        String key = attribute + "=" + value;
+        Optional<?> entity = byKey.get(key);
+        if (entity != null) {
+            unitOfWork.identityHits++;
+            return (Optional<T>) entity;
+        }
+
+        Optional<T> loaded = loader.get();
+        byKey.put(key, loaded);
+        return loaded;
+    }
+
+    /**
+     * Forgets every entity of the given type, so the next lookups read the database again.
+     * Repository decorators call it before any write to the type.
+     *
+     * @param type the entity type
+     */
+    public static void evict(Class<?> type) {
+        UnitOfWork unitOfWork = CURRENT.get();
+        if (unitOfWork != null) {
+            unitOfWork.entities.remove(type);
+        }
+    }
+
+    /**
+     * Counts a statement sent to the database by the current thread.
+     */
+    static void countQuery() {
+        UnitOfWork unitOfWork = CURRENT.get();
+        if (unitOfWork != null) {
+            unitOfWork.queries++;
+        }
+    }
+
+    /**
+     * @return the number of statements sent to the database since the unit of work was opened
+     */
+    public int getQueries() {
+        return queries;
+    }
+
+    /**
+     * @return the number of lookups answered by the identity map instead of the repository
+     */
+    public int getIdentityHits() {
+        return identityHits;
+    }
+
+    /**
+     * Closes the unit of work, restoring the one that was open before it, if any.
+     */
+    @Override
+    public void close() {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
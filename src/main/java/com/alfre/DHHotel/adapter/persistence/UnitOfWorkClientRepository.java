@@ -0,0 +1,69 @@
+package com.alfre.DHHotel.adapter.persistence;
+
+import com.alfre.DHHotel.domain.model.Client;
+import com.alfre.DHHotel.domain.model.FieldSet;
+import com.alfre.DHHotel.domain.repository.ClientRepository;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Client repository that serves repeated lookups of the same client from the current {@link UnitOfWork}.
+ * Every other operation goes straight to the JDBC repository; writes forget the clients seen so far.
+ *
+ * @author Alfredo Sobrados González
+ */
+@Repository
+@Primary
+public class UnitOfWorkClientRepository implements ClientRepository {
+    private final ClientRepository delegate;
+
+    /**
+     * Constructs the decorator around the JDBC client repository.
+     *
+     * @param delegate the repository that reads and writes the database
+     */
+    public UnitOfWorkClientRepository(ClientJdbcRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<Client> getAllClients() {
+        return delegate.getAllClients();
+    }
+
+    @Override
+    public List<Client> getClientsPage(long afterId, int limit, FieldSet fields) {
+        return delegate.getClientsPage(afterId, limit, fields);
+    }
+
+    @Override
+    public Optional<Client> getClientById(long id) {
+        return UnitOfWork.find(Client.class, "id", id, () -> delegate.getClientById(id));
+    }
+
+    @Override
+    public Optional<Client> getClientByUserId(long userId) {
+        return UnitOfWork.find(Client.class, "user_id", userId, () -> delegate.getClientByUserId(userId));
+    }
+
+    @Override
+    public long createClient(Client newClient) {
+        UnitOfWork.evict(Client.class);
+        return delegate.createClient(newClient);
+    }
+
+    @Override
+    public Client updateClient(Client client) {
+        UnitOfWork.evict(Client.class);
+        return delegate.updateClient(client);
+    }
+
+    @Override
+    public void deleteAll() {
+        UnitOfWork.evict(Client.class);
+        delegate.deleteAll();
+    }
+}
@@ -0,0 +1,163 @@
+package com.alfre.DHHotel.adapter.persistence;
+
+import com.alfre.DHHotel.adapter.persistence.DataVersions.Aggregate;
+import com.alfre.DHHotel.domain.model.FieldSet;
+import com.alfre.DHHotel.domain.model.Payment;
+import com.alfre.DHHotel.domain.model.PaymentFilter;
+import com.alfre.DHHotel.domain.model.Reservation;
+import com.alfre.DHHotel.domain.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Payment repository that serves repeated lookups of the same payment from the current {@link UnitOfWork}.
+ * Every other operation goes straight to the JDBC repository; writes forget the payments seen so far and increment
+ * the version of the payments in {@link DataVersions} once they commit. Since they also change the paid total of a
+ * reservation, they forget the reservations seen as well and increment their version too. They also hand the
+ * payments they take away and add to the {@link RevenueRollup}.
+ *
+ * @author Alfredo Sobrados González
+ */
+@Repository
+@Primary
+public class UnitOfWorkPaymentRepository implements PaymentRepository {
+    private final PaymentRepository delegate;
+    private final DataVersions versions;
+    private final RevenueRollup rollup;
+
+    /**
+     * Constructs the decorator around the JDBC payment repository.
+     *
+     * @param delegate the repository that reads and writes the database
+     */
+    public UnitOfWorkPaymentRepository(PaymentJdbcRepository delegate) {
+        this(delegate, new DataVersions());
+    }
+
+    /**
+     * Constructs the decorator around the JDBC payment repository.
+     *
+     * @param delegate the repository that reads and writes the database
+     * @param versions the version counters incremented by the writes
+     */
+    public UnitOfWorkPaymentRepository(PaymentJdbcRepository delegate, DataVersions versions) {
+        this(delegate, versions, RevenueRollup.NONE);
+    }
+
+    /**
+     * Constructs the decorator around the JDBC payment repository.
+     *
+     * @param delegate the repository that reads and writes the database
+     * @param versions the version counters incremented by the writes
+     * @param rollup the daily revenue rollups kept up to date by the writes
+     */
+    @Autowired
+    public UnitOfWorkPaymentRepository(PaymentJdbcRepository delegate, DataVersions versions, RevenueRollup rollup) {
+        this.delegate = delegate;
+        this.versions = versions;
+        this.rollup = rollup;
+    }
+
+    @Override
+    public List<Payment> getAllPayments() {
+        return delegate.getAllPayments();
+    }
+
+    @Override
+    public List<Payment> getPaymentsPage(PaymentFilter filter, long afterId, int limit, FieldSet fields) {
+        return delegate.getPaymentsPage(filter, afterId, limit, fields);
+    }
+
+    @Override
+    public void streamPayments(PaymentFilter filter, Consumer<Payment> action) {
+        delegate.streamPayments(filter, action);
+    }
+
+    @Override
+    public Optional<Payment> getPaymentById(long id) {
+        return UnitOfWork.find(Payment.class, "id", id, () -> delegate.getPaymentById(id));
+    }
+
+    @Override
+    public List<Payment> getPaymentsByReservationId(long reservationId) {
+        return delegate.getPaymentsByReservationId(reservationId);
+    }
+
+    @Override
+    public long createPayment(Payment payment) {
+        UnitOfWork.evict(Payment.class);
+        UnitOfWork.evict(Reservation.class);
+        long result = delegate.createPayment(payment);
+        rollup.paymentsChanged(List.of(), List.of(payment));
+        versions.changed(Aggregate.PAYMENTS);
+        versions.changed(Aggregate.RESERVATIONS);
+        return result;
+    }
+
+    @Override
+    public List<Long> createPayments(List<Payment> payments) {
+        UnitOfWork.evict(Payment.class);
+        UnitOfWork.evict(Reservation.class);
+        List<Long> result = delegate.createPayments(payments);
+        rollup.paymentsChanged(List.of(), payments);
+        versions.changed(Aggregate.PAYMENTS);
+        versions.changed(Aggregate.RESERVATIONS);
+        return result;
+    }
+
+    @Override
+    public int updatePayment(Payment payment, long id) {
+        UnitOfWork.evict(Payment.class);
+        UnitOfWork.evict(Reservation.class);
+        Optional<Payment> previous = delegate.getPaymentById(id);
+        int result = delegate.updatePayment(payment, id);
+        if (result > 0 && previous.isPresent()) {
+            Payment current = new Payment(id, previous.get().reservation_id, payment.amount, payment.payment_date,
+                    payment.method);
+            rollup.paymentsChanged(List.of(previous.get()), List.of(current));
+        }
+        versions.changed(Aggregate.PAYMENTS);
+        versions.changed(Aggregate.RESERVATIONS);
+        return result;
+    }
+
+    @Override
+    public int deletePayment(long id) {
+        UnitOfWork.evict(Payment.class);
+        UnitOfWork.evict(Reservation.class);
+        Optional<Payment> previous = delegate.getPaymentById(id);
+        int result = delegate.deletePayment(id);
+        if (result > 0 && previous.isPresent()) {
+            rollup.paymentsChanged(List.of(previous.get()), List.of());
+        }
+        versions.changed(Aggregate.PAYMENTS);
+        versions.changed(Aggregate.RESERVATIONS);
+        return result;
+    }
+
+    @Override
+    public BigDecimal getTotalPaid(long reservationId) {
+        return delegate.getTotalPaid(reservationId);
+    }
+
+    @Override
+    public List<Payment> getPaymentsByClient(long clientId) {
+        return delegate.getPaymentsByClient(clientId);
+    }
+
+    @Override
+    public void deleteAll() {
+        UnitOfWork.evict(Payment.class);
+        UnitOfWork.evict(Reservation.class);
+        delegate.deleteAll();
+        rollup.paymentsCleared();
+        versions.changed(Aggregate.PAYMENTS);
+        versions.changed(Aggregate.RESERVATIONS);
+    }
+}
@@ -0,0 +1,185 @@
+package com.alfre.DHHotel.adapter.persistence;
+
+import com.alfre.DHHotel.adapter.persistence.DataVersions.Aggregate;
+import com.alfre.DHHotel.domain.model.FieldSet;
+import com.alfre.DHHotel.domain.model.Reservation;
+import com.alfre.DHHotel.domain.model.ReservationFilter;
+import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.domain.repository.ReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Reservation repository that serves repeated lookups of the same reservation from the current
+ * {@link UnitOfWork}. Every other operation goes straight to the JDBC repository; writes forget the reservations
+ * seen so far and increment the version of the reservations in {@link DataVersions} once they commit. They also
+ * hand the nights they take away and add to the {@link RevenueRollup}.
+ *
+ * @author Alfredo Sobrados González
+ */
+@Repository
+@Primary
+public class UnitOfWorkReservationRepository implements ReservationRepository {
+    private final ReservationRepository delegate;
+    private final DataVersions versions;
+    private final RevenueRollup rollup;
+
+    /**
+     * Constructs the decorator around the JDBC reservation repository.
+     *
+     * @param delegate the repository that reads and writes the database
+     */
+    public UnitOfWorkReservationRepository(ReservationJdbcRepository delegate) {
+        this(delegate, new DataVersions());
+    }
+
+    /**
+     * Constructs the decorator around the JDBC reservation repository.
+     *
+     * @param delegate the repository that reads and writes the database
+     * @param versions the version counters incremented by the writes
+     */
+    public UnitOfWorkReservationRepository(ReservationJdbcRepository delegate, DataVersions versions) {
+        this(delegate, versions, RevenueRollup.NONE);
+    }
+
+    /**
+     * Constructs the decorator around the JDBC reservation repository.
+     *
+     * @param delegate the repository that reads and writes the database
+     * @param versions the version counters incremented by the writes
+     * @param rollup the daily revenue rollups kept up to date by the writes
+     */
+    @Autowired
+    public UnitOfWorkReservationRepository(ReservationJdbcRepository delegate, DataVersions versions,
+                                           RevenueRollup rollup) {
+        this.delegate = delegate;
+        this.versions = versions;
+        this.rollup = rollup;
+    }
+
+    @Override
+    public List<Reservation> getAllReservations() {
+        return delegate.getAllReservations();
+    }
+
+    @Override
+    public List<Reservation> getReservationsPage(ReservationFilter filter, long afterId, int limit,
+                                                 FieldSet fields) {
+        return delegate.getReservationsPage(filter, afterId, limit, fields);
+    }
+
+    @Override
+    public void streamReservations(ReservationFilter filter, Consumer<Reservation> action) {
+        delegate.streamReservations(filter, action);
+    }
+
+    @Override
+    public Optional<Reservation> getReservationById(long id) {
+        return UnitOfWork.find(Reservation.class, "id", id, () -> delegate.getReservationById(id));
+    }
+
+    @Override
+    public List<Reservation> getReservationsByClientId(Long clientId) {
+        return delegate.getReservationsByClientId(clientId);
+    }
+
+    @Override
+    public List<Reservation> getReservationsByIds(Collection<Long> ids) {
+        return delegate.getReservationsByIds(ids);
+    }
+
+    @Override
+    public List<Reservation> lockReservations(Collection<Long> ids) {
+        UnitOfWork.evict(Reservation.class);
+        return delegate.lockReservations(ids);
+    }
+
+    @Override
+    public List<Reservation> getReservationsBetween(LocalDate startDate, LocalDate endDate) {
+        return delegate.getReservationsBetween(startDate, endDate);
+    }
+
+    @Override
+    public Map<Long, List<LocalDate>> getBookedNights(RoomType type, LocalDate startDate, LocalDate endDate) {
+        return delegate.getBookedNights(type, startDate, endDate);
+    }
+
+    @Override
+    public List<YearMonth> getBookedMonths(long roomId) {
+        return delegate.getBookedMonths(roomId);
+    }
+
+    @Override
+    public long createReservation(Reservation newReservation) {
+        UnitOfWork.evict(Reservation.class);
+        long result = delegate.createReservation(newReservation);
+        rollup.reservationsChanged(List.of(), List.of(newReservation));
+        versions.changed(Aggregate.RESERVATIONS);
+        return result;
+    }
+
+    @Override
+    public List<Long> createReservations(List<Reservation> newReservations) {
+        UnitOfWork.evict(Reservation.class);
+        List<Long> result = delegate.createReservations(newReservations);
+        rollup.reservationsChanged(List.of(), newReservations);
+        versions.changed(Aggregate.RESERVATIONS);
+        return result;
+    }
+
+    @Override
+    public int confirmPaidReservations(Collection<Long> ids) {
+        UnitOfWork.evict(Reservation.class);
+        int result = delegate.confirmPaidReservations(ids);
+        versions.changed(Aggregate.RESERVATIONS);
+        return result;
+    }
+
+    @Override
+    public int reopenUnpaidReservations(Collection<Long> ids) {
+        UnitOfWork.evict(Reservation.class);
+        int result = delegate.reopenUnpaidReservations(ids);
+        versions.changed(Aggregate.RESERVATIONS);
+        return result;
+    }
+
+    @Override
+    public int updateReservation(Reservation updatedReservation) {
+        UnitOfWork.evict(Reservation.class);
+        Optional<Reservation> previous = delegate.getReservationById(updatedReservation.id);
+        int result = delegate.updateReservation(updatedReservation);
+        if (result > 0 && previous.isPresent()) {
+            rollup.reservationsChanged(List.of(previous.get()), List.of(updatedReservation));
+        }
+        versions.changed(Aggregate.RESERVATIONS);
+        return result;
+    }
+
+    @Override
+    public boolean isRoomAvailable(Long roomId, LocalDate startDate, LocalDate endDate) {
+        return delegate.isRoomAvailable(roomId, startDate, endDate);
+    }
+
+    @Override
+    public List<Long> getUnavailableRoomIds(Collection<Long> roomIds, LocalDate startDate, LocalDate endDate) {
+        return delegate.getUnavailableRoomIds(roomIds, startDate, endDate);
+    }
+
+    @Override
+    public void deleteAll() {
+        UnitOfWork.evict(Reservation.class);
+        delegate.deleteAll();
+        rollup.reservationsCleared();
+        versions.changed(Aggregate.RESERVATIONS);
+    }
+}
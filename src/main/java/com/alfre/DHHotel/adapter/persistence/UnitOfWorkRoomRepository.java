@@ -0,0 +1,165 @@
+package com.alfre.DHHotel.adapter.persistence;
+
+import com.alfre.DHHotel.adapter.persistence.DataVersions.Aggregate;
+import com.alfre.DHHotel.domain.model.Room;
+import com.alfre.DHHotel.domain.model.RoomStatus;
+import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.domain.repository.RoomRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Room repository that serves repeated lookups of the same room from the current {@link UnitOfWork}.
+ * Every other operation goes straight to the JDBC repository; writes and row locks forget the rooms seen so far,
+ * and writes increment the version of the rooms in {@link DataVersions} once they commit.
+ *
+ * @author Alfredo Sobrados González
+ */
+@Repository
+@Primary
+public class UnitOfWorkRoomRepository implements RoomRepository {
+    private final RoomRepository delegate;
+    private final DataVersions versions;
+
+    /**
+     * Constructs the decorator around the JDBC room repository.
+     *
+     * @param delegate the repository that reads and writes the database
+     */
+    public UnitOfWorkRoomRepository(RoomJdbcRepository delegate) {
+        this(delegate, new DataVersions());
+    }
+
+    /**
+     * Constructs the decorator around the JDBC room repository.
+     *
+     * @param delegate the repository that reads and writes the database
+     * @param versions the version counters incremented by the writes
+     */
+    @Autowired
+    public UnitOfWorkRoomRepository(RoomJdbcRepository delegate, DataVersions versions) {
+        this.delegate = delegate;
+        this.versions = versions;
+    }
+
+    @Override
+    public List<Room> getAllRooms() {
+        return delegate.getAllRooms();
+    }
+
+    @Override
+    public List<Room> getRoomsPage(RoomType type, RoomStatus status, long afterId, int limit) {
+        return delegate.getRoomsPage(type, status, afterId, limit);
+    }
+
+    @Override
+    public Optional<Room> getRoomById(long id) {
+        return UnitOfWork.find(Room.class, "id", id, () -> delegate.getRoomById(id));
+    }
+
+    /**
+     * Locks the room row and forgets the rooms read before, so the next lookups see the locked state.
+     *
+     * @param id the unique identifier of the room
+     */
+    @Override
+    public void lockRoom(long id) {
+        UnitOfWork.evict(Room.class);
+        delegate.lockRoom(id);
+    }
+
+    @Override
+    public List<Room> getRoomsByIds(Collection<Long> ids) {
+        return delegate.getRoomsByIds(ids);
+    }
+
+    @Override
+    public List<Room> lockRooms(Collection<Long> ids) {
+        UnitOfWork.evict(Room.class);
+        return delegate.lockRooms(ids);
+    }
+
+    @Override
+    public long createRoom(Room newRoom) {
+        UnitOfWork.evict(Room.class);
+        long result = delegate.createRoom(newRoom);
+        versions.changed(Aggregate.ROOMS);
+        return result;
+    }
+
+    @Override
+    public List<Long> createRooms(List<Room> newRooms) {
+        UnitOfWork.evict(Room.class);
+        List<Long> result = delegate.createRooms(newRooms);
+        versions.changed(Aggregate.ROOMS);
+        return result;
+    }
+
+    @Override
+    public int updateRoom(Room room, long id) {
+        UnitOfWork.evict(Room.class);
+        int result = delegate.updateRoom(room, id);
+        versions.changed(Aggregate.ROOMS);
+        return result;
+    }
+
+    @Override
+    public int deleteRoom(long id) {
+        UnitOfWork.evict(Room.class);
+        int result = delegate.deleteRoom(id);
+        versions.changed(Aggregate.ROOMS);
+        return result;
+    }
+
+    @Override
+    public List<Room> getRoomsByType(RoomType type) {
+        return delegate.getRoomsByType(type);
+    }
+
+    @Override
+    public List<Room> getAvailableRooms() {
+        return delegate.getAvailableRooms();
+    }
+
+    @Override
+    public List<Room> searchAvailableRooms(LocalDate startDate, LocalDate endDate, RoomType type,
+                                           BigDecimal minPrice, BigDecimal maxPrice) {
+        return delegate.searchAvailableRooms(startDate, endDate, type, minPrice, maxPrice);
+    }
+
+    @Override
+    public int updateStatus(long id, RoomStatus status) {
+        UnitOfWork.evict(Room.class);
+        int result = delegate.updateStatus(id, status);
+        versions.changed(Aggregate.ROOMS);
+        return result;
+    }
+
+    @Override
+    public int updateStatuses(Map<Long, RoomStatus> statuses) {
+        UnitOfWork.evict(Room.class);
+        int result = delegate.updateStatuses(statuses);
+        versions.changed(Aggregate.ROOMS);
+        return result;
+    }
+
+    @Override
+    public List<Room> getRoomsInMaintenance() {
+        return delegate.getRoomsInMaintenance();
+    }
+
+    @Override
+    public void deleteAll() {
+        UnitOfWork.evict(Room.class);
+        delegate.deleteAll();
+        versions.changed(Aggregate.ROOMS);
+    }
+}
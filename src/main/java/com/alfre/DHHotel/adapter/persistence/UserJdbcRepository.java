@@ -31,6 +31,9 @@ public class UserJdbcRepository implements UserRepository {
 
     private final UserJdbcRepository.UserMapper mapper = new UserJdbcRepository.UserMapper();
 
+    private final RowMapper<User> principalMapper = (rs, rowNum) -> new User(rs.getLong("id"),
+            rs.getString("email"), null, Role.valueOf(rs.getString("role").toUpperCase()));
+
     private final String table = "Users";
 
     /**
@@ -74,6 +77,24 @@ public class UserJdbcRepository implements UserRepository {
         }
     }
 
+    /**
+     * Retrieves a user by their email address, selecting only the columns a token-authenticated request needs, so
+     * the password hash is not read on every request.
+     *
+     * @param email the email address of the user
+     * @return an Optional containing the User, without password, if found, or an empty Optional if not found
+     */
+    @Override
+    public Optional<User> getPrincipalByEmail(String email) {
+        String sql = "SELECT id, email, role FROM " + table + " WHERE email = :email";
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("email", email);
+        try {
+            return Optional.ofNullable(jdbcTemplate.queryForObject(sql, params, principalMapper));
+        } catch (EmptyResultDataAccessException e) {
+            return Optional.empty();
+        }
+    }
+
     /**
      * Creates a new user record in the database.
      *
@@ -92,12 +113,14 @@ public class UserJdbcRepository implements UserRepository {
 
     /**
      * Updates an existing user record in the database.
+     * A {@code null} password, as in a user read by {@link #getPrincipalByEmail(String)}, keeps the stored one.
      *
      * @param user the User object containing updated values
      */
     @Override
     public void updateUser(User user) {
-        String sql = "UPDATE " + table + " SET email = :email, password = :password, role = :role WHERE id = :id";
+        String sql = "UPDATE " + table + " SET email = :email, password = COALESCE(:password, password), " +
+                "role = :role WHERE id = :id";
         MapSqlParameterSource params = new MapSqlParameterSource()
                 .addValue("id", user.id)
                 .addValue("email", user.email)
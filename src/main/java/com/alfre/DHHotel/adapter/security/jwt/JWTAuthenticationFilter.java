@@ -1,5 +1,6 @@
 package com.alfre.DHHotel.adapter.security.jwt;
 
+import com.alfre.DHHotel.domain.repository.UserRepository;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,7 +11,7 @@ import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -31,13 +32,13 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class JWTAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final UserRepository userRepository;
 
     /**
      * Filters incoming HTTP requests and sets up the security context if a valid JWT is found.
      * This method extracts the token from the request header, validates it, and then loads
-     * the corresponding user details. If the token is valid, an authentication object is set in
-     * the SecurityContext.
+     * the corresponding user details, without the password hash, which a token-authenticated request never needs.
+     * If the token is valid, an authentication object is set in the SecurityContext.
      *
      * @param request the HttpServletRequest being processed
      * @param response the HttpServletResponse associated with the request
@@ -64,7 +65,8 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
 
         // If a username is found and the security context does not have an authentication yet
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails = userRepository.getPrincipalByEmail(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
             // Validate the token against the user details
             if (jwtService.isTokenValid(token, userDetails)) {
@@ -0,0 +1,88 @@
+package com.alfre.DHHotel.adapter.web;
+
+import com.alfre.DHHotel.adapter.persistence.UnitOfWork;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * This class opens a {@link UnitOfWork} around every HTTP request, so each entity is fetched at most once per
+ * request, and reports how many SQL statements the request needed.
+ * <p>
+ * The counts are published as the {@code dhhotel.request.queries} and {@code dhhotel.request.identity.hits}
+ * distribution summaries, tagged with the HTTP method and the route, and logged at debug level.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class UnitOfWorkFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(UnitOfWorkFilter.class);
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Constructs the filter with the registry the query counts are published to.
+     *
+     * @param meterRegistry the metrics registry
+     */
+    public UnitOfWorkFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs the rest of the chain inside a unit of work and records its query counts.
+     *
+     * @param request the HttpServletRequest being processed
+     * @param response the HttpServletResponse associated with the request
+     * @param filterChain the FilterChain to pass the request and response to the next filter
+     * @throws ServletException if a servlet error occurs during processing
+     * @throws IOException if an I/O error occurs during processing
+     */
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                record(request, unitOfWork);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, UnitOfWork unitOfWork) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+
+        DistributionSummary.builder("dhhotel.request.queries")
+                .description("SQL statements sent to the database per HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(unitOfWork.getQueries());
+        DistributionSummary.builder("dhhotel.request.identity.hits")
+                .description("Repository lookups per HTTP request answered by the identity map")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(unitOfWork.getIdentityHits());
+
+        logger.debug("{} {}: {} consultas SQL, {} lecturas servidas desde el mapa de identidad",
+                request.getMethod(), request.getRequestURI(), unitOfWork.getQueries(), unitOfWork.getIdentityHits());
+    }
+}
@@ -8,8 +8,6 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
-import static java.util.Collections.emptyList;
-
 /**
  * This class handles HTTP requests for managing administrator resources.
  * It delegates business logic to the AdministratorUseCase.
@@ -31,23 +29,31 @@ public class AdministratorController {
     }
 
     /**
-     * Retrieves all administrators from the system.
+     * Retrieves a page of the administrators of the system, ordered by ID.
      * <p>
-     * If no administrators are registered, a RuntimeException is thrown and a 404 Not Found response is returned.
+     * The next page, if any, is linked by the {@code Link} header of the response (see {@link KeysetPages}).
+     * If the first page is empty, a RuntimeException is thrown and a 404 Not Found response is returned.
      * </p>
      *
+     * @param after the last ID of the previous page, or null for the first page
+     * @param limit the size of the page, 100 by default and at most 1000
      * @return a ResponseEntity containing a list of Administrator objects if found,
      *         or a 404 Not Found status with an error message otherwise
      */
     @GetMapping("/admins")
-    public ResponseEntity<?> getAllAdministrators() {
+    public ResponseEntity<?> getAllAdministrators(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = KeysetPages.DEFAULT_LIMIT) int limit) {
         try {
-            List<Administrator> response = administratorUseCase.getAllAdministrators();
-            if(response.equals(emptyList())) {
+            KeysetPages.checkLimit(limit);
+            List<Administrator> response = administratorUseCase.getAdministratorsPage(KeysetPages.afterId(after),
+                    limit);
+            if (response.isEmpty() && after == null) {
                 throw new RuntimeException("No hay administradores registrados en el sistema.");
-            } else {
-                return ResponseEntity.ok(response);
             }
+            return KeysetPages.ok(response, limit, administrator -> administrator.id).body(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
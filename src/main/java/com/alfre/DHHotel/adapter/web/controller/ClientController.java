@@ -1,6 +1,7 @@
 package com.alfre.DHHotel.adapter.web.controller;
 
 import com.alfre.DHHotel.domain.model.Client;
+import com.alfre.DHHotel.domain.model.FieldSet;
 import com.alfre.DHHotel.usecase.ClientUseCase;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -8,8 +9,6 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
-import static java.util.Collections.emptyList;
-
 /**
  * This class handles HTTP requests for managing client resources.
  * It delegates business logic to the ClientUseCase.
@@ -19,6 +18,13 @@ import static java.util.Collections.emptyList;
 @RestController
 @RequestMapping("/api")
 public class ClientController {
+    private static final List<RowExportWriter.Column<Client>> FIELDS = List.of(
+            new RowExportWriter.Column<>("id", client -> client.id),
+            new RowExportWriter.Column<>("user_id", client -> client.user_id),
+            new RowExportWriter.Column<>("first_name", client -> client.first_name),
+            new RowExportWriter.Column<>("last_name", client -> client.last_name),
+            new RowExportWriter.Column<>("phone", client -> client.phone));
+
     private final ClientUseCase clientUseCase;
 
     /**
@@ -31,23 +37,33 @@ public class ClientController {
     }
 
     /**
-     * Retrieves all registered clients.
+     * Retrieves a page of the registered clients, ordered by ID.
      * <p>
-     * If no clients are registered, a RuntimeException is thrown and a 404 Not Found response is returned.
+     * The next page, if any, is linked by the {@code Link} header of the response (see {@link KeysetPages}).
+     * If the first page is empty, a RuntimeException is thrown and a 404 Not Found response is returned.
      * </p>
      *
+     * @param after the last ID of the previous page, or null for the first page
+     * @param limit the size of the page, 100 by default and at most 1000
+     * @param fields the properties of each client to return, or null for all (see {@link SparseFieldsets})
      * @return a ResponseEntity containing the list of clients or an error message if none are found
      */
     @GetMapping("/admin/clients")
-    public ResponseEntity<?> getAllClients() {
+    public ResponseEntity<?> getAllClients(@RequestParam(required = false) Long after,
+                                           @RequestParam(defaultValue = KeysetPages.DEFAULT_LIMIT) int limit,
+                                           @RequestParam(required = false) String fields) {
         try {
-            List<Client> response = clientUseCase.getAllClients();
+            KeysetPages.checkLimit(limit);
+            FieldSet fieldSet = SparseFieldsets.parse(fields, FIELDS);
+            List<Client> response = clientUseCase.getClientsPage(KeysetPages.afterId(after), limit, fieldSet);
 
-            if (response.equals(emptyList())) {
+            if (response.isEmpty() && after == null) {
                 throw new RuntimeException("No hay clientes registrados en el sistema.");
-            } else {
-                return ResponseEntity.ok(response);
             }
+            return KeysetPages.ok(response, limit, client -> client.id)
+                    .body(SparseFieldsets.body(response, fieldSet, FIELDS));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
@@ -0,0 +1,77 @@
+package com.alfre.DHHotel.adapter.web.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Paging of the back-office lists by key instead of by offset.
+ * <p>
+ * A list is read one page at a time, ordered by ID: the {@code after} query parameter is the last ID of the
+ * previous page and {@code limit} is the size of the page. When a page is full, the response carries a
+ * {@code Link} header with {@code rel="next"} pointing to the same request, filters included, starting after the
+ * last ID of the page; the last page has no such link, although it may be empty when the previous one was full.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+final class KeysetPages {
+    /**
+     * Size of a page when the request does not give one.
+     */
+    static final String DEFAULT_LIMIT = "100";
+
+    /**
+     * Largest page a request may ask for.
+     */
+    static final int MAX_LIMIT = 1000;
+
+    private KeysetPages() {
+    }
+
+    /**
+     * Checks the size of a page asked by a request.
+     *
+     * @param limit the {@code limit} query parameter
+     * @throws IllegalArgumentException if the size is not between 1 and {@link #MAX_LIMIT}
+     */
+    static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + MAX_LIMIT);
+        }
+    }
+
+    /**
+     * Gives the ID a page starts after.
+     *
+     * @param after the {@code after} query parameter, may be null
+     * @return the ID, or 0 for the first page
+     */
+    static long afterId(Long after) {
+        return after == null ? 0 : Math.max(after, 0);
+    }
+
+    /**
+     * Starts the 200 OK response of a page, with the link to the next page when the page is full.
+     *
+     * @param page the items of the page, ordered by ID
+     * @param limit the size of the page
+     * @param id the ID of an item
+     * @param <T> the type of the items
+     * @return the response builder, ready to take the page as body
+     */
+    static <T> ResponseEntity.BodyBuilder ok(List<T> page, int limit, ToLongFunction<T> id) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (!page.isEmpty() && page.size() >= limit) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", id.applyAsLong(page.getLast()))
+                    .build()
+                    .toUriString();
+            builder.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return builder;
+    }
+}
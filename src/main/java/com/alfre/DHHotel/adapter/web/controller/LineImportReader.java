@@ -0,0 +1,172 @@
+package com.alfre.DHHotel.adapter.web.controller;
+
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the rows of an uploaded file one line at a time, so the file is never held in memory.
+ * <p>
+ * Two formats are accepted: CSV ({@code text/csv}), whose first line names the columns, and newline-delimited JSON
+ * ({@code application/x-ndjson}), with one object per line. Blank lines are skipped. Each subclass turns a line into
+ * a row of its import; a line that cannot be read becomes a row with an error instead of stopping the import.
+ * </p>
+ *
+ * @param <R> the type of the rows
+ *
+ * @author Alfredo Sobrados González
+ */
+abstract class LineImportReader<R> implements Iterator<R> {
+    static final MediaType TEXT_CSV = new MediaType("text", "csv");
+
+    private final BufferedReader reader;
+    private final boolean csv;
+    private List<String> columns;
+    private long lineNumber;
+    private R next;
+
+    /**
+     * Constructs a reader of the given body.
+     *
+     * @param body the uploaded file
+     * @param contentType the format of the file
+     * @param requiredColumns the columns the header of a CSV file must name
+     * @throws IllegalArgumentException if the format is not supported, or if a CSV file has no valid header
+     */
+    LineImportReader(InputStream body, MediaType contentType, List<String> requiredColumns) {
+        if (contentType != null && TEXT_CSV.includes(contentType)) {
+            csv = true;
+        } else if (contentType != null && MediaType.APPLICATION_NDJSON.includes(contentType)) {
+            csv = false;
+        } else {
+            throw new IllegalArgumentException("Formato de importación no admitido: hay que enviar text/csv o " +
+                    "application/x-ndjson");
+        }
+        this.reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        if (csv) {
+            readHeader(requiredColumns);
+        }
+    }
+
+    /**
+     * Turns a line of a CSV file into a row.
+     *
+     * @param line the line number, starting at 1
+     * @param columns the columns named by the header, in lower case
+     * @param fields the unquoted fields of the line, as many as columns
+     * @return the row
+     */
+    abstract R parseCsv(long line, List<String> columns, String[] fields);
+
+    /**
+     * Turns a line of a newline-delimited JSON file into a row.
+     *
+     * @param line the line number, starting at 1
+     * @param json the content of the line
+     * @return the row
+     */
+    abstract R parseJson(long line, String json);
+
+    /**
+     * Builds the row of a line that cannot be read.
+     *
+     * @param line the line number, starting at 1
+     * @param error the reason why the line cannot be read
+     * @return the row
+     */
+    abstract R invalid(long line, String error);
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readRow();
+        }
+        return next != null;
+    }
+
+    @Override
+    public R next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        R row = next;
+        next = null;
+        return row;
+    }
+
+    private void readHeader(List<String> requiredColumns) {
+        String header = readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("El fichero de importación está vacío");
+        }
+        columns = Arrays.stream(header.split(",", -1))
+                .map(column -> unquote(column).toLowerCase())
+                .toList();
+        if (!columns.containsAll(requiredColumns)) {
+            throw new IllegalArgumentException("La cabecera del fichero debe incluir las columnas " +
+                    String.join(", ", requiredColumns));
+        }
+    }
+
+    /**
+     * Reads the next non-blank line as a row.
+     *
+     * @return the row, or {@code null} at the end of the file
+     */
+    private R readRow() {
+        String line = readLine();
+        if (line == null) {
+            return null;
+        }
+        if (!csv) {
+            return parseJson(lineNumber, line);
+        }
+        String[] fields = line.split(",", -1);
+        if (fields.length != columns.size()) {
+            return invalid(lineNumber, "La fila tiene " + fields.length + " columnas y la cabecera " +
+                    columns.size());
+        }
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = unquote(fields[i]);
+        }
+        return parseCsv(lineNumber, columns, fields);
+    }
+
+    /**
+     * Reads the next non-blank line, keeping count of the line numbers.
+     *
+     * @return the trimmed line, or {@code null} at the end of the file
+     */
+    private String readLine() {
+        try {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                lineNumber++;
+            } while (line.isBlank());
+            return line.trim();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String unquote(String field) {
+        String value = field.trim();
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1).trim();
+        }
+        return value;
+    }
+}
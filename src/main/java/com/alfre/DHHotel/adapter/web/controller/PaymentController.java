@@ -1,11 +1,26 @@
 package com.alfre.DHHotel.adapter.web.controller;
 
+import com.alfre.DHHotel.adapter.persistence.DataVersions;
+import com.alfre.DHHotel.adapter.persistence.DataVersions.Aggregate;
+import com.alfre.DHHotel.domain.model.FieldSet;
+import com.alfre.DHHotel.domain.model.MethodPayment;
 import com.alfre.DHHotel.domain.model.Payment;
+import com.alfre.DHHotel.domain.model.PaymentFilter;
 import com.alfre.DHHotel.usecase.PaymentUseCase;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 
 import static java.util.Collections.emptyList;
@@ -19,7 +34,19 @@ import static java.util.Collections.emptyList;
 @RestController
 @RequestMapping("/api")
 public class PaymentController {
+    private static final List<RowExportWriter.Column<Payment>> FIELDS = List.of(
+            new RowExportWriter.Column<>("id", payment -> payment.id),
+            new RowExportWriter.Column<>("reservation_id", payment -> payment.reservation_id),
+            new RowExportWriter.Column<>("amount", payment -> payment.amount),
+            new RowExportWriter.Column<>("payment_date", payment -> payment.payment_date),
+            new RowExportWriter.Column<>("method", payment -> payment.method),
+            new RowExportWriter.Column<>("version", payment -> payment.version));
+    private static final List<RowExportWriter.Column<Payment>> EXPORT_COLUMNS = FIELDS.stream()
+            .filter(column -> !column.name().equals("version"))
+            .toList();
+
     private final PaymentUseCase paymentUseCase;
+    private final DataVersions versions;
 
     /**
      * Constructs a PaymentController with the specified PaymentUseCase.
@@ -27,34 +54,116 @@ public class PaymentController {
      * @param paymentUseCase the use case containing business logic for payment operations
      */
     public PaymentController(PaymentUseCase paymentUseCase) {
+        this(paymentUseCase, new DataVersions());
+    }
+
+    /**
+     * Constructs a PaymentController with the specified PaymentUseCase and the versions its lists are tagged with.
+     *
+     * @param paymentUseCase the use case containing business logic for payment operations
+     * @param versions the version counters the entity tags of the payment lists are built from
+     */
+    @Autowired
+    public PaymentController(PaymentUseCase paymentUseCase, DataVersions versions) {
         this.paymentUseCase = paymentUseCase;
+        this.versions = versions;
     }
 
     /**
-     * Retrieves all payment records.
+     * Retrieves a page of the payment records, ordered by ID and optionally filtered.
      * <p>
-     * If no payments are found, a RuntimeException is thrown and a 404 Not Found response is returned.
+     * The next page, if any, is linked by the {@code Link} header of the response (see {@link KeysetPages}).
+     * If the first page is empty, a RuntimeException is thrown and a 404 Not Found response is returned.
      * </p>
      *
-     * @return a ResponseEntity containing the list of payments if found, or an error message otherwise
+     * @param after the last ID of the previous page, or null for the first page
+     * @param limit the size of the page, 100 by default and at most 1000
+     * @param reservationId the ID of the reservation paid, or null for every reservation
+     * @param method the payment method, or null for every method
+     * @param from the earliest payment date, or null for no lower bound
+     * @param to the latest payment date, or null for no upper bound
+     * @param fields the properties of each payment to return, or null for all (see {@link SparseFieldsets})
+     * @return a ResponseEntity containing the list of payments if found, a 404 Not Found response otherwise,
+     *         or a 400 Bad Request response with an error message if the page or the filters are not valid
      */
     @GetMapping("/admin/payments")
-    public ResponseEntity<?> getAllPayments() {
+    public ResponseEntity<?> getAllPayments(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = KeysetPages.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) Long reservationId,
+            @RequestParam(required = false) MethodPayment method,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = VersionETags.quote(versions.tag(Aggregate.PAYMENTS));
+        if (VersionETags.matches(ifNoneMatch, eTag)) {
+            return VersionETags.notModified(eTag, VersionETags.PRIVATE_CACHE);
+        }
         try {
-            List<Payment> response = paymentUseCase.getAllPayments();
+            KeysetPages.checkLimit(limit);
+            PaymentFilter filter = new PaymentFilter(reservationId, method, from, to);
+            FieldSet fieldSet = SparseFieldsets.parse(fields, FIELDS);
+            List<Payment> response = paymentUseCase.getPaymentsPage(filter, KeysetPages.afterId(after), limit,
+                    fieldSet);
 
-            if (response.equals(emptyList())) {
+            if (response.isEmpty() && after == null) {
                 throw new RuntimeException("No hay pagos registrados en el sistema.");
-            } else {
-                return ResponseEntity.ok(response);
             }
+            return KeysetPages.ok(response, limit, payment -> payment.id)
+                    .eTag(eTag).cacheControl(VersionETags.PRIVATE_CACHE)
+                    .body(SparseFieldsets.body(response, fieldSet, FIELDS));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
     }
 
+    /**
+     * Exports the payments made between the given dates, or every payment, ordered by ID.
+     * <p>
+     * The rows are streamed from the database to the response as they are read, as newline-delimited JSON or as
+     * CSV, so exports of any size use the same memory. The response is an attachment named after the format.
+     * </p>
+     *
+     * @param format {@code ndjson} (the default) or {@code csv}
+     * @param from the earliest payment date, or null for no lower bound
+     * @param to the latest payment date, or null for no upper bound
+     * @return a ResponseEntity streaming the payments,
+     *         or a 400 Bad Request response with an error message if the format or the dates are not valid
+     */
+    @GetMapping("/admin/payments/export")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            RowExportWriter.Format exportFormat = RowExportWriter.Format.of(format);
+            PaymentFilter filter = new PaymentFilter(null, null, from, to);
+            return ResponseEntity.ok()
+                    .contentType(exportFormat.mediaType())
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                            .filename(exportFormat.fileName("payments")).build().toString())
+                    .body(out -> {
+                        try (var writer = new RowExportWriter<>(out, exportFormat, EXPORT_COLUMNS)) {
+                            paymentUseCase.exportPayments(filter, writer);
+                        } catch (UncheckedIOException e) {
+                            throw e.getCause();
+                        }
+                    });
+        } catch (IllegalArgumentException e) {
+            // The body has to be streamed too, since the handler only streams when the declared type says so
+            byte[] message = e.getMessage().getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                    .body(out -> out.write(message));
+        }
+    }
+
     /**
      * Retrieves a payment by its unique identifier.
+     * The version of the payment is returned in the ETag header, ready to be sent back in If-Match.
      *
      * @param id the unique identifier of the payment
      * @return a ResponseEntity containing the Payment if found, or a 404 Not Found response with an error message if not
@@ -64,7 +173,7 @@ public class PaymentController {
         try {
             Payment response = paymentUseCase.getPaymentById(id)
                     .orElseThrow(() -> new RuntimeException("El pago solicitado no existe"));
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(VersionETags.of(response.version)).body(response);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
@@ -78,14 +187,20 @@ public class PaymentController {
      *         or a 404 Not Found response with an error message if none are found
      */
     @GetMapping("/admin/payment/reservation/id/{reservationId}")
-    public ResponseEntity<?> getPaymentsByReservationId(@PathVariable long reservationId) {
+    public ResponseEntity<?> getPaymentsByReservationId(
+            @PathVariable long reservationId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = VersionETags.quote(versions.tag(Aggregate.PAYMENTS));
+        if (VersionETags.matches(ifNoneMatch, eTag)) {
+            return VersionETags.notModified(eTag, VersionETags.PRIVATE_CACHE);
+        }
         try {
             List<Payment> response = paymentUseCase.getPaymentsByReservationId(reservationId);
 
             if (response.equals(emptyList())) {
                 throw new RuntimeException("No hay pagos registrados asociados a la reserva en el sistema.");
             } else {
-                return ResponseEntity.ok(response);
+                return ResponseEntity.ok().eTag(eTag).cacheControl(VersionETags.PRIVATE_CACHE).body(response);
             }
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
@@ -94,22 +209,37 @@ public class PaymentController {
 
     /**
      * Updates an existing payment record.
+     * <p>
+     * The update only goes ahead while the payment still has the version given in the If-Match header, or in the
+     * body when the header is missing; otherwise a 412 Precondition Failed or a 409 Conflict response is returned.
+     * The new version is returned in the ETag header.
+     * </p>
      *
      * @param payment the Payment object containing updated information
      * @param id the unique identifier of the payment to update
+     * @param ifMatch the entity tag of the payment version the client has seen, optional
      * @return a ResponseEntity with a success message if the update is successful,
-     *         or an error response if the update fails
+     *         a 409/412 response if the payment changed meanwhile, or an error response if the update fails
      */
     @PutMapping("/superadmin/payment/{id}")
-    public ResponseEntity<?> updatePayment(@RequestBody Payment payment, @PathVariable long id) {
+    public ResponseEntity<?> updatePayment(@RequestBody Payment payment, @PathVariable long id,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                           String ifMatch) {
         try {
+            if (ifMatch != null) {
+                payment.setVersion(VersionETags.parseIfMatch(ifMatch));
+            }
             int rowsAffected = paymentUseCase.updatePayment(payment, id);
 
             if (rowsAffected == 1) {
-                return ResponseEntity.ok("La actualización se ha hecho correctamente");
+                return ResponseEntity.ok().eTag(VersionETags.of(payment.version))
+                        .body("La actualización se ha hecho correctamente");
             } else {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("No se ha podido actualizar.");
             }
+        } catch (OptimisticLockingFailureException e) {
+            HttpStatus status = ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT;
+            return ResponseEntity.status(status).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
         }
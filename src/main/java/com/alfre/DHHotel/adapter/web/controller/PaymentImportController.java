@@ -0,0 +1,55 @@
+package com.alfre.DHHotel.adapter.web.controller;
+
+import com.alfre.DHHotel.usecase.PaymentImportUseCase;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * This class handles HTTP requests for recording the payments of a card processor settlement file at once.
+ * It delegates business logic to the PaymentImportUseCase.
+ *
+ * @author Alfredo Sobrados González
+ */
+@RestController
+@RequestMapping("/api")
+public class PaymentImportController {
+    private final PaymentImportUseCase paymentImportUseCase;
+
+    /**
+     * Constructs a PaymentImportController with the provided PaymentImportUseCase.
+     *
+     * @param paymentImportUseCase the business logic component for importing payments
+     */
+    public PaymentImportController(PaymentImportUseCase paymentImportUseCase) {
+        this.paymentImportUseCase = paymentImportUseCase;
+    }
+
+    /**
+     * Records the payments of a CSV or newline-delimited JSON settlement file, streamed from the request body.
+     * <p>
+     * Valid lines are recorded even when other lines are not; the response is a reconciliation report telling how
+     * many payments were recorded and how many reservations they confirmed, and listing the lines that could not be
+     * read, the ones whose reservation could not be matched and the ones that exceed what was left to pay.
+     * </p>
+     *
+     * @param body the file, one payment per line
+     * @param contentType {@code text/csv} or {@code application/x-ndjson}
+     * @return a ResponseEntity containing the reconciliation report,
+     *         or a 400 Bad Request response with an error message if the file cannot be read at all
+     */
+    @PostMapping(value = "/admin/payments/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> importPayments(InputStream body,
+                                            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) {
+        try {
+            return ResponseEntity.ok(paymentImportUseCase.importPayments(new PaymentImportReader(body, contentType)));
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.alfre.DHHotel.adapter.web.controller;
+
+import com.alfre.DHHotel.adapter.web.dto.PaymentImportRow;
+import com.alfre.DHHotel.domain.model.MethodPayment;
+import com.alfre.DHHotel.domain.model.Payment;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.http.MediaType;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Reads the lines of a card processor settlement file one at a time, so the uploaded file is never held in memory.
+ * <p>
+ * Two formats are accepted: CSV ({@code text/csv}), whose first line names the columns {@code reservation_id},
+ * {@code amount}, {@code payment_date} and, optionally, {@code method}; and newline-delimited JSON
+ * ({@code application/x-ndjson}), with one payment object per line. Blank lines are skipped. A line that cannot be
+ * read becomes a row with an error instead of stopping the import.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+final class PaymentImportReader extends LineImportReader<PaymentImportRow> {
+    private static final ObjectReader PAYMENT_READER = new ObjectMapper().registerModule(new JavaTimeModule())
+            .readerFor(Payment.class);
+    private static final List<String> REQUIRED_COLUMNS = List.of("reservation_id", "amount", "payment_date");
+
+    /**
+     * Constructs a reader of the given body.
+     *
+     * @param body the uploaded file
+     * @param contentType the format of the file
+     * @throws IllegalArgumentException if the format is not supported, or if a CSV file has no valid header
+     */
+    PaymentImportReader(InputStream body, MediaType contentType) {
+        super(body, contentType, REQUIRED_COLUMNS);
+    }
+
+    @Override
+    PaymentImportRow parseCsv(long line, List<String> columns, String[] fields) {
+        String column = null;
+        try {
+            Payment payment = new Payment();
+            for (int i = 0; i < fields.length; i++) {
+                column = columns.get(i);
+                String value = fields[i];
+                switch (column) {
+                    case "reservation_id" -> payment.reservation_id = Long.parseLong(value);
+                    case "amount" -> payment.amount = new BigDecimal(value);
+                    case "payment_date" -> payment.payment_date = LocalDate.parse(value);
+                    case "method" -> payment.method = value.isEmpty() ? null
+                            : MethodPayment.valueOf(value.toUpperCase());
+                    default -> { }
+                }
+            }
+            return PaymentImportRow.of(line, payment);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return PaymentImportRow.invalid(line, "Valor no válido en la columna " + column);
+        }
+    }
+
+    @Override
+    PaymentImportRow parseJson(long line, String json) {
+        try {
+            Payment payment = PAYMENT_READER.readValue(json);
+            if (payment != null) {
+                return PaymentImportRow.of(line, payment);
+            }
+        } catch (JsonProcessingException e) {
+            // Reported below like any other row that is not a payment
+        }
+        return PaymentImportRow.invalid(line, "La fila no es un pago en JSON válido");
+    }
+
+    @Override
+    PaymentImportRow invalid(long line, String error) {
+        return PaymentImportRow.invalid(line, error);
+    }
+}
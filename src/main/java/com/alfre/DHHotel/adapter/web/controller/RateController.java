@@ -0,0 +1,89 @@
+package com.alfre.DHHotel.adapter.web.controller;
+
+import com.alfre.DHHotel.domain.model.SeasonalRate;
+import com.alfre.DHHotel.usecase.RateUseCase;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * This class handles HTTP requests for managing the seasonal rates that adjust the room prices.
+ * It delegates business logic to the RateUseCase.
+ *
+ * @author Alfredo Sobrados González
+ */
+@RestController
+@RequestMapping("/api")
+public class RateController {
+    private final RateUseCase rateUseCase;
+
+    /**
+     * Constructs a RateController with the specified RateUseCase.
+     *
+     * @param rateUseCase the use case containing business logic for seasonal rate operations
+     */
+    public RateController(RateUseCase rateUseCase) {
+        this.rateUseCase = rateUseCase;
+    }
+
+    /**
+     * Retrieves all seasonal rates.
+     *
+     * @return a ResponseEntity containing the list of rates if found, or a 404 Not Found response otherwise
+     */
+    @GetMapping("/admin/rates")
+    public ResponseEntity<?> getAllRates() {
+        try {
+            List<SeasonalRate> response = rateUseCase.getAllRates();
+
+            if (response.equals(emptyList())) {
+                throw new RuntimeException("No hay tarifas de temporada registradas en el sistema.");
+            } else {
+                return ResponseEntity.ok(response);
+            }
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Creates a new seasonal rate.
+     *
+     * @param newRate the SeasonalRate object containing the period, room type and percentages of the rate
+     * @return a ResponseEntity containing the generated rate identifier, or a 400 Bad Request response with an error
+     *         message if creation fails
+     */
+    @PostMapping("/admin/rate")
+    public ResponseEntity<?> createRate(@RequestBody SeasonalRate newRate) {
+        try {
+            return ResponseEntity.ok(rateUseCase.createRate(newRate));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes a seasonal rate by its unique identifier.
+     *
+     * @param id the unique identifier of the rate to delete
+     * @return a ResponseEntity with a success message if deletion is successful, or an error response if not
+     */
+    @DeleteMapping("/admin/rate/{id}")
+    public ResponseEntity<?> deleteRate(@PathVariable long id) {
+        try {
+            int rowsAffected = rateUseCase.deleteRate(id);
+
+            if (rowsAffected == 1) {
+                return ResponseEntity.ok("La tarifa con id: " + id + " se ha eliminado correctamente");
+            } else {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("No se ha podido eliminar.");
+            }
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error de servicio.");
+        }
+    }
+}
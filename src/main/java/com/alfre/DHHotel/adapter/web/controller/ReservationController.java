@@ -1,15 +1,39 @@
 package com.alfre.DHHotel.adapter.web.controller;
 
+import com.alfre.DHHotel.adapter.cache.IdempotencyStore;
+import com.alfre.DHHotel.adapter.persistence.DataVersions;
+import com.alfre.DHHotel.adapter.persistence.DataVersions.Aggregate;
+import com.alfre.DHHotel.adapter.web.dto.GroupReservationRequest;
+import com.alfre.DHHotel.adapter.web.dto.OccupancyCalendarDTO;
+import com.alfre.DHHotel.domain.model.FieldSet;
 import com.alfre.DHHotel.domain.model.Payment;
 import com.alfre.DHHotel.domain.model.Reservation;
+import com.alfre.DHHotel.domain.model.ReservationFilter;
+import com.alfre.DHHotel.domain.model.ReservationStatus;
 import com.alfre.DHHotel.domain.model.User;
 import com.alfre.DHHotel.usecase.ReservationUseCase;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 
 import static java.util.Collections.emptyList;
@@ -23,7 +47,26 @@ import static java.util.Collections.emptyList;
 @RestController
 @RequestMapping("/api")
 public class ReservationController {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final List<RowExportWriter.Column<Reservation>> FIELDS = List.of(
+            new RowExportWriter.Column<>("id", reservation -> reservation.id),
+            new RowExportWriter.Column<>("client_id", reservation -> reservation.client_id),
+            new RowExportWriter.Column<>("room_id", reservation -> reservation.room_id),
+            new RowExportWriter.Column<>("total_price", reservation -> reservation.total_price),
+            new RowExportWriter.Column<>("start_date", reservation -> reservation.start_date),
+            new RowExportWriter.Column<>("end_date", reservation -> reservation.end_date),
+            new RowExportWriter.Column<>("status", reservation -> reservation.status),
+            new RowExportWriter.Column<>("version", reservation -> reservation.version),
+            new RowExportWriter.Column<>("paid_total", reservation -> reservation.paid_total));
+    private static final List<RowExportWriter.Column<Reservation>> EXPORT_COLUMNS = FIELDS.stream()
+            .filter(column -> !column.name().equals("version"))
+            .toList();
+
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final ReservationUseCase reservationUseCase;
+    private final DataVersions versions;
+    private final IdempotencyStore idempotencyStore;
 
     /**
      * Constructs a ReservationController with the provided ReservationUseCase.
@@ -31,33 +74,200 @@ public class ReservationController {
      * @param reservationUseCase the business logic component for managing reservations
      */
     public ReservationController(ReservationUseCase reservationUseCase) {
+        this(reservationUseCase, new DataVersions());
+    }
+
+    /**
+     * Constructs a ReservationController with the provided ReservationUseCase and the versions its lists are
+     * tagged with.
+     *
+     * @param reservationUseCase the business logic component for managing reservations
+     * @param versions the version counters the entity tags of the reservation lists are built from
+     */
+    public ReservationController(ReservationUseCase reservationUseCase, DataVersions versions) {
+        this(reservationUseCase, versions, new IdempotencyStore());
+    }
+
+    /**
+     * Constructs a ReservationController with the provided ReservationUseCase, the versions its lists are tagged
+     * with and the store the creation requests are deduplicated with.
+     *
+     * @param reservationUseCase the business logic component for managing reservations
+     * @param versions the version counters the entity tags of the reservation lists are built from
+     * @param idempotencyStore the store of the responses of the requests sent with an Idempotency-Key header
+     */
+    @Autowired
+    public ReservationController(ReservationUseCase reservationUseCase, DataVersions versions,
+                                 IdempotencyStore idempotencyStore) {
         this.reservationUseCase = reservationUseCase;
+        this.versions = versions;
+        this.idempotencyStore = idempotencyStore;
     }
 
     /**
-     * Retrieves all reservations in the system.
+     * Retrieves a page of the reservations in the system, ordered by ID and optionally filtered.
      * <p>
-     * If no reservations are found, a RuntimeException is thrown and a 404 Not Found response is returned.
+     * The next page, if any, is linked by the {@code Link} header of the response (see {@link KeysetPages}).
+     * If the first page is empty, a RuntimeException is thrown and a 404 Not Found response is returned.
      * </p>
      *
-     * @return a ResponseEntity containing a list of Reservation objects, or an error message if none are found
+     * @param after the last ID of the previous page, or null for the first page
+     * @param limit the size of the page, 100 by default and at most 1000
+     * @param status the status of the reservations, or null for every status
+     * @param roomId the ID of the room booked, or null for every room
+     * @param clientId the ID of the client that booked, or null for every client
+     * @param from the first day of the stays, or null for no lower bound
+     * @param to the last day of the stays, or null for no upper bound
+     * @param fields the properties of each reservation to return, or null for all (see {@link SparseFieldsets})
+     * @return a ResponseEntity containing a list of Reservation objects, a 404 Not Found response if none are found,
+     *         or a 400 Bad Request response with an error message if the page or the filters are not valid
      */
     @GetMapping("/admin/reservations")
-    public ResponseEntity<?> getAllReservations() {
+    public ResponseEntity<?> getAllReservations(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = KeysetPages.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) ReservationStatus status,
+            @RequestParam(required = false) Long roomId,
+            @RequestParam(required = false) Long clientId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = VersionETags.quote(versions.tag(Aggregate.RESERVATIONS));
+        if (VersionETags.matches(ifNoneMatch, eTag)) {
+            return VersionETags.notModified(eTag, VersionETags.PRIVATE_CACHE);
+        }
         try {
-            List<Reservation> response = reservationUseCase.getAllReservations();
-            if (response.equals(emptyList())) {
+            KeysetPages.checkLimit(limit);
+            ReservationFilter filter = new ReservationFilter(status, roomId, clientId, from, to);
+            FieldSet fieldSet = SparseFieldsets.parse(fields, FIELDS);
+            List<Reservation> response = reservationUseCase.getReservationsPage(filter, KeysetPages.afterId(after),
+                    limit, fieldSet);
+            if (response.isEmpty() && after == null) {
                 throw new RuntimeException("No hay reservas registradas en el sistema.");
-            } else {
-                return ResponseEntity.ok(response);
             }
+            return KeysetPages.ok(response, limit, reservation -> reservation.id)
+                    .eTag(eTag).cacheControl(VersionETags.PRIVATE_CACHE)
+                    .body(SparseFieldsets.body(response, fieldSet, FIELDS));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
     }
 
+    /**
+     * Retrieves the occupancy calendar of every room between two dates, both included.
+     * <p>
+     * The response is a compact rooms × days matrix streamed row by row: each room carries one status code per
+     * day ({@code .} free, {@code P} pending, {@code C} confirmed) and the reservations shown in the row as
+     * {@code [reservation id, first day, last day]}.
+     * </p>
+     *
+     * @param startDate the first day of the calendar
+     * @param endDate the last day of the calendar
+     * @return a ResponseEntity streaming the occupancy matrix,
+     *         or a 400 Bad Request response with an error message if the window is not valid
+     */
+    @GetMapping("/admin/reservations/calendar")
+    public ResponseEntity<StreamingResponseBody> getOccupancyCalendar(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = VersionETags.quote(versions.tag(Aggregate.ROOMS, Aggregate.RESERVATIONS));
+        if (VersionETags.matches(ifNoneMatch, eTag)) {
+            return VersionETags.notModified(eTag, VersionETags.PRIVATE_CACHE);
+        }
+        try {
+            OccupancyCalendarDTO calendar = reservationUseCase.getOccupancyCalendar(startDate, endDate);
+            return ResponseEntity.ok().eTag(eTag).cacheControl(VersionETags.PRIVATE_CACHE)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> writeOccupancyCalendar(calendar, out));
+        } catch (RuntimeException e) {
+            // The body has to be streamed too, since the handler only streams when the declared type says so
+            byte[] message = e.getMessage().getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                    .body(out -> out.write(message));
+        }
+    }
+
+    /**
+     * Exports the reservations whose stay overlaps the given dates, or every reservation, ordered by ID.
+     * <p>
+     * The rows are streamed from the database to the response as they are read, as newline-delimited JSON or as
+     * CSV, so exports of any size use the same memory. The response is an attachment named after the format.
+     * </p>
+     *
+     * @param format {@code ndjson} (the default) or {@code csv}
+     * @param from the first day of the stays, or null for no lower bound
+     * @param to the last day of the stays, or null for no upper bound
+     * @return a ResponseEntity streaming the reservations,
+     *         or a 400 Bad Request response with an error message if the format or the dates are not valid
+     */
+    @GetMapping("/admin/reservations/export")
+    public ResponseEntity<StreamingResponseBody> exportReservations(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            RowExportWriter.Format exportFormat = RowExportWriter.Format.of(format);
+            ReservationFilter filter = new ReservationFilter(null, null, null, from, to);
+            return ResponseEntity.ok()
+                    .contentType(exportFormat.mediaType())
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                            .filename(exportFormat.fileName("reservations")).build().toString())
+                    .body(out -> {
+                        try (var writer = new RowExportWriter<>(out, exportFormat, EXPORT_COLUMNS)) {
+                            reservationUseCase.exportReservations(filter, writer);
+                        } catch (UncheckedIOException e) {
+                            throw e.getCause();
+                        }
+                    });
+        } catch (IllegalArgumentException e) {
+            byte[] message = e.getMessage().getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                    .body(out -> out.write(message));
+        }
+    }
+
+    /**
+     * Writes the occupancy calendar as JSON, flushing after every room so the grid can be drawn as it arrives.
+     *
+     * @param calendar the occupancy matrix
+     * @param out the response body
+     * @throws IOException if the response cannot be written
+     */
+    private void writeOccupancyCalendar(OccupancyCalendarDTO calendar, OutputStream out) throws IOException {
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeStringField("start_date", calendar.start_date.toString());
+            json.writeStringField("end_date", calendar.end_date.toString());
+            json.writeNumberField("days", calendar.days);
+            json.writeArrayFieldStart("rooms");
+            for (OccupancyCalendarDTO.RoomRow row : calendar.rooms) {
+                json.writeStartObject();
+                json.writeNumberField("id", row.id);
+                json.writeNumberField("room_number", row.room_number);
+                json.writeStringField("status", row.status == null ? null : row.status.name());
+                json.writeStringField("cells", row.cells);
+                json.writeArrayFieldStart("reservations");
+                for (long[] span : row.reservations) {
+                    json.writeArray(span, 0, span.length);
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+                json.flush();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
     /**
      * Retrieves a reservation by its unique identifier.
+     * The version of the reservation is returned in the ETag header, ready to be sent back in If-Match.
      *
      * @param id the unique identifier of the reservation
      * @return a ResponseEntity containing the Reservation if found,
@@ -68,7 +278,7 @@ public class ReservationController {
         try {
             Reservation reservation = reservationUseCase.getReservationById(id)
                     .orElseThrow(() -> new RuntimeException("La reserva solicitada no existe"));
-            return ResponseEntity.ok(reservation);
+            return ResponseEntity.ok().eTag(VersionETags.of(reservation.version)).body(reservation);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
@@ -97,17 +307,55 @@ public class ReservationController {
 
     /**
      * Creates a new reservation for the authenticated client.
+     * <p>
+     * A request sent with an {@code Idempotency-Key} header creates the reservation once: the retries of the same
+     * client with the same key get the identifier of the reservation created by the first one (see
+     * {@link IdempotencyStore}), and a request that reuses the key with a different body is refused.
+     * </p>
      *
      * @param newReservation the Reservation object containing the reservation details
+     * @param idempotencyKey the key the retries of the request are recognized by, optional
      * @param user the currently authenticated user (client)
      * @return a ResponseEntity containing the identifier of the created reservation,
+     *         a 409 Conflict response if a request with the same key is still being processed,
+     *         a 422 Unprocessable Entity response if the key was used with a different body,
      *         or a 400 Bad Request response with an error message if creation fails
      */
     @PostMapping("/client/reservation")
     public ResponseEntity<?> createReservation(@RequestBody Reservation newReservation,
+                                               @RequestHeader(value = IDEMPOTENCY_KEY, required = false)
+                                               String idempotencyKey,
                                                @AuthenticationPrincipal User user) {
         try {
-            return ResponseEntity.ok(reservationUseCase.createReservation(newReservation, user));
+            IdempotencyStore.checkKey(idempotencyKey);
+            String fingerprint = IdempotencyStore.fingerprint(newReservation.client_id, newReservation.room_id,
+                    newReservation.total_price, newReservation.start_date, newReservation.end_date,
+                    newReservation.status);
+            return ResponseEntity.ok(idempotencyStore.execute(scopeKey("reservation", user, idempotencyKey),
+                    fingerprint, () -> reservationUseCase.createReservation(newReservation, user)));
+        } catch (ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IdempotencyStore.KeyReusedException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Books several rooms for the same stay at once for the authenticated client.
+     * Either every room is booked or none is.
+     *
+     * @param request the rooms and dates to book
+     * @param user the currently authenticated user (client)
+     * @return a ResponseEntity containing the created reservations,
+     *         or a 400 Bad Request response with an error message if any room cannot be booked
+     */
+    @PostMapping("/client/reservations/group")
+    public ResponseEntity<?> createGroupReservation(@RequestBody GroupReservationRequest request,
+                                                    @AuthenticationPrincipal User user) {
+        try {
+            return ResponseEntity.ok(reservationUseCase.createGroupReservation(request, user));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
@@ -118,24 +366,38 @@ public class ReservationController {
      * <p>
      * The reservation identified by the provided id is updated with the details in updatedReservation.
      * If the authenticated user is not authorized to update the reservation, a 403 Forbidden response is returned.
+     * The update only goes ahead while the reservation still has the version given in the If-Match header, or in
+     * the body when the header is missing; otherwise a 412 Precondition Failed or a 409 Conflict response is
+     * returned. The new version is returned in the ETag header.
      * </p>
      *
      * @param id the unique identifier of the reservation to update
      * @param updatedReservation the Reservation object containing the updated information
+     * @param ifMatch the entity tag of the reservation version the client has seen, optional
      * @param user the currently authenticated user (used for authorization)
      * @return a ResponseEntity with a success message if the update is successful,
-     *         a 403 Forbidden response if access is denied, or a 400/500 response with an error message otherwise
+     *         a 403 Forbidden response if access is denied, a 409/412 response if the reservation changed meanwhile,
+     *         or a 400/500 response with an error message otherwise
      */
     @PutMapping("/reservation/{id}")
     public ResponseEntity<?> updateReservation(@PathVariable long id, @RequestBody Reservation updatedReservation,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                               String ifMatch,
                                                @AuthenticationPrincipal User user) {
         try {
+            if (ifMatch != null) {
+                updatedReservation.setVersion(VersionETags.parseIfMatch(ifMatch));
+            }
             int rowsAffected = reservationUseCase.updateReservation(id, updatedReservation, user);
             if (rowsAffected == 1) {
-                return ResponseEntity.ok("La actualización se ha hecho correctamente");
+                return ResponseEntity.ok().eTag(VersionETags.of(updatedReservation.version))
+                        .body("La actualización se ha hecho correctamente");
             } else {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("No se ha podido actualizar.");
             }
+        } catch (OptimisticLockingFailureException e) {
+            HttpStatus status = ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT;
+            return ResponseEntity.status(status).body(e.getMessage());
         } catch (AccessDeniedException ade) {
             // Specific handling for access denied errors
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("No autorizado");
@@ -149,6 +411,7 @@ public class ReservationController {
      *
      * @param id the unique identifier of the reservation to cancel
      * @return a ResponseEntity with a success message if cancellation is successful,
+     *         a 409 Conflict response if the reservation changed meanwhile,
      *         or a 400 Bad Request response with an error message if cancellation fails
      */
     @DeleteMapping("/admin/reservation/{id}")
@@ -160,6 +423,8 @@ public class ReservationController {
             } else {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("No se ha podido actualizar.");
             }
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
@@ -167,18 +432,36 @@ public class ReservationController {
 
     /**
      * Creates a payment for a specific reservation.
+     * <p>
+     * A request sent with an {@code Idempotency-Key} header creates the payment once: the retries of the same user
+     * with the same key for the same reservation get the identifier of the payment created by the first one, and a
+     * request that reuses the key with a different body is refused.
+     * </p>
      *
      * @param newPayment the Payment object containing the payment details
      * @param id the unique identifier of the reservation for which the payment is made
+     * @param idempotencyKey the key the retries of the request are recognized by, optional
      * @param user the currently authenticated user
      * @return a ResponseEntity containing the identifier of the created payment,
+     *         a 409 Conflict response if a request with the same key is still being processed,
+     *         a 422 Unprocessable Entity response if the key was used with a different body,
      *         or a 400 Bad Request response with an error message if creation fails
      */
     @PostMapping("/admin/reservation/{id}/payment")
     public ResponseEntity<?> createPaymentOfReservation(@RequestBody Payment newPayment, @PathVariable long id,
+                                                        @RequestHeader(value = IDEMPOTENCY_KEY, required = false)
+                                                        String idempotencyKey,
                                                         @AuthenticationPrincipal User user) {
         try {
-            return ResponseEntity.ok(reservationUseCase.createPayment(newPayment, id, user));
+            IdempotencyStore.checkKey(idempotencyKey);
+            String fingerprint = IdempotencyStore.fingerprint(newPayment.amount, newPayment.payment_date,
+                    newPayment.method);
+            return ResponseEntity.ok(idempotencyStore.execute(scopeKey("payment:" + id, user, idempotencyKey),
+                    fingerprint, () -> reservationUseCase.createPayment(newPayment, id, user)));
+        } catch (ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IdempotencyStore.KeyReusedException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
@@ -192,16 +475,37 @@ public class ReservationController {
      *         or a 404 Not Found response with an error message if no payments are found
      */
     @GetMapping("/admin/reservations/{id}/payments")
-    public ResponseEntity<?> getPaymentsByClient(@PathVariable long id) {
+    public ResponseEntity<?> getPaymentsByClient(
+            @PathVariable long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = VersionETags.quote(versions.tag(Aggregate.PAYMENTS));
+        if (VersionETags.matches(ifNoneMatch, eTag)) {
+            return VersionETags.notModified(eTag, VersionETags.PRIVATE_CACHE);
+        }
         try {
             List<Payment> response = reservationUseCase.getPaymentsByClient(id);
             if (response.equals(emptyList())) {
                 throw new RuntimeException("No hay pagos asociados al cliente registrados en el sistema.");
             } else {
-                return ResponseEntity.ok(response);
+                return ResponseEntity.ok().eTag(eTag).cacheControl(VersionETags.PRIVATE_CACHE).body(response);
             }
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Scopes an idempotency key to an operation and a user, so two users or two operations never share a key.
+     *
+     * @param operation the operation the request runs
+     * @param user the authenticated user
+     * @param key the {@code Idempotency-Key} header, may be null
+     * @return the scoped key, or {@code null} if the request has no key
+     */
+    private static String scopeKey(String operation, User user, String key) {
+        if (key == null) {
+            return null;
+        }
+        return operation + ":" + (user == null ? "" : user.id) + ":" + key;
+    }
+}
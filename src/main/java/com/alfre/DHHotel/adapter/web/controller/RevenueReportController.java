@@ -0,0 +1,50 @@
+package com.alfre.DHHotel.adapter.web.controller;
+
+import com.alfre.DHHotel.usecase.RevenueReportUseCase;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+/**
+ * This class handles HTTP requests for the revenue and occupancy reports of the management dashboard.
+ * It delegates business logic to the RevenueReportUseCase.
+ *
+ * @author Alfredo Sobrados González
+ */
+@RestController
+@RequestMapping("/api")
+public class RevenueReportController {
+    private final RevenueReportUseCase revenueReportUseCase;
+
+    /**
+     * Constructs a RevenueReportController with the provided RevenueReportUseCase.
+     *
+     * @param revenueReportUseCase the business logic component for the revenue reports
+     */
+    public RevenueReportController(RevenueReportUseCase revenueReportUseCase) {
+        this.revenueReportUseCase = revenueReportUseCase;
+    }
+
+    /**
+     * Retrieves the occupancy rate, ADR and RevPAR of every room type between two dates, both included, day by day
+     * and over the whole range.
+     *
+     * @param from the first day of the report
+     * @param to the last day of the report
+     * @return a ResponseEntity containing the report,
+     *         or a 400 Bad Request response with an error message if the range is not valid
+     */
+    @GetMapping("/admin/reports/revenue")
+    public ResponseEntity<?> getRevenueReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(revenueReportUseCase.getRevenueReport(from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+}
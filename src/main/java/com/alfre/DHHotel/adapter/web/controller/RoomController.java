@@ -1,14 +1,29 @@
 package com.alfre.DHHotel.adapter.web.controller;
 
+import com.alfre.DHHotel.adapter.persistence.DataVersions;
+import com.alfre.DHHotel.adapter.persistence.DataVersions.Aggregate;
 import com.alfre.DHHotel.adapter.web.dto.RoomDTO;
+import com.alfre.DHHotel.adapter.web.dto.RoomQuoteDTO;
+import com.alfre.DHHotel.adapter.web.dto.RoomStatusUpdateRequest;
+import com.alfre.DHHotel.domain.event.RoomChangeEvent;
 import com.alfre.DHHotel.domain.model.Room;
 import com.alfre.DHHotel.domain.model.RoomStatus;
 import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.usecase.RoomChangeBroadcaster;
 import com.alfre.DHHotel.usecase.RoomUseCase;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 import static java.util.Collections.emptyList;
@@ -22,7 +37,13 @@ import static java.util.Collections.emptyList;
 @RestController
 @RequestMapping("/api")
 public class RoomController {
+    /**
+     * Time after which a room change stream is closed; clients reconnect on their own.
+     */
+    private static final long CHANGE_STREAM_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
     private final RoomUseCase roomUseCase;
+    private final DataVersions versions;
 
     /**
      * Constructs a RoomController with the provided RoomUseCase.
@@ -30,27 +51,56 @@ public class RoomController {
      * @param roomUseCase the use case that contains the business logic for room operations
      */
     public RoomController(RoomUseCase roomUseCase) {
+        this(roomUseCase, new DataVersions());
+    }
+
+    /**
+     * Constructs a RoomController with the provided RoomUseCase and the versions its lists are tagged with.
+     *
+     * @param roomUseCase the use case that contains the business logic for room operations
+     * @param versions the version counters the entity tags of the room lists are built from
+     */
+    @Autowired
+    public RoomController(RoomUseCase roomUseCase, DataVersions versions) {
         this.roomUseCase = roomUseCase;
+        this.versions = versions;
     }
 
     /**
-     * Retrieves all rooms in the system.
+     * Retrieves a page of the rooms in the system, ordered by ID and optionally filtered.
      * <p>
-     * If no rooms are registered, a RuntimeException is thrown and a 404 Not Found
+     * The next page, if any, is linked by the {@code Link} header of the response (see {@link KeysetPages}).
+     * If the first page is empty, a RuntimeException is thrown and a 404 Not Found
      * response is returned.
      * </p>
      *
+     * @param after the last ID of the previous page, or null for the first page
+     * @param limit the size of the page, 100 by default and at most 1000
+     * @param type the type of the rooms, or null for every type
+     * @param status the status of the rooms, or null for every status
      * @return a ResponseEntity containing the list of rooms if found, or an error message otherwise
      */
     @GetMapping("/admin/rooms")
-    public ResponseEntity<?> getAllRooms() {
+    public ResponseEntity<?> getAllRooms(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = KeysetPages.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false) RoomType type,
+            @RequestParam(required = false) RoomStatus status,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = VersionETags.quote(versions.tag(Aggregate.ROOMS));
+        if (VersionETags.matches(ifNoneMatch, eTag)) {
+            return VersionETags.notModified(eTag, VersionETags.PRIVATE_CACHE);
+        }
         try {
-            List<Room> response = roomUseCase.getAllRooms();
-            if (response.equals(emptyList())) {
+            KeysetPages.checkLimit(limit);
+            List<Room> response = roomUseCase.getRoomsPage(type, status, KeysetPages.afterId(after), limit);
+            if (response.isEmpty() && after == null) {
                 throw new RuntimeException("No hay habitaciones registrados en el sistema.");
-            } else {
-                return ResponseEntity.ok(response);
             }
+            return KeysetPages.ok(response, limit, room -> room.id)
+                    .eTag(eTag).cacheControl(VersionETags.PRIVATE_CACHE).body(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
@@ -63,11 +113,17 @@ public class RoomController {
      * @return a ResponseEntity containing the room if found, or a 404 Not Found response with an error message if not found
      */
     @GetMapping("/admin/room/{id}")
-    public ResponseEntity<?> getRoomById(@PathVariable long id) {
+    public ResponseEntity<?> getRoomById(
+            @PathVariable long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = VersionETags.quote(versions.tag(Aggregate.ROOMS));
+        if (VersionETags.matches(ifNoneMatch, eTag)) {
+            return VersionETags.notModified(eTag, VersionETags.PRIVATE_CACHE);
+        }
         try {
             Room response = roomUseCase.getRoomById(id)
                     .orElseThrow(() -> new RuntimeException("La habitación solicitada no existe."));
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(eTag).cacheControl(VersionETags.PRIVATE_CACHE).body(response);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
@@ -138,13 +194,19 @@ public class RoomController {
      *         or a 404 Not Found response with an error message if none are found
      */
     @GetMapping("/public/rooms/type/{type}")
-    public ResponseEntity<?> getRoomsByType(@PathVariable RoomType type) {
+    public ResponseEntity<?> getRoomsByType(
+            @PathVariable RoomType type,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = VersionETags.quote(versions.tag(Aggregate.ROOMS));
+        if (VersionETags.matches(ifNoneMatch, eTag)) {
+            return VersionETags.notModified(eTag, VersionETags.PUBLIC_CACHE);
+        }
         try {
             List<RoomDTO> response = roomUseCase.getRoomsByType(type);
             if (response.equals(emptyList())) {
                 throw new RuntimeException("No hay habitaciones del tipo solicitado en el sistema.");
             } else {
-                return ResponseEntity.ok(response);
+                return ResponseEntity.ok().eTag(eTag).cacheControl(VersionETags.PUBLIC_CACHE).body(response);
             }
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
@@ -158,14 +220,83 @@ public class RoomController {
      *         or a 404 Not Found response with an error message if none are available
      */
     @GetMapping("/public/rooms/available")
-    public ResponseEntity<?> getAvailableRooms() {
+    public ResponseEntity<?> getAvailableRooms(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = VersionETags.quote(versions.tag(Aggregate.ROOMS));
+        if (VersionETags.matches(ifNoneMatch, eTag)) {
+            return VersionETags.notModified(eTag, VersionETags.PUBLIC_CACHE);
+        }
         try {
             List<RoomDTO> response = roomUseCase.getAvailableRooms();
             if (response.equals(emptyList())) {
                 throw new RuntimeException("No hay habitaciones disponibles en el sistema.");
+            } else {
+                return ResponseEntity.ok().eTag(eTag).cacheControl(VersionETags.PUBLIC_CACHE).body(response);
+            }
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Searches the rooms that are free for a stay, optionally filtered by type and price band,
+     * together with the price quote of the stay.
+     *
+     * @param startDate the check-in date
+     * @param endDate the check-out date
+     * @param type the RoomType used to filter the rooms, optional
+     * @param minPrice the minimum price per night, optional
+     * @param maxPrice the maximum price per night, optional
+     * @return a ResponseEntity containing a list of RoomQuoteDTO objects for the free rooms,
+     *         a 400 Bad Request response if the search parameters are not valid,
+     *         or a 404 Not Found response with an error message if no room is free
+     */
+    @GetMapping("/public/rooms/search")
+    public ResponseEntity<?> searchAvailableRooms(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) RoomType type,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice) {
+        try {
+            List<RoomQuoteDTO> response = roomUseCase.searchAvailableRooms(startDate, endDate, type, minPrice,
+                    maxPrice);
+            if (response.equals(emptyList())) {
+                throw new RuntimeException("No hay habitaciones libres para las fechas solicitadas.");
             } else {
                 return ResponseEntity.ok(response);
             }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Quotes the price of the same stay in several rooms at once, applying the seasonal rates.
+     *
+     * @param ids the unique identifiers of the rooms to quote
+     * @param startDate the check-in date
+     * @param endDate the check-out date
+     * @return a ResponseEntity containing a list of RoomQuoteDTO objects,
+     *         a 400 Bad Request response if the parameters are not valid,
+     *         or a 404 Not Found response with an error message if none of the rooms exists
+     */
+    @GetMapping("/public/rooms/quotes")
+    public ResponseEntity<?> quoteRooms(
+            @RequestParam List<Long> ids,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        try {
+            List<RoomQuoteDTO> response = roomUseCase.quoteRooms(ids, startDate, endDate);
+            if (response.equals(emptyList())) {
+                throw new RuntimeException("Las habitaciones solicitadas no existen.");
+            } else {
+                return ResponseEntity.ok(response);
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
@@ -193,6 +324,26 @@ public class RoomController {
         }
     }
 
+    /**
+     * Updates the status of several rooms at once, for instance at the end of a housekeeping shift.
+     * Either every room gets its new status or none does.
+     *
+     * @param updates the new status of each room
+     * @return a ResponseEntity containing the number of rooms whose status changed,
+     *         a 400 Bad Request response with an error message if the updates are not valid,
+     *         or a 500 Internal Server Error response if the update fails
+     */
+    @PutMapping("/admin/rooms/status")
+    public ResponseEntity<?> updateStatuses(@RequestBody List<RoomStatusUpdateRequest> updates) {
+        try {
+            return ResponseEntity.ok(roomUseCase.updateStatuses(updates));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error de servicio.");
+        }
+    }
+
     /**
      * Retrieves all rooms that are under maintenance.
      *
@@ -200,16 +351,62 @@ public class RoomController {
      *         or a 404 Not Found response with an error message if none are found
      */
     @GetMapping("/admin/rooms/maintenance")
-    public ResponseEntity<?> getRoomsInMaintenance() {
+    public ResponseEntity<?> getRoomsInMaintenance(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = VersionETags.quote(versions.tag(Aggregate.ROOMS));
+        if (VersionETags.matches(ifNoneMatch, eTag)) {
+            return VersionETags.notModified(eTag, VersionETags.PRIVATE_CACHE);
+        }
         try {
             List<Room> response = roomUseCase.getRoomsInMaintenance();
             if (response.equals(emptyList())) {
                 throw new RuntimeException("No hay habitaciones en mantenimiento en el sistema.");
             } else {
-                return ResponseEntity.ok(response);
+                return ResponseEntity.ok().eTag(eTag).cacheControl(VersionETags.PRIVATE_CACHE).body(response);
             }
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Streams the changes of the rooms as Server-Sent Events, so clients do not have to poll the room lists.
+     * <p>
+     * Each event is named after its type: {@code STATUS} when the status of a room changes, {@code AVAILABILITY}
+     * when nights of a room are booked or released, and {@code RESYNC} when some changes could not be delivered
+     * in time and the client has to read the rooms again.
+     * </p>
+     *
+     * @return a ResponseEntity with the event stream,
+     *         or a 503 Service Unavailable response with an error message if there are too many subscribers
+     */
+    @GetMapping("/public/rooms/events")
+    public ResponseEntity<?> streamRoomChanges() {
+        SseEmitter emitter = new SseEmitter(CHANGE_STREAM_TIMEOUT_MILLIS);
+        try {
+            RoomChangeBroadcaster.Subscription subscription =
+                    roomUseCase.subscribeToChanges(event -> sendRoomChange(emitter, event));
+            emitter.onCompletion(subscription::close);
+            emitter.onTimeout(subscription::close);
+            emitter.onError(e -> subscription.close());
+            return ResponseEntity.ok(emitter);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Sends a room change to a client, closing the stream if the client has gone away.
+     *
+     * @param emitter the event stream of the client
+     * @param event the room change
+     */
+    private void sendRoomChange(SseEmitter emitter, RoomChangeEvent event) {
+        try {
+            emitter.send(SseEmitter.event().name(event.type().name()).data(event, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            throw new UncheckedIOException(e);
+        }
+    }
+}
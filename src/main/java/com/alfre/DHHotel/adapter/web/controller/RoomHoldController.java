@@ -0,0 +1,112 @@
+package com.alfre.DHHotel.adapter.web.controller;
+
+import com.alfre.DHHotel.adapter.web.dto.RoomHoldRequest;
+import com.alfre.DHHotel.domain.model.User;
+import com.alfre.DHHotel.usecase.ReservationUseCase;
+import com.alfre.DHHotel.usecase.RoomHoldUseCase;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * This class handles HTTP requests for the room holds that keep a room for a client while the checkout is completed.
+ * It delegates business logic to the RoomHoldUseCase and, to turn a hold into a reservation, to the
+ * ReservationUseCase.
+ *
+ * @author Alfredo Sobrados González
+ */
+@RestController
+@RequestMapping("/api")
+public class RoomHoldController {
+    private final RoomHoldUseCase roomHoldUseCase;
+    private final ReservationUseCase reservationUseCase;
+
+    /**
+     * Constructs a RoomHoldController with the provided use cases.
+     *
+     * @param roomHoldUseCase the business logic component for managing room holds
+     * @param reservationUseCase the business logic component for managing reservations
+     */
+    public RoomHoldController(RoomHoldUseCase roomHoldUseCase, ReservationUseCase reservationUseCase) {
+        this.roomHoldUseCase = roomHoldUseCase;
+        this.reservationUseCase = reservationUseCase;
+    }
+
+    /**
+     * Holds a room for a stay for the authenticated client during a few minutes.
+     *
+     * @param request the room, dates and optional duration of the hold
+     * @param user the currently authenticated user (client)
+     * @return a ResponseEntity containing the hold, or a 400 Bad Request response with an error message if the room
+     *         cannot be held
+     */
+    @PostMapping("/client/holds")
+    public ResponseEntity<?> placeHold(@RequestBody RoomHoldRequest request, @AuthenticationPrincipal User user) {
+        try {
+            return ResponseEntity.ok(roomHoldUseCase.placeHold(request, user));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves an active hold of the authenticated client.
+     *
+     * @param holdId the unique identifier of the hold
+     * @param user the currently authenticated user (client)
+     * @return a ResponseEntity containing the hold, a 403 Forbidden response if it belongs to another user,
+     *         or a 404 Not Found response if it does not exist or has expired
+     */
+    @GetMapping("/client/holds/{holdId}")
+    public ResponseEntity<?> getHold(@PathVariable String holdId, @AuthenticationPrincipal User user) {
+        try {
+            return ResponseEntity.ok(roomHoldUseCase.getHold(holdId, user));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Releases an active hold of the authenticated client before it expires.
+     *
+     * @param holdId the unique identifier of the hold
+     * @param user the currently authenticated user (client)
+     * @return a ResponseEntity with a success message, a 403 Forbidden response if the hold belongs to another
+     *         user, or a 404 Not Found response if it does not exist or has expired
+     */
+    @DeleteMapping("/client/holds/{holdId}")
+    public ResponseEntity<?> releaseHold(@PathVariable String holdId, @AuthenticationPrincipal User user) {
+        try {
+            roomHoldUseCase.releaseHold(holdId, user);
+            return ResponseEntity.ok("La retención se ha liberado correctamente");
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Turns an active hold of the authenticated client into a reservation.
+     *
+     * @param holdId the unique identifier of the hold
+     * @param user the currently authenticated user (client)
+     * @return a ResponseEntity containing the identifier of the created reservation, a 403 Forbidden response if
+     *         the hold belongs to another user, or a 400 Bad Request response with an error message otherwise
+     */
+    @PostMapping("/client/holds/{holdId}/reservation")
+    public ResponseEntity<?> createReservationFromHold(@PathVariable String holdId,
+                                                       @AuthenticationPrincipal User user) {
+        try {
+            return ResponseEntity.ok(reservationUseCase.createReservationFromHold(holdId, user));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+}
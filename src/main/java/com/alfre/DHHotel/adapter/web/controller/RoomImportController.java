@@ -0,0 +1,54 @@
+package com.alfre.DHHotel.adapter.web.controller;
+
+import com.alfre.DHHotel.usecase.RoomImportUseCase;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * This class handles HTTP requests for creating many rooms at once from an uploaded file.
+ * It delegates business logic to the RoomImportUseCase.
+ *
+ * @author Alfredo Sobrados González
+ */
+@RestController
+@RequestMapping("/api")
+public class RoomImportController {
+    private final RoomImportUseCase roomImportUseCase;
+
+    /**
+     * Constructs a RoomImportController with the provided RoomImportUseCase.
+     *
+     * @param roomImportUseCase the business logic component for importing rooms
+     */
+    public RoomImportController(RoomImportUseCase roomImportUseCase) {
+        this.roomImportUseCase = roomImportUseCase;
+    }
+
+    /**
+     * Creates the rooms of a CSV or newline-delimited JSON file, streamed from the request body.
+     * <p>
+     * Valid rows are created even when other rows are rejected; the response tells how many rooms were created and
+     * lists each rejected row with its line and the reason.
+     * </p>
+     *
+     * @param body the file, one room per line
+     * @param contentType {@code text/csv} or {@code application/x-ndjson}
+     * @return a ResponseEntity containing the outcome of the import,
+     *         or a 400 Bad Request response with an error message if the file cannot be read at all
+     */
+    @PostMapping(value = "/admin/rooms/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> importRooms(InputStream body,
+                                         @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) {
+        try {
+            return ResponseEntity.ok(roomImportUseCase.importRooms(new RoomImportReader(body, contentType)));
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+}
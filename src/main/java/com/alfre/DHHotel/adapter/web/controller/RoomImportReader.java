@@ -0,0 +1,81 @@
+package com.alfre.DHHotel.adapter.web.controller;
+
+import com.alfre.DHHotel.adapter.web.dto.RoomImportRow;
+import com.alfre.DHHotel.domain.model.Room;
+import com.alfre.DHHotel.domain.model.RoomStatus;
+import com.alfre.DHHotel.domain.model.RoomType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.http.MediaType;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Reads the rooms of a bulk import one line at a time, so the uploaded file is never held in memory.
+ * <p>
+ * Two formats are accepted: CSV ({@code text/csv}), whose first line names the columns {@code room_number},
+ * {@code type}, {@code price_per_night} and, optionally, {@code status}; and newline-delimited JSON
+ * ({@code application/x-ndjson}), with one room object per line. Blank lines are skipped. A line that cannot be
+ * read becomes a row with an error instead of stopping the import.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+final class RoomImportReader extends LineImportReader<RoomImportRow> {
+    private static final ObjectReader ROOM_READER = new ObjectMapper().readerFor(Room.class);
+    private static final List<String> REQUIRED_COLUMNS = List.of("room_number", "type", "price_per_night");
+
+    /**
+     * Constructs a reader of the given body.
+     *
+     * @param body the uploaded file
+     * @param contentType the format of the file
+     * @throws IllegalArgumentException if the format is not supported, or if a CSV file has no valid header
+     */
+    RoomImportReader(InputStream body, MediaType contentType) {
+        super(body, contentType, REQUIRED_COLUMNS);
+    }
+
+    @Override
+    RoomImportRow parseCsv(long line, List<String> columns, String[] fields) {
+        String column = null;
+        try {
+            Room room = new Room();
+            for (int i = 0; i < fields.length; i++) {
+                column = columns.get(i);
+                String value = fields[i];
+                switch (column) {
+                    case "room_number" -> room.room_number = Integer.parseInt(value);
+                    case "type" -> room.type = RoomType.valueOf(value.toUpperCase());
+                    case "price_per_night" -> room.price_per_night = new BigDecimal(value);
+                    case "status" -> room.status = value.isEmpty() ? null : RoomStatus.valueOf(value.toUpperCase());
+                    default -> { }
+                }
+            }
+            return RoomImportRow.of(line, room);
+        } catch (IllegalArgumentException e) {
+            return RoomImportRow.invalid(line, "Valor no válido en la columna " + column);
+        }
+    }
+
+    @Override
+    RoomImportRow parseJson(long line, String json) {
+        try {
+            Room room = ROOM_READER.readValue(json);
+            if (room != null) {
+                return RoomImportRow.of(line, room);
+            }
+        } catch (JsonProcessingException e) {
+            // Reported below like any other row that is not a room
+        }
+        return RoomImportRow.invalid(line, "La fila no es una habitación en JSON válida");
+    }
+
+    @Override
+    RoomImportRow invalid(long line, String error) {
+        return RoomImportRow.invalid(line, error);
+    }
+}
@@ -0,0 +1,214 @@
+package com.alfre.DHHotel.adapter.web.controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Writes the rows of an export to the response body one at a time, as they are read from the database, so the
+ * export never holds more than one row in memory.
+ * <p>
+ * Two formats are written: newline-delimited JSON, with one object per row, and CSV, with a header line naming the
+ * columns. The body is flushed every {@value #FLUSH_ROWS} rows, so the rows reach the client while the rest are
+ * still being read.
+ * </p>
+ *
+ * @param <T> the type of the rows
+ * @author Alfredo Sobrados González
+ */
+final class RowExportWriter<T> implements Consumer<T>, Closeable {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final int FLUSH_ROWS = 500;
+
+    /**
+     * Formats of an export.
+     */
+    enum Format {
+        NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        /**
+         * Reads the format asked by a request.
+         *
+         * @param name {@code ndjson} or {@code csv}, in any case
+         * @return the format
+         * @throws IllegalArgumentException if the format is not supported
+         */
+        static Format of(String name) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Formato de exportación no admitido: hay que pedir ndjson o csv");
+        }
+
+        MediaType mediaType() {
+            return mediaType;
+        }
+
+        /**
+         * Builds the name of the file an export is saved as.
+         *
+         * @param name the name of the file without extension
+         * @return the name with the extension of the format
+         */
+        String fileName(String name) {
+            return name + "." + extension;
+        }
+    }
+
+    /**
+     * A column of an export: its name in the CSV header and in the JSON objects, and how to read it from a row.
+     *
+     * @param name the name of the column
+     * @param value reads the value of the column, which may be null
+     * @param <T> the type of the rows
+     */
+    record Column<T>(String name, Function<T, Object> value) {
+    }
+
+    private final Format format;
+    private final List<Column<T>> columns;
+    private final JsonGenerator json;
+    private final Writer csv;
+    private long rows;
+
+    /**
+     * Constructs a writer of the given body, writing the CSV header right away.
+     *
+     * @param out the response body
+     * @param format the format of the export
+     * @param columns the columns of the export, in order
+     * @throws IOException if the body cannot be written
+     */
+    RowExportWriter(OutputStream out, Format format, List<Column<T>> columns) throws IOException {
+        this.format = format;
+        this.columns = columns;
+        if (format == Format.CSV) {
+            this.json = null;
+            this.csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            for (int i = 0; i < columns.size(); i++) {
+                csv.write(i == 0 ? "" : ",");
+                csv.write(columns.get(i).name());
+            }
+            csv.write("\r\n");
+        } else {
+            this.csv = null;
+            this.json = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+            json.setRootValueSeparator(null);
+        }
+    }
+
+    /**
+     * Writes a row.
+     *
+     * @param row the row
+     * @throws UncheckedIOException if the body cannot be written, usually because the client went away
+     */
+    @Override
+    public void accept(T row) {
+        try {
+            if (format == Format.CSV) {
+                writeCsv(row);
+            } else {
+                writeJson(row);
+            }
+            if (++rows % FLUSH_ROWS == 0) {
+                flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the number of rows written so far.
+     *
+     * @return the number of rows
+     */
+    long getRows() {
+        return rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (format == Format.CSV) {
+            csv.close();
+        } else {
+            json.close();
+        }
+    }
+
+    private void flush() throws IOException {
+        if (format == Format.CSV) {
+            csv.flush();
+        } else {
+            json.flush();
+        }
+    }
+
+    private void writeJson(T row) throws IOException {
+        json.writeStartObject();
+        for (Column<T> column : columns) {
+            json.writeFieldName(column.name());
+            Object value = column.value().apply(row);
+            if (value == null) {
+                json.writeNull();
+            } else if (value instanceof BigDecimal decimal) {
+                json.writeNumber(decimal);
+            } else if (value instanceof Number number) {
+                json.writeNumber(number.longValue());
+            } else {
+                json.writeString(value.toString());
+            }
+        }
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private void writeCsv(T row) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                csv.write(',');
+            }
+            Object value = columns.get(i).value().apply(row);
+            if (value != null) {
+                csv.write(quote(value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString()));
+            }
+        }
+        csv.write("\r\n");
+    }
+
+    /**
+     * Quotes a CSV field when it holds a separator, a quote or a line break.
+     */
+    private static String quote(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,63 @@
+package com.alfre.DHHotel.adapter.web.controller;
+
+import com.alfre.DHHotel.domain.model.FieldSet;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sparse fieldsets of the back-office lists.
+ * <p>
+ * The {@code fields} query parameter names, separated by commas, the properties each item of a list must carry,
+ * for example {@code ?fields=status,start_date}. Only those columns are selected and mapped, and the items are
+ * written with only those properties plus the {@code id}, which pages are keyed by. Without the parameter the items
+ * are written whole, as before.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+final class SparseFieldsets {
+    private SparseFieldsets() {
+    }
+
+    /**
+     * Reads the fields asked by a request.
+     *
+     * @param fields the {@code fields} query parameter, may be null
+     * @param columns the properties of the items, in order
+     * @param <T> the type of the items
+     * @return the fields asked
+     * @throws IllegalArgumentException if a field is not a property of the items
+     */
+    static <T> FieldSet parse(String fields, List<RowExportWriter.Column<T>> columns) {
+        return FieldSet.of(fields, columns.stream().map(RowExportWriter.Column::name).toList());
+    }
+
+    /**
+     * Builds the body of a page with only the fields asked.
+     *
+     * @param page the items of the page
+     * @param fields the fields asked
+     * @param columns the properties of the items, in order
+     * @param <T> the type of the items
+     * @return the items themselves when every field was asked, otherwise one map per item holding the fields asked
+     */
+    static <T> List<?> body(List<T> page, FieldSet fields, List<RowExportWriter.Column<T>> columns) {
+        if (fields.isAll()) {
+            return page;
+        }
+        List<Map<String, Object>> body = new ArrayList<>(page.size());
+        for (T item : page) {
+            Map<String, Object> properties = new LinkedHashMap<>();
+            for (RowExportWriter.Column<T> column : columns) {
+                if (fields.has(column.name())) {
+                    properties.put(column.name(), column.value().apply(item));
+                }
+            }
+            body.add(properties);
+        }
+        return body;
+    }
+}
@@ -0,0 +1,114 @@
+package com.alfre.DHHotel.adapter.web.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+
+/**
+ * Conversions between versions and the {@code ETag} / {@code If-Match} / {@code If-None-Match} HTTP headers.
+ * The entity tag of a reservation or payment is its version between quotes, e.g. {@code "3"}; the entity tag of a
+ * list is the tag given by {@link com.alfre.DHHotel.adapter.persistence.DataVersions} between quotes.
+ *
+ * @author Alfredo Sobrados González
+ */
+final class VersionETags {
+    /**
+     * Caching of the public catalog: browsers and shared proxies may reuse it for a few seconds, then revalidate it.
+     */
+    static final CacheControl PUBLIC_CACHE = CacheControl.maxAge(Duration.ofSeconds(10)).cachePublic();
+
+    /**
+     * Caching of the back-office lists: only the browser of the user may keep them, and must revalidate them.
+     */
+    static final CacheControl PRIVATE_CACHE = CacheControl.noCache().cachePrivate();
+
+    private VersionETags() {
+    }
+
+    /**
+     * Builds the entity tag of the given version.
+     *
+     * @param version the row version, may be null
+     * @return the quoted entity tag, or null if the version is unknown
+     */
+    static String of(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    /**
+     * Reads the version expected by an {@code If-Match} header.
+     *
+     * @param ifMatch the header value, may be null
+     * @return the expected version, or null if the header is missing or is {@code *}
+     * @throws IllegalArgumentException if the header does not hold a version
+     */
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("La cabecera If-Match no contiene una versión válida");
+        }
+    }
+
+    /**
+     * Builds the entity tag of a list from the tag of the versions it is read from.
+     *
+     * @param tag the unquoted tag
+     * @return the quoted entity tag
+     */
+    static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+
+    /**
+     * Tells whether an {@code If-None-Match} header names the current entity tag, using the weak comparison.
+     *
+     * @param ifNoneMatch the header value, may be null
+     * @param eTag the current quoted entity tag
+     * @return true if the client already holds the current representation
+     */
+    static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the 304 Not Modified response telling the client to reuse its copy.
+     *
+     * @param eTag the current quoted entity tag
+     * @param cacheControl the caching rules of the resource
+     * @param <T> the body type of the endpoint
+     * @return an empty response carrying the entity tag and the caching rules
+     */
+    static <T> ResponseEntity<T> notModified(String eTag, CacheControl cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+    }
+}
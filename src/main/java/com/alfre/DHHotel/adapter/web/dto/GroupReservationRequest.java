@@ -0,0 +1,49 @@
+package com.alfre.DHHotel.adapter.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for group reservation requests.
+ * This class encapsulates the rooms and dates of a stay booked for a whole group at once.
+ *
+ * <p>It utilizes Lombok annotations for reducing boilerplate code:</p>
+ * <ul>
+ *   <li>{@code @Data} - Generates getters, setters, toString, equals, and hashCode methods.</li>
+ *   <li>{@code @Builder} - Provides a builder pattern for creating instances.</li>
+ *   <li>{@code @NoArgsConstructor} - Generates a no-argument constructor.</li>
+ *   <li>{@code @AllArgsConstructor} - Generates a constructor with all fields.</li>
+ * </ul>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupReservationRequest {
+    /**
+     * The identifiers of the rooms to book.
+     */
+    private List<Long> room_ids;
+
+    /**
+     * The check-in date shared by every room of the group.
+     */
+    private LocalDate start_date;
+
+    /**
+     * The check-out date shared by every room of the group.
+     */
+    private LocalDate end_date;
+
+    /**
+     * The client the reservations belong to, only used when an administrator books for a client.
+     */
+    private Long client_id;
+}
@@ -0,0 +1,88 @@
+package com.alfre.DHHotel.adapter.web.dto;
+
+import com.alfre.DHHotel.domain.model.RoomStatus;
+import lombok.Builder;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for the occupancy calendar shown at the front desk.
+ * Encapsulates a rooms × days matrix: one row per room with one status code per day of the window.
+ *
+ * <p>This class utilizes Lombok annotations to reduce boilerplate code:</p>
+ * <ul>
+ *   <li>{@code @Builder} - Provides a builder pattern for creating instances.</li>
+ * </ul>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Builder
+public class OccupancyCalendarDTO {
+    /**
+     * Day code of a free room.
+     */
+    public static final char FREE = '.';
+
+    /**
+     * Day code of a room held by a pending reservation.
+     */
+    public static final char PENDING = 'P';
+
+    /**
+     * Day code of a room held by a confirmed reservation.
+     */
+    public static final char CONFIRMED = 'C';
+
+    /**
+     * The first day of the calendar.
+     */
+    public LocalDate start_date;
+
+    /**
+     * The last day of the calendar, included.
+     */
+    public LocalDate end_date;
+
+    /**
+     * The number of days of the calendar, which is the length of every row.
+     */
+    public int days;
+
+    /**
+     * One row per room, ordered by room number.
+     */
+    public List<RoomRow> rooms;
+
+    /**
+     * The occupancy of a single room over the calendar window.
+     */
+    @Builder
+    public static class RoomRow {
+        /**
+         * The unique identifier of the room.
+         */
+        public long id;
+
+        /**
+         * The unique room number.
+         */
+        public int room_number;
+
+        /**
+         * The current status of the room (e.g., AVAILABLE, OCCUPIED, MAINTENANCE).
+         */
+        public RoomStatus status;
+
+        /**
+         * One code per day of the window: {@link #FREE}, {@link #PENDING} or {@link #CONFIRMED}.
+         */
+        public String cells;
+
+        /**
+         * The reservations shown in the row, each one as {@code [reservation id, first day, last day]}
+         * where the days are indexes into {@link #cells}.
+         */
+        public List<long[]> reservations;
+    }
+}
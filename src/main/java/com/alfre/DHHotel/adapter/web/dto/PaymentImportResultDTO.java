@@ -0,0 +1,113 @@
+package com.alfre.DHHotel.adapter.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for the reconciliation report of a settlement file import.
+ * Encapsulates how many payments were recorded and how many reservations they confirmed, plus the lines that were
+ * not recorded: the ones that could not be read, the ones whose reservation could not be matched and the ones that
+ * would have paid more than the reservation costs.
+ *
+ * <p>It uses Lombok annotations to reduce boilerplate code:</p>
+ * <ul>
+ *   <li>{@code @Data} - Generates getters, setters, toString, equals, and hashCode methods.</li>
+ *   <li>{@code @NoArgsConstructor} - Generates a no-argument constructor.</li>
+ * </ul>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Data
+@NoArgsConstructor
+public class PaymentImportResultDTO {
+    /**
+     * The number of payments recorded.
+     */
+    public int imported;
+
+    /**
+     * The number of reservations confirmed because the payments recorded completed their price.
+     */
+    public int confirmed;
+
+    /**
+     * The number of lines that could not be read or are not valid payments.
+     */
+    public int rejected;
+
+    /**
+     * The number of lines whose reservation does not exist or is canceled.
+     */
+    public int unmatched;
+
+    /**
+     * The number of lines whose amount exceeds what was left to pay of their reservation.
+     */
+    public int overpaid;
+
+    /**
+     * The rejected lines with the reason of each, in file order; only the first ones are listed when there are many.
+     */
+    public List<RowError> errors = new ArrayList<>();
+
+    /**
+     * The unmatched lines, in file order; only the first ones are listed when there are many.
+     */
+    public List<SettlementLine> unmatchedLines = new ArrayList<>();
+
+    /**
+     * The overpaid lines, in file order; only the first ones are listed when there are many.
+     */
+    public List<SettlementLine> overpaidLines = new ArrayList<>();
+
+    /**
+     * A rejected line of the import.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        /**
+         * The line of the file the row was read from, starting at 1.
+         */
+        public long line;
+
+        /**
+         * The reason why the row was rejected.
+         */
+        public String message;
+    }
+
+    /**
+     * A settlement line that was read but not recorded, to be reconciled by hand.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class SettlementLine {
+        /**
+         * The line of the file the row was read from, starting at 1.
+         */
+        public long line;
+
+        /**
+         * The reservation the line refers to.
+         */
+        public long reservation_id;
+
+        /**
+         * The amount settled by the line.
+         */
+        public BigDecimal amount;
+
+        /**
+         * Why the line was not recorded.
+         */
+        public String message;
+    }
+}
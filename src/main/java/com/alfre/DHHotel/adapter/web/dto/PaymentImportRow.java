@@ -0,0 +1,36 @@
+package com.alfre.DHHotel.adapter.web.dto;
+
+import com.alfre.DHHotel.domain.model.Payment;
+import lombok.AllArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) for one line of a card processor settlement file, as read from the uploaded file.
+ * A row holds either the payment it settles or the reason why it could not be read.
+ *
+ * @author Alfredo Sobrados González
+ */
+@AllArgsConstructor
+public class PaymentImportRow {
+    /**
+     * The line of the file the row was read from, starting at 1.
+     */
+    public long line;
+
+    /**
+     * The payment described by the row, or {@code null} if the row could not be read.
+     */
+    public Payment payment;
+
+    /**
+     * The reason why the row could not be read, or {@code null} if it was read.
+     */
+    public String error;
+
+    public static PaymentImportRow of(long line, Payment payment) {
+        return new PaymentImportRow(line, payment, null);
+    }
+
+    public static PaymentImportRow invalid(long line, String error) {
+        return new PaymentImportRow(line, null, error);
+    }
+}
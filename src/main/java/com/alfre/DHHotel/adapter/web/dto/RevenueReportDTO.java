@@ -0,0 +1,101 @@
+package com.alfre.DHHotel.adapter.web.dto;
+
+import com.alfre.DHHotel.domain.model.RoomType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for the revenue and occupancy report of a date range.
+ * Encapsulates the occupancy rate, the average daily rate (ADR) and the revenue per available room (RevPAR) of each
+ * room type, for every day of the range and for the whole range.
+ *
+ * <p>It uses Lombok annotations to reduce boilerplate code:</p>
+ * <ul>
+ *   <li>{@code @Data} - Generates getters, setters, toString, equals, and hashCode methods.</li>
+ *   <li>{@code @NoArgsConstructor} - Generates a no-argument constructor.</li>
+ * </ul>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Data
+@NoArgsConstructor
+public class RevenueReportDTO {
+    /**
+     * The first day of the report.
+     */
+    public LocalDate from;
+
+    /**
+     * The last day of the report, included.
+     */
+    public LocalDate to;
+
+    /**
+     * One line per day and room type, ordered by day and room type.
+     */
+    public List<Line> days = new ArrayList<>();
+
+    /**
+     * One line per room type over the whole range, without day.
+     */
+    public List<Line> totals = new ArrayList<>();
+
+    /**
+     * The figures of a room type on a day, or over the whole range.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Line {
+        /**
+         * The day, or {@code null} for the totals of the range.
+         */
+        public LocalDate day;
+
+        /**
+         * The type of the rooms.
+         */
+        public RoomType room_type;
+
+        /**
+         * The room-nights that could be sold: the rooms of the type times the days.
+         */
+        public long rooms_available;
+
+        /**
+         * The room-nights booked by non-canceled reservations.
+         */
+        public long rooms_sold;
+
+        /**
+         * The rooms sold over the rooms available, from 0 to 1.
+         */
+        public BigDecimal occupancy_rate;
+
+        /**
+         * The share of the price of the reservations that falls on the days.
+         */
+        public BigDecimal room_revenue;
+
+        /**
+         * The average daily rate: the room revenue over the rooms sold.
+         */
+        public BigDecimal adr;
+
+        /**
+         * The revenue per available room: the room revenue over the rooms available.
+         */
+        public BigDecimal revpar;
+
+        /**
+         * The sum of the payments made on the days.
+         */
+        public BigDecimal payments_total;
+    }
+}
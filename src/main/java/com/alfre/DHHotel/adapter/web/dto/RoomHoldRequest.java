@@ -0,0 +1,48 @@
+package com.alfre.DHHotel.adapter.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) for room hold requests.
+ * This class encapsulates the room and dates a client wants to keep while going through the checkout.
+ *
+ * <p>It utilizes Lombok annotations for reducing boilerplate code:</p>
+ * <ul>
+ *   <li>{@code @Data} - Generates getters, setters, toString, equals, and hashCode methods.</li>
+ *   <li>{@code @Builder} - Provides a builder pattern for creating instances.</li>
+ *   <li>{@code @NoArgsConstructor} - Generates a no-argument constructor.</li>
+ *   <li>{@code @AllArgsConstructor} - Generates a constructor with all fields.</li>
+ * </ul>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomHoldRequest {
+    /**
+     * The identifier of the room to hold.
+     */
+    private Long room_id;
+
+    /**
+     * The check-in date of the stay.
+     */
+    private LocalDate start_date;
+
+    /**
+     * The check-out date of the stay.
+     */
+    private LocalDate end_date;
+
+    /**
+     * How many minutes the hold lasts, or {@code null} for the default duration.
+     */
+    private Integer minutes;
+}
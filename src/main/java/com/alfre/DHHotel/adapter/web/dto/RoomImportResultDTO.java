@@ -0,0 +1,57 @@
+package com.alfre.DHHotel.adapter.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for the outcome of a bulk room import.
+ * Encapsulates how many rooms were created and rejected, and why each rejected row was rejected.
+ *
+ * <p>It uses Lombok annotations to reduce boilerplate code:</p>
+ * <ul>
+ *   <li>{@code @Data} - Generates getters, setters, toString, equals, and hashCode methods.</li>
+ *   <li>{@code @NoArgsConstructor} - Generates a no-argument constructor.</li>
+ * </ul>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Data
+@NoArgsConstructor
+public class RoomImportResultDTO {
+    /**
+     * The number of rooms created.
+     */
+    public int imported;
+
+    /**
+     * The number of rows rejected.
+     */
+    public int rejected;
+
+    /**
+     * The rejected rows with the reason of each, in file order; only the first ones are listed when there are many.
+     */
+    public List<RowError> errors = new ArrayList<>();
+
+    /**
+     * A rejected row of the import.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        /**
+         * The line of the file the row was read from, starting at 1.
+         */
+        public long line;
+
+        /**
+         * The reason why the row was rejected.
+         */
+        public String message;
+    }
+}
@@ -0,0 +1,36 @@
+package com.alfre.DHHotel.adapter.web.dto;
+
+import com.alfre.DHHotel.domain.model.Room;
+import lombok.AllArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) for one row of a bulk room import, as read from the uploaded file.
+ * A row holds either the room it describes or the reason why it could not be read.
+ *
+ * @author Alfredo Sobrados González
+ */
+@AllArgsConstructor
+public class RoomImportRow {
+    /**
+     * The line of the file the row was read from, starting at 1.
+     */
+    public long line;
+
+    /**
+     * The room described by the row, or {@code null} if the row could not be read.
+     */
+    public Room room;
+
+    /**
+     * The reason why the row could not be read, or {@code null} if it was read.
+     */
+    public String error;
+
+    public static RoomImportRow of(long line, Room room) {
+        return new RoomImportRow(line, room, null);
+    }
+
+    public static RoomImportRow invalid(long line, String error) {
+        return new RoomImportRow(line, null, error);
+    }
+}
@@ -0,0 +1,50 @@
+package com.alfre.DHHotel.adapter.web.dto;
+
+import com.alfre.DHHotel.domain.model.RoomType;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+/**
+ * Data Transfer Object (DTO) for a room that is free for a requested stay.
+ * Encapsulates the room details together with the price quote for the stay.
+ *
+ * <p>This class utilizes Lombok annotations to reduce boilerplate code:</p>
+ * <ul>
+ *   <li>{@code @Builder} - Provides a builder pattern for creating instances.</li>
+ * </ul>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Builder
+public class RoomQuoteDTO {
+    /**
+     * The unique identifier of the room, needed to book it.
+     */
+    public long id;
+
+    /**
+     * The unique room number.
+     */
+    public int room_number;
+
+    /**
+     * The type of the room (e.g., SINGLE, DOUBLE, SUITE).
+     */
+    public RoomType type;
+
+    /**
+     * The price per night for booking the room.
+     */
+    public BigDecimal price_per_night;
+
+    /**
+     * The number of nights of the requested stay.
+     */
+    public long nights;
+
+    /**
+     * The total price of the requested stay.
+     */
+    public BigDecimal total_price;
+}
@@ -0,0 +1,37 @@
+package com.alfre.DHHotel.adapter.web.dto;
+
+import com.alfre.DHHotel.domain.model.RoomStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) for one room of a bulk status update, such as the rooms flipped at the end of a
+ * housekeeping shift.
+ *
+ * <p>It utilizes Lombok annotations for reducing boilerplate code:</p>
+ * <ul>
+ *   <li>{@code @Data} - Generates getters, setters, toString, equals, and hashCode methods.</li>
+ *   <li>{@code @Builder} - Provides a builder pattern for creating instances.</li>
+ *   <li>{@code @NoArgsConstructor} - Generates a no-argument constructor.</li>
+ *   <li>{@code @AllArgsConstructor} - Generates a constructor with all fields.</li>
+ * </ul>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomStatusUpdateRequest {
+    /**
+     * The identifier of the room.
+     */
+    private Long room_id;
+
+    /**
+     * The new status of the room.
+     */
+    private RoomStatus status;
+}
@@ -1,7 +1,10 @@
 package com.alfre.DHHotel.config;
 
+import com.alfre.DHHotel.adapter.persistence.QueryCountingDataSource;
+import com.alfre.DHHotel.adapter.persistence.UnitOfWork;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -23,16 +26,30 @@ import javax.sql.DataSource;
 public class DatabaseConfig {
 
     /**
-     * Creates and configures a {@link DataSource} bean.
-     * The properties for this data source are loaded from the configuration file
+     * Creates the configuration of the connection pool.
+     * The properties for this pool are loaded from the configuration file
      * using the prefix {@code datasource.my-connection}.
      *
-     * @return a configured {@code DataSource} instance
+     * @return the connection pool configuration
      */
     @Bean
     @ConfigurationProperties(prefix = "datasource.my-connection")
-    public DataSource crudDataSource() {
-        return DataSourceBuilder.create().build();
+    public HikariConfig crudPoolConfig() {
+        return new HikariConfig();
+    }
+
+    /**
+     * Creates and configures a {@link DataSource} bean.
+     * The connection pool is wrapped so the statements of each request are counted in its {@link UnitOfWork}.
+     *
+     * @param crudPoolConfig the connection pool configuration
+     * @return a configured {@code DataSource} instance
+     */
+    @Bean
+    public DataSource crudDataSource(HikariConfig crudPoolConfig) {
+        HikariDataSource pool = new HikariDataSource();
+        crudPoolConfig.copyStateTo(pool);
+        return new QueryCountingDataSource(pool);
     }
 
     /**
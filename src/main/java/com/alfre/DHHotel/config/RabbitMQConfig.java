@@ -14,11 +14,13 @@ import org.springframework.context.annotation.Configuration;
 public class RabbitMQConfig {
     public static final String HOTEL_EXCHANGE = "hotel.exchange";
     public static final String NOTIFICATIONS_QUEUE = "hotel.notifications";
+    public static final String GROUP_NOTIFICATIONS_QUEUE = "hotel.notifications.group";
     public static final String RETRY_QUEUE_1 = "retry.1";
     public static final String RETRY_QUEUE_2 = "retry.2";
     public static final String RETRY_QUEUE_3 = "retry.3";
     public static final String NOTIFICATIONS_DLQ = "hotel.notifications.dlq";
     public static final String BOOKING_CREATED_ROUTING_KEY = "booking.created";
+    public static final String GROUP_BOOKING_CREATED_ROUTING_KEY = "booking.group.created";
 
     @Bean
     public TopicExchange hotelExchange() {
@@ -33,6 +35,14 @@ public class RabbitMQConfig {
                 .build();
     }
 
+    @Bean
+    public Queue hotelGroupNotificationsQueue() {
+        return QueueBuilder.durable(GROUP_NOTIFICATIONS_QUEUE)
+                .deadLetterExchange(HOTEL_EXCHANGE)
+                .deadLetterRoutingKey(RETRY_QUEUE_1)
+                .build();
+    }
+
     @Bean
     public Queue retryQueue1() {
         return retryQueue(RETRY_QUEUE_1, 5_000, RETRY_QUEUE_2);
@@ -60,6 +70,13 @@ public class RabbitMQConfig {
                 .with(BOOKING_CREATED_ROUTING_KEY);
     }
 
+    @Bean
+    public Binding groupBookingCreatedBinding(Queue hotelGroupNotificationsQueue, TopicExchange hotelExchange) {
+        return BindingBuilder.bind(hotelGroupNotificationsQueue)
+                .to(hotelExchange)
+                .with(GROUP_BOOKING_CREATED_ROUTING_KEY);
+    }
+
     @Bean
     public Binding retryQueue1Binding(Queue retryQueue1, TopicExchange hotelExchange) {
         return BindingBuilder.bind(retryQueue1)
@@ -1,21 +1,40 @@
 package com.alfre.DHHotel.config;
 
+import com.alfre.DHHotel.adapter.cache.IdempotencyStore;
+import com.alfre.DHHotel.adapter.cache.TieredCacheManager;
+import com.alfre.DHHotel.adapter.persistence.DataVersions;
+import com.alfre.DHHotel.adapter.persistence.RoomAvailabilityIndex;
+import com.alfre.DHHotel.adapter.persistence.RoomCatalog;
+import com.alfre.DHHotel.usecase.RateUseCase;
+import com.alfre.DHHotel.usecase.RoomChangeBroadcaster;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Set;
 
 @Configuration
 public class RedisCacheConfig {
     private static final String ROOM_AVAILABILITY_CACHE = "room-availability";
+    public static final String CACHE_INVALIDATION_CHANNEL = "dhhotel.cache.invalidation";
+    public static final String ROOM_CATALOG_CHANNEL = "dhhotel.rooms.changed";
+    public static final String ROOM_EVENTS_CHANNEL = "dhhotel.rooms.events";
+    public static final String DATA_VERSIONS_CHANNEL = "dhhotel.data.versions";
+    public static final String ROOM_AVAILABILITY_CHANNEL = "dhhotel.rooms.availability";
+    public static final String RATES_CHANNEL = "dhhotel.rates.changed";
 
     @Bean
     public RedisConnectionFactory redisConnectionFactory(
@@ -36,4 +55,74 @@ public class RedisCacheConfig {
                 .initialCacheNames(Set.of(ROOM_AVAILABILITY_CACHE))
                 .build();
     }
+
+    // In-process L1 in front of Redis; changes are broadcast so every node drops its stale L1 entries
+    @Bean
+    @Primary
+    public TieredCacheManager cacheManager(RedisCacheManager redisCacheManager, StringRedisTemplate redisTemplate,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${cache.local.maximum-size:10000}") long localMaximumSize,
+                                           @Value("${cache.local.ttl:30s}") Duration localTtl) {
+        return new TieredCacheManager(redisCacheManager,
+                payload -> redisTemplate.convertAndSend(CACHE_INVALIDATION_CHANNEL, payload),
+                meterRegistry, localMaximumSize, localTtl);
+    }
+
+    // In-memory room catalog; room changes are broadcast so every node reloads its snapshot
+    @Bean
+    public RoomCatalog roomCatalog(StringRedisTemplate redisTemplate) {
+        return new RoomCatalog(payload -> redisTemplate.convertAndSend(ROOM_CATALOG_CHANNEL, payload));
+    }
+
+    // Room changes pushed to the subscribed clients; relayed so every node pushes the changes made on the others
+    @Bean
+    public RoomChangeBroadcaster roomChangeBroadcaster(
+            StringRedisTemplate redisTemplate, @Value("${rooms.events.buffer-size:256}") int bufferSize,
+            @Value("${rooms.events.max-subscribers:1000}") int maxSubscribers) {
+        return new RoomChangeBroadcaster(bufferSize, maxSubscribers,
+                payload -> redisTemplate.convertAndSend(ROOM_EVENTS_CHANNEL, payload));
+    }
+
+    // In-memory availability index; booked and released stays are broadcast so every node applies them
+    @Bean
+    public RoomAvailabilityIndex roomAvailabilityIndex(StringRedisTemplate redisTemplate) {
+        return new RoomAvailabilityIndex(payload -> redisTemplate.convertAndSend(ROOM_AVAILABILITY_CHANNEL, payload));
+    }
+
+    // Version counters behind the entity tags; changes are broadcast so every node stops matching stale tags
+    @Bean
+    public DataVersions dataVersions(StringRedisTemplate redisTemplate) {
+        return new DataVersions(payload -> redisTemplate.convertAndSend(DATA_VERSIONS_CHANNEL, payload));
+    }
+
+    // Responses of the creation requests sent with an Idempotency-Key; kept in Redis so the retries that reach
+    // another node are answered too, or in the memory of this node with the local stand-in
+    @Bean
+    public IdempotencyStore idempotencyStore(StringRedisTemplate redisTemplate,
+                                             @Value("${idempotency.store:redis}") String store,
+                                             @Value("${idempotency.local.maximum-size:10000}") long localMaximumSize,
+                                             @Value("${idempotency.retention:24h}") Duration retention) {
+        IdempotencyStore.Shared shared = store.equalsIgnoreCase("local")
+                ? IdempotencyStore.Shared.local(localMaximumSize, retention)
+                : IdempotencyStore.Shared.redis(redisTemplate);
+        return new IdempotencyStore(shared, localMaximumSize, retention);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+            RedisConnectionFactory redisConnectionFactory, TieredCacheManager cacheManager, RoomCatalog roomCatalog,
+            RoomChangeBroadcaster roomChangeBroadcaster, DataVersions dataVersions,
+            RoomAvailabilityIndex roomAvailabilityIndex, RateUseCase rateUseCase) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(CACHE_INVALIDATION_CHANNEL));
+        container.addMessageListener(roomCatalog, new ChannelTopic(ROOM_CATALOG_CHANNEL));
+        container.addMessageListener((message, pattern) -> roomChangeBroadcaster.receive(
+                new String(message.getBody(), StandardCharsets.UTF_8)), new ChannelTopic(ROOM_EVENTS_CHANNEL));
+        container.addMessageListener(dataVersions, new ChannelTopic(DATA_VERSIONS_CHANNEL));
+        container.addMessageListener(roomAvailabilityIndex, new ChannelTopic(ROOM_AVAILABILITY_CHANNEL));
+        container.addMessageListener((message, pattern) -> rateUseCase.receive(
+                new String(message.getBody(), StandardCharsets.UTF_8)), new ChannelTopic(RATES_CHANNEL));
+        return container;
+    }
 }
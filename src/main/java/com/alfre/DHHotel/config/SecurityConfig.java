@@ -86,6 +86,8 @@ public class SecurityConfig {
                         .requestMatchers("/api/client/**").hasRole("CLIENT")
                         .requestMatchers("/api/admin/**").hasAnyRole("ADMIN", "SUPERADMIN")
                         .requestMatchers("/api/superadmin/**", "/api/auth/register/admin").hasRole("SUPERADMIN")
+                        // The actuator endpoints include repair operations such as rebuilding the derived tables
+                        .requestMatchers("/actuator/**").hasAnyRole("ADMIN", "SUPERADMIN")
                         .anyRequest().authenticated()
                 )
 
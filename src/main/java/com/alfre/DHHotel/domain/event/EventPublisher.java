@@ -19,4 +19,12 @@ public class EventPublisher {
                 event
         );
     }
+
+    public void publishGroupBookingCreated(GroupBookingCreatedEvent event) {
+        rabbitTemplate.convertAndSend(
+                RabbitMQConfig.HOTEL_EXCHANGE,
+                RabbitMQConfig.GROUP_BOOKING_CREATED_ROUTING_KEY,
+                event
+        );
+    }
 }
@@ -0,0 +1,44 @@
+package com.alfre.DHHotel.domain.event;
+
+import com.alfre.DHHotel.domain.model.RoomStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Change of a room pushed to the clients following the rooms: a new status, new booked or released nights, or a
+ * request to read the rooms again because some changes could not be delivered.
+ *
+ * @param type the kind of change
+ * @param room_id the ID of the room, or {@code null} for {@link Type#RESYNC}
+ * @param status the new status of the room, only for {@link Type#STATUS}
+ * @param start_date the first night whose availability changed, only for {@link Type#AVAILABILITY}
+ * @param end_date the last night whose availability changed, only for {@link Type#AVAILABILITY}
+ */
+public record RoomChangeEvent(
+        Type type,
+        Long room_id,
+        RoomStatus status,
+        LocalDate start_date,
+        LocalDate end_date
+) {
+    /**
+     * Kinds of room change.
+     */
+    public enum Type {
+        STATUS,
+        AVAILABILITY,
+        RESYNC
+    }
+
+    public static RoomChangeEvent status(long roomId, RoomStatus status) {
+        return new RoomChangeEvent(Type.STATUS, roomId, status, null, null);
+    }
+
+    public static RoomChangeEvent availability(long roomId, LocalDate startDate, LocalDate endDate) {
+        return new RoomChangeEvent(Type.AVAILABILITY, roomId, null, startDate, endDate);
+    }
+
+    public static RoomChangeEvent resync() {
+        return new RoomChangeEvent(Type.RESYNC, null, null, null, null);
+    }
+}
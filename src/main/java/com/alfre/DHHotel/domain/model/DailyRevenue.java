@@ -0,0 +1,52 @@
+package com.alfre.DHHotel.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Value class representing the revenue and occupancy rollup of the rooms of a type on a single day.
+ * A reservation sells one room on each of its nights, from the check-in date up to but not including the check-out
+ * date, and its price is spread evenly over those nights.
+ *
+ * <p>It uses Lombok annotations to reduce boilerplate code:</p>
+ * <ul>
+ *   <li>{@code @Data} - Generates getters, setters, {@code toString()}, {@code equals()}, and {@code hashCode()} methods.</li>
+ *   <li>{@code @AllArgsConstructor} - Generates a constructor with all fields.</li>
+ *   <li>{@code @NoArgsConstructor} - Generates a no-argument constructor.</li>
+ * </ul>
+ *
+ * @author Alfredo Sobrados González
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class DailyRevenue {
+    /**
+     * The day.
+     */
+    public LocalDate day;
+
+    /**
+     * The type of the rooms.
+     */
+    public RoomType room_type;
+
+    /**
+     * The number of rooms of the type booked on the day by non-canceled reservations.
+     */
+    public int rooms_sold;
+
+    /**
+     * The share of the price of those reservations that falls on the day.
+     */
+    public BigDecimal room_revenue;
+
+    /**
+     * The sum of the payments made on the day for reservations of rooms of the type.
+     */
+    public BigDecimal payments_total;
+}
@@ -0,0 +1,89 @@
+package com.alfre.DHHotel.domain.model;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fields of an entity a read has to return, so a list that only needs a few of them neither selects, maps nor
+ * serializes the rest. The fields are named as the columns of the entity and as its JSON properties, and the
+ * {@code id} is always read, since pages are keyed by it.
+ *
+ * @param names the fields to read in the order of the entity, or an empty list to read every field
+ *
+ * @author Alfredo Sobrados González
+ */
+public record FieldSet(List<String> names) {
+    /**
+     * Every field of the entity.
+     */
+    public static final FieldSet ALL = new FieldSet(List.of());
+
+    /**
+     * Copies the names so the set cannot change once built.
+     */
+    public FieldSet {
+        names = List.copyOf(names);
+    }
+
+    /**
+     * Reads the fields asked by a request.
+     *
+     * @param fields the names of the fields separated by commas, or {@code null} or blank for every field
+     * @param available the fields of the entity, in order
+     * @return the fields asked plus the {@code id}, in the order of the entity
+     * @throws IllegalArgumentException if a field is not a field of the entity
+     */
+    public static FieldSet of(String fields, List<String> available) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<String> asked = new HashSet<>(Set.of("id"));
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!available.contains(name)) {
+                throw new IllegalArgumentException("Campo no admitido: " + name);
+            }
+            asked.add(name);
+        }
+        return new FieldSet(available.stream().filter(asked::contains).toList());
+    }
+
+    /**
+     * Tells whether every field has to be read.
+     *
+     * @return {@code true} if no field was left out
+     */
+    public boolean isAll() {
+        return names.isEmpty();
+    }
+
+    /**
+     * Tells whether a field has to be read.
+     *
+     * @param name the name of the field
+     * @return {@code true} if the field is part of the set
+     */
+    public boolean has(String name) {
+        return isAll() || names.contains(name);
+    }
+
+    /**
+     * Gives the fields to read out of the given ones.
+     *
+     * @param available the fields of the entity, in order
+     * @return the fields of the set, or every available field if the set has them all
+     * @throws IllegalArgumentException if a field of the set is not available
+     */
+    public List<String> within(List<String> available) {
+        if (isAll()) {
+            return available;
+        }
+        for (String name : names) {
+            if (!available.contains(name)) {
+                throw new IllegalArgumentException("Campo no admitido: " + name);
+            }
+        }
+        return names;
+    }
+}
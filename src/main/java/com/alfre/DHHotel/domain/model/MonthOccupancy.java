@@ -0,0 +1,41 @@
+package com.alfre.DHHotel.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Value class representing the booked nights of the rooms of a type during a calendar month.
+ * It is the unit the room availability is cached by, so a booking only invalidates the months it touches.
+ *
+ * <p>It uses Lombok annotations to reduce boilerplate code:</p>
+ * <ul>
+ *   <li>{@code @Data} - Generates getters, setters, {@code toString()}, {@code equals()}, and {@code hashCode()} methods.</li>
+ *   <li>{@code @AllArgsConstructor} - Generates a constructor with all fields.</li>
+ *   <li>{@code @NoArgsConstructor} - Generates a no-argument constructor.</li>
+ * </ul>
+ *
+ * @author Alfredo Sobrados González
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class MonthOccupancy {
+    /**
+     * The type of the rooms.
+     */
+    public RoomType room_type;
+
+    /**
+     * The month, in {@code yyyy-MM} format.
+     */
+    public String month;
+
+    /**
+     * The booked days of each room with at least one booked night in the month, as a bitmap where bit
+     * {@code n} is set when day {@code n + 1} of the month is booked.
+     */
+    public Map<Long, Integer> booked_days;
+}
@@ -47,4 +47,23 @@ public class Payment {
      * The method used for the payment (CARD, CASH, TRANSFER).
      */
     public MethodPayment method;
+
+    /**
+     * The version of the payment row, increased on every update and used to detect concurrent modifications.
+     * When a client sends it in an update, the update is rejected if the payment has changed since.
+     */
+    public Long version;
+
+    /**
+     * Constructs a payment whose version is not known yet.
+     *
+     * @param id the unique identifier for the payment
+     * @param reservation_id the ID of the reservation associated with this payment
+     * @param amount the total amount of the payment
+     * @param payment_date the date when the payment was made
+     * @param method the method used for the payment
+     */
+    public Payment(long id, long reservation_id, BigDecimal amount, LocalDate payment_date, MethodPayment method) {
+        this(id, reservation_id, amount, payment_date, method, null);
+    }
 }
\ No newline at end of file
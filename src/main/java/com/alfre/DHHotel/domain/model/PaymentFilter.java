@@ -0,0 +1,37 @@
+package com.alfre.DHHotel.domain.model;
+
+import java.time.LocalDate;
+
+/**
+ * Criteria of the payment list and of the payment export. Every criterion is optional: a {@code null} one matches
+ * every payment.
+ *
+ * @param reservation_id the ID of the reservation paid
+ * @param method the payment method
+ * @param from the earliest payment date, included
+ * @param to the latest payment date, included
+ *
+ * @author Alfredo Sobrados González
+ */
+public record PaymentFilter(
+        Long reservation_id,
+        MethodPayment method,
+        LocalDate from,
+        LocalDate to
+) {
+    /**
+     * Checks the date range.
+     *
+     * @throws IllegalArgumentException if the range ends before it starts
+     */
+    public PaymentFilter {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("La fecha final no puede ser anterior a la fecha inicial");
+        }
+    }
+
+    /**
+     * Criteria that match every payment.
+     */
+    public static final PaymentFilter NONE = new PaymentFilter(null, null, null, null);
+}
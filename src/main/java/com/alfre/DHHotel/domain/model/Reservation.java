@@ -57,4 +57,48 @@ public class Reservation {
      * The current status of the reservation (e.g., CONFIRMED, PENDING, CANCELED).
      */
     public ReservationStatus status;
+
+    /**
+     * The version of the reservation row, increased on every update and used to detect concurrent modifications.
+     * When a client sends it in an update, the update is rejected if the reservation has changed since.
+     */
+    public Long version;
+
+    /**
+     * The sum of the payments of the reservation, kept by the payment writes in the same transaction as each payment.
+     */
+    public BigDecimal paid_total;
+
+    /**
+     * Constructs a reservation whose version is not known yet.
+     *
+     * @param id the unique identifier for the reservation
+     * @param client_id the ID of the client associated with this reservation
+     * @param room_id the ID of the room assigned to this reservation
+     * @param total_price the total price of the reservation
+     * @param start_date the start date of the reservation
+     * @param end_date the end date of the reservation
+     * @param status the current status of the reservation
+     */
+    public Reservation(long id, Long client_id, Long room_id, BigDecimal total_price, LocalDate start_date,
+                       LocalDate end_date, ReservationStatus status) {
+        this(id, client_id, room_id, total_price, start_date, end_date, status, null);
+    }
+
+    /**
+     * Constructs a reservation whose paid total is not known.
+     *
+     * @param id the unique identifier for the reservation
+     * @param client_id the ID of the client associated with this reservation
+     * @param room_id the ID of the room assigned to this reservation
+     * @param total_price the total price of the reservation
+     * @param start_date the start date of the reservation
+     * @param end_date the end date of the reservation
+     * @param status the current status of the reservation
+     * @param version the version of the reservation row
+     */
+    public Reservation(long id, Long client_id, Long room_id, BigDecimal total_price, LocalDate start_date,
+                       LocalDate end_date, ReservationStatus status, Long version) {
+        this(id, client_id, room_id, total_price, start_date, end_date, status, version, null);
+    }
 }
\ No newline at end of file
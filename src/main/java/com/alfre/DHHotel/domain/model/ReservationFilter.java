@@ -0,0 +1,39 @@
+package com.alfre.DHHotel.domain.model;
+
+import java.time.LocalDate;
+
+/**
+ * Criteria of the reservation list and of the reservation export. Every criterion is optional: a {@code null} one
+ * matches every reservation.
+ *
+ * @param status the status of the reservations
+ * @param room_id the ID of the room booked
+ * @param client_id the ID of the client that booked
+ * @param from the first day of the stays, which must end on or after it
+ * @param to the last day of the stays, which must start on or before it
+ *
+ * @author Alfredo Sobrados González
+ */
+public record ReservationFilter(
+        ReservationStatus status,
+        Long room_id,
+        Long client_id,
+        LocalDate from,
+        LocalDate to
+) {
+    /**
+     * Checks the date range.
+     *
+     * @throws IllegalArgumentException if the range ends before it starts
+     */
+    public ReservationFilter {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("La fecha final no puede ser anterior a la fecha inicial");
+        }
+    }
+
+    /**
+     * Criteria that match every reservation.
+     */
+    public static final ReservationFilter NONE = new ReservationFilter(null, null, null, null, null);
+}
@@ -0,0 +1,57 @@
+package com.alfre.DHHotel.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Entity class representing a temporary hold of a room.
+ * While a hold is active no one but its owner can book the room for the held dates, so a guest going through the
+ * checkout keeps the room until the hold expires or is converted into a reservation.
+ *
+ * <p>It uses Lombok annotations to reduce boilerplate code:</p>
+ * <ul>
+ *   <li>{@code @Data} - Generates getters, setters, {@code toString()}, {@code equals()}, and {@code hashCode()} methods.</li>
+ *   <li>{@code @AllArgsConstructor} - Generates a constructor with all fields.</li>
+ *   <li>{@code @NoArgsConstructor} - Generates a no-argument constructor.</li>
+ * </ul>
+ *
+ * @author Alfredo Sobrados González
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class RoomHold {
+    /**
+     * The unique identifier for the hold.
+     */
+    public String id;
+
+    /**
+     * The ID of the held room.
+     */
+    public long room_id;
+
+    /**
+     * The check-in date of the held stay.
+     */
+    public LocalDate start_date;
+
+    /**
+     * The check-out date of the held stay.
+     */
+    public LocalDate end_date;
+
+    /**
+     * The ID of the user that owns the hold.
+     */
+    public long user_id;
+
+    /**
+     * The instant at which the hold expires.
+     */
+    public Instant expires_at;
+}
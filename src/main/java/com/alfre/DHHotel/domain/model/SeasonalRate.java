@@ -0,0 +1,57 @@
+package com.alfre.DHHotel.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Entity class representing a seasonal rate.
+ * A seasonal rate adjusts the base price per night of the rooms of a type during a period of dates, with an
+ * optional different adjustment for the weekend nights (Friday and Saturday).
+ *
+ * <p>It uses Lombok annotations to reduce boilerplate code:</p>
+ * <ul>
+ *   <li>{@code @Data} - Generates getters, setters, {@code toString()}, {@code equals()}, and {@code hashCode()} methods.</li>
+ *   <li>{@code @AllArgsConstructor} - Generates a constructor with all fields.</li>
+ *   <li>{@code @NoArgsConstructor} - Generates a no-argument constructor.</li>
+ * </ul>
+ *
+ * @author Alfredo Sobrados González
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class SeasonalRate {
+    /**
+     * The unique identifier for the rate.
+     */
+    public long id;
+
+    /**
+     * The type of room the rate applies to, or {@code null} if it applies to every type.
+     */
+    public RoomType room_type;
+
+    /**
+     * The first night the rate applies to.
+     */
+    public LocalDate start_date;
+
+    /**
+     * The last night the rate applies to, included.
+     */
+    public LocalDate end_date;
+
+    /**
+     * The percentage of the base price charged for the nights of the period (e.g., 120 for 20% more).
+     */
+    public int percentage;
+
+    /**
+     * The percentage charged for the Friday and Saturday nights of the period, or {@code null} to use
+     * {@link #percentage} for them too.
+     */
+    public Integer weekend_percentage;
+}
@@ -22,6 +22,15 @@ public interface AdministratorRepository {
      */
     List<Administrator> getAllAdministrators();
 
+    /**
+     * Retrieves a page of the administrators, ordered by identifier.
+     *
+     * @param afterId the identifier the page starts after, {@code 0} for the first page.
+     * @param limit the maximum number of administrators of the page.
+     * @return up to {@code limit} {@link Administrator} objects with an identifier greater than {@code afterId}.
+     */
+    List<Administrator> getAdministratorsPage(long afterId, int limit);
+
     /**
      * Retrieves an administrator based on the provided user ID.
      *
@@ -1,6 +1,7 @@
 package com.alfre.DHHotel.domain.repository;
 
 import com.alfre.DHHotel.domain.model.Client;
+import com.alfre.DHHotel.domain.model.FieldSet;
 
 import java.util.List;
 import java.util.Optional;
@@ -22,6 +23,16 @@ public interface ClientRepository {
      */
     List<Client> getAllClients();
 
+    /**
+     * Retrieves a page of the clients, ordered by identifier.
+     *
+     * @param afterId the identifier the page starts after, {@code 0} for the first page.
+     * @param limit the maximum number of clients of the page.
+     * @param fields the fields to read; the others are left unset.
+     * @return up to {@code limit} {@link Client} objects with an identifier greater than {@code afterId}.
+     */
+    List<Client> getClientsPage(long afterId, int limit, FieldSet fields);
+
     /**
      * Retrieves a client based on their unique ID.
      *
@@ -0,0 +1,28 @@
+package com.alfre.DHHotel.domain.repository;
+
+import com.alfre.DHHotel.domain.model.DailyRevenue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository interface for reading the daily revenue and occupancy rollups.
+ * The rollups are kept up to date by the writes of reservations and payments, so reading them never adds up the
+ * reservations or the payments themselves.
+ *
+ * <p>This interface should be implemented by a class that interacts with the database.</p>
+ *
+ * @author Alfredo Sobrados González
+ */
+public interface DailyRevenueRepository {
+
+    /**
+     * Retrieves the rollups of the days of a date range, with a single range query.
+     *
+     * @param from the first day of the range.
+     * @param to the last day of the range.
+     * @return the {@link DailyRevenue} rows of the range ordered by day and room type; days and types without
+     *         bookings nor payments may be left out.
+     */
+    List<DailyRevenue> getDailyRevenue(LocalDate from, LocalDate to);
+}
@@ -1,10 +1,13 @@
 package com.alfre.DHHotel.domain.repository;
 
+import com.alfre.DHHotel.domain.model.FieldSet;
 import com.alfre.DHHotel.domain.model.Payment;
+import com.alfre.DHHotel.domain.model.PaymentFilter;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Repository interface for managing payment data.
@@ -23,6 +26,26 @@ public interface PaymentRepository {
      */
     List<Payment> getAllPayments();
 
+    /**
+     * Retrieves a page of the payments that match the given criteria, ordered by identifier.
+     *
+     * @param filter the criteria the payments must match.
+     * @param afterId the identifier the page starts after, {@code 0} for the first page.
+     * @param limit the maximum number of payments of the page.
+     * @param fields the fields to read; the others are left unset.
+     * @return up to {@code limit} {@link Payment} objects with an identifier greater than {@code afterId}.
+     */
+    List<Payment> getPaymentsPage(PaymentFilter filter, long afterId, int limit, FieldSet fields);
+
+    /**
+     * Reads every payment that matches the given criteria, ordered by identifier, without holding them all in
+     * memory: each payment is handed to the action as soon as it is read.
+     *
+     * @param filter the criteria the payments must match.
+     * @param action the action run on every payment.
+     */
+    void streamPayments(PaymentFilter filter, Consumer<Payment> action);
+
     /**
      * Retrieves a payment based on its unique ID.
      *
@@ -47,6 +70,14 @@ public interface PaymentRepository {
      */
     long createPayment(Payment payment);
 
+    /**
+     * Creates several payments at once, adding their amounts to the paid total of their reservations.
+     *
+     * @param payments the {@link Payment} objects to be added; their identifiers are set once they are created.
+     * @return the generated unique identifiers, in the same order as the payments.
+     */
+    List<Long> createPayments(List<Payment> payments);
+
     /**
      * Updates the details of an existing payment.
      *
@@ -1,10 +1,17 @@
 package com.alfre.DHHotel.domain.repository;
 
+import com.alfre.DHHotel.domain.model.FieldSet;
 import com.alfre.DHHotel.domain.model.Reservation;
+import com.alfre.DHHotel.domain.model.ReservationFilter;
+import com.alfre.DHHotel.domain.model.RoomType;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Repository interface for managing reservation data.
@@ -23,6 +30,26 @@ public interface ReservationRepository {
      */
     List<Reservation> getAllReservations();
 
+    /**
+     * Retrieves a page of the reservations that match the given criteria, ordered by identifier.
+     *
+     * @param filter the criteria the reservations must match.
+     * @param afterId the identifier the page starts after, {@code 0} for the first page.
+     * @param limit the maximum number of reservations of the page.
+     * @param fields the fields to read; the others are left unset.
+     * @return up to {@code limit} {@link Reservation} objects with an identifier greater than {@code afterId}.
+     */
+    List<Reservation> getReservationsPage(ReservationFilter filter, long afterId, int limit, FieldSet fields);
+
+    /**
+     * Reads every reservation that matches the given criteria, ordered by identifier, without holding them all in
+     * memory: each reservation is handed to the action as soon as it is read.
+     *
+     * @param filter the criteria the reservations must match.
+     * @param action the action run on every reservation.
+     */
+    void streamReservations(ReservationFilter filter, Consumer<Reservation> action);
+
     /**
      * Retrieves a reservation based on its unique ID.
      *
@@ -39,6 +66,52 @@ public interface ReservationRepository {
      */
     List<Reservation> getReservationsByClientId(Long clientId);
 
+    /**
+     * Retrieves the reservations with the given identifiers, with a single query.
+     *
+     * @param ids the unique identifiers of the reservations.
+     * @return the {@link Reservation} objects found, in no particular order; identifiers without a reservation are
+     *         left out.
+     */
+    List<Reservation> getReservationsByIds(Collection<Long> ids);
+
+    /**
+     * Retrieves several reservations and locks their rows until the end of the current transaction, so their paid
+     * total cannot change until then. The rows are locked in identifier order so concurrent payments cannot
+     * deadlock each other.
+     *
+     * @param ids the unique identifiers of the reservations to lock.
+     * @return the locked reservations, ordered by identifier; identifiers without a reservation are left out.
+     */
+    List<Reservation> lockReservations(Collection<Long> ids);
+
+    /**
+     * Retrieves the non-canceled reservations that occupy a room on some day of a date range, with a single query.
+     *
+     * @param startDate the first day of the range.
+     * @param endDate the last day of the range.
+     * @return a list of {@link Reservation} objects ordered by room and start date.
+     */
+    List<Reservation> getReservationsBetween(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Retrieves the booked nights of the rooms of a type within a date range, with a single query.
+     *
+     * @param type the room type.
+     * @param startDate the first day of the range.
+     * @param endDate the last day of the range.
+     * @return the booked nights within the range by room ID; rooms without booked nights are left out.
+     */
+    Map<Long, List<LocalDate>> getBookedNights(RoomType type, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Retrieves the months a room has at least one booked night in.
+     *
+     * @param roomId the ID of the room.
+     * @return the months with booked nights of the room, in chronological order.
+     */
+    List<YearMonth> getBookedMonths(long roomId);
+
     /**
      * Creates a new reservation in the system.
      *
@@ -47,6 +120,32 @@ public interface ReservationRepository {
      */
     long createReservation(Reservation newReservation);
 
+    /**
+     * Creates several reservations at once. Either every reservation is created or none is.
+     *
+     * @param newReservations the {@link Reservation} objects to be added.
+     * @return the generated unique identifiers, in the same order as the reservations.
+     */
+    List<Long> createReservations(List<Reservation> newReservations);
+
+    /**
+     * Confirms, with a single update, the pending reservations among the given ones whose paid total has reached
+     * their price.
+     *
+     * @param ids the unique identifiers of the reservations to check.
+     * @return the number of reservations confirmed.
+     */
+    int confirmPaidReservations(Collection<Long> ids);
+
+    /**
+     * Sets back to pending, with a single update, the confirmed reservations among the given ones whose paid total
+     * has fallen below their price.
+     *
+     * @param ids the unique identifiers of the reservations to check.
+     * @return the number of reservations set back to pending.
+     */
+    int reopenUnpaidReservations(Collection<Long> ids);
+
     /**
      * Updates the details of an existing reservation.
      *
@@ -65,6 +164,16 @@ public interface ReservationRepository {
      */
     boolean isRoomAvailable(Long roomId, LocalDate startDate, LocalDate endDate);
 
+    /**
+     * Finds which of the given rooms are already booked on some day of a date range, with a single query.
+     *
+     * @param roomIds the unique identifiers of the rooms to check.
+     * @param startDate the start date of the reservation.
+     * @param endDate the end date of the reservation.
+     * @return the identifiers of the rooms that are not available, in ascending order.
+     */
+    List<Long> getUnavailableRoomIds(Collection<Long> roomIds, LocalDate startDate, LocalDate endDate);
+
     /**
      * Deletes all reservation records from the system.
      * <p><b>Warning:</b> This action is irreversible.</p>
@@ -4,7 +4,11 @@ import com.alfre.DHHotel.domain.model.Room;
 import com.alfre.DHHotel.domain.model.RoomStatus;
 import com.alfre.DHHotel.domain.model.RoomType;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -24,6 +28,17 @@ public interface RoomRepository {
      */
     List<Room> getAllRooms();
 
+    /**
+     * Retrieves a page of the rooms of the given type and status, ordered by identifier.
+     *
+     * @param type the type of the rooms, or {@code null} for every type.
+     * @param status the status of the rooms, or {@code null} for every status.
+     * @param afterId the identifier the page starts after, {@code 0} for the first page.
+     * @param limit the maximum number of rooms of the page.
+     * @return up to {@code limit} {@link Room} objects with an identifier greater than {@code afterId}.
+     */
+    List<Room> getRoomsPage(RoomType type, RoomStatus status, long afterId, int limit);
+
     /**
      * Retrieves a room based on its unique ID.
      *
@@ -32,6 +47,31 @@ public interface RoomRepository {
      */
     Optional<Room> getRoomById(long id);
 
+    /**
+     * Locks the row of a room until the end of the current transaction, so concurrent bookings of the same room
+     * are serialized by the database. Does nothing if the room does not exist.
+     *
+     * @param id the unique identifier of the room to lock.
+     */
+    void lockRoom(long id);
+
+    /**
+     * Retrieves several rooms with a single query.
+     *
+     * @param ids the unique identifiers of the rooms.
+     * @return the rooms found, ordered by identifier; missing identifiers are skipped.
+     */
+    List<Room> getRoomsByIds(Collection<Long> ids);
+
+    /**
+     * Retrieves several rooms and locks their rows until the end of the current transaction. The rows are locked
+     * in identifier order so concurrent group bookings cannot deadlock each other.
+     *
+     * @param ids the unique identifiers of the rooms to lock.
+     * @return the locked rooms, ordered by identifier; missing identifiers are skipped.
+     */
+    List<Room> lockRooms(Collection<Long> ids);
+
     /**
      * Creates a new room in the system.
      *
@@ -40,6 +80,14 @@ public interface RoomRepository {
      */
     long createRoom(Room newRoom);
 
+    /**
+     * Creates several rooms at once. Either every room is created or none is.
+     *
+     * @param newRooms the {@link Room} objects to be added; their identifiers are set once they are created.
+     * @return the generated unique identifiers, in the same order as the rooms.
+     */
+    List<Long> createRooms(List<Room> newRooms);
+
     /**
      * Updates the details of an existing room.
      *
@@ -72,6 +120,20 @@ public interface RoomRepository {
      */
     List<Room> getAvailableRooms();
 
+    /**
+     * Retrieves the rooms that can be booked for a whole date range, i.e. rooms not under maintenance and without
+     * any non-canceled reservation overlapping the range, optionally filtered by type and price band.
+     *
+     * @param startDate the check-in date of the stay.
+     * @param endDate the check-out date of the stay.
+     * @param type the room type to filter by, or {@code null} for any type.
+     * @param minPrice the minimum price per night, or {@code null} for no lower bound.
+     * @param maxPrice the maximum price per night, or {@code null} for no upper bound.
+     * @return a list of {@link Room} objects free for the whole range, cheapest first.
+     */
+    List<Room> searchAvailableRooms(LocalDate startDate, LocalDate endDate, RoomType type, BigDecimal minPrice,
+                                    BigDecimal maxPrice);
+
     /**
      * Updates the status of a room (e.g., AVAILABLE, OCCUPIED, MAINTENANCE).
      *
@@ -81,6 +143,14 @@ public interface RoomRepository {
      */
     int updateStatus(long id, RoomStatus status);
 
+    /**
+     * Updates the status of several rooms at once.
+     *
+     * @param statuses the new status of each room, by room identifier.
+     * @return the number of rows affected in the database.
+     */
+    int updateStatuses(Map<Long, RoomStatus> statuses);
+
     /**
      * Retrieves a list of rooms that are currently under maintenance.
      *
@@ -0,0 +1,39 @@
+package com.alfre.DHHotel.domain.repository;
+
+import com.alfre.DHHotel.domain.model.SeasonalRate;
+
+import java.util.List;
+
+/**
+ * Repository interface for managing seasonal rate data.
+ * Defines the operations needed to maintain the rate calendar.
+ *
+ * <p>This interface should be implemented by a class that interacts with the database.</p>
+ *
+ * @author Alfredo Sobrados González
+ */
+public interface SeasonalRateRepository {
+
+    /**
+     * Retrieves all seasonal rates, in creation order.
+     *
+     * @return a list of {@link SeasonalRate} objects.
+     */
+    List<SeasonalRate> getAllRates();
+
+    /**
+     * Creates a new seasonal rate.
+     *
+     * @param newRate the {@link SeasonalRate} object to be added.
+     * @return the generated unique identifier of the newly created rate.
+     */
+    long createRate(SeasonalRate newRate);
+
+    /**
+     * Deletes a seasonal rate.
+     *
+     * @param id the unique identifier of the rate.
+     * @return the number of rows affected in the database.
+     */
+    int deleteRate(long id);
+}
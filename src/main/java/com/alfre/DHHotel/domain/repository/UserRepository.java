@@ -30,6 +30,15 @@ public interface UserRepository {
      */
     Optional<User> getUserByEmail(String email);
 
+    /**
+     * Retrieves a user based on their email without the password hash, for requests already authenticated by a
+     * token, which only need the identity and the role.
+     *
+     * @param email the email of the user.
+     * @return an {@code Optional} containing the user, with a {@code null} password, if found, otherwise empty.
+     */
+    Optional<User> getPrincipalByEmail(String email);
+
     /**
      * Creates a new user in the system.
      *
@@ -40,6 +49,7 @@ public interface UserRepository {
 
     /**
      * Updates the details of an existing user.
+     * A user read without its password, such as a principal, keeps the stored one.
      *
      * @param user the user object containing updated information.
      */
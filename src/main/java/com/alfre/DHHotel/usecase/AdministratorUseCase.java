@@ -42,6 +42,17 @@ public class AdministratorUseCase {
         return administratorRepository.getAllAdministrators();
     }
 
+    /**
+     * Retrieves a page of the administrators, ordered by ID.
+     *
+     * @param afterId the ID the page starts after, 0 for the first page.
+     * @param limit the maximum number of administrators of the page.
+     * @return a list of up to {@code limit} {@link Administrator} objects.
+     */
+    public List<Administrator> getAdministratorsPage(long afterId, int limit) {
+        return administratorRepository.getAdministratorsPage(afterId, limit);
+    }
+
     /**
      * Retrieves an administrator by their associated user ID.
      *
@@ -3,6 +3,7 @@ package com.alfre.DHHotel.usecase;
 import com.alfre.DHHotel.adapter.web.dto.ClientDTO;
 import com.alfre.DHHotel.adapter.web.dto.UpdateProfileRequest;
 import com.alfre.DHHotel.domain.model.Client;
+import com.alfre.DHHotel.domain.model.FieldSet;
 import com.alfre.DHHotel.domain.model.User;
 import com.alfre.DHHotel.domain.repository.ClientRepository;
 import com.alfre.DHHotel.domain.repository.UserRepository;
@@ -39,6 +40,18 @@ public class ClientUseCase {
         return clientRepository.getAllClients();
     }
 
+    /**
+     * Retrieves a page of the clients, ordered by ID.
+     *
+     * @param afterId the ID the page starts after, 0 for the first page.
+     * @param limit the maximum number of clients of the page.
+     * @param fields the fields to read.
+     * @return a {@link List} of up to {@code limit} {@link Client} objects.
+     */
+    public List<Client> getClientsPage(long afterId, int limit, FieldSet fields) {
+        return clientRepository.getClientsPage(afterId, limit, fields);
+    }
+
     /**
      * Retrieves a client by its ID.
      *
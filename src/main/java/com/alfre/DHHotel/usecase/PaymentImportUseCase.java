@@ -0,0 +1,201 @@
+package com.alfre.DHHotel.usecase;
+
+import com.alfre.DHHotel.adapter.web.dto.PaymentImportResultDTO;
+import com.alfre.DHHotel.adapter.web.dto.PaymentImportRow;
+import com.alfre.DHHotel.domain.model.MethodPayment;
+import com.alfre.DHHotel.domain.model.Payment;
+import com.alfre.DHHotel.domain.model.Reservation;
+import com.alfre.DHHotel.domain.model.ReservationStatus;
+import com.alfre.DHHotel.domain.repository.PaymentRepository;
+import com.alfre.DHHotel.domain.repository.ReservationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service class that records the payments of a card processor settlement file, which may hold thousands of lines.
+ * <p>
+ * The lines are validated as they are read and the valid ones are handled in chunks, so the whole file is never
+ * held in memory: the reservations of a chunk are read and locked with a single query, its payments are inserted
+ * with a single batch, and the reservations they complete are confirmed with a single update. Each chunk is
+ * committed on its own: when the import fails halfway, the chunks recorded so far are kept.
+ * </p>
+ * <p>
+ * A line is not recorded when its reservation does not exist or is canceled, or when its amount exceeds what was
+ * left to pay of the reservation, counting the earlier lines of the file; those lines are listed in the report, to
+ * be reconciled by hand.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Service
+public class PaymentImportUseCase {
+    /**
+     * Most lines of each kind listed in the report; further lines are only counted.
+     */
+    static final int MAX_REPORTED_LINES = 1000;
+
+    private final PaymentRepository paymentRepository;
+    private final ReservationRepository reservationRepository;
+    private final TransactionOperations transactions;
+    private final int chunkSize;
+
+    /**
+     * Constructs a PaymentImportUseCase with the configured chunk size.
+     *
+     * @param paymentRepository The repository handling payment persistence operations.
+     * @param reservationRepository The repository handling reservation persistence operations.
+     * @param transactions The transactions each chunk is recorded in.
+     * @param chunkSize The number of lines handled by each query and batch.
+     */
+    public PaymentImportUseCase(PaymentRepository paymentRepository, ReservationRepository reservationRepository,
+                                TransactionOperations transactions,
+                                @Value("${payments.import.chunk-size:500}") int chunkSize) {
+        if (chunkSize <= 0 || chunkSize > 1000) {
+            throw new IllegalArgumentException("El tamaño del bloque de importación debe estar entre 1 y 1000");
+        }
+        this.paymentRepository = paymentRepository;
+        this.reservationRepository = reservationRepository;
+        this.transactions = transactions;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Records the payments of the given rows. A row is rejected when it could not be read or when its payment is
+     * not valid; payments without method are recorded as {@link MethodPayment#CARD}.
+     *
+     * @param rows The rows of the settlement file, read lazily.
+     * @return The reconciliation report of the import.
+     */
+    public PaymentImportResultDTO importPayments(Iterator<PaymentImportRow> rows) {
+        PaymentImportResultDTO result = new PaymentImportResultDTO();
+        List<PaymentImportRow> chunk = new ArrayList<>(chunkSize);
+        while (rows.hasNext()) {
+            PaymentImportRow row = rows.next();
+            String error = row.error != null ? row.error : validate(row.payment);
+            if (error != null) {
+                reject(result, row.line, error);
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                recordChunk(chunk, result);
+            }
+        }
+        recordChunk(chunk, result);
+        return result;
+    }
+
+    /**
+     * Matches the rows of a chunk with their reservations, records the payments that fit in a single transaction
+     * and empties the chunk. The reservations of the chunk are locked while it is recorded, so a payment registered
+     * or another import running at the same time cannot change their paid total between the check and the insert.
+     */
+    private void recordChunk(List<PaymentImportRow> chunk, PaymentImportResultDTO result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        transactions.executeWithoutResult(status -> {
+            Set<Long> ids = new LinkedHashSet<>();
+            chunk.forEach(row -> ids.add(row.payment.reservation_id));
+            Map<Long, Reservation> reservations = new HashMap<>();
+            reservationRepository.lockReservations(ids).forEach(reservation ->
+                    reservations.put(reservation.id, reservation));
+
+            Map<Long, BigDecimal> paidTotals = new HashMap<>();
+            List<Payment> payments = new ArrayList<>(chunk.size());
+            for (PaymentImportRow row : chunk) {
+                Reservation reservation = reservations.get(row.payment.reservation_id);
+                if (reservation == null) {
+                    unmatched(result, row, "La reserva no existe");
+                } else if (reservation.status == ReservationStatus.CANCELED) {
+                    unmatched(result, row, "La reserva está cancelada");
+                } else {
+                    BigDecimal paidTotal = paidTotals.getOrDefault(reservation.id, reservation.paid_total);
+                    BigDecimal newPaidTotal = paidTotal.add(row.payment.amount);
+                    if (newPaidTotal.compareTo(reservation.total_price) > 0) {
+                        overpaid(result, row, "El pago excede el monto pendiente de " +
+                                reservation.total_price.subtract(paidTotal));
+                    } else {
+                        paidTotals.put(reservation.id, newPaidTotal);
+                        payments.add(row.payment);
+                    }
+                }
+            }
+
+            if (payments.isEmpty()) {
+                return;
+            }
+            paymentRepository.createPayments(payments);
+            result.imported += payments.size();
+            List<Long> completed = paidTotals.entrySet().stream()
+                    .filter(paid -> {
+                        Reservation reservation = reservations.get(paid.getKey());
+                        return reservation.status == ReservationStatus.PENDING
+                                && paid.getValue().compareTo(reservation.total_price) >= 0;
+                    })
+                    .map(Map.Entry::getKey)
+                    .toList();
+            if (!completed.isEmpty()) {
+                result.confirmed += reservationRepository.confirmPaidReservations(completed);
+            }
+        });
+        chunk.clear();
+    }
+
+    /**
+     * Checks a payment of the import, filling in the default method.
+     *
+     * @return The reason why the payment cannot be recorded, or {@code null} if it can.
+     */
+    private static String validate(Payment payment) {
+        if (payment.reservation_id <= 0) {
+            return "Hay que indicar la reserva del pago";
+        }
+        if (payment.amount == null || payment.amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return "El importe debe ser mayor que 0";
+        }
+        if (payment.payment_date == null) {
+            return "Hay que indicar la fecha del pago";
+        }
+        if (payment.method == null) {
+            payment.method = MethodPayment.CARD;
+        }
+        return null;
+    }
+
+    private static void reject(PaymentImportResultDTO result, long line, String message) {
+        result.rejected++;
+        if (result.errors.size() < MAX_REPORTED_LINES) {
+            result.errors.add(new PaymentImportResultDTO.RowError(line, message));
+        }
+    }
+
+    private static void unmatched(PaymentImportResultDTO result, PaymentImportRow row, String message) {
+        result.unmatched++;
+        if (result.unmatchedLines.size() < MAX_REPORTED_LINES) {
+            result.unmatchedLines.add(settlementLine(row, message));
+        }
+    }
+
+    private static void overpaid(PaymentImportResultDTO result, PaymentImportRow row, String message) {
+        result.overpaid++;
+        if (result.overpaidLines.size() < MAX_REPORTED_LINES) {
+            result.overpaidLines.add(settlementLine(row, message));
+        }
+    }
+
+    private static PaymentImportResultDTO.SettlementLine settlementLine(PaymentImportRow row, String message) {
+        return new PaymentImportResultDTO.SettlementLine(row.line, row.payment.reservation_id, row.payment.amount,
+                message);
+    }
+}
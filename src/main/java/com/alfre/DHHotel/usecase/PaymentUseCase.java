@@ -1,15 +1,20 @@
 package com.alfre.DHHotel.usecase;
 
+import com.alfre.DHHotel.domain.model.FieldSet;
 import com.alfre.DHHotel.domain.model.Payment;
+import com.alfre.DHHotel.domain.model.PaymentFilter;
 import com.alfre.DHHotel.domain.model.Reservation;
 import com.alfre.DHHotel.domain.model.ReservationStatus;
 import com.alfre.DHHotel.domain.repository.PaymentRepository;
 import com.alfre.DHHotel.domain.repository.ReservationRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Service class that handles business logic for payment-related operations.
@@ -24,6 +29,11 @@ import java.util.Optional;
  */
 @Service
 public class PaymentUseCase {
+    private static final String PAYMENT_CONFLICT =
+            "El pago ha sido modificado por otra petición. Vuelve a consultarlo antes de modificarlo.";
+    private static final String RESERVATION_CONFLICT =
+            "La reserva ha sido modificada por otra petición. Vuelve a consultarla antes de modificarla.";
+
     private final PaymentRepository paymentRepository;
     private final ReservationRepository reservationRepository;
 
@@ -47,6 +57,30 @@ public class PaymentUseCase {
         return paymentRepository.getAllPayments();
     }
 
+    /**
+     * Retrieves a page of the payments that match the given criteria, ordered by ID.
+     *
+     * @param filter the criteria the payments must match.
+     * @param afterId the ID the page starts after, 0 for the first page.
+     * @param limit the maximum number of payments of the page.
+     * @param fields the fields to read.
+     * @return a {@link List} of up to {@code limit} {@link Payment} objects.
+     */
+    public List<Payment> getPaymentsPage(PaymentFilter filter, long afterId, int limit, FieldSet fields) {
+        return paymentRepository.getPaymentsPage(filter, afterId, limit, fields);
+    }
+
+    /**
+     * Hands every payment that matches the given criteria to the given action, ordered by ID, as it is read from
+     * the database. Used by the exports, which must not hold the whole table in memory.
+     *
+     * @param filter the criteria the payments must match.
+     * @param action the action run on every payment.
+     */
+    public void exportPayments(PaymentFilter filter, Consumer<Payment> action) {
+        paymentRepository.streamPayments(filter, action);
+    }
+
     /**
      * Retrieves a payment by its ID.
      *
@@ -71,20 +105,26 @@ public class PaymentUseCase {
      * Updates a payment record.
      * <p>
      * This method validates and updates the payment details. It also recalculates
-     * the status of the associated reservation based on the total amount paid.
+     * the status of the associated reservation based on its paid total, which changes with the payment in the same
+     * transaction. The reservation row is locked first, so its paid total cannot change in between.
+     * If the updated details carry a version, the update only goes ahead while the payment still has that version.
+     * On success the new version is written back to the updated details.
      * </p>
      *
      * @param updatedPayment the updated payment details.
      * @param id the ID of the payment to update.
      * @return the number of rows affected in the database.
      * @throws IllegalArgumentException if the payment does not exist.
+     * @throws OptimisticLockingFailureException if the payment was modified concurrently.
      * @throws RuntimeException if the total paid amount exceeds the reservation price.
      */
+    @Transactional
     public int updatePayment(Payment updatedPayment, long id) {
         Payment payment = paymentRepository.getPaymentById(id)
                 .orElseThrow(() -> new IllegalArgumentException("El pago no existe"));
 
-        Reservation reservation = reservationRepository.getReservationById(payment.reservation_id)
+        Reservation reservation = reservationRepository.lockReservations(List.of(payment.reservation_id)).stream()
+                .findFirst()
                 .orElseThrow(() -> new RuntimeException("Reserva asociada al pago no encontrada"));
 
         // Validate that at least one field is being updated
@@ -92,6 +132,12 @@ public class PaymentUseCase {
             throw new RuntimeException("Debes indicar algún campo para actualizar");
         }
 
+        if (updatedPayment.version != null && !updatedPayment.version.equals(payment.version)) {
+            throw new OptimisticLockingFailureException(PAYMENT_CONFLICT);
+        }
+
+        BigDecimal previousAmount = payment.amount;
+
         // Update payment fields if provided
         if (updatedPayment.amount != null) {
             payment.setAmount(updatedPayment.amount);
@@ -105,9 +151,13 @@ public class PaymentUseCase {
 
         // Update payment and reservation if necessary
         int rowsAffected = paymentRepository.updatePayment(payment, id);
+        if (rowsAffected == 0) {
+            throw new OptimisticLockingFailureException(PAYMENT_CONFLICT);
+        }
+        updatedPayment.setVersion(payment.version);
 
         if (updatedPayment.amount != null) {
-            updateReservationStatus(reservation);
+            updateReservationStatus(reservation, reservation.paid_total.subtract(previousAmount).add(payment.amount));
         }
 
         return rowsAffected;
@@ -115,47 +165,62 @@ public class PaymentUseCase {
 
     /**
      * Deletes a payment and updates the status of the associated reservation.
+     * The reservation row is locked first and the amount of the payment is taken out of its paid total in the same
+     * transaction.
      *
      * @param id the ID of the payment to delete.
      * @return the number of rows affected in the database.
      * @throws RuntimeException if the payment or associated reservation is not found.
      */
+    @Transactional
     public int deletePayment(Long id) {
         Payment payment = paymentRepository.getPaymentById(id)
                 .orElseThrow(() -> new RuntimeException("Pago no encontrado"));
 
-        Reservation reservation = reservationRepository.getReservationById(payment.reservation_id)
+        Reservation reservation = reservationRepository.lockReservations(List.of(payment.reservation_id)).stream()
+                .findFirst()
                 .orElseThrow(() -> new RuntimeException("Reserva asociada al pago no encontrada"));
 
         int rowsAffected = paymentRepository.deletePayment(id);
 
         // Recalculate reservation status after payment deletion
-        updateReservationStatus(reservation);
+        updateReservationStatus(reservation, reservation.paid_total.subtract(payment.amount));
 
         return rowsAffected;
     }
 
     /**
-     * Updates the status of a reservation based on the total amount paid.
+     * Updates the status of a reservation based on the total amount paid. The status is changed with a conditional
+     * update that only applies while the paid total in the database agrees with it; canceled reservations keep
+     * their status.
      *
-     * @param reservation the reservation whose status needs to be updated.
+     * @param reservation the locked reservation whose status needs to be updated.
+     * @param paidTotal the paid total of the reservation after the payment change.
      * @throws RuntimeException if the total paid amount exceeds the reservation price.
+     * @throws OptimisticLockingFailureException if the status could not be changed.
      */
-    private void updateReservationStatus(Reservation reservation) {
-        BigDecimal paidTotal = paymentRepository.getTotalPaid(reservation.id);
-        ReservationStatus originalStatus = reservation.status;
-
-        if (paidTotal.compareTo(reservation.total_price) < 0) {
-            reservation.setStatus(ReservationStatus.PENDING);
-        } else if (paidTotal.compareTo(reservation.total_price) == 0) {
-            reservation.setStatus(ReservationStatus.CONFIRMED);
-        } else {
+    private void updateReservationStatus(Reservation reservation, BigDecimal paidTotal) {
+        if (paidTotal.compareTo(reservation.total_price) > 0) {
             throw new RuntimeException("El importe del pago excede el precio total de la reserva asociada");
         }
+        reservation.setPaid_total(paidTotal);
+        if (reservation.status == ReservationStatus.CANCELED) {
+            return;
+        }
 
+        ReservationStatus status = paidTotal.compareTo(reservation.total_price) < 0
+                ? ReservationStatus.PENDING
+                : ReservationStatus.CONFIRMED;
         // Update only the status changed
-        if (reservation.status != originalStatus) {
-            reservationRepository.updateReservation(reservation);
+        if (status != reservation.status) {
+            List<Long> ids = List.of(reservation.id);
+            int rowsAffected = status == ReservationStatus.CONFIRMED
+                    ? reservationRepository.confirmPaidReservations(ids)
+                    : reservationRepository.reopenUnpaidReservations(ids);
+            if (rowsAffected == 0) {
+                throw new OptimisticLockingFailureException(RESERVATION_CONFLICT);
+            }
+            reservation.setStatus(status);
         }
     }
 }
@@ -0,0 +1,203 @@
+package com.alfre.DHHotel.usecase;
+
+import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.domain.model.SeasonalRate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Precomputed calendar of the nightly rates, used to quote the price of a stay without walking it night by night.
+ * <p>
+ * Every night is charged a percentage of the base price of the room: 100 on weekdays, the configured weekend
+ * percentage on Friday and Saturday nights, or the percentage of the last {@link SeasonalRate} covering the night.
+ * Rates for a room type win over rates for every type. When the rates change the percentages of every night of a
+ * window around today are expanded, per room type, into running sums kept in primitive arrays, so the sum of the
+ * percentages of any stay inside the window is a single subtraction and the price of the stay is one multiplication
+ * of the base price in cents. Stays outside the window are walked night by night.
+ * </p>
+ * <p>
+ * The calendar is immutable between rebuilds: a rebuild publishes a new snapshot that quotes started before it
+ * never see half built.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Component
+public class RateCalendar {
+    /**
+     * Percentage of the base price charged for a night without any rate.
+     */
+    static final int BASE_PERCENTAGE = 100;
+
+    /**
+     * Nights before today kept in the window, so reservations that already started can be priced again.
+     */
+    static final int PAST_DAYS = 31;
+
+    /**
+     * Number of nights covered by the precomputed window.
+     */
+    static final int WINDOW_DAYS = PAST_DAYS + 2 * 366;
+
+    private static final RoomType[] TYPES = RoomType.values();
+
+    private final int weekendPercentage;
+    private volatile Snapshot snapshot;
+
+    /**
+     * The rates and the running sums built from them.
+     *
+     * @param origin the first night of the window
+     * @param rates the rates, in the order they are applied
+     * @param sums for every room type, plus one slot for rooms without type, the sum of the percentages of the
+     *             nights of the window before each index
+     */
+    private record Snapshot(LocalDate origin, List<SeasonalRate> rates, long[][] sums) {
+    }
+
+    /**
+     * Constructs a calendar without seasonal rates and without weekend surcharge.
+     */
+    public RateCalendar() {
+        this(BASE_PERCENTAGE);
+    }
+
+    /**
+     * Constructs a calendar without seasonal rates and with the configured weekend percentage.
+     *
+     * @param weekendPercentage the percentage of the base price charged on Friday and Saturday nights
+     */
+    @Autowired
+    public RateCalendar(@Value("${booking.rates.weekend-percentage:" + BASE_PERCENTAGE + "}") int weekendPercentage) {
+        if (weekendPercentage <= 0) {
+            throw new IllegalArgumentException("El porcentaje de fin de semana debe ser mayor que 0");
+        }
+        this.weekendPercentage = weekendPercentage;
+        rebuild(List.of());
+    }
+
+    /**
+     * Replaces the seasonal rates of the calendar, centering the window on today.
+     *
+     * @param rates the seasonal rates
+     */
+    public void rebuild(List<SeasonalRate> rates) {
+        rebuild(rates, LocalDate.now().minusDays(PAST_DAYS));
+    }
+
+    /**
+     * Replaces the seasonal rates of the calendar.
+     *
+     * @param rates the seasonal rates
+     * @param origin the first night of the precomputed window
+     */
+    void rebuild(List<SeasonalRate> rates, LocalDate origin) {
+        List<SeasonalRate> ordered = rates.stream()
+                .sorted(Comparator.comparing((SeasonalRate rate) -> rate.room_type != null)
+                        .thenComparingLong(rate -> rate.id))
+                .toList();
+
+        int[] defaults = new int[WINDOW_DAYS];
+        for (int day = 0; day < WINDOW_DAYS; day++) {
+            defaults[day] = isWeekendNight(origin.plusDays(day)) ? weekendPercentage : BASE_PERCENTAGE;
+        }
+
+        long[][] sums = new long[TYPES.length + 1][];
+        for (int slot = 0; slot < sums.length; slot++) {
+            RoomType type = slot < TYPES.length ? TYPES[slot] : null;
+            int[] percentages = defaults.clone();
+            for (SeasonalRate rate : ordered) {
+                if (appliesTo(rate, type)) {
+                    apply(rate, origin, percentages);
+                }
+            }
+
+            long[] running = new long[WINDOW_DAYS + 1];
+            for (int day = 0; day < WINDOW_DAYS; day++) {
+                running[day + 1] = running[day] + percentages[day];
+            }
+            sums[slot] = running;
+        }
+
+        snapshot = new Snapshot(origin, ordered, sums);
+    }
+
+    /**
+     * Quotes the price of a stay in a room.
+     *
+     * @param type the type of the room, or {@code null} if it has none
+     * @param pricePerNight the base price per night of the room
+     * @param startDate the check-in date
+     * @param endDate the check-out date, after the check-in date
+     * @return the price of the stay, with two decimals
+     */
+    public BigDecimal quote(RoomType type, BigDecimal pricePerNight, LocalDate startDate, LocalDate endDate) {
+        long baseCents = pricePerNight.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        long totalCents = (Math.multiplyExact(baseCents, sumOfPercentages(type, startDate, endDate)) +
+                BASE_PERCENTAGE / 2) / BASE_PERCENTAGE;
+        return BigDecimal.valueOf(totalCents, 2);
+    }
+
+    /**
+     * Returns the percentage of the base price charged for a night in a room of the given type.
+     *
+     * @param type the type of the room, or {@code null} if it has none
+     * @param night the night
+     * @return the percentage of the base price
+     */
+    public int percentageOn(RoomType type, LocalDate night) {
+        return (int) sumOfPercentages(type, night, night.plusDays(1));
+    }
+
+    private long sumOfPercentages(RoomType type, LocalDate startDate, LocalDate endDate) {
+        Snapshot current = snapshot;
+        long from = ChronoUnit.DAYS.between(current.origin(), startDate);
+        long to = ChronoUnit.DAYS.between(current.origin(), endDate);
+        if (from >= 0 && to <= WINDOW_DAYS) {
+            long[] running = current.sums()[type == null ? TYPES.length : type.ordinal()];
+            return running[(int) to] - running[(int) from];
+        }
+
+        long sum = 0;
+        for (LocalDate night = startDate; night.isBefore(endDate); night = night.plusDays(1)) {
+            int percentage = isWeekendNight(night) ? weekendPercentage : BASE_PERCENTAGE;
+            for (SeasonalRate rate : current.rates()) {
+                if (appliesTo(rate, type) && !night.isBefore(rate.start_date) && !night.isAfter(rate.end_date)) {
+                    percentage = percentageOf(rate, night);
+                }
+            }
+            sum += percentage;
+        }
+        return sum;
+    }
+
+    private static boolean appliesTo(SeasonalRate rate, RoomType type) {
+        return rate.room_type == null || rate.room_type == type;
+    }
+
+    private static void apply(SeasonalRate rate, LocalDate origin, int[] percentages) {
+        long first = Math.max(0, ChronoUnit.DAYS.between(origin, rate.start_date));
+        long last = Math.min(WINDOW_DAYS - 1, ChronoUnit.DAYS.between(origin, rate.end_date));
+        for (long day = first; day <= last; day++) {
+            percentages[(int) day] = percentageOf(rate, origin.plusDays(day));
+        }
+    }
+
+    private static int percentageOf(SeasonalRate rate, LocalDate night) {
+        return rate.weekend_percentage != null && isWeekendNight(night) ? rate.weekend_percentage : rate.percentage;
+    }
+
+    private static boolean isWeekendNight(LocalDate night) {
+        DayOfWeek day = night.getDayOfWeek();
+        return day == DayOfWeek.FRIDAY || day == DayOfWeek.SATURDAY;
+    }
+}
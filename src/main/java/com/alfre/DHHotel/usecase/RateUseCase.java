@@ -0,0 +1,176 @@
+package com.alfre.DHHotel.usecase;
+
+import com.alfre.DHHotel.domain.model.SeasonalRate;
+import com.alfre.DHHotel.domain.repository.SeasonalRateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static com.alfre.DHHotel.config.RedisCacheConfig.RATES_CHANNEL;
+
+/**
+ * Service class that handles the business logic of the seasonal rates.
+ * <p>
+ * Every change to the rates rebuilds the {@link RateCalendar} the booking flow and the room search quote with,
+ * so the new prices apply from the next quote on. The change is broadcast with the identifier of this node, and
+ * every other node that receives it rebuilds its own calendar from the database. Messages sent by this node are
+ * ignored.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Service
+public class RateUseCase {
+    private static final Logger logger = LoggerFactory.getLogger(RateUseCase.class);
+
+    private final SeasonalRateRepository rateRepository;
+    private final RateCalendar rateCalendar;
+    private final Consumer<String> broadcaster;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * Constructs a RateUseCase with the rate repository and the calendar it keeps up to date, without telling
+     * other nodes about the changes.
+     *
+     * @param rateRepository the repository for managing seasonal rates
+     * @param rateCalendar the calendar used to quote stays
+     */
+    public RateUseCase(SeasonalRateRepository rateRepository, RateCalendar rateCalendar) {
+        this(rateRepository, rateCalendar, payload -> { });
+    }
+
+    /**
+     * Constructs a RateUseCase with the rate repository, the calendar it keeps up to date and the channel the
+     * changes are broadcast on.
+     *
+     * @param rateRepository the repository for managing seasonal rates
+     * @param rateCalendar the calendar used to quote stays
+     * @param broadcaster sends a change message to every API node, this one included
+     */
+    public RateUseCase(SeasonalRateRepository rateRepository, RateCalendar rateCalendar,
+                       Consumer<String> broadcaster) {
+        this.rateRepository = rateRepository;
+        this.rateCalendar = rateCalendar;
+        this.broadcaster = broadcaster;
+    }
+
+    /**
+     * Constructs a RateUseCase that broadcasts the changes on the Redis channel of the rates.
+     *
+     * @param rateRepository the repository for managing seasonal rates
+     * @param rateCalendar the calendar used to quote stays
+     * @param redisTemplate the template the change messages are published with
+     */
+    @Autowired
+    public RateUseCase(SeasonalRateRepository rateRepository, RateCalendar rateCalendar,
+                       StringRedisTemplate redisTemplate) {
+        this(rateRepository, rateCalendar, payload -> redisTemplate.convertAndSend(RATES_CHANNEL, payload));
+    }
+
+    /**
+     * Loads the stored rates into the calendar once the application has started.
+     * If the rates cannot be read, stays are quoted with the base prices until the next change to the rates.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRates() {
+        try {
+            reloadCalendar();
+        } catch (DataAccessException e) {
+            logger.warn("No se han podido cargar las tarifas de temporada, se usarán los precios base: {}",
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves all seasonal rates.
+     *
+     * @return a {@link List} of {@link SeasonalRate} objects.
+     */
+    public List<SeasonalRate> getAllRates() {
+        return rateRepository.getAllRates();
+    }
+
+    /**
+     * Creates a new seasonal rate and applies it to the following quotes.
+     *
+     * @param newRate the rate to create.
+     * @return the ID of the newly created rate.
+     * @throws IllegalArgumentException If the dates or the percentages of the rate are not valid.
+     */
+    public long createRate(SeasonalRate newRate) {
+        if (newRate.start_date == null || newRate.end_date == null) {
+            throw new IllegalArgumentException("Hay que indicar las fechas de inicio y fin de la tarifa");
+        }
+        if (newRate.end_date.isBefore(newRate.start_date)) {
+            throw new IllegalArgumentException("La fecha de fin no puede ser anterior a la fecha de inicio");
+        }
+        if (newRate.percentage <= 0 || (newRate.weekend_percentage != null && newRate.weekend_percentage <= 0)) {
+            throw new IllegalArgumentException("El porcentaje de la tarifa debe ser mayor que 0");
+        }
+
+        long id = rateRepository.createRate(newRate);
+        reloadCalendar();
+        publishChange();
+        return id;
+    }
+
+    /**
+     * Deletes a seasonal rate, returning the nights it covered to the base prices.
+     *
+     * @param id the ID of the rate to delete.
+     * @return the number of rows affected.
+     */
+    public int deleteRate(long id) {
+        int rowsAffected = rateRepository.deleteRate(id);
+        if (rowsAffected > 0) {
+            reloadCalendar();
+            publishChange();
+        }
+        return rowsAffected;
+    }
+
+    /**
+     * Rebuilds the calendar when another node changed the rates, unless the change message was sent by this node.
+     * If the rates cannot be read, the calendar keeps the previous rates until the next change.
+     *
+     * @param payload the body of the change message
+     */
+    public void receive(String payload) {
+        if (nodeId.equals(payload)) {
+            return;
+        }
+        try {
+            reloadCalendar();
+        } catch (DataAccessException e) {
+            logger.warn("No se ha podido recargar el calendario de tarifas tras un cambio en otro nodo: {}",
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Tells the other nodes that the rates changed. A failed broadcast does not fail the write: the other nodes
+     * keep their calendar until they receive a later change or restart.
+     */
+    private void publishChange() {
+        try {
+            broadcaster.accept(nodeId);
+        } catch (RuntimeException e) {
+            logger.warn("No se ha podido difundir el cambio de las tarifas de temporada: {}", e.getMessage());
+        }
+    }
+
+    private void reloadCalendar() {
+        List<SeasonalRate> rates = rateRepository.getAllRates();
+        rateCalendar.rebuild(rates);
+        logger.info("Calendario de tarifas reconstruido con {} tarifas de temporada", rates.size());
+    }
+}
@@ -1,7 +1,11 @@
 package com.alfre.DHHotel.usecase;
 
+import com.alfre.DHHotel.adapter.web.dto.GroupReservationRequest;
+import com.alfre.DHHotel.adapter.web.dto.OccupancyCalendarDTO;
 import com.alfre.DHHotel.domain.event.BookingCreatedEvent;
 import com.alfre.DHHotel.domain.event.EventPublisher;
+import com.alfre.DHHotel.domain.event.GroupBookingCreatedEvent;
+import com.alfre.DHHotel.domain.event.RoomChangeEvent;
 import com.alfre.DHHotel.domain.model.*;
 import com.alfre.DHHotel.domain.repository.ClientRepository;
 import com.alfre.DHHotel.domain.repository.PaymentRepository;
@@ -11,7 +15,7 @@ import com.alfre.DHHotel.domain.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,8 +23,16 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Service class handling reservation-related business logic.
@@ -33,29 +45,75 @@ import java.util.Optional;
  */
 @Service
 public class ReservationUseCase {
+    private static final int MAX_GROUP_ROOMS = 100;
+    private static final int MAX_CALENDAR_DAYS = 366;
+    private static final String RESERVATION_CONFLICT =
+            "La reserva ha sido modificada por otra petición. Vuelve a consultarla antes de modificarla.";
+
     private final ReservationRepository reservationRepository;
     private final PaymentRepository paymentRepository;
     private final RoomRepository roomRepository;
     private final ClientRepository clientRepository;
     private final UserRepository userRepository;
     private final EventPublisher eventPublisher;
+    private final RoomBookingLocks roomBookingLocks;
+    private final RateCalendar rateCalendar;
+    private final RoomHolds roomHolds;
+    private final RoomAvailabilityCache availabilityCache;
+    private final RoomChangeBroadcaster roomChanges;
     private static final Logger logger = LoggerFactory.getLogger(ReservationUseCase.class);
 
     @Autowired
     public ReservationUseCase(ReservationRepository reservationRepository, PaymentRepository paymentRepository,
                               RoomRepository roomRepository, ClientRepository clientRepository,
-                              UserRepository userRepository, EventPublisher eventPublisher) {
+                              UserRepository userRepository, EventPublisher eventPublisher,
+                              RoomBookingLocks roomBookingLocks, RateCalendar rateCalendar, RoomHolds roomHolds,
+                              RoomAvailabilityCache availabilityCache, RoomChangeBroadcaster roomChanges) {
         this.reservationRepository = reservationRepository;
         this.paymentRepository = paymentRepository;
         this.roomRepository = roomRepository;
         this.clientRepository = clientRepository;
         this.userRepository = userRepository;
         this.eventPublisher = eventPublisher;
+        this.roomBookingLocks = roomBookingLocks;
+        this.rateCalendar = rateCalendar;
+        this.roomHolds = roomHolds;
+        this.availabilityCache = availabilityCache;
+        this.roomChanges = roomChanges;
+    }
+
+    public ReservationUseCase(ReservationRepository reservationRepository, PaymentRepository paymentRepository,
+                              RoomRepository roomRepository, ClientRepository clientRepository,
+                              UserRepository userRepository, EventPublisher eventPublisher,
+                              RoomBookingLocks roomBookingLocks, RateCalendar rateCalendar, RoomHolds roomHolds,
+                              RoomAvailabilityCache availabilityCache) {
+        this(reservationRepository, paymentRepository, roomRepository, clientRepository, userRepository,
+                eventPublisher, roomBookingLocks, rateCalendar, roomHolds, availabilityCache,
+                new RoomChangeBroadcaster());
+    }
+
+    public ReservationUseCase(ReservationRepository reservationRepository, PaymentRepository paymentRepository,
+                              RoomRepository roomRepository, ClientRepository clientRepository,
+                              UserRepository userRepository, EventPublisher eventPublisher,
+                              RoomBookingLocks roomBookingLocks, RateCalendar rateCalendar, RoomHolds roomHolds) {
+        this(reservationRepository, paymentRepository, roomRepository, clientRepository, userRepository,
+                eventPublisher, roomBookingLocks, rateCalendar, roomHolds,
+                new RoomAvailabilityCache(reservationRepository, roomRepository));
+    }
+
+    public ReservationUseCase(ReservationRepository reservationRepository, PaymentRepository paymentRepository,
+                              RoomRepository roomRepository, ClientRepository clientRepository,
+                              UserRepository userRepository, EventPublisher eventPublisher,
+                              RoomBookingLocks roomBookingLocks, RateCalendar rateCalendar) {
+        this(reservationRepository, paymentRepository, roomRepository, clientRepository, userRepository,
+                eventPublisher, roomBookingLocks, rateCalendar, new RoomHolds());
     }
 
     public ReservationUseCase(ReservationRepository reservationRepository, PaymentRepository paymentRepository,
                               RoomRepository roomRepository, ClientRepository clientRepository) {
-        this(reservationRepository, paymentRepository, roomRepository, clientRepository, null, null);
+        this(reservationRepository, paymentRepository, roomRepository, clientRepository, null, null,
+                new RoomBookingLocks(), new RateCalendar(), new RoomHolds(),
+                new RoomAvailabilityCache(reservationRepository, roomRepository));
     }
 
     /**
@@ -67,6 +125,31 @@ public class ReservationUseCase {
         return reservationRepository.getAllReservations();
     }
 
+    /**
+     * Retrieves a page of the reservations that match the given criteria, ordered by ID.
+     *
+     * @param filter The criteria the reservations must match.
+     * @param afterId The ID the page starts after, 0 for the first page.
+     * @param limit The maximum number of reservations of the page.
+     * @param fields The fields to read.
+     * @return A list of up to {@code limit} reservations.
+     */
+    public List<Reservation> getReservationsPage(ReservationFilter filter, long afterId, int limit,
+                                                 FieldSet fields) {
+        return reservationRepository.getReservationsPage(filter, afterId, limit, fields);
+    }
+
+    /**
+     * Hands every reservation that matches the given criteria to the given action, ordered by ID, as it is read
+     * from the database. Used by the exports, which must not hold the whole table in memory.
+     *
+     * @param filter The criteria the reservations must match.
+     * @param action The action run on every reservation.
+     */
+    public void exportReservations(ReservationFilter filter, Consumer<Reservation> action) {
+        reservationRepository.streamReservations(filter, action);
+    }
+
     /**
      * Retrieves a reservation by its ID.
      *
@@ -89,8 +172,82 @@ public class ReservationUseCase {
         return reservationRepository.getReservationsByClientId(client.id);
     }
 
+    /**
+     * Builds the occupancy calendar of every room over a date window.
+     * <p>
+     * The matrix is computed from the room list and a single range query on the reservations overlapping the
+     * window, so the front desk no longer needs to download every reservation to draw its grid.
+     * </p>
+     *
+     * @param startDate The first day of the window.
+     * @param endDate The last day of the window, included.
+     * @return The rooms × days occupancy matrix.
+     * @throws IllegalArgumentException If the window is missing, reversed or longer than {@value MAX_CALENDAR_DAYS}
+     *                                  days.
+     */
+    public OccupancyCalendarDTO getOccupancyCalendar(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            throw new IllegalArgumentException("Hay que indicar las fechas de inicio y fin del calendario");
+        }
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("La fecha de fin no puede ser anterior a la fecha de inicio");
+        }
+        long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        if (days > MAX_CALENDAR_DAYS) {
+            throw new IllegalArgumentException("El calendario no puede abarcar más de " + MAX_CALENDAR_DAYS +
+                    " días");
+        }
+
+        Map<Long, List<Reservation>> reservationsByRoom = reservationRepository
+                .getReservationsBetween(startDate, endDate).stream()
+                .collect(Collectors.groupingBy(reservation -> reservation.room_id));
+
+        List<OccupancyCalendarDTO.RoomRow> rows = roomRepository.getAllRooms().stream()
+                .sorted(Comparator.comparingInt(room -> room.room_number))
+                .map(room -> buildCalendarRow(room, reservationsByRoom.getOrDefault(room.id, List.of()),
+                        startDate, (int) days))
+                .toList();
+
+        return OccupancyCalendarDTO.builder()
+                .start_date(startDate)
+                .end_date(endDate)
+                .days((int) days)
+                .rooms(rows)
+                .build();
+    }
+
+    private OccupancyCalendarDTO.RoomRow buildCalendarRow(Room room, List<Reservation> reservations,
+                                                          LocalDate startDate, int days) {
+        char[] cells = new char[days];
+        Arrays.fill(cells, OccupancyCalendarDTO.FREE);
+        List<long[]> spans = new ArrayList<>(reservations.size());
+
+        for (Reservation reservation : reservations) {
+            int first = (int) Math.max(0, ChronoUnit.DAYS.between(startDate, reservation.start_date));
+            int last = (int) Math.min(days - 1, ChronoUnit.DAYS.between(startDate, reservation.end_date));
+            char code = reservation.status == ReservationStatus.CONFIRMED
+                    ? OccupancyCalendarDTO.CONFIRMED
+                    : OccupancyCalendarDTO.PENDING;
+            Arrays.fill(cells, first, last + 1, code);
+            spans.add(new long[]{reservation.id, first, last});
+        }
+
+        return OccupancyCalendarDTO.RoomRow.builder()
+                .id(room.id)
+                .room_number(room.room_number)
+                .status(room.status)
+                .cells(new String(cells))
+                .reservations(spans)
+                .build();
+    }
+
     /**
      * Creates a new reservation for a given user.
+     * <p>
+     * Bookings of the same room are serialized: the room stripe of {@link RoomBookingLocks} is held until the
+     * transaction completes and, depending on the concurrency mode, the room row is also locked in the database
+     * before the availability check, so two requests can no longer both pass the check and insert.
+     * </p>
      *
      * @param newReservation The reservation details.
      * @param user The authenticated user making the reservation.
@@ -98,12 +255,104 @@ public class ReservationUseCase {
      * @throws RuntimeException If the room is unavailable, in maintenance, or has invalid dates.
      */
     @Transactional
-    @CacheEvict(value = "room-availability", allEntries = true)
     public long createReservation(Reservation newReservation, User user) {
-        if (!reservationRepository.isRoomAvailable(newReservation.room_id, newReservation.start_date,
-                newReservation.end_date)) {
+        if (newReservation.room_id == null) {
+            return bookRoom(newReservation, user);
+        }
+
+        try (RoomBookingLocks.RoomLock ignored = roomBookingLocks.lock(newReservation.room_id)) {
+            if (roomBookingLocks.getMode() == RoomBookingLocks.Mode.STRIPED_FOR_UPDATE) {
+                roomRepository.lockRoom(newReservation.room_id);
+            }
+            return bookRoom(newReservation, user);
+        }
+    }
+
+    /**
+     * Turns an active room hold of the user into a reservation.
+     * <p>
+     * The room is locked as in {@link #createReservation(Reservation, User)} and the hold is checked again once the
+     * lock is held, so it cannot expire or be taken over halfway. The hold keeps blocking other bookings until the
+     * transaction commits and is released only then; if the booking fails the hold stays active.
+     * </p>
+     *
+     * @param holdId The ID of the hold.
+     * @param user The authenticated user that owns the hold.
+     * @return The generated reservation ID.
+     * @throws AccessDeniedException If the hold belongs to another user.
+     * @throws RuntimeException If the hold does not exist or has expired, or the room cannot be booked.
+     */
+    @Transactional
+    public long createReservationFromHold(String holdId, User user) {
+        RoomHold hold = getActiveHold(holdId, user);
+
+        try (RoomBookingLocks.RoomLock ignored = roomBookingLocks.lock(hold.room_id)) {
+            if (roomBookingLocks.getMode() == RoomBookingLocks.Mode.STRIPED_FOR_UPDATE) {
+                roomRepository.lockRoom(hold.room_id);
+            }
+            hold = getActiveHold(holdId, user);
+
+            Reservation newReservation = new Reservation();
+            newReservation.setRoom_id(hold.room_id);
+            newReservation.setStart_date(hold.start_date);
+            newReservation.setEnd_date(hold.end_date);
+            long reservationId = bookRoom(newReservation, user);
+            roomHolds.releaseAfterCommit(holdId);
+            return reservationId;
+        }
+    }
+
+    /**
+     * Returns an active hold owned by the user.
+     *
+     * @param holdId The ID of the hold.
+     * @param user The authenticated user.
+     * @return The hold.
+     */
+    private RoomHold getActiveHold(String holdId, User user) {
+        RoomHold hold = roomHolds.get(holdId)
+                .orElseThrow(() -> new RuntimeException("La retención no existe o ha caducado."));
+        if (hold.user_id != user.id) {
+            throw new AccessDeniedException("No autorizado");
+        }
+        return hold;
+    }
+
+    /**
+     * Checks that a room can be booked on the given dates, the check shared by every path that books or moves a
+     * reservation once the room has been locked.
+     * <p>
+     * A new booking must not overlap another reservation of the room, and no booking may take dates held by
+     * another user. A moved reservation is not checked against the reservation table, where it would clash with
+     * its own current dates; the room-night ledger rejects an overlap with any other reservation when it is
+     * written, under the same lock.
+     * </p>
+     *
+     * @param roomId The room to book.
+     * @param startDate The check-in date.
+     * @param endDate The check-out date.
+     * @param user The authenticated user making the booking.
+     * @param newBooking Whether the dates belong to a reservation that does not exist yet.
+     */
+    private void checkRoomBookable(Long roomId, LocalDate startDate, LocalDate endDate, User user,
+                                   boolean newBooking) {
+        if (newBooking && !reservationRepository.isRoomAvailable(roomId, startDate, endDate)) {
             throw new RuntimeException("Habitación no disponible en las fechas solicitadas");
         }
+        if (roomHolds.isHeldByOthers(roomId, startDate, endDate, user.id)) {
+            throw new RuntimeException("Habitación retenida por otro cliente en las fechas solicitadas");
+        }
+    }
+
+    /**
+     * Checks availability, prices and inserts a reservation once the room has been locked.
+     *
+     * @param newReservation The reservation details.
+     * @param user The authenticated user making the reservation.
+     * @return The generated reservation ID.
+     */
+    private long bookRoom(Reservation newReservation, User user) {
+        checkRoomBookable(newReservation.room_id, newReservation.start_date, newReservation.end_date, user, true);
 
         BigDecimal totalPrice = calculateTotal(newReservation.start_date, newReservation.end_date, newReservation.room_id);
 
@@ -136,10 +385,163 @@ public class ReservationUseCase {
 
         newReservation.setStatus(ReservationStatus.PENDING);
         long reservationId = reservationRepository.createReservation(newReservation);
+        availabilityChanged(newReservation.room_id, newReservation.start_date, newReservation.end_date);
         publishBookingCreatedEvent(reservationId, newReservation, user, guest, room);
         return reservationId;
     }
 
+    /**
+     * Books several rooms for the same stay in a single transaction.
+     * <p>
+     * The room stripes are locked in stripe order and the rows in ascending room order, then every room is
+     * fetched, checked against the room-night ledger and priced with one query each for the whole group. All
+     * reservations are inserted with one batch and a single group event is published. If any room cannot be
+     * booked, no reservation is created.
+     * </p>
+     *
+     * @param request The rooms and dates to book.
+     * @param user The authenticated user making the reservations.
+     * @return The created reservations, ordered by room ID.
+     * @throws IllegalArgumentException If the request is incomplete or inconsistent.
+     * @throws RuntimeException If any room does not exist, is in maintenance or is not available.
+     */
+    @Transactional
+    public List<Reservation> createGroupReservation(GroupReservationRequest request, User user) {
+        List<Long> roomIds = validateGroupRequest(request);
+        LocalDate startDate = request.getStart_date();
+        LocalDate endDate = request.getEnd_date();
+
+        try (RoomBookingLocks.RoomLock ignored = roomBookingLocks.lockAll(roomIds)) {
+            List<Room> rooms = roomBookingLocks.getMode() == RoomBookingLocks.Mode.STRIPED_FOR_UPDATE
+                    ? roomRepository.lockRooms(roomIds)
+                    : roomRepository.getRoomsByIds(roomIds);
+            if (rooms.size() != roomIds.size()) {
+                List<Long> found = rooms.stream().map(room -> room.id).toList();
+                List<Long> missing = roomIds.stream().filter(id -> !found.contains(id)).toList();
+                throw new RuntimeException("No existen las habitaciones con ID: " + missing);
+            }
+
+            List<Integer> inMaintenance = rooms.stream()
+                    .filter(room -> room.status == RoomStatus.MAINTENANCE)
+                    .map(room -> room.room_number)
+                    .toList();
+            if (!inMaintenance.isEmpty()) {
+                throw new RuntimeException("No se pueden reservar habitaciones en mantenimiento: " + inMaintenance);
+            }
+
+            List<Long> unavailable = reservationRepository.getUnavailableRoomIds(roomIds, startDate, endDate);
+            if (!unavailable.isEmpty()) {
+                List<Integer> roomNumbers = rooms.stream()
+                        .filter(room -> unavailable.contains(room.id))
+                        .map(room -> room.room_number)
+                        .toList();
+                throw new RuntimeException("Habitaciones no disponibles en las fechas solicitadas: " + roomNumbers);
+            }
+
+            Set<Long> held = roomHolds.getRoomsHeldByOthers(roomIds, startDate, endDate, user.id);
+            if (!held.isEmpty()) {
+                List<Integer> roomNumbers = rooms.stream()
+                        .filter(room -> held.contains(room.id))
+                        .map(room -> room.room_number)
+                        .toList();
+                throw new RuntimeException("Habitaciones retenidas por otro cliente en las fechas solicitadas: " +
+                        roomNumbers);
+            }
+
+            Client guest = null;
+            Long clientId = request.getClient_id();
+            if (user.role == Role.CLIENT) {
+                guest = clientRepository.getClientByUserId(user.id)
+                        .orElseThrow(() -> new RuntimeException("Cliente no encontrado en la base de datos."));
+                clientId = guest.id;
+            }
+
+            List<Reservation> reservations = new ArrayList<>(rooms.size());
+            for (Room room : rooms) {
+                if (room.price_per_night == null || room.price_per_night.compareTo(BigDecimal.ZERO) <= 0) {
+                    throw new RuntimeException("Error al calcular el precio total de la reserva de la habitación " +
+                            room.room_number);
+                }
+                reservations.add(new Reservation(0L, clientId, room.id,
+                        rateCalendar.quote(room.type, room.price_per_night, startDate, endDate), startDate, endDate,
+                        ReservationStatus.PENDING));
+            }
+
+            reservationRepository.createReservations(reservations);
+            roomIds.forEach(roomId -> availabilityChanged(roomId, startDate, endDate));
+            publishGroupBookingCreatedEvent(reservations, rooms, user, guest);
+            return reservations;
+        }
+    }
+
+    /**
+     * Validates a group reservation request.
+     *
+     * @param request The rooms and dates to book.
+     * @return The requested room IDs in ascending order.
+     * @throws IllegalArgumentException If the request is incomplete or inconsistent.
+     */
+    private List<Long> validateGroupRequest(GroupReservationRequest request) {
+        if (request.getRoom_ids() == null || request.getRoom_ids().isEmpty()) {
+            throw new IllegalArgumentException("Hay que indicar al menos una habitación");
+        }
+        if (request.getRoom_ids().size() > MAX_GROUP_ROOMS) {
+            throw new IllegalArgumentException("No se pueden reservar más de " + MAX_GROUP_ROOMS +
+                    " habitaciones a la vez");
+        }
+        if (request.getRoom_ids().stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("El ID de la habitación no puede ser null");
+        }
+        if (request.getStart_date() == null || request.getEnd_date() == null) {
+            throw new IllegalArgumentException("Hay que indicar las fechas de entrada y salida");
+        }
+        if (!request.getEnd_date().isAfter(request.getStart_date())) {
+            throw new IllegalArgumentException("La fecha de salida debe ser posterior a la fecha de entrada");
+        }
+
+        List<Long> roomIds = request.getRoom_ids().stream().distinct().sorted().toList();
+        if (roomIds.size() != request.getRoom_ids().size()) {
+            throw new IllegalArgumentException("No se puede reservar la misma habitación dos veces en un grupo");
+        }
+        return roomIds;
+    }
+
+    private void publishGroupBookingCreatedEvent(List<Reservation> reservations, List<Room> rooms, User user,
+                                                 Client guest) {
+        if (eventPublisher == null) {
+            return;
+        }
+
+        Reservation first = reservations.getFirst();
+        try {
+            Client eventGuest = resolveEventGuest(first, guest);
+            eventPublisher.publishGroupBookingCreated(new GroupBookingCreatedEvent(
+                    reservations.stream().map(reservation -> reservation.id).toList(),
+                    resolveGuestEmail(user, eventGuest),
+                    resolveGuestName(eventGuest),
+                    rooms.stream().map(room -> String.valueOf(room.room_number)).toList(),
+                    first.start_date,
+                    first.end_date,
+                    reservations.stream().map(reservation -> reservation.total_price)
+                            .reduce(BigDecimal.ZERO, BigDecimal::add)
+            ));
+        } catch (Exception ex) {
+            logger.error("Error publishing booking.group.created event for reservations {}",
+                    reservations.stream().map(reservation -> reservation.id).toList(), ex);
+        }
+    }
+
+    /**
+     * Evicts the cached availability of the nights of a room that were booked or released, and pushes the change to
+     * the clients following the rooms, both once the current transaction commits.
+     */
+    private void availabilityChanged(Long roomId, LocalDate startDate, LocalDate endDate) {
+        availabilityCache.evictAfterCommit(roomId, startDate, endDate);
+        if (roomId != null && startDate != null && endDate != null) {
+            roomChanges.publish(RoomChangeEvent.availability(roomId, startDate, endDate));
+        }
+    }
+
     private void publishBookingCreatedEvent(long reservationId, Reservation reservation, User user, Client guest,
                                             Room room) {
         if (eventPublisher == null) {
@@ -195,6 +597,7 @@ public class ReservationUseCase {
 
     /**
      * Calculates the total price for a reservation based on the stay duration and room price.
+     * Each night is charged the percentage of the room price given by the {@link RateCalendar}.
      *
      * @param startDate The check-in date.
      * @param endDate The check-out date.
@@ -210,28 +613,34 @@ public class ReservationUseCase {
             return BigDecimal.valueOf(-1.0);
         }
 
-        BigDecimal pricePerNight = roomRepository.getRoomById(roomId)
-                .map(room -> room.price_per_night)
-                .orElse(BigDecimal.ZERO);
+        Room room = roomRepository.getRoomById(roomId).orElse(null);
 
-        if (pricePerNight.compareTo(BigDecimal.ZERO) <= 0) {
+        if (room == null || room.price_per_night == null || room.price_per_night.compareTo(BigDecimal.ZERO) <= 0) {
             return BigDecimal.valueOf(-1.0);
         }
 
-        long nights = ChronoUnit.DAYS.between(startDate, endDate);
-        return pricePerNight.multiply(BigDecimal.valueOf(nights));
+        return rateCalendar.quote(room.type, room.price_per_night, startDate, endDate);
     }
 
     /**
      * Updates an existing reservation.
+     * <p>
+     * If the updated details carry a version, the update only goes ahead while the reservation still has that
+     * version. On success the new version is written back to the updated details.
+     * </p>
+     * <p>
+     * The new room is locked as in {@link #createReservation(Reservation, User)} and the new dates go through the
+     * same availability check as a booking, so a reservation cannot be moved onto dates held by another user.
+     * </p>
      *
      * @param id The reservation ID.
      * @param updatedReservation The updated reservation details.
      * @param user The authenticated user.
      * @return The number of rows affected.
+     * @throws OptimisticLockingFailureException If the reservation was modified concurrently.
      * @throws RuntimeException If the reservation cannot be modified.
      */
-    @CacheEvict(value = "room-availability", allEntries = true)
+    @Transactional
     public int updateReservation(long id, Reservation updatedReservation, User user) {
         Reservation reservation = reservationRepository.getReservationById(id)
                 .orElseThrow(() -> new IllegalArgumentException("La reserva no existe"));
@@ -253,17 +662,43 @@ public class ReservationUseCase {
             throw new RuntimeException("Hay que indicar las fechas de inicio y salida de la reserva");
         }
 
-        reservation.setRoom_id(updatedReservation.room_id);
-        reservation.setStart_date(updatedReservation.start_date);
-        reservation.setEnd_date(updatedReservation.end_date);
+        if (updatedReservation.version != null && !updatedReservation.version.equals(reservation.version)) {
+            throw new OptimisticLockingFailureException(RESERVATION_CONFLICT);
+        }
 
-        BigDecimal totalPrice = calculateTotal(reservation.start_date, reservation.end_date, reservation.room_id);
-        if (totalPrice.compareTo(BigDecimal.valueOf(-1.0)) == 0) {
-            throw new RuntimeException("Fechas de inicio y salida de la reserva erróneas.");
+        if (updatedReservation.room_id == null) {
+            throw new RuntimeException("Hay que indicar la habitación de la reserva");
         }
 
-        reservation.setTotal_price(totalPrice);
-        return reservationRepository.updateReservation(reservation);
+        try (RoomBookingLocks.RoomLock ignored = roomBookingLocks.lock(updatedReservation.room_id)) {
+            if (roomBookingLocks.getMode() == RoomBookingLocks.Mode.STRIPED_FOR_UPDATE) {
+                roomRepository.lockRoom(updatedReservation.room_id);
+            }
+            if (reservation.status != ReservationStatus.CANCELED) {
+                checkRoomBookable(updatedReservation.room_id, updatedReservation.start_date,
+                        updatedReservation.end_date, user, false);
+            }
+
+            Long previousRoomId = reservation.room_id;
+            LocalDate previousStartDate = reservation.start_date;
+            LocalDate previousEndDate = reservation.end_date;
+            reservation.setRoom_id(updatedReservation.room_id);
+            reservation.setStart_date(updatedReservation.start_date);
+            reservation.setEnd_date(updatedReservation.end_date);
+
+            BigDecimal totalPrice = calculateTotal(reservation.start_date, reservation.end_date,
+                    reservation.room_id);
+            if (totalPrice.compareTo(BigDecimal.valueOf(-1.0)) == 0) {
+                throw new RuntimeException("Fechas de inicio y salida de la reserva erróneas.");
+            }
+
+            reservation.setTotal_price(totalPrice);
+            int rowsAffected = checkNotStale(reservationRepository.updateReservation(reservation));
+            availabilityChanged(previousRoomId, previousStartDate, previousEndDate);
+            availabilityChanged(reservation.room_id, reservation.start_date, reservation.end_date);
+            updatedReservation.setVersion(reservation.version);
+            return rowsAffected;
+        }
     }
 
     /**
@@ -271,9 +706,10 @@ public class ReservationUseCase {
      *
      * @param reservationId The ID of the reservation to cancel.
      * @return The number of rows affected.
+     * @throws OptimisticLockingFailureException If the reservation was modified concurrently.
      * @throws RuntimeException If the reservation is already confirmed.
      */
-    @CacheEvict(value = "room-availability", allEntries = true)
+    @Transactional
     public int cancelReservation(long reservationId) {
         Reservation reservation = reservationRepository.getReservationById(reservationId)
                 .orElseThrow(() -> new IllegalArgumentException("La reserva no existe"));
@@ -283,21 +719,45 @@ public class ReservationUseCase {
         }
 
         reservation.setStatus(ReservationStatus.CANCELED);
-        return reservationRepository.updateReservation(reservation);
+        int rowsAffected = checkNotStale(reservationRepository.updateReservation(reservation));
+        availabilityChanged(reservation.room_id, reservation.start_date, reservation.end_date);
+        return rowsAffected;
+    }
+
+    /**
+     * Turns a version-checked update that touched no rows into a conflict, since the reservation was read just
+     * before and can only have been skipped because another request changed it in between.
+     *
+     * @param rowsAffected the rows affected by the update
+     * @return the rows affected by the update
+     * @throws OptimisticLockingFailureException if no row was updated
+     */
+    private int checkNotStale(int rowsAffected) {
+        if (rowsAffected == 0) {
+            throw new OptimisticLockingFailureException(RESERVATION_CONFLICT);
+        }
+        return rowsAffected;
     }
 
     /**
      * Registers a payment for a reservation.
+     * <p>
+     * The reservation row is locked first, so concurrent payments of the same reservation are checked against the
+     * balance one after the other and cannot pay more than its price together. Once the payment completes the
+     * price, the reservation is confirmed with a conditional update.
+     * </p>
      *
      * @param newPayment The payment details.
      * @param reservationId The reservation ID.
      * @param user The authenticated user.
      * @return The generated payment ID.
      * @throws RuntimeException If the payment exceeds the remaining balance or if the reservation is canceled.
+     * @throws OptimisticLockingFailureException If the reservation could not be confirmed.
      */
     @Transactional
     public long createPayment(Payment newPayment, long reservationId, User user) {
-        Reservation reservation = reservationRepository.getReservationById(reservationId)
+        Reservation reservation = reservationRepository.lockReservations(List.of(reservationId)).stream()
+                .findFirst()
                 .orElseThrow(() -> new IllegalArgumentException("La reserva no existe"));
 
         if (user.role == Role.CLIENT && reservation.client_id != user.id) {
@@ -308,7 +768,7 @@ public class ReservationUseCase {
             throw new RuntimeException("No se pueden registrar pagos para reservas canceladas");
         }
 
-        BigDecimal paidTotal = paymentRepository.getTotalPaid(reservationId);
+        BigDecimal paidTotal = reservation.paid_total;
         BigDecimal remaining = reservation.total_price.subtract(paidTotal);
 
         if (newPayment.amount.compareTo(remaining) > 0 && reservation.status == ReservationStatus.CONFIRMED) {
@@ -321,9 +781,11 @@ public class ReservationUseCase {
         long savedPaymentId = paymentRepository.createPayment(newPayment);
 
         BigDecimal newPaidTotal = paidTotal.add(newPayment.amount);
-        if (newPaidTotal.compareTo(reservation.total_price) >= 0) {
+        reservation.setPaid_total(newPaidTotal);
+        if (newPaidTotal.compareTo(reservation.total_price) >= 0
+                && reservation.status == ReservationStatus.PENDING) {
+            checkNotStale(reservationRepository.confirmPaidReservations(List.of(reservationId)));
             reservation.setStatus(ReservationStatus.CONFIRMED);
-            reservationRepository.updateReservation(reservation);
         }
 
         return savedPaymentId;
@@ -0,0 +1,119 @@
+package com.alfre.DHHotel.usecase;
+
+import com.alfre.DHHotel.adapter.web.dto.RevenueReportDTO;
+import com.alfre.DHHotel.domain.model.DailyRevenue;
+import com.alfre.DHHotel.domain.model.Room;
+import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.domain.repository.DailyRevenueRepository;
+import com.alfre.DHHotel.domain.repository.RoomRepository;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Service class that builds the revenue and occupancy reports of the management dashboard.
+ * <p>
+ * The figures are read from the daily rollups kept by the reservation and payment writes, a few rows per day,
+ * instead of adding up every reservation and payment of the range on each refresh. The rooms available are the
+ * rooms of each type in the catalog.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Service
+public class RevenueReportUseCase {
+    /**
+     * Longest range accepted by the report.
+     */
+    static final int MAX_REPORT_DAYS = 366;
+
+    private final DailyRevenueRepository dailyRevenueRepository;
+    private final RoomRepository roomRepository;
+
+    /**
+     * Constructs a RevenueReportUseCase with the given repositories.
+     *
+     * @param dailyRevenueRepository The repository holding the daily revenue rollups.
+     * @param roomRepository The repository handling room persistence operations.
+     */
+    public RevenueReportUseCase(DailyRevenueRepository dailyRevenueRepository, RoomRepository roomRepository) {
+        this.dailyRevenueRepository = dailyRevenueRepository;
+        this.roomRepository = roomRepository;
+    }
+
+    /**
+     * Builds the occupancy rate, ADR and RevPAR of every room type for each day of a range and for the whole range.
+     * Days without bookings or payments are reported with zeros.
+     *
+     * @param from The first day of the report.
+     * @param to The last day of the report, included.
+     * @return The report of the range.
+     * @throws IllegalArgumentException If the range is missing, reversed or longer than {@value MAX_REPORT_DAYS}
+     *                                  days.
+     */
+    public RevenueReportDTO getRevenueReport(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Hay que indicar las fechas de inicio y fin del informe");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("La fecha de fin no puede ser anterior a la fecha de inicio");
+        }
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > MAX_REPORT_DAYS) {
+            throw new IllegalArgumentException("El informe no puede abarcar más de " + MAX_REPORT_DAYS + " días");
+        }
+
+        Map<RoomType, Long> roomsByType = roomRepository.getAllRooms().stream()
+                .collect(Collectors.groupingBy(room -> room.type, () -> new EnumMap<>(RoomType.class),
+                        Collectors.counting()));
+        Map<LocalDate, Map<RoomType, DailyRevenue>> rollups = new HashMap<>();
+        for (DailyRevenue rollup : dailyRevenueRepository.getDailyRevenue(from, to)) {
+            rollups.computeIfAbsent(rollup.day, day -> new EnumMap<>(RoomType.class)).put(rollup.room_type, rollup);
+        }
+
+        RevenueReportDTO report = new RevenueReportDTO();
+        report.from = from;
+        report.to = to;
+        Map<RoomType, DailyRevenue> totals = new EnumMap<>(RoomType.class);
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            Map<RoomType, DailyRevenue> ofDay = rollups.getOrDefault(day, Map.of());
+            for (RoomType type : RoomType.values()) {
+                DailyRevenue rollup = ofDay.getOrDefault(type, empty(day, type));
+                report.days.add(line(day, type, roomsByType.getOrDefault(type, 0L), rollup));
+                DailyRevenue total = totals.computeIfAbsent(type, t -> empty(null, t));
+                total.rooms_sold += rollup.rooms_sold;
+                total.room_revenue = total.room_revenue.add(rollup.room_revenue);
+                total.payments_total = total.payments_total.add(rollup.payments_total);
+            }
+        }
+        totals.forEach((type, total) ->
+                report.totals.add(line(null, type, roomsByType.getOrDefault(type, 0L) * days, total)));
+        return report;
+    }
+
+    private static DailyRevenue empty(LocalDate day, RoomType type) {
+        return new DailyRevenue(day, type, 0, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+
+    private static RevenueReportDTO.Line line(LocalDate day, RoomType type, long available, DailyRevenue rollup) {
+        BigDecimal occupancy = ratio(BigDecimal.valueOf(rollup.rooms_sold), available, 4);
+        BigDecimal adr = ratio(rollup.room_revenue, rollup.rooms_sold, 2);
+        BigDecimal revpar = ratio(rollup.room_revenue, available, 2);
+        return new RevenueReportDTO.Line(day, type, available, rollup.rooms_sold, occupancy, rollup.room_revenue,
+                adr, revpar, rollup.payments_total);
+    }
+
+    private static BigDecimal ratio(BigDecimal amount, long count, int scale) {
+        if (count == 0) {
+            return BigDecimal.ZERO.setScale(scale);
+        }
+        return amount.divide(BigDecimal.valueOf(count), scale, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,233 @@
+package com.alfre.DHHotel.usecase;
+
+import com.alfre.DHHotel.domain.model.MonthOccupancy;
+import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.domain.repository.ReservationRepository;
+import com.alfre.DHHotel.domain.repository.RoomRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache of the booked nights of the rooms, split by room type and calendar month.
+ * <p>
+ * Each entry of the {@value #CACHE_NAME} cache holds the {@link MonthOccupancy} of one room type in one month, so an
+ * availability search reads one entry per type and month of the stay, and a booking only evicts the entries of the
+ * type of its room and the months its nights fall in. Searches for other types or other months keep hitting the
+ * cache while bookings come in.
+ * </p>
+ * <p>
+ * Evictions run once the transaction that changed the reservations commits, so a search that starts after the
+ * commit always reads the new occupancy. A search that read the database before the commit can still put the old
+ * occupancy back after the eviction; that entry is served until the next change of the same type and month evicts
+ * it or it expires with the time to live of the cache. Bookings do not depend on it, since the room-night ledger
+ * rejects a night that is already booked. Without a cache manager every lookup goes to the database.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Component
+public class RoomAvailabilityCache {
+    /**
+     * Name of the cache holding the room availability.
+     */
+    public static final String CACHE_NAME = "room-availability";
+
+    /**
+     * Stays longer than this evict the whole cache instead of one entry per month.
+     */
+    static final int MAX_EVICTED_MONTHS = 24;
+
+    private final Cache cache;
+    private final ReservationRepository reservationRepository;
+    private final RoomRepository roomRepository;
+
+    /**
+     * Constructs the availability cache on top of the {@value #CACHE_NAME} cache of the given manager.
+     *
+     * @param cacheManager the cache manager
+     * @param reservationRepository the repository the booked nights are read from
+     * @param roomRepository the repository used to find the type of a booked room
+     */
+    @Autowired
+    public RoomAvailabilityCache(CacheManager cacheManager, ReservationRepository reservationRepository,
+                                 RoomRepository roomRepository) {
+        this(cacheManager.getCache(CACHE_NAME), reservationRepository, roomRepository);
+    }
+
+    /**
+     * Constructs an availability lookup without cache, which reads the booked nights from the database every time.
+     *
+     * @param reservationRepository the repository the booked nights are read from
+     * @param roomRepository the repository used to find the type of a booked room
+     */
+    public RoomAvailabilityCache(ReservationRepository reservationRepository, RoomRepository roomRepository) {
+        this((Cache) null, reservationRepository, roomRepository);
+    }
+
+    /**
+     * Constructs the availability cache on top of the given cache.
+     *
+     * @param cache the cache, or {@code null} to read from the database every time
+     * @param reservationRepository the repository the booked nights are read from
+     * @param roomRepository the repository used to find the type of a booked room
+     */
+    RoomAvailabilityCache(Cache cache, ReservationRepository reservationRepository, RoomRepository roomRepository) {
+        this.cache = cache;
+        this.reservationRepository = reservationRepository;
+        this.roomRepository = roomRepository;
+    }
+
+    /**
+     * Returns the rooms with at least one booked night in a date range, with the same inclusive rule as the
+     * availability checks.
+     *
+     * @param type the room type, or {@code null} for every type
+     * @param startDate the first day of the range
+     * @param endDate the last day of the range
+     * @return the IDs of the booked rooms
+     */
+    public Set<Long> getBookedRoomIds(RoomType type, LocalDate startDate, LocalDate endDate) {
+        List<RoomType> types = type == null ? List.of(RoomType.values()) : List.of(type);
+        Set<Long> booked = new HashSet<>();
+        for (RoomType roomType : types) {
+            for (YearMonth month : months(startDate, endDate)) {
+                int days = dayMask(month, startDate, endDate);
+                getOccupancy(roomType, month).booked_days.forEach((roomId, bookedDays) -> {
+                    if ((bookedDays & days) != 0) {
+                        booked.add(roomId);
+                    }
+                });
+            }
+        }
+        return booked;
+    }
+
+    /**
+     * Returns the booked nights of the rooms of a type in a month, from the cache when present.
+     *
+     * @param type the room type
+     * @param month the month
+     * @return the occupancy of the month
+     */
+    public MonthOccupancy getOccupancy(RoomType type, YearMonth month) {
+        if (cache == null) {
+            return load(type, month);
+        }
+        return cache.get(key(type, month), () -> load(type, month));
+    }
+
+    /**
+     * Evicts the entries a change of the booked nights of a room affects, once the current transaction commits,
+     * or at once without a transaction.
+     *
+     * @param roomId the ID of the room
+     * @param startDate the first booked night that changed
+     * @param endDate the last booked night that changed
+     */
+    public void evictAfterCommit(Long roomId, LocalDate startDate, LocalDate endDate) {
+        if (cache == null || roomId == null || startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            return;
+        }
+        if (ChronoUnit.MONTHS.between(YearMonth.from(startDate), YearMonth.from(endDate)) >= MAX_EVICTED_MONTHS) {
+            runAfterCommit(cache::clear);
+            return;
+        }
+
+        List<RoomType> types = roomRepository.getRoomById(roomId)
+                .map(room -> List.of(room.type))
+                .orElseGet(() -> List.of(RoomType.values()));
+        List<String> keys = new ArrayList<>();
+        for (RoomType type : types) {
+            for (YearMonth month : months(startDate, endDate)) {
+                keys.add(key(type, month));
+            }
+        }
+        runAfterCommit(() -> keys.forEach(cache::evict));
+    }
+
+    /**
+     * Evicts the entries of the given types for every month the room has booked nights in, once the current
+     * transaction commits, or at once without a transaction. Used when a room changes its type or is deleted, so
+     * it must run before the change, while the nights of the room are still booked.
+     *
+     * @param roomId the ID of the room
+     * @param types the types the booked nights of the room are cached under, before and after the change
+     */
+    public void evictRoomAfterCommit(long roomId, Collection<RoomType> types) {
+        if (cache == null || types.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>();
+        for (YearMonth month : reservationRepository.getBookedMonths(roomId)) {
+            for (RoomType type : types) {
+                keys.add(key(type, month));
+            }
+        }
+        if (!keys.isEmpty()) {
+            runAfterCommit(() -> keys.forEach(cache::evict));
+        }
+    }
+
+    private MonthOccupancy load(RoomType type, YearMonth month) {
+        Map<Long, Integer> bookedDays = new HashMap<>();
+        reservationRepository.getBookedNights(type, month.atDay(1), month.atEndOfMonth())
+                .forEach((roomId, nights) -> {
+                    int days = 0;
+                    for (LocalDate night : nights) {
+                        days |= 1 << (night.getDayOfMonth() - 1);
+                    }
+                    bookedDays.put(roomId, days);
+                });
+        return new MonthOccupancy(type, month.toString(), bookedDays);
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static List<YearMonth> months(LocalDate startDate, LocalDate endDate) {
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(startDate); !month.isAfter(YearMonth.from(endDate));
+             month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        return months;
+    }
+
+    /**
+     * Returns the bitmap of the days of a month that fall in a date range.
+     */
+    static int dayMask(YearMonth month, LocalDate startDate, LocalDate endDate) {
+        int first = startDate.isBefore(month.atDay(1)) ? 1 : startDate.getDayOfMonth();
+        int last = endDate.isAfter(month.atEndOfMonth()) ? month.lengthOfMonth() : endDate.getDayOfMonth();
+        return (int) (((1L << last) - 1) & ~((1L << (first - 1)) - 1));
+    }
+
+    static String key(RoomType type, YearMonth month) {
+        return "nights:" + type + ":" + month;
+    }
+}
@@ -0,0 +1,202 @@
+package com.alfre.DHHotel.usecase;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped in-process locks that serialize bookings of the same room without a global lock.
+ * <p>
+ * Each room identifier is hashed onto one of a fixed number of {@link ReentrantLock} stripes, so bookings of
+ * different rooms rarely wait for each other while bookings of the same room always do. When a lock is taken inside
+ * a transaction it is held until the transaction completes, so the next booking of the room only starts once the
+ * previous one is committed or rolled back.
+ * </p>
+ * <p>
+ * Operations on several rooms must take their stripes with {@link #lockAll}, which always locks them in stripe
+ * order: locking them in room order could deadlock, since two rooms in ascending order may hash onto stripes in
+ * descending order.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Component
+public class RoomBookingLocks {
+    /**
+     * Default number of lock stripes.
+     */
+    static final int DEFAULT_STRIPES = 64;
+
+    private final ReentrantLock[] stripes;
+    private final Mode mode;
+
+    /**
+     * Constructs the locks with the default number of stripes and the default mode.
+     */
+    public RoomBookingLocks() {
+        this(DEFAULT_STRIPES, Mode.STRIPED_FOR_UPDATE);
+    }
+
+    /**
+     * Constructs the locks with the configured number of stripes and concurrency mode.
+     *
+     * @param stripes the number of lock stripes, rounded up to a power of two
+     * @param mode the concurrency mode used for bookings
+     */
+    @Autowired
+    public RoomBookingLocks(@Value("${booking.locks.stripes:" + DEFAULT_STRIPES + "}") int stripes,
+                            @Value("${booking.concurrency.mode:STRIPED_FOR_UPDATE}") Mode mode) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("El número de particiones de bloqueo debe ser mayor que 0");
+        }
+        int size = Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new ReentrantLock[Math.max(1, size)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mode = mode;
+    }
+
+    /**
+     * Returns the configured concurrency mode.
+     *
+     * @return the concurrency mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Acquires the stripe of the given room.
+     * <p>
+     * If a transaction is active, the lock is released when the transaction completes and closing the returned
+     * handle does nothing. Otherwise closing the handle releases the lock.
+     * </p>
+     *
+     * @param roomId the identifier of the room to lock
+     * @return a handle to be closed once the booking is done
+     */
+    public RoomLock lock(long roomId) {
+        if (mode == Mode.NONE) {
+            return () -> { };
+        }
+
+        ReentrantLock lock = stripeOf(roomId);
+        lock.lock();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return lock::unlock;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+        return () -> { };
+    }
+
+    /**
+     * Acquires the stripes of all the given rooms, each distinct stripe once and in ascending stripe order, so two
+     * operations on overlapping sets of rooms can never wait for each other in a cycle. The stripes are released in
+     * reverse order.
+     * <p>
+     * If a transaction is active, the locks are released when the transaction completes and closing the returned
+     * handle does nothing. Otherwise closing the handle releases the locks.
+     * </p>
+     *
+     * @param roomIds the identifiers of the rooms to lock
+     * @return a handle to be closed once the operation is done
+     */
+    public RoomLock lockAll(Collection<Long> roomIds) {
+        if (mode == Mode.NONE || roomIds.isEmpty()) {
+            return () -> { };
+        }
+
+        TreeSet<Integer> indexes = new TreeSet<>();
+        roomIds.forEach(roomId -> indexes.add(stripeIndex(roomId)));
+        ReentrantLock[] locked = new ReentrantLock[indexes.size()];
+        int count = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                locked[count++] = stripes[index];
+            }
+        } catch (RuntimeException | Error e) {
+            unlockAll(locked, count);
+            throw e;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return () -> unlockAll(locked, locked.length);
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                unlockAll(locked, locked.length);
+            }
+        });
+        return () -> { };
+    }
+
+    private static void unlockAll(ReentrantLock[] locked, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            locked[i].unlock();
+        }
+    }
+
+    /**
+     * Returns the stripe that guards the given room.
+     *
+     * @param roomId the identifier of the room
+     * @return the lock of the room stripe
+     */
+    ReentrantLock stripeOf(long roomId) {
+        return stripes[stripeIndex(roomId)];
+    }
+
+    private int stripeIndex(long roomId) {
+        int hash = Long.hashCode(roomId);
+        hash ^= (hash >>> 16);
+        return hash & (stripes.length - 1);
+    }
+
+    /**
+     * Handle of an acquired room lock.
+     */
+    @FunctionalInterface
+    public interface RoomLock extends AutoCloseable {
+        /**
+         * Releases the lock unless its release was deferred to the end of the transaction.
+         */
+        @Override
+        void close();
+    }
+
+    /**
+     * Concurrency modes available for bookings.
+     */
+    public enum Mode {
+        /**
+         * No locking: the availability check and the insert may interleave between requests.
+         */
+        NONE,
+
+        /**
+         * Striped in-process locks only, enough when a single API node is running.
+         */
+        STRIPED,
+
+        /**
+         * Striped in-process locks plus a {@code SELECT ... FOR UPDATE} on the room row, which also serializes
+         * bookings of the same room across API nodes.
+         */
+        STRIPED_FOR_UPDATE
+    }
+}
@@ -0,0 +1,274 @@
+package com.alfre.DHHotel.usecase;
+
+import com.alfre.DHHotel.domain.event.RoomChangeEvent;
+import com.alfre.DHHotel.domain.model.RoomStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Shared broadcaster of the room changes to the clients following the rooms, such as housekeeping tablets and lobby
+ * displays.
+ * <p>
+ * Each subscriber has its own bounded buffer, drained by its own task, so a slow client never delays the others nor
+ * the request that made the change. When a buffer fills up its events are dropped and replaced by a single
+ * {@link RoomChangeEvent.Type#RESYNC} event, which tells the client to read the rooms again.
+ * </p>
+ * <p>
+ * Changes are delivered once the transaction that made them commits. They are also relayed to the other API nodes
+ * with the identifier of this node, and each node delivers the changes relayed by the others to its own subscribers.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+public class RoomChangeBroadcaster {
+    private static final Logger logger = LoggerFactory.getLogger(RoomChangeBroadcaster.class);
+    private static final String SEPARATOR = "\n";
+    private static final String NONE = "";
+    private static final int FIELDS = 5;
+
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final Consumer<String> relay;
+    private final Executor executor;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs a broadcaster that only delivers the changes to the subscribers of this node.
+     */
+    public RoomChangeBroadcaster() {
+        this(256, 1000, payload -> { });
+    }
+
+    /**
+     * Constructs a broadcaster that drains every subscriber on its own virtual thread.
+     *
+     * @param bufferSize the maximum number of changes waiting to be sent to a subscriber
+     * @param maxSubscribers the maximum number of subscribers of this node
+     * @param relay sends a change to every API node, this one included
+     */
+    public RoomChangeBroadcaster(int bufferSize, int maxSubscribers, Consumer<String> relay) {
+        this(bufferSize, maxSubscribers, relay, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * Constructs a broadcaster.
+     *
+     * @param bufferSize the maximum number of changes waiting to be sent to a subscriber
+     * @param maxSubscribers the maximum number of subscribers of this node
+     * @param relay sends a change to every API node, this one included
+     * @param executor runs the tasks that send the changes to the subscribers
+     */
+    RoomChangeBroadcaster(int bufferSize, int maxSubscribers, Consumer<String> relay, Executor executor) {
+        if (bufferSize <= 0 || maxSubscribers <= 0) {
+            throw new IllegalArgumentException(
+                    "El tamaño del búfer y el número de suscriptores deben ser mayores que 0");
+        }
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.relay = relay;
+        this.executor = executor;
+    }
+
+    /**
+     * Registers a subscriber.
+     *
+     * @param sink receives the changes, one at a time; if it throws, the subscription is closed
+     * @return the subscription, to be closed when the client goes away
+     * @throws IllegalStateException if this node already has the maximum number of subscribers
+     */
+    public Subscription subscribe(Consumer<RoomChangeEvent> sink) {
+        Subscription subscription = new Subscription(sink);
+        synchronized (subscriptions) {
+            if (subscriptions.size() >= maxSubscribers) {
+                throw new IllegalStateException(
+                        "Se ha alcanzado el número máximo de suscripciones a las habitaciones");
+            }
+            subscriptions.add(subscription);
+        }
+        return subscription;
+    }
+
+    /**
+     * Returns the number of subscribers of this node.
+     *
+     * @return the number of open subscriptions
+     */
+    public int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Delivers a change to every subscriber of every node once the current transaction commits, or at once without
+     * a transaction.
+     *
+     * @param event the change
+     */
+    public void publish(RoomChangeEvent event) {
+        publishAll(List.of(event));
+    }
+
+    /**
+     * Delivers several changes, in order, to every subscriber of every node once the current transaction commits,
+     * or at once without a transaction. The changes are relayed to the other nodes in a single message.
+     *
+     * @param events the changes
+     */
+    public void publishAll(List<RoomChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<RoomChangeEvent> changes = List.copyOf(events);
+        runAfterCommit(() -> {
+            changes.forEach(this::deliver);
+            try {
+                relay.accept(nodeId + SEPARATOR + changes.stream()
+                        .map(RoomChangeBroadcaster::encode)
+                        .collect(Collectors.joining(SEPARATOR)));
+            } catch (RuntimeException e) {
+                logger.warn("No se han podido difundir {} cambios de habitaciones: {}", changes.size(),
+                        e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Delivers the changes relayed by another node to the subscribers of this node. Changes relayed by this node
+     * have already been delivered and are ignored.
+     *
+     * @param payload the body of the relayed message
+     */
+    public void receive(String payload) {
+        String[] parts = payload.split(SEPARATOR, 2);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            String[] fields = parts[1].split(SEPARATOR, -1);
+            if (fields.length % FIELDS != 0) {
+                throw new IllegalArgumentException("número de campos incorrecto");
+            }
+            List<RoomChangeEvent> changes = new ArrayList<>();
+            for (int i = 0; i < fields.length; i += FIELDS) {
+                changes.add(decode(fields, i));
+            }
+            changes.forEach(this::deliver);
+        } catch (RuntimeException e) {
+            logger.warn("Cambio de habitación recibido no válido: {}", e.getMessage());
+        }
+    }
+
+    private void deliver(RoomChangeEvent event) {
+        subscriptions.forEach(subscription -> subscription.offer(event));
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static String encode(RoomChangeEvent event) {
+        return String.join(SEPARATOR, event.type().name(),
+                event.room_id() == null ? NONE : event.room_id().toString(),
+                event.status() == null ? NONE : event.status().name(),
+                event.start_date() == null ? NONE : event.start_date().toString(),
+                event.end_date() == null ? NONE : event.end_date().toString());
+    }
+
+    private static RoomChangeEvent decode(String[] fields, int from) {
+        return new RoomChangeEvent(RoomChangeEvent.Type.valueOf(fields[from]),
+                fields[from + 1].isEmpty() ? null : Long.valueOf(fields[from + 1]),
+                fields[from + 2].isEmpty() ? null : RoomStatus.valueOf(fields[from + 2]),
+                fields[from + 3].isEmpty() ? null : LocalDate.parse(fields[from + 3]),
+                fields[from + 4].isEmpty() ? null : LocalDate.parse(fields[from + 4]));
+    }
+
+    /**
+     * A subscriber and the changes waiting to be sent to it.
+     */
+    public final class Subscription implements AutoCloseable {
+        private final Consumer<RoomChangeEvent> sink;
+        private final ArrayDeque<RoomChangeEvent> buffer = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+
+        private Subscription(Consumer<RoomChangeEvent> sink) {
+            this.sink = sink;
+        }
+
+        /**
+         * Queues a change and starts draining the buffer if it is not being drained already.
+         */
+        private void offer(RoomChangeEvent event) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (buffer.size() >= bufferSize) {
+                    buffer.clear();
+                    buffer.add(RoomChangeEvent.resync());
+                } else {
+                    buffer.add(event);
+                }
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            executor.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                RoomChangeEvent event;
+                synchronized (this) {
+                    event = closed ? null : buffer.poll();
+                    if (event == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    sink.accept(event);
+                } catch (RuntimeException e) {
+                    logger.debug("Suscripción a las habitaciones cerrada: {}", e.getMessage());
+                    close();
+                }
+            }
+        }
+
+        /**
+         * Stops sending changes to the subscriber and drops the changes waiting in its buffer.
+         */
+        @Override
+        public void close() {
+            synchronized (this) {
+                closed = true;
+                buffer.clear();
+            }
+            subscriptions.remove(this);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.alfre.DHHotel.usecase;
+
+import com.alfre.DHHotel.adapter.web.dto.RoomHoldRequest;
+import com.alfre.DHHotel.domain.model.Room;
+import com.alfre.DHHotel.domain.model.RoomHold;
+import com.alfre.DHHotel.domain.model.RoomStatus;
+import com.alfre.DHHotel.domain.model.User;
+import com.alfre.DHHotel.domain.repository.ReservationRepository;
+import com.alfre.DHHotel.domain.repository.RoomRepository;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+
+/**
+ * Service class that handles the business logic of the room holds taken during the checkout.
+ * <p>
+ * A hold is only granted for a room that can be booked for the whole stay. The check and the hold are done under
+ * the same room lock as the bookings, so a hold can never be granted over a reservation that is being created.
+ * Holds are turned into reservations with {@link ReservationUseCase#createReservationFromHold(String, User)}.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Service
+public class RoomHoldUseCase {
+    /**
+     * Duration of a hold when the request does not give one.
+     */
+    static final int DEFAULT_HOLD_MINUTES = 10;
+
+    private final ReservationRepository reservationRepository;
+    private final RoomRepository roomRepository;
+    private final RoomBookingLocks roomBookingLocks;
+    private final RoomHolds roomHolds;
+
+    /**
+     * Constructs a RoomHoldUseCase with the repositories, the room locks and the hold registry.
+     *
+     * @param reservationRepository the repository for managing reservations
+     * @param roomRepository the repository for managing rooms
+     * @param roomBookingLocks the locks that serialize the bookings of a room
+     * @param roomHolds the registry of the active holds
+     */
+    public RoomHoldUseCase(ReservationRepository reservationRepository, RoomRepository roomRepository,
+                           RoomBookingLocks roomBookingLocks, RoomHolds roomHolds) {
+        this.reservationRepository = reservationRepository;
+        this.roomRepository = roomRepository;
+        this.roomBookingLocks = roomBookingLocks;
+        this.roomHolds = roomHolds;
+    }
+
+    /**
+     * Holds a room for a stay on behalf of the authenticated user.
+     *
+     * @param request The room, the dates and optionally the duration of the hold.
+     * @param user The authenticated user.
+     * @return The new hold.
+     * @throws IllegalArgumentException If the request is not valid.
+     * @throws RuntimeException If the room does not exist, is in maintenance, is booked or is held by someone else.
+     */
+    @Transactional
+    public RoomHold placeHold(RoomHoldRequest request, User user) {
+        if (request.getRoom_id() == null || request.getStart_date() == null || request.getEnd_date() == null) {
+            throw new IllegalArgumentException("Hay que indicar la habitación y las fechas de entrada y salida");
+        }
+        if (!request.getEnd_date().isAfter(request.getStart_date())) {
+            throw new IllegalArgumentException("La fecha de salida debe ser posterior a la fecha de entrada");
+        }
+        int minutes = request.getMinutes() == null ? DEFAULT_HOLD_MINUTES : request.getMinutes();
+
+        long roomId = request.getRoom_id();
+        try (RoomBookingLocks.RoomLock ignored = roomBookingLocks.lock(roomId)) {
+            if (roomBookingLocks.getMode() == RoomBookingLocks.Mode.STRIPED_FOR_UPDATE) {
+                roomRepository.lockRoom(roomId);
+            }
+
+            Room room = roomRepository.getRoomById(roomId)
+                    .orElseThrow(() -> new RuntimeException("La habitación solicitada no existe."));
+            if (room.status == RoomStatus.MAINTENANCE) {
+                throw new RuntimeException("No se puede retener una habitación en mantenimiento.");
+            }
+            if (!reservationRepository.isRoomAvailable(roomId, request.getStart_date(), request.getEnd_date())) {
+                throw new RuntimeException("Habitación no disponible en las fechas solicitadas");
+            }
+
+            return roomHolds.hold(roomId, request.getStart_date(), request.getEnd_date(), user.id,
+                    Duration.ofMinutes(minutes));
+        }
+    }
+
+    /**
+     * Retrieves an active hold of the authenticated user.
+     *
+     * @param id The ID of the hold.
+     * @param user The authenticated user.
+     * @return The hold.
+     * @throws AccessDeniedException If the hold belongs to another user.
+     * @throws RuntimeException If the hold does not exist or has expired.
+     */
+    public RoomHold getHold(String id, User user) {
+        RoomHold hold = roomHolds.get(id)
+                .orElseThrow(() -> new RuntimeException("La retención no existe o ha caducado."));
+        if (hold.user_id != user.id) {
+            throw new AccessDeniedException("No autorizado");
+        }
+        return hold;
+    }
+
+    /**
+     * Releases an active hold of the authenticated user before it expires.
+     *
+     * @param id The ID of the hold.
+     * @param user The authenticated user.
+     * @throws AccessDeniedException If the hold belongs to another user.
+     * @throws RuntimeException If the hold does not exist or has expired.
+     */
+    public void releaseHold(String id, User user) {
+        getHold(id, user);
+        roomHolds.release(id);
+    }
+}
@@ -0,0 +1,233 @@
+package com.alfre.DHHotel.usecase;
+
+import com.alfre.DHHotel.domain.model.RoomHold;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * In-memory registry of the active room holds.
+ * <p>
+ * Holds are indexed by identifier and by room, and their expiry is tracked by a {@link TimingWheel} that is
+ * advanced on every call, so there is neither a timer per hold nor a background job polling the database. Two
+ * holds of different users can never overlap, and a hold only blocks the bookings of other users.
+ * </p>
+ * <p>
+ * Holds live in the memory of the API node, like the {@link RoomBookingLocks}: they are lost on restart, which
+ * at worst frees a room a few minutes early.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Component
+public class RoomHolds {
+    /**
+     * Precision of the hold expiry.
+     */
+    static final long TICK_MILLIS = 1000;
+
+    private final Clock clock;
+    private final Duration maxDuration;
+    private final Map<String, RoomHold> holds = new HashMap<>();
+    private final Map<Long, List<RoomHold>> holdsByRoom = new HashMap<>();
+    private final TimingWheel<RoomHold> expiries;
+
+    /**
+     * Constructs the registry with holds of up to 30 minutes.
+     */
+    public RoomHolds() {
+        this(30);
+    }
+
+    /**
+     * Constructs the registry with the configured maximum hold duration.
+     *
+     * @param maxMinutes the longest a hold can last, in minutes
+     */
+    @Autowired
+    public RoomHolds(@Value("${booking.holds.max-minutes:30}") int maxMinutes) {
+        this(Clock.systemUTC(), maxMinutes);
+    }
+
+    /**
+     * Constructs the registry with the given clock.
+     *
+     * @param clock the clock used to expire the holds
+     * @param maxMinutes the longest a hold can last, in minutes
+     */
+    RoomHolds(Clock clock, int maxMinutes) {
+        if (maxMinutes <= 0) {
+            throw new IllegalArgumentException("La duración máxima de una retención debe ser mayor que 0");
+        }
+        this.clock = clock;
+        this.maxDuration = Duration.ofMinutes(maxMinutes);
+        this.expiries = new TimingWheel<>(TICK_MILLIS, clock.millis());
+    }
+
+    /**
+     * Holds a room for a stay on behalf of a user.
+     *
+     * @param roomId the ID of the room
+     * @param startDate the check-in date
+     * @param endDate the check-out date
+     * @param userId the ID of the user that owns the hold
+     * @param duration how long the hold lasts, at most the configured maximum
+     * @return the new hold
+     * @throws IllegalArgumentException If the duration is not valid.
+     * @throws RuntimeException If another user holds the room for any of the dates.
+     */
+    public synchronized RoomHold hold(long roomId, LocalDate startDate, LocalDate endDate, long userId,
+                                      Duration duration) {
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(maxDuration) > 0) {
+            throw new IllegalArgumentException("La retención debe durar entre 1 y " + maxDuration.toMinutes() +
+                    " minutos");
+        }
+        expire();
+        if (isHeldByOthers(roomId, startDate, endDate, userId)) {
+            throw new RuntimeException("La habitación ya está retenida por otro cliente para esas fechas");
+        }
+
+        RoomHold hold = new RoomHold(UUID.randomUUID().toString(), roomId, startDate, endDate, userId,
+                clock.instant().plus(duration));
+        holds.put(hold.id, hold);
+        holdsByRoom.computeIfAbsent(roomId, ignored -> new ArrayList<>()).add(hold);
+        expiries.schedule(hold, hold.expires_at.toEpochMilli());
+        return hold;
+    }
+
+    /**
+     * Returns an active hold.
+     *
+     * @param id the ID of the hold
+     * @return the hold, or empty if it does not exist or has expired
+     */
+    public synchronized Optional<RoomHold> get(String id) {
+        expire();
+        return Optional.ofNullable(holds.get(id));
+    }
+
+    /**
+     * Releases a hold before it expires.
+     *
+     * @param id the ID of the hold
+     * @return {@code true} if the hold was active
+     */
+    public synchronized boolean release(String id) {
+        expire();
+        RoomHold hold = holds.remove(id);
+        if (hold == null) {
+            return false;
+        }
+        unindex(hold);
+        return true;
+    }
+
+    /**
+     * Releases a hold once the current transaction commits, so it keeps blocking other bookings until the
+     * reservation that replaces it is visible. Without a transaction the hold is released at once.
+     *
+     * @param id the ID of the hold
+     */
+    public void releaseAfterCommit(String id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(id);
+            }
+        });
+    }
+
+    /**
+     * Checks whether a user other than the given one holds a room for any of the dates of a stay.
+     *
+     * @param roomId the ID of the room
+     * @param startDate the check-in date
+     * @param endDate the check-out date
+     * @param userId the ID of the user whose own holds are ignored, or {@code null} to consider every hold
+     * @return {@code true} if the room is held by someone else
+     */
+    public synchronized boolean isHeldByOthers(long roomId, LocalDate startDate, LocalDate endDate, Long userId) {
+        expire();
+        for (RoomHold hold : holdsByRoom.getOrDefault(roomId, List.of())) {
+            if ((userId == null || hold.user_id != userId) && overlaps(hold, startDate, endDate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns which of the given rooms are held by users other than the given one for any of the dates of a stay.
+     *
+     * @param roomIds the IDs of the rooms
+     * @param startDate the check-in date
+     * @param endDate the check-out date
+     * @param userId the ID of the user whose own holds are ignored, or {@code null} to consider every hold
+     * @return the IDs of the held rooms
+     */
+    public synchronized Set<Long> getRoomsHeldByOthers(Collection<Long> roomIds, LocalDate startDate,
+                                                       LocalDate endDate, Long userId) {
+        Set<Long> held = new HashSet<>();
+        for (Long roomId : roomIds) {
+            if (isHeldByOthers(roomId, startDate, endDate, userId)) {
+                held.add(roomId);
+            }
+        }
+        return held;
+    }
+
+    /**
+     * @return the number of active holds
+     */
+    public synchronized int size() {
+        expire();
+        return holds.size();
+    }
+
+    /**
+     * Forgets the holds whose expiry has passed. Holds released earlier are skipped.
+     */
+    private void expire() {
+        for (RoomHold hold : expiries.advance(clock.millis())) {
+            if (holds.remove(hold.id, hold)) {
+                unindex(hold);
+            }
+        }
+    }
+
+    private void unindex(RoomHold hold) {
+        List<RoomHold> roomHolds = holdsByRoom.get(hold.room_id);
+        if (roomHolds != null) {
+            roomHolds.remove(hold);
+            if (roomHolds.isEmpty()) {
+                holdsByRoom.remove(hold.room_id);
+            }
+        }
+    }
+
+    /**
+     * Uses the same overlap rule as the availability check of the reservations.
+     */
+    private static boolean overlaps(RoomHold hold, LocalDate startDate, LocalDate endDate) {
+        return !hold.start_date.isAfter(endDate) && !hold.end_date.isBefore(startDate);
+    }
+}
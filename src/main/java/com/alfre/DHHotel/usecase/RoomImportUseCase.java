@@ -0,0 +1,155 @@
+package com.alfre.DHHotel.usecase;
+
+import com.alfre.DHHotel.adapter.web.dto.RoomImportResultDTO;
+import com.alfre.DHHotel.adapter.web.dto.RoomImportRow;
+import com.alfre.DHHotel.domain.model.Room;
+import com.alfre.DHHotel.domain.model.RoomStatus;
+import com.alfre.DHHotel.domain.repository.RoomRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Service class that creates many rooms at once, such as every room of a new wing.
+ * <p>
+ * The rows are validated as they are read and the valid ones are created in batches, so the whole file is never
+ * held in memory and each batch is a single insert. Invalid rows are skipped and reported with their line, without
+ * stopping the import. Every batch is committed on its own: when the import fails halfway, the batches created so
+ * far are kept.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Service
+public class RoomImportUseCase {
+    /**
+     * Most rows reported in the result; further rejected rows are only counted.
+     */
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final RoomRepository roomRepository;
+    private final int batchSize;
+
+    /**
+     * Constructs a RoomImportUseCase that creates the rooms in batches of 500.
+     *
+     * @param roomRepository The repository handling room persistence operations.
+     */
+    public RoomImportUseCase(RoomRepository roomRepository) {
+        this(roomRepository, 500);
+    }
+
+    /**
+     * Constructs a RoomImportUseCase with the configured batch size.
+     *
+     * @param roomRepository The repository handling room persistence operations.
+     * @param batchSize The number of rooms created by each insert.
+     */
+    @Autowired
+    public RoomImportUseCase(RoomRepository roomRepository, @Value("${rooms.import.batch-size:500}") int batchSize) {
+        if (batchSize <= 0 || batchSize > 1000) {
+            throw new IllegalArgumentException("El tamaño del lote de importación debe estar entre 1 y 1000");
+        }
+        this.roomRepository = roomRepository;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Creates the rooms of the given rows. A row is rejected when it could not be read, when its room is not valid
+     * or when its room number is already taken, by an existing room or by an earlier row.
+     * Rooms without status are created as {@link RoomStatus#AVAILABLE}.
+     *
+     * @param rows The rows of the import, read lazily.
+     * @return The number of rooms created and the rejected rows.
+     */
+    public RoomImportResultDTO importRooms(Iterator<RoomImportRow> rows) {
+        Set<Integer> takenNumbers = new HashSet<>();
+        roomRepository.getAllRooms().forEach(room -> takenNumbers.add(room.room_number));
+
+        RoomImportResultDTO result = new RoomImportResultDTO();
+        List<RoomImportRow> batch = new ArrayList<>(batchSize);
+        while (rows.hasNext()) {
+            RoomImportRow row = rows.next();
+            String error = row.error != null ? row.error : validate(row.room, takenNumbers);
+            if (error != null) {
+                reject(result, row.line, error);
+                continue;
+            }
+            takenNumbers.add(row.room.room_number);
+            batch.add(row);
+            if (batch.size() == batchSize) {
+                createBatch(batch, result);
+            }
+        }
+        createBatch(batch, result);
+        return result;
+    }
+
+    /**
+     * Creates the rooms of a batch with a single insert and empties the batch.
+     * When a room number was taken by another request meanwhile, the insert creates nothing and the rooms are
+     * created one by one, so only the rows whose number is taken are rejected.
+     */
+    private void createBatch(List<RoomImportRow> batch, RoomImportResultDTO result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            roomRepository.createRooms(batch.stream().map(row -> row.room).toList());
+            result.imported += batch.size();
+        } catch (DuplicateKeyException e) {
+            for (RoomImportRow row : batch) {
+                try {
+                    roomRepository.createRoom(row.room);
+                    result.imported++;
+                } catch (DuplicateKeyException duplicate) {
+                    reject(result, row.line, numberTaken(row.room));
+                }
+            }
+        }
+        batch.clear();
+    }
+
+    /**
+     * Checks a room of the import, filling in the default status.
+     *
+     * @return The reason why the room cannot be created, or {@code null} if it can.
+     */
+    private static String validate(Room room, Set<Integer> takenNumbers) {
+        if (room.room_number <= 0) {
+            return "El número de habitación debe ser mayor que 0";
+        }
+        if (room.type == null) {
+            return "Hay que indicar el tipo de habitación";
+        }
+        if (room.price_per_night == null || room.price_per_night.compareTo(BigDecimal.ZERO) <= 0) {
+            return "El precio debe ser mayor que 0";
+        }
+        if (takenNumbers.contains(room.room_number)) {
+            return numberTaken(room);
+        }
+        if (room.status == null) {
+            room.status = RoomStatus.AVAILABLE;
+        }
+        return null;
+    }
+
+    private static String numberTaken(Room room) {
+        return "El número de habitación " + room.room_number + " ya existe";
+    }
+
+    private static void reject(RoomImportResultDTO result, long line, String message) {
+        result.rejected++;
+        if (result.errors.size() < MAX_REPORTED_ERRORS) {
+            result.errors.add(new RoomImportResultDTO.RowError(line, message));
+        }
+    }
+}
@@ -1,17 +1,31 @@
 package com.alfre.DHHotel.usecase;
 
 import com.alfre.DHHotel.adapter.web.dto.RoomDTO;
+import com.alfre.DHHotel.adapter.web.dto.RoomQuoteDTO;
+import com.alfre.DHHotel.adapter.web.dto.RoomStatusUpdateRequest;
+import com.alfre.DHHotel.domain.event.RoomChangeEvent;
 import com.alfre.DHHotel.domain.model.Room;
 import com.alfre.DHHotel.domain.model.RoomStatus;
 import com.alfre.DHHotel.domain.model.RoomType;
 import com.alfre.DHHotel.domain.repository.RoomRepository;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -25,15 +39,99 @@ import java.util.stream.Collectors;
  */
 @Service
 public class RoomUseCase {
+    private static final int MAX_QUOTED_ROOMS = 100;
+    private static final int MAX_STATUS_UPDATES = 500;
+
     private final RoomRepository roomRepository;
+    private final RateCalendar rateCalendar;
+    private final RoomHolds roomHolds;
+    private final RoomAvailabilityCache availabilityCache;
+    private final RoomChangeBroadcaster roomChanges;
+    private final RoomBookingLocks roomBookingLocks;
 
     /**
-     * Constructs a RoomUseCase with the specified RoomRepository.
+     * Constructs a RoomUseCase with the specified RoomRepository that quotes stays at the base prices.
      *
      * @param roomRepository The repository handling room persistence operations.
      */
     public RoomUseCase(RoomRepository roomRepository) {
+        this(roomRepository, new RateCalendar());
+    }
+
+    /**
+     * Constructs a RoomUseCase with the specified RoomRepository and RateCalendar.
+     *
+     * @param roomRepository The repository handling room persistence operations.
+     * @param rateCalendar The calendar used to quote stays.
+     */
+    public RoomUseCase(RoomRepository roomRepository, RateCalendar rateCalendar) {
+        this(roomRepository, rateCalendar, new RoomHolds());
+    }
+
+    /**
+     * Constructs a RoomUseCase with the specified RoomRepository, RateCalendar and RoomHolds that resolves the
+     * availability searches with the database.
+     *
+     * @param roomRepository The repository handling room persistence operations.
+     * @param rateCalendar The calendar used to quote stays.
+     * @param roomHolds The registry of the rooms held during a checkout.
+     */
+    public RoomUseCase(RoomRepository roomRepository, RateCalendar rateCalendar, RoomHolds roomHolds) {
+        this(roomRepository, rateCalendar, roomHolds, null);
+    }
+
+    /**
+     * Constructs a RoomUseCase with the specified RoomRepository, RateCalendar, RoomHolds and RoomAvailabilityCache.
+     *
+     * @param roomRepository The repository handling room persistence operations.
+     * @param rateCalendar The calendar used to quote stays.
+     * @param roomHolds The registry of the rooms held during a checkout.
+     * @param availabilityCache The cache of the booked nights used by the availability searches, or {@code null}
+     *                          to resolve them with the database.
+     */
+    public RoomUseCase(RoomRepository roomRepository, RateCalendar rateCalendar, RoomHolds roomHolds,
+                       RoomAvailabilityCache availabilityCache) {
+        this(roomRepository, rateCalendar, roomHolds, availabilityCache, new RoomChangeBroadcaster());
+    }
+
+    /**
+     * Constructs a RoomUseCase with the specified RoomRepository, RateCalendar, RoomHolds, RoomAvailabilityCache and
+     * RoomChangeBroadcaster.
+     *
+     * @param roomRepository The repository handling room persistence operations.
+     * @param rateCalendar The calendar used to quote stays.
+     * @param roomHolds The registry of the rooms held during a checkout.
+     * @param availabilityCache The cache of the booked nights used by the availability searches, or {@code null}
+     *                          to resolve them with the database.
+     * @param roomChanges The broadcaster the room changes are pushed to.
+     */
+    public RoomUseCase(RoomRepository roomRepository, RateCalendar rateCalendar, RoomHolds roomHolds,
+                       RoomAvailabilityCache availabilityCache, RoomChangeBroadcaster roomChanges) {
+        this(roomRepository, rateCalendar, roomHolds, availabilityCache, roomChanges, new RoomBookingLocks());
+    }
+
+    /**
+     * Constructs a RoomUseCase with the specified RoomRepository, RateCalendar, RoomHolds, RoomAvailabilityCache,
+     * RoomChangeBroadcaster and RoomBookingLocks.
+     *
+     * @param roomRepository The repository handling room persistence operations.
+     * @param rateCalendar The calendar used to quote stays.
+     * @param roomHolds The registry of the rooms held during a checkout.
+     * @param availabilityCache The cache of the booked nights used by the availability searches, or {@code null}
+     *                          to resolve them with the database.
+     * @param roomChanges The broadcaster the room changes are pushed to.
+     * @param roomBookingLocks The locks that serialize the changes of the same room.
+     */
+    @Autowired
+    public RoomUseCase(RoomRepository roomRepository, RateCalendar rateCalendar, RoomHolds roomHolds,
+                       RoomAvailabilityCache availabilityCache, RoomChangeBroadcaster roomChanges,
+                       RoomBookingLocks roomBookingLocks) {
         this.roomRepository = roomRepository;
+        this.rateCalendar = rateCalendar;
+        this.roomHolds = roomHolds;
+        this.availabilityCache = availabilityCache;
+        this.roomChanges = roomChanges;
+        this.roomBookingLocks = roomBookingLocks;
     }
 
     /**
@@ -45,6 +143,19 @@ public class RoomUseCase {
         return roomRepository.getAllRooms();
     }
 
+    /**
+     * Retrieves a page of the rooms of the given type and status, ordered by ID.
+     *
+     * @param type The type of the rooms, or {@code null} for every type.
+     * @param status The status of the rooms, or {@code null} for every status.
+     * @param afterId The ID the page starts after, 0 for the first page.
+     * @param limit The maximum number of rooms of the page.
+     * @return A list of up to {@code limit} rooms.
+     */
+    public List<Room> getRoomsPage(RoomType type, RoomStatus status, long afterId, int limit) {
+        return roomRepository.getRoomsPage(type, status, afterId, limit);
+    }
+
     /**
      * Retrieves a room by its ID.
      *
@@ -71,28 +182,44 @@ public class RoomUseCase {
 
     /**
      * Updates an existing room.
+     * A change of type evicts the cached availability of the old and the new type for the months the room has
+     * booked nights in; other changes leave the cache alone, since the searches read the status and the price from
+     * the rooms.
      *
      * @param updatedRoom The updated room details.
      * @param id The ID of the room to update.
      * @return The number of rows affected.
      * @throws IllegalArgumentException If the room does not exist.
      */
+    @Transactional
     public int updateRoom(Room updatedRoom, long id) {
-        roomRepository.getRoomById(id)
+        Room room = roomRepository.getRoomById(id)
                 .orElseThrow(() -> new IllegalArgumentException("La habitación no existe"));
-        return roomRepository.updateRoom(updatedRoom, id);
+        if (availabilityCache != null && updatedRoom.type != room.type) {
+            availabilityCache.evictRoomAfterCommit(id, Arrays.asList(room.type, updatedRoom.type));
+        }
+        int rowsAffected = roomRepository.updateRoom(updatedRoom, id);
+        if (rowsAffected == 1 && updatedRoom.status != null) {
+            roomChanges.publish(RoomChangeEvent.status(id, updatedRoom.status));
+        }
+        return rowsAffected;
     }
 
     /**
      * Deletes a room by its ID.
+     * The cached availability of the type of the room is evicted for the months the room had booked nights in.
      *
      * @param idDeleteRoom The ID of the room to delete.
      * @return The number of rows affected.
      * @throws IllegalArgumentException If the room does not exist.
      */
+    @Transactional
     public int deleteRoom(long idDeleteRoom) {
-        roomRepository.getRoomById(idDeleteRoom)
+        Room room = roomRepository.getRoomById(idDeleteRoom)
                 .orElseThrow(() -> new IllegalArgumentException("La habitación no existe"));
+        if (availabilityCache != null) {
+            availabilityCache.evictRoomAfterCommit(idDeleteRoom, Collections.singletonList(room.type));
+        }
         return roomRepository.deleteRoom(idDeleteRoom);
     }
 
@@ -114,7 +241,6 @@ public class RoomUseCase {
      *
      * @return A list of available rooms in DTO format.
      */
-    @Cacheable("room-availability")
     public List<RoomDTO> getAvailableRooms() {
         return roomRepository.getAvailableRooms()
                 .stream()
@@ -122,6 +248,125 @@ public class RoomUseCase {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Searches the rooms that are free for a whole stay and quotes the price of the stay for each of them.
+     * Availability is resolved for every room at once instead of checking room by room: from the booked nights
+     * cached by {@link RoomAvailabilityCache} for each month of the stay when the cache is available, or with a
+     * single query otherwise. The rooms held by a client going through the checkout are left out.
+     *
+     * @param startDate The check-in date.
+     * @param endDate The check-out date.
+     * @param type The room type to filter by, or {@code null} for any type.
+     * @param minPrice The minimum price per night, or {@code null} for no lower bound.
+     * @param maxPrice The maximum price per night, or {@code null} for no upper bound.
+     * @return A list of free rooms with their price quote, cheapest first.
+     * @throws IllegalArgumentException If the dates or the price band are not valid.
+     */
+    public List<RoomQuoteDTO> searchAvailableRooms(LocalDate startDate, LocalDate endDate, RoomType type,
+                                                   BigDecimal minPrice, BigDecimal maxPrice) {
+        validateStay(startDate, endDate);
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("El precio mínimo no puede ser mayor que el precio máximo");
+        }
+
+        long nights = ChronoUnit.DAYS.between(startDate, endDate);
+        return findFreeRooms(startDate, endDate, type, minPrice, maxPrice)
+                .stream()
+                .filter(room -> !roomHolds.isHeldByOthers(room.id, startDate, endDate, null))
+                .map(room -> toQuoteDTO(room, startDate, endDate, nights))
+                .sorted(Comparator.comparing((RoomQuoteDTO quote) -> quote.total_price))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the rooms that are not in maintenance and have no booked night in a date range, ordered by price and
+     * room number.
+     */
+    private List<Room> findFreeRooms(LocalDate startDate, LocalDate endDate, RoomType type, BigDecimal minPrice,
+                                     BigDecimal maxPrice) {
+        if (availabilityCache == null) {
+            return roomRepository.searchAvailableRooms(startDate, endDate, type, minPrice, maxPrice);
+        }
+        Set<Long> booked = availabilityCache.getBookedRoomIds(type, startDate, endDate);
+        return roomRepository.getAllRooms().stream()
+                .filter(room -> room.status != RoomStatus.MAINTENANCE)
+                .filter(room -> type == null || room.type == type)
+                .filter(room -> minPrice == null || room.price_per_night.compareTo(minPrice) >= 0)
+                .filter(room -> maxPrice == null || room.price_per_night.compareTo(maxPrice) <= 0)
+                .filter(room -> !booked.contains(room.id))
+                .sorted(Comparator.comparing((Room room) -> room.price_per_night)
+                        .thenComparingInt(room -> room.room_number))
+                .toList();
+    }
+
+    /**
+     * Quotes the price of the same stay in several rooms at once.
+     * The rooms are read with a single query and every price comes from the precomputed {@link RateCalendar}.
+     *
+     * @param ids The IDs of the rooms to quote.
+     * @param startDate The check-in date.
+     * @param endDate The check-out date.
+     * @return The quotes of the rooms that exist, in the order of the requested IDs.
+     * @throws IllegalArgumentException If no room or more than {@value MAX_QUOTED_ROOMS} rooms are requested, or
+     *                                  if the dates are not valid.
+     */
+    public List<RoomQuoteDTO> quoteRooms(List<Long> ids, LocalDate startDate, LocalDate endDate) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("Hay que indicar al menos una habitación");
+        }
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinctIds.size() > MAX_QUOTED_ROOMS) {
+            throw new IllegalArgumentException("No se pueden presupuestar más de " + MAX_QUOTED_ROOMS +
+                    " habitaciones a la vez");
+        }
+        validateStay(startDate, endDate);
+
+        long nights = ChronoUnit.DAYS.between(startDate, endDate);
+        Map<Long, Room> rooms = roomRepository.getRoomsByIds(distinctIds).stream()
+                .collect(Collectors.toMap(room -> room.id, room -> room));
+        return distinctIds.stream()
+                .map(rooms::get)
+                .filter(Objects::nonNull)
+                .map(room -> toQuoteDTO(room, startDate, endDate, nights))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Validates the dates of a stay.
+     *
+     * @param startDate The check-in date.
+     * @param endDate The check-out date.
+     * @throws IllegalArgumentException If a date is missing or the stay has no nights.
+     */
+    private void validateStay(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            throw new IllegalArgumentException("Hay que indicar las fechas de entrada y salida");
+        }
+        if (!endDate.isAfter(startDate)) {
+            throw new IllegalArgumentException("La fecha de salida debe ser posterior a la fecha de entrada");
+        }
+    }
+
+    /**
+     * Converts a Room entity to a RoomQuoteDTO for a stay, priced with the rate calendar.
+     *
+     * @param room The Room entity.
+     * @param startDate The check-in date.
+     * @param endDate The check-out date.
+     * @param nights The number of nights of the stay.
+     * @return The corresponding RoomQuoteDTO.
+     */
+    private RoomQuoteDTO toQuoteDTO(Room room, LocalDate startDate, LocalDate endDate, long nights) {
+        return RoomQuoteDTO.builder()
+                .id(room.id)
+                .room_number(room.room_number)
+                .type(room.type)
+                .price_per_night(room.price_per_night)
+                .nights(nights)
+                .total_price(rateCalendar.quote(room.type, room.price_per_night, startDate, endDate))
+                .build();
+    }
+
     /**
      * Converts a Room entity to a RoomDTO.
      *
@@ -144,9 +389,76 @@ public class RoomUseCase {
      * @param status The new status (AVAILABLE, OCCUPIED, MAINTENANCE).
      * @return The number of rows affected.
      */
-    @CacheEvict(value = "room-availability", allEntries = true)
     public int updateStatus(long id, RoomStatus status) {
-        return roomRepository.updateStatus(id, status);
+        int rowsAffected = roomRepository.updateStatus(id, status);
+        if (rowsAffected == 1) {
+            roomChanges.publish(RoomChangeEvent.status(id, status));
+        }
+        return rowsAffected;
+    }
+
+    /**
+     * Updates the status of several rooms at once, in a single transaction: either every room gets its new status
+     * or none does. The room stripes are locked in stripe order, like a group booking, then the rooms are locked and
+     * read with one query and the rooms whose status actually changes are updated with one batched statement.
+     * Their changes are pushed to the subscribers together once the transaction commits.
+     *
+     * @param updates The new status of each room.
+     * @return The number of rooms whose status changed.
+     * @throws IllegalArgumentException If no room or more than {@value MAX_STATUS_UPDATES} rooms are given, if a
+     *                                  room or status is missing or repeated, or if a room does not exist.
+     */
+    @Transactional
+    public int updateStatuses(List<RoomStatusUpdateRequest> updates) {
+        if (updates == null || updates.isEmpty()) {
+            throw new IllegalArgumentException("Hay que indicar al menos una habitación");
+        }
+        if (updates.size() > MAX_STATUS_UPDATES) {
+            throw new IllegalArgumentException("No se pueden actualizar más de " + MAX_STATUS_UPDATES +
+                    " habitaciones a la vez");
+        }
+        Map<Long, RoomStatus> requested = new HashMap<>();
+        for (RoomStatusUpdateRequest update : updates) {
+            if (update == null || update.getRoom_id() == null || update.getStatus() == null) {
+                throw new IllegalArgumentException("Hay que indicar la habitación y el estado de cada cambio");
+            }
+            if (requested.put(update.getRoom_id(), update.getStatus()) != null) {
+                throw new IllegalArgumentException("La habitación " + update.getRoom_id() + " está repetida");
+            }
+        }
+
+        try (RoomBookingLocks.RoomLock ignored = roomBookingLocks.lockAll(requested.keySet())) {
+            List<Room> rooms = roomRepository.lockRooms(requested.keySet());
+            if (rooms.size() != requested.size()) {
+                Set<Long> found = rooms.stream().map(room -> room.id).collect(Collectors.toSet());
+                List<Long> missing = requested.keySet().stream().filter(id -> !found.contains(id)).sorted().toList();
+                throw new IllegalArgumentException("Las habitaciones " + missing + " no existen");
+            }
+
+            Map<Long, RoomStatus> changed = new LinkedHashMap<>();
+            rooms.stream()
+                    .filter(room -> room.status != requested.get(room.id))
+                    .forEach(room -> changed.put(room.id, requested.get(room.id)));
+            if (changed.isEmpty()) {
+                return 0;
+            }
+            roomRepository.updateStatuses(changed);
+            roomChanges.publishAll(changed.entrySet().stream()
+                    .map(change -> RoomChangeEvent.status(change.getKey(), change.getValue()))
+                    .toList());
+            return changed.size();
+        }
+    }
+
+    /**
+     * Subscribes to the changes of the rooms: status changes and the nights booked or released by the reservations.
+     *
+     * @param sink Receives the changes, one at a time.
+     * @return The subscription, to be closed when the subscriber goes away.
+     * @throws IllegalStateException If there are too many subscribers already.
+     */
+    public RoomChangeBroadcaster.Subscription subscribeToChanges(Consumer<RoomChangeEvent> sink) {
+        return roomChanges.subscribe(sink);
     }
 
     /**
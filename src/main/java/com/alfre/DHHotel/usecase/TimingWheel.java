@@ -0,0 +1,132 @@
+package com.alfre.DHHotel.usecase;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel that tells which scheduled items are due, without a timer per item.
+ * <p>
+ * Time is split into ticks. The lowest wheel has one slot per tick and every higher wheel has one slot per full
+ * turn of the wheel below it, so an item is stored in the wheel that matches how far away its deadline is.
+ * Advancing the clock walks the ticks once, and when a wheel completes a turn the next slot of the wheel above is
+ * cascaded into the lower wheels. Scheduling and expiring an item are constant time; nothing runs between calls,
+ * the owner advances the wheel whenever it needs an up-to-date view.
+ * </p>
+ * <p>
+ * The wheel is not thread-safe: the owner must guard every call.
+ * </p>
+ *
+ * @param <T> the type of the scheduled items
+ * @author Alfredo Sobrados González
+ */
+final class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final List<ArrayDeque<Entry<T>>> slots;
+    private long currentTick;
+    private int size;
+
+    private record Entry<T>(T item, long deadlineTick) {
+    }
+
+    /**
+     * Creates an empty wheel.
+     *
+     * @param tickMillis the length of a tick in milliseconds, the precision of the deadlines
+     * @param nowMillis the current time in milliseconds
+     */
+    TimingWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("La duración del tick debe ser mayor que 0");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+        this.slots = new ArrayList<>(LEVELS * SLOTS);
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            slots.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Schedules an item. Deadlines are rounded up to the next tick; deadlines already passed are due on the next
+     * advance.
+     *
+     * @param item the item
+     * @param deadlineMillis the time at which the item is due, in milliseconds
+     */
+    void schedule(T item, long deadlineMillis) {
+        long deadlineTick = Math.max(currentTick + 1, (deadlineMillis + tickMillis - 1) / tickMillis);
+        place(new Entry<>(item, deadlineTick));
+        size++;
+    }
+
+    /**
+     * Moves the wheel to the given time and returns the items that became due.
+     *
+     * @param nowMillis the current time in milliseconds
+     * @return the items whose deadline has passed, in deadline order
+     */
+    List<T> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<T> due = new ArrayList<>();
+        if (size == 0) {
+            currentTick = Math.max(currentTick, targetTick);
+            return due;
+        }
+
+        while (currentTick < targetTick && size > 0) {
+            currentTick++;
+            cascade();
+            ArrayDeque<Entry<T>> slot = slots.get((int) (currentTick & MASK));
+            while (!slot.isEmpty()) {
+                due.add(slot.poll().item());
+                size--;
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return due;
+    }
+
+    /**
+     * @return the number of scheduled items that are not due yet
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Redistributes the slots of the higher wheels whose turn starts at the current tick.
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                return;
+            }
+            ArrayDeque<Entry<T>> slot = slots.get(level * SLOTS + (int) ((currentTick >>> (SLOT_BITS * level)) & MASK));
+            List<Entry<T>> entries = new ArrayList<>(slot);
+            slot.clear();
+            entries.forEach(this::place);
+        }
+    }
+
+    /**
+     * Stores an entry in the wheel that matches the distance to its deadline.
+     */
+    private void place(Entry<T> entry) {
+        long delta = entry.deadlineTick() - currentTick;
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < (1L << (SLOT_BITS * (level + 1))) || level == LEVELS - 1) {
+                long tick = level == LEVELS - 1
+                        ? Math.min(entry.deadlineTick(), currentTick + (1L << (SLOT_BITS * LEVELS)) - 1)
+                        : entry.deadlineTick();
+                slots.get(level * SLOTS + (int) ((tick >>> (SLOT_BITS * level)) & MASK)).add(entry);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+-- Baseline schema, the same tables as src/test/resources/db/init.sql without the sample data.
+-- Databases created from init.sql are baselined at this version and skip it, so every later change to the schema
+-- goes in a new migration and never here.
+
+-- Users Table
+CREATE TABLE IF NOT EXISTS Users (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    email VARCHAR(255) UNIQUE NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role ENUM('CLIENT', 'ADMIN', 'SUPERADMIN') NOT NULL
+);
+
+-- Clients Table
+CREATE TABLE IF NOT EXISTS Client (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    phone VARCHAR(20) NOT NULL,
+    FOREIGN KEY (user_id) REFERENCES Users(id)
+    ON DELETE CASCADE ON UPDATE CASCADE
+);
+
+-- Rooms Table
+CREATE TABLE IF NOT EXISTS Room (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    room_number INT NOT NULL UNIQUE,
+    type ENUM('SINGLE', 'DOUBLE', 'SUITE') NOT NULL,
+    price_per_night DECIMAL(10, 2) NOT NULL,
+    status ENUM('AVAILABLE', 'OCCUPIED', 'MAINTENANCE') NOT NULL
+);
+
+-- Reservations Table
+CREATE TABLE IF NOT EXISTS Reservation (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    client_id BIGINT NOT NULL,
+    room_id BIGINT NOT NULL,
+    total_price DECIMAL(10, 2) NOT NULL,
+    start_date DATE NOT NULL,
+    end_date DATE NOT NULL,
+    status ENUM('PENDING', 'CONFIRMED', 'CANCELED') NOT NULL,
+    FOREIGN KEY (client_id) REFERENCES Client(id)
+    ON DELETE CASCADE ON UPDATE CASCADE,
+    FOREIGN KEY (room_id) REFERENCES Room(id)
+    ON DELETE CASCADE ON UPDATE CASCADE
+);
+
+-- Payments Table
+CREATE TABLE IF NOT EXISTS Payment (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    reservation_id BIGINT NOT NULL,
+    amount DECIMAL(10, 2) NOT NULL,
+    payment_date DATE NOT NULL,
+    method ENUM('CARD', 'CASH', 'TRANSFER') NOT NULL,
+    FOREIGN KEY (reservation_id) REFERENCES Reservation(id)
+    ON DELETE CASCADE ON UPDATE CASCADE
+);
+
+-- Administrators Table
+CREATE TABLE IF NOT EXISTS Administrator (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    FOREIGN KEY (user_id) REFERENCES Users(id)
+    ON DELETE CASCADE ON UPDATE CASCADE
+);
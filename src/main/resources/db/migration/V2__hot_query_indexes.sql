@@ -0,0 +1,18 @@
+-- Secondary indexes for the lookups that run on every request.
+-- Named explicitly so they replace the implicit foreign key indexes and can be found by the EXPLAIN checks.
+
+-- isRoomAvailable: the room, the date overlap and the status are all answered from the index
+CREATE INDEX IF NOT EXISTS idx_reservation_room_dates ON Reservation (room_id, start_date, end_date, status);
+
+-- getReservationsByClientId and the reservation side of getPaymentsByClient
+CREATE INDEX IF NOT EXISTS idx_reservation_client ON Reservation (client_id);
+
+-- getActiveReservations and the occupancy calendar window
+CREATE INDEX IF NOT EXISTS idx_reservation_end_date ON Reservation (end_date, start_date);
+
+-- getPaymentsByReservationId, and getTotalPaid without reading the payment rows
+CREATE INDEX IF NOT EXISTS idx_payment_reservation ON Payment (reservation_id, amount);
+
+-- getClientByUserId and getAdministratorByUserId, run on every authenticated request
+CREATE INDEX IF NOT EXISTS idx_client_user ON Client (user_id);
+CREATE INDEX IF NOT EXISTS idx_administrator_user ON Administrator (user_id);
@@ -0,0 +1,10 @@
+-- Seasonal Rates Table: percentage of the room base price charged per night during a period, per room type
+-- (NULL for every type). Later rates win over earlier ones and type rates over the ones for every type.
+CREATE TABLE IF NOT EXISTS SeasonalRate (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    room_type ENUM('SINGLE', 'DOUBLE', 'SUITE') NULL,
+    start_date DATE NOT NULL,
+    end_date DATE NOT NULL,
+    percentage INT NOT NULL,
+    weekend_percentage INT NULL
+);
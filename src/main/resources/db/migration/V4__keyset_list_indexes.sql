@@ -0,0 +1,15 @@
+-- Indexes for the keyset pages of the back-office lists: WHERE <filter> AND id > :afterId ORDER BY id LIMIT :limit.
+-- InnoDB appends the primary key to every secondary index, so an index on the filtered column alone already returns
+-- the rows of one value in id order: each page is a range read that stops after LIMIT rows, without a sort.
+-- The client filter uses idx_reservation_client from V2 and the reservation filter of the payments uses
+-- idx_payment_reservation.
+
+-- getReservationsPage by status
+CREATE INDEX IF NOT EXISTS idx_reservation_status ON Reservation (status);
+
+-- getReservationsPage by room; idx_reservation_room_dates returns the rows of a room ordered by date, not by id
+CREATE INDEX IF NOT EXISTS idx_reservation_room ON Reservation (room_id);
+
+-- getPaymentsPage by method and by date range
+CREATE INDEX IF NOT EXISTS idx_payment_method ON Payment (method);
+CREATE INDEX IF NOT EXISTS idx_payment_date ON Payment (payment_date);
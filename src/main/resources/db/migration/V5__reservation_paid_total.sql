@@ -0,0 +1,8 @@
+-- Sum of the payments of each reservation, kept by the payment writes in their own transaction with
+-- paid_total = paid_total + :delta, so the confirmation of a reservation and the balance views read it from the
+-- reservation row instead of adding up its payments every time.
+ALTER TABLE Reservation ADD COLUMN IF NOT EXISTS paid_total DECIMAL(10, 2) NOT NULL DEFAULT 0;
+
+-- The payments made before the column existed
+UPDATE Reservation r
+SET paid_total = (SELECT COALESCE(SUM(p.amount), 0) FROM Payment p WHERE p.reservation_id = r.id);
@@ -0,0 +1,16 @@
+-- Revenue and occupancy of each day by room type, kept by the reservation and payment writes in their own
+-- transaction with rooms_sold = rooms_sold + :delta, so the management reports read a few rows per day instead of
+-- adding up every reservation and payment on each refresh.
+-- rooms_sold and room_revenue count the nights of the non-canceled reservations, from the check-in date up to but
+-- not including the check-out date, with the price of each reservation spread over its nights; payments_total adds
+-- up the payments by their date.
+CREATE TABLE IF NOT EXISTS DailyRevenue (
+    day DATE NOT NULL,
+    room_type ENUM('SINGLE', 'DOUBLE', 'SUITE') NOT NULL,
+    rooms_sold INT NOT NULL DEFAULT 0,
+    room_revenue DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    payments_total DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, room_type)
+);
+
+-- The payments of each day are added up again when the rollups are checked through idx_payment_date from V4.
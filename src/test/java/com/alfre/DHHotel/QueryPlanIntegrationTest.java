@@ -0,0 +1,239 @@
+package com.alfre.DHHotel;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.MariaDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * This class contains the integration tests of the schema migrations and of the query plans of the
+ * repository lookups that run on every request.
+ * <p>
+ * The migrations are applied to an empty MariaDB database, the tables are filled with enough rows for the
+ * optimizer to prefer the indexes, and every query is run through {@code EXPLAIN}. A full table scan on any of
+ * the tables a query is expected to reach by index fails the test. The SQL is kept in sync by hand with the
+ * repositories, like the SQL strings of the repository unit tests.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class QueryPlanIntegrationTest {
+
+    @Container
+    public static MariaDBContainer<?> mariaDB = new MariaDBContainer<>(DockerImageName.parse("mariadb:10.6.5"))
+            .withDatabaseName("dhhotel")
+            .withUsername("test")
+            .withPassword("test1234");
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private MigrateResult migrateResult;
+
+    /**
+     * A repository query, the parameters to explain it with and the tables it must not scan entirely.
+     */
+    private record PlannedQuery(String name, String sql, MapSqlParameterSource params, Set<String> indexedTables) {
+    }
+
+    /**
+     * Applies the migrations to the empty database and fills it with sample data.
+     */
+    @BeforeAll
+    public void migrateAndSeed() {
+        migrateResult = Flyway.configure()
+                .dataSource(mariaDB.getJdbcUrl(), mariaDB.getUsername(), mariaDB.getPassword())
+                .load()
+                .migrate();
+
+        jdbcTemplate = new NamedParameterJdbcTemplate(new DriverManagerDataSource(mariaDB.getJdbcUrl(),
+                mariaDB.getUsername(), mariaDB.getPassword()));
+        var jdbc = jdbcTemplate.getJdbcTemplate();
+        jdbc.update("INSERT INTO Users (email, password, role) " +
+                "SELECT CONCAT('user', seq, '@test.com'), 'hashed', IF(seq > 1000, 'ADMIN', 'CLIENT') " +
+                "FROM seq_1_to_1200");
+        jdbc.update("INSERT INTO Client (user_id, first_name, last_name, phone) " +
+                "SELECT seq, 'First', 'Last', '555-0000' FROM seq_1_to_1000");
+        jdbc.update("INSERT INTO Administrator (user_id, name) SELECT seq, 'Admin' FROM seq_1001_to_1200");
+        jdbc.update("INSERT INTO Room (room_number, type, price_per_night, status) " +
+                "SELECT 100 + seq, 'DOUBLE', 80.00, IF(seq % 20 = 0, 'MAINTENANCE', 'AVAILABLE') " +
+                "FROM seq_1_to_200");
+        jdbc.update("INSERT INTO Reservation (client_id, room_id, total_price, start_date, end_date, status) " +
+                "SELECT 1 + seq % 1000, 1 + seq % 200, 100.00, " +
+                "DATE_ADD('2010-01-01', INTERVAL seq % 7300 DAY), " +
+                "DATE_ADD('2010-01-01', INTERVAL seq % 7300 + 1 + seq % 4 DAY), " +
+                "ELT(1 + seq % 3, 'PENDING', 'CONFIRMED', 'CANCELED') FROM seq_1_to_20000");
+        jdbc.update("INSERT INTO Payment (reservation_id, amount, payment_date, method) " +
+                "SELECT id, 50.00, start_date, 'CARD' FROM Reservation");
+        jdbc.update("INSERT IGNORE INTO RoomNight (room_id, night, reservation_id) " +
+                "SELECT room_id, start_date, id FROM Reservation");
+        jdbc.execute("ANALYZE TABLE Users, Client, Administrator, Room, Reservation, Payment, RoomNight");
+    }
+
+    /**
+     * Tests that the migrations build the whole schema on an empty database, including the secondary indexes.
+     */
+    @Test
+    public void migrationsCreateSchemaAndIndexes() {
+        assertThat(migrateResult.success).isTrue();
+
+        List<String> indexes = jdbcTemplate.getJdbcTemplate().queryForList(
+                "SELECT DISTINCT index_name FROM information_schema.statistics WHERE table_schema = DATABASE()",
+                String.class);
+        List<String> tables = jdbcTemplate.getJdbcTemplate().queryForList(
+                "SELECT table_name FROM information_schema.tables WHERE table_schema = DATABASE()", String.class);
+        assertThat(tables).contains("SeasonalRate", "RoomNight");
+        assertThat(indexes).contains("idx_reservation_room_dates", "idx_reservation_client",
+                "idx_reservation_end_date", "idx_payment_reservation", "idx_client_user", "idx_administrator_user",
+                "idx_reservation_status", "idx_reservation_room", "idx_payment_method", "idx_payment_date");
+    }
+
+    /**
+     * Tests that none of the per-request repository queries falls back to a full table scan.
+     */
+    @Test
+    public void hotQueriesDoNotScanWholeTables() {
+        List<String> fullScans = new ArrayList<>();
+
+        for (PlannedQuery query : plannedQueries()) {
+            List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + query.sql(), query.params());
+            for (Map<String, Object> step : plan) {
+                String table = String.valueOf(step.get("table"));
+                if ("ALL".equals(step.get("type")) && query.indexedTables().contains(table)) {
+                    fullScans.add(query.name() + " -> " + table + " " + step);
+                }
+            }
+        }
+
+        assertThat(fullScans).as("Full table scans").isEmpty();
+    }
+
+    private List<PlannedQuery> plannedQueries() {
+        LocalDate startDate = LocalDate.of(2020, 5, 1);
+        LocalDate endDate = LocalDate.of(2020, 5, 5);
+
+        return List.of(
+                new PlannedQuery("ReservationJdbcRepository.isRoomAvailable", """
+                        SELECT COALESCE(COUNT(*), 0)
+                        FROM Reservation
+                        WHERE room_id = :roomId
+                        AND (
+                            (start_date <= :endDate AND end_date >= :startDate)
+                            AND status NOT IN ('CANCELED')
+                        )
+                        AND room_id NOT IN (
+                            SELECT id
+                            FROM Room
+                            WHERE status = 'MAINTENANCE'
+                        )
+                        """,
+                        new MapSqlParameterSource("roomId", 7L)
+                                .addValue("startDate", startDate)
+                                .addValue("endDate", endDate),
+                        Set.of("Reservation")),
+                new PlannedQuery("ReservationJdbcRepository.getReservationsByClientId",
+                        "SELECT * FROM Reservation WHERE client_id = :clientId",
+                        new MapSqlParameterSource("clientId", 42L),
+                        Set.of("Reservation")),
+                new PlannedQuery("ReservationJdbcRepository.getReservationsBetween",
+                        "SELECT * FROM Reservation WHERE status <> 'CANCELED' AND start_date <= :endDate " +
+                                "AND end_date >= :startDate ORDER BY room_id, start_date",
+                        new MapSqlParameterSource("startDate", startDate).addValue("endDate", endDate),
+                        Set.of("Reservation")),
+                new PlannedQuery("ReservationJdbcRepository.getActiveReservations",
+                        "SELECT * FROM Reservation WHERE status <> 'CANCELED' AND end_date >= :from",
+                        new MapSqlParameterSource("from", LocalDate.of(2029, 11, 1)),
+                        Set.of("Reservation")),
+                new PlannedQuery("ReservationJdbcRepository.getUnavailableRoomIds",
+                        "SELECT DISTINCT room_id FROM RoomNight WHERE room_id IN (:roomIds) " +
+                                "AND night BETWEEN :startDate AND :endDate ORDER BY room_id",
+                        new MapSqlParameterSource("roomIds", List.of(3L, 4L, 5L))
+                                .addValue("startDate", startDate)
+                                .addValue("endDate", endDate),
+                        Set.of("RoomNight")),
+                new PlannedQuery("PaymentJdbcRepository.getPaymentsByReservationId",
+                        "SELECT * FROM Payment WHERE reservation_id = :reservationId",
+                        new MapSqlParameterSource("reservationId", 1234L),
+                        Set.of("Payment")),
+                new PlannedQuery("PaymentJdbcRepository.getTotalPaid",
+                        "SELECT COALESCE(SUM(amount), 0) FROM Payment WHERE reservation_id = :reservationId",
+                        new MapSqlParameterSource("reservationId", 1234L),
+                        Set.of("Payment")),
+                new PlannedQuery("PaymentJdbcRepository.getPaymentsByClient", """
+                        SELECT p.*
+                        FROM Payment p
+                        JOIN Reservation r ON p.reservation_id = r.id
+                        WHERE r.client_id = :clientId""",
+                        new MapSqlParameterSource("clientId", 42L),
+                        Set.of("p", "r")),
+                new PlannedQuery("ReservationJdbcRepository.getReservationsPage",
+                        "SELECT id, client_id, room_id, total_price, start_date, end_date, status, version, " +
+                                "paid_total FROM Reservation WHERE id > :afterId ORDER BY id LIMIT :limit",
+                        new MapSqlParameterSource("afterId", 15000L).addValue("limit", 100),
+                        Set.of("Reservation")),
+                new PlannedQuery("ReservationJdbcRepository.getReservationsPage with fields",
+                        "SELECT id, start_date, status FROM Reservation WHERE id > :afterId ORDER BY id LIMIT :limit",
+                        new MapSqlParameterSource("afterId", 15000L).addValue("limit", 100),
+                        Set.of("Reservation")),
+                new PlannedQuery("ReservationJdbcRepository.getReservationsPage by room",
+                        "SELECT id, client_id, room_id, total_price, start_date, end_date, status, version, " +
+                                "paid_total FROM Reservation WHERE id > :afterId AND room_id = :roomId " +
+                                "ORDER BY id LIMIT :limit",
+                        new MapSqlParameterSource("afterId", 0L).addValue("roomId", 7L).addValue("limit", 100),
+                        Set.of("Reservation")),
+                new PlannedQuery("ReservationJdbcRepository.getReservationsPage by client",
+                        "SELECT id, client_id, room_id, total_price, start_date, end_date, status, version, " +
+                                "paid_total FROM Reservation WHERE id > :afterId AND client_id = :clientId " +
+                                "ORDER BY id LIMIT :limit",
+                        new MapSqlParameterSource("afterId", 0L).addValue("clientId", 42L).addValue("limit", 100),
+                        Set.of("Reservation")),
+                new PlannedQuery("PaymentJdbcRepository.getPaymentsPage by date",
+                        "SELECT id, reservation_id, amount, payment_date, method, version FROM Payment " +
+                                "WHERE id > :afterId AND payment_date >= :from AND payment_date <= :to " +
+                                "ORDER BY id LIMIT :limit",
+                        new MapSqlParameterSource("afterId", 0L)
+                                .addValue("from", startDate)
+                                .addValue("to", endDate)
+                                .addValue("limit", 100),
+                        Set.of("Payment")),
+                new PlannedQuery("ClientJdbcRepository.getClientsPage",
+                        "SELECT id, user_id, first_name, last_name, phone FROM Client " +
+                                "WHERE id > :afterId ORDER BY id LIMIT :limit",
+                        new MapSqlParameterSource("afterId", 500L).addValue("limit", 100),
+                        Set.of("Client")),
+                new PlannedQuery("ClientJdbcRepository.getClientByUserId",
+                        "SELECT * FROM Client WHERE user_id = :userId",
+                        new MapSqlParameterSource("userId", 42L),
+                        Set.of("Client")),
+                new PlannedQuery("AdministratorJdbcRepository.getAdministratorByUserId",
+                        "SELECT * FROM Administrator WHERE user_id = :userId",
+                        new MapSqlParameterSource("userId", 1100L),
+                        Set.of("Administrator")),
+                new PlannedQuery("UserJdbcRepository.getUserByEmail",
+                        "SELECT * FROM Users WHERE email = :email",
+                        new MapSqlParameterSource("email", "user42@test.com"),
+                        Set.of("Users")),
+                new PlannedQuery("UserJdbcRepository.getPrincipalByEmail",
+                        "SELECT id, email, role FROM Users WHERE email = :email",
+                        new MapSqlParameterSource("email", "user42@test.com"),
+                        Set.of("Users"))
+        );
+    }
+}
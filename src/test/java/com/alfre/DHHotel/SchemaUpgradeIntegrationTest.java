@@ -0,0 +1,98 @@
+package com.alfre.DHHotel;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.MariaDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * This class contains the integration tests of the upgrade of a database created from init.sql, the schema of the
+ * deployments made before the migrations existed.
+ * <p>
+ * The database is baselined at version 1 as the application does with {@code baseline-on-migrate}, so the
+ * baseline schema is skipped and every later migration must bring the existing tables and rows up to date.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class SchemaUpgradeIntegrationTest {
+
+    @Container
+    public static MariaDBContainer<?> mariaDB = new MariaDBContainer<>(DockerImageName.parse("mariadb:10.6.5"))
+            .withDatabaseName("dhhotel")
+            .withUsername("test")
+            .withPassword("test1234")
+            .withInitScript("db/init.sql");
+
+    private JdbcTemplate jdbcTemplate;
+
+    private MigrateResult migrateResult;
+
+    /**
+     * Migrates the database created from init.sql with the same baseline settings as application.yml.
+     */
+    @BeforeAll
+    public void migrate() {
+        migrateResult = Flyway.configure()
+                .dataSource(mariaDB.getJdbcUrl(), mariaDB.getUsername(), mariaDB.getPassword())
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(mariaDB.getJdbcUrl(),
+                mariaDB.getUsername(), mariaDB.getPassword()));
+    }
+
+    /**
+     * Tests that the baseline is skipped and every later migration runs on the existing schema.
+     */
+    @Test
+    public void migrationsRunAfterTheBaseline() {
+        assertThat(migrateResult.success).isTrue();
+        assertThat(migrateResult.migrations).extracting(migration -> migration.version)
+                .doesNotContain("1")
+                .contains("7");
+    }
+
+    /**
+     * Tests that the existing reservations and payments get the version columns, starting at zero.
+     */
+    @Test
+    public void versionColumnsAreAddedToExistingRows() {
+        List<Long> reservationVersions = jdbcTemplate.queryForList("SELECT version FROM Reservation", Long.class);
+        List<Long> paymentVersions = jdbcTemplate.queryForList("SELECT version FROM Payment", Long.class);
+
+        assertThat(reservationVersions).hasSize(3).containsOnly(0L);
+        assertThat(paymentVersions).hasSize(2).containsOnly(0L);
+    }
+
+    /**
+     * Tests that the room-night ledger is filled with every day of the non-canceled reservations of init.sql,
+     * check-in and check-out dates included, and that the canceled one gets no nights.
+     */
+    @Test
+    public void roomNightLedgerIsBackfilledFromExistingReservations() {
+        String sql = "SELECT COUNT(*) FROM RoomNight WHERE reservation_id = ?";
+
+        assertThat(jdbcTemplate.queryForObject(sql, Integer.class, 1)).isEqualTo(5);
+        assertThat(jdbcTemplate.queryForObject(sql, Integer.class, 2)).isEqualTo(6);
+        assertThat(jdbcTemplate.queryForObject(sql, Integer.class, 3)).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT MIN(night) = '2024-09-01' AND MAX(night) = '2024-09-05' FROM RoomNight " +
+                        "WHERE reservation_id = 1", Boolean.class)).isTrue();
+    }
+}
@@ -0,0 +1,158 @@
+package com.alfre.DHHotel.cache;
+
+import com.alfre.DHHotel.adapter.cache.IdempotencyStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the IdempotencyStore class. Two stores sharing the same local stand-in play
+ * two API nodes sharing Redis.
+ *
+ * @author Alfredo Sobrados González
+ */
+public class IdempotencyStoreTest {
+    private final IdempotencyStore.Shared shared = IdempotencyStore.Shared.local(100, Duration.ofHours(1));
+    private final IdempotencyStore node1 = new IdempotencyStore(shared, 100, Duration.ofHours(1));
+    private final IdempotencyStore node2 = new IdempotencyStore(shared, 100, Duration.ofHours(1));
+    private final AtomicInteger runs = new AtomicInteger();
+
+    private long create() {
+        return 100 + runs.incrementAndGet();
+    }
+
+    @Test
+    public void execute_retry_returnsFirstResponseWithoutRunningAgain() {
+        assertEquals(101, node1.execute("k1", this::create));
+        assertEquals(101, node1.execute("k1", this::create));
+        assertEquals(102, node1.execute("k2", this::create));
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void execute_retryOnAnotherNode_isAnsweredFromSharedTier() {
+        node1.execute("k1", this::create);
+
+        assertEquals(101, node2.execute("k1", this::create));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void execute_withoutKey_alwaysRuns() {
+        node1.execute(null, this::create);
+        node1.execute(null, this::create);
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void execute_failedRequest_releasesKey() {
+        assertThrows(IllegalStateException.class, () -> node1.execute("k1", () -> {
+            throw new IllegalStateException("Habitación no disponible en las fechas solicitadas");
+        }));
+
+        assertEquals(101, node2.execute("k1", this::create));
+    }
+
+    @Test
+    public void execute_keyRunningOnAnotherNode_isRefused() {
+        shared.putIfAbsent("dhhotel:idempotency:k1", "pending", Duration.ofMinutes(1));
+
+        assertThrows(ConcurrencyFailureException.class, () -> node1.execute("k1", this::create));
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    public void execute_concurrentDuplicates_runOnce() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Long> first = CompletableFuture.supplyAsync(() -> node1.execute("k1", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return create();
+        }));
+        started.await();
+
+        CompletableFuture<Long> duplicate = new CompletableFuture<>();
+        Thread thread = new Thread(() -> duplicate.complete(node1.execute("k1", this::create)));
+        thread.start();
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertEquals(101, first.get());
+        assertEquals(101, duplicate.get());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void execute_sharedTierDown_runsAndAnswersRetriesFromLocalCache() {
+        IdempotencyStore.Shared down = new IdempotencyStore.Shared() {
+            @Override
+            public String putIfAbsent(String key, String value, Duration ttl) {
+                throw new DataAccessResourceFailureException("Redis no disponible");
+            }
+
+            @Override
+            public void put(String key, String value, Duration ttl) {
+                throw new DataAccessResourceFailureException("Redis no disponible");
+            }
+
+            @Override
+            public void remove(String key) {
+                throw new DataAccessResourceFailureException("Redis no disponible");
+            }
+        };
+        IdempotencyStore store = new IdempotencyStore(down, 100, Duration.ofHours(1));
+
+        assertEquals(101, store.execute("k1", this::create));
+        assertEquals(101, store.execute("k1", this::create));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void execute_sameKeyDifferentBody_isRefused() {
+        String body = IdempotencyStore.fingerprint(7L, "2025-06-02");
+        String otherBody = IdempotencyStore.fingerprint(8L, "2025-06-02");
+        assertEquals(101, node1.execute("k1", body, this::create));
+
+        assertEquals(101, node1.execute("k1", body, this::create));
+        assertThrows(IdempotencyStore.KeyReusedException.class, () -> node1.execute("k1", otherBody, this::create));
+        assertThrows(IdempotencyStore.KeyReusedException.class, () -> node2.execute("k1", otherBody, this::create));
+        assertEquals(101, node2.execute("k1", body, this::create));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void execute_keyRunningOnAnotherNodeWithDifferentBody_isRefusedAsReused() {
+        shared.putIfAbsent("dhhotel:idempotency:k1", "pending:" + IdempotencyStore.fingerprint(7L),
+                Duration.ofMinutes(1));
+
+        assertThrows(IdempotencyStore.KeyReusedException.class,
+                () -> node1.execute("k1", IdempotencyStore.fingerprint(8L), this::create));
+        assertThrows(ConcurrencyFailureException.class,
+                () -> node1.execute("k1", IdempotencyStore.fingerprint(7L), this::create));
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    public void checkKey_blankOrTooLong_isRejected() {
+        assertDoesNotThrow(() -> IdempotencyStore.checkKey(null));
+        assertDoesNotThrow(() -> IdempotencyStore.checkKey("3f1c2a9e-7b4d-4e8a-9c61-0d2f5b8a4e17"));
+        assertThrows(IllegalArgumentException.class, () -> IdempotencyStore.checkKey(" "));
+        assertThrows(IllegalArgumentException.class, () -> IdempotencyStore.checkKey("k".repeat(256)));
+    }
+}
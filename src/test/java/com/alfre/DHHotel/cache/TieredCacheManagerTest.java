@@ -0,0 +1,182 @@
+package com.alfre.DHHotel.cache;
+
+import com.alfre.DHHotel.adapter.cache.TieredCacheManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the TieredCacheManager class. Two managers share the same L2 cache manager
+ * and the invalidation messages of one node are delivered to both, like the Redis channel does.
+ *
+ * @author Alfredo Sobrados González
+ */
+public class TieredCacheManagerTest {
+    private ConcurrentMapCacheManager sharedCacheManager;
+    private SimpleMeterRegistry meterRegistry;
+    private List<TieredCacheManager> nodes;
+    private TieredCacheManager node1;
+    private TieredCacheManager node2;
+
+    @BeforeEach
+    public void setUp() {
+        sharedCacheManager = new ConcurrentMapCacheManager("rooms");
+        meterRegistry = new SimpleMeterRegistry();
+        nodes = new ArrayList<>();
+        node1 = newNode();
+        node2 = newNode();
+    }
+
+    private TieredCacheManager newNode() {
+        TieredCacheManager node = new TieredCacheManager(sharedCacheManager,
+                payload -> nodes.forEach(n -> n.onMessage(
+                        new DefaultMessage("channel".getBytes(StandardCharsets.UTF_8),
+                                payload.getBytes(StandardCharsets.UTF_8)), null)),
+                meterRegistry, 100, Duration.ofMinutes(1));
+        nodes.add(node);
+        return node;
+    }
+
+    private double gets(String tier, String result) {
+        return meterRegistry.get("dhhotel.cache.gets").tag("cache", "rooms").tag("tier", tier).tag("result", result)
+                .counters().stream().mapToDouble(c -> c.count()).sum();
+    }
+
+    @Test
+    public void get_afterSharedHit_isServedFromLocalCache() {
+        sharedCacheManager.getCache("rooms").put(1L, "room 1");
+        Cache cache = node1.getCache("rooms");
+
+        assertEquals("room 1", cache.get(1L).get());
+        sharedCacheManager.getCache("rooms").evict(1L);
+        assertEquals("room 1", cache.get(1L).get());
+        assertNull(cache.get(2L));
+
+        assertEquals(1, gets("l1", "hit"));
+        assertEquals(2, gets("l1", "miss"));
+        assertEquals(1, gets("l2", "hit"));
+        assertEquals(1, gets("l2", "miss"));
+    }
+
+    @Test
+    public void evict_onOneNode_dropsLocalEntryOnOtherNodes() {
+        node1.getCache("rooms").put(1L, "room 1");
+        assertEquals("room 1", node2.getCache("rooms").get(1L).get());
+
+        node1.getCache("rooms").evict(1L);
+
+        assertNull(node2.getCache("rooms").get(1L));
+        assertNull(sharedCacheManager.getCache("rooms").get(1L));
+    }
+
+    @Test
+    public void put_onOneNode_replacesStaleEntryOnOtherNodes() {
+        node1.getCache("rooms").put(1L, "room 1");
+        assertEquals("room 1", node2.getCache("rooms").get(1L).get());
+
+        node1.getCache("rooms").put(1L, "room 1 updated");
+
+        assertEquals("room 1 updated", node2.getCache("rooms").get(1L).get());
+        assertEquals("room 1 updated", node1.getCache("rooms").get(1L).get());
+    }
+
+    @Test
+    public void clear_onOneNode_dropsEveryLocalEntryOnOtherNodes() {
+        node1.getCache("rooms").put(1L, "room 1");
+        node1.getCache("rooms").put("all", List.of("room 1"));
+        node2.getCache("rooms").get(1L);
+        node2.getCache("rooms").get("all");
+
+        node1.getCache("rooms").clear();
+
+        assertNull(node2.getCache("rooms").get(1L));
+        assertNull(node2.getCache("rooms").get("all"));
+    }
+
+    @Test
+    public void get_withValueLoader_loadsOnceAndStoresInBothTiers() {
+        Cache cache = node1.getCache("rooms");
+
+        assertEquals("room 1", cache.get(1L, () -> "room 1"));
+        assertEquals("room 1", cache.get(1L, () -> fail("should not load twice")));
+        assertEquals("room 1", sharedCacheManager.getCache("rooms").get(1L).get());
+    }
+
+    @Test
+    public void get_withValueLoader_concurrentMissesLoadOnce() throws Exception {
+        Cache cache = node1.getCache("rooms");
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get(1L, () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                release.await();
+                return "room 1";
+            })));
+            loading.await();
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> cache.get(1L, () -> "room " + (100 + loads.incrementAndGet()))));
+            }
+            Thread.sleep(50);
+            release.countDown();
+
+            for (Future<Object> result : results) {
+                assertEquals("room 1", result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+            assertEquals(1.0, gets("l2", "miss"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void evict_whenBroadcastFails_stillEvictsBothTiers() {
+        TieredCacheManager isolated = new TieredCacheManager(sharedCacheManager, payload -> {
+            throw new IllegalStateException("Redis no disponible");
+        }, meterRegistry, 100, Duration.ofMinutes(1));
+        Cache cache = isolated.getCache("rooms");
+        cache.put(1L, "room 1");
+
+        cache.evict(1L);
+
+        assertNull(cache.get(1L));
+        assertNull(sharedCacheManager.getCache("rooms").get(1L));
+    }
+
+    @Test
+    public void localCache_isBoundedBySize() {
+        TieredCacheManager small = new TieredCacheManager(sharedCacheManager, payload -> { },
+                new SimpleMeterRegistry(), 10, Duration.ofMinutes(1));
+        Cache cache = small.getCache("rooms");
+        for (long id = 0; id < 1000; id++) {
+            cache.put(id, "room " + id);
+        }
+
+        com.github.benmanes.caffeine.cache.Cache<?, ?> local =
+                (com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache();
+        local.cleanUp();
+        assertTrue(local.estimatedSize() <= 10);
+        assertEquals("room 999", cache.get(999L).get());
+    }
+}
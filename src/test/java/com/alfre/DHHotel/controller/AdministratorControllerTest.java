@@ -75,7 +75,7 @@ public class AdministratorControllerTest {
         administrator.setName("Admin Test");
         administratorList.add(administrator);
 
-        when(administratorUseCase.getAllAdministrators()).thenReturn(administratorList);
+        when(administratorUseCase.getAdministratorsPage(0, 100)).thenReturn(administratorList);
 
         // Act & Assert: Perform GET request and verify response
         mockMvc.perform(get("/api/superadmin/admins")
@@ -87,7 +87,7 @@ public class AdministratorControllerTest {
                 .andExpect(jsonPath("$[0].name").value("Admin Test"))
                 .andDo(print());
 
-        verify(administratorUseCase).getAllAdministrators();
+        verify(administratorUseCase).getAdministratorsPage(0, 100);
     }
 
     /**
@@ -105,7 +105,7 @@ public class AdministratorControllerTest {
         // Arrange: Prepare an empty administrator list
         List<Administrator> administratorList = new ArrayList<>();
 
-        when(administratorUseCase.getAllAdministrators()).thenReturn(administratorList);
+        when(administratorUseCase.getAdministratorsPage(0, 100)).thenReturn(administratorList);
 
         // Act & Assert: Perform GET request and verify that a 404 is returned with the expected message.
         mockMvc.perform(get("/api/superadmin/admins")
@@ -113,7 +113,7 @@ public class AdministratorControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(content().string("No hay administradores registrados en el sistema."));
 
-        verify(administratorUseCase).getAllAdministrators();
+        verify(administratorUseCase).getAdministratorsPage(0, 100);
     }
 
     /**
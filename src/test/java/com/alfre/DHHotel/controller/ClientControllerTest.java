@@ -2,6 +2,7 @@ package com.alfre.DHHotel.controller;
 
 import com.alfre.DHHotel.adapter.web.controller.ClientController;
 import com.alfre.DHHotel.domain.model.Client;
+import com.alfre.DHHotel.domain.model.FieldSet;
 import com.alfre.DHHotel.usecase.ClientUseCase;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -77,7 +78,7 @@ public class ClientControllerTest {
         clientList.add(client2);
 
         // Stub the use case to return the client list.
-        when(clientUseCase.getAllClients()).thenReturn(clientList);
+        when(clientUseCase.getClientsPage(0, 100, FieldSet.ALL)).thenReturn(clientList);
 
         // Execute GET request and verify response.
         mockMvc.perform(get("/api/admin/clients").with(csrf()))
@@ -91,8 +92,8 @@ public class ClientControllerTest {
                 .andExpect(jsonPath("$[1].first_name").value("María"))
                 .andDo(print());
 
-        // Verify that getAllClients was called once.
-        verify(clientUseCase, times(1)).getAllClients();
+        // Verify that the first page of clients was read once.
+        verify(clientUseCase, times(1)).getClientsPage(0, 100, FieldSet.ALL);
     }
 
     /**
@@ -105,7 +106,7 @@ public class ClientControllerTest {
         // Prepare an empty client list.
         List<Client> clientList = new ArrayList<>();
 
-        when(clientUseCase.getAllClients()).thenReturn(clientList);
+        when(clientUseCase.getClientsPage(0, 100, FieldSet.ALL)).thenReturn(clientList);
 
         // Execute GET request and verify 404 response.
         mockMvc.perform(get("/api/admin/clients")
@@ -113,7 +114,7 @@ public class ClientControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(content().string("No hay clientes registrados en el sistema."));
 
-        verify(clientUseCase).getAllClients();
+        verify(clientUseCase).getClientsPage(0, 100, FieldSet.ALL);
     }
 
     /**
@@ -1,24 +1,36 @@
 package com.alfre.DHHotel.controller;
 
+import com.alfre.DHHotel.adapter.persistence.DataVersions;
 import com.alfre.DHHotel.adapter.web.controller.PaymentController;
+import com.alfre.DHHotel.domain.model.FieldSet;
+import com.alfre.DHHotel.domain.model.MethodPayment;
 import com.alfre.DHHotel.domain.model.Payment;
+import com.alfre.DHHotel.domain.model.PaymentFilter;
 import com.alfre.DHHotel.usecase.PaymentUseCase;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -36,6 +48,9 @@ public class PaymentControllerTest {
     @Mock
     private PaymentUseCase paymentUseCase;
 
+    @Spy
+    private DataVersions versions = new DataVersions();
+
     @InjectMocks
     private PaymentController paymentController;
 
@@ -58,7 +73,7 @@ public class PaymentControllerTest {
     public void whenGetAllPayments_success_thenReturnsPaymentList() throws Exception {
         // Arrange: Prepare a list of payments.
         List<Payment> paymentList = Arrays.asList(new Payment(), new Payment());
-        when(paymentUseCase.getAllPayments()).thenReturn(paymentList);
+        when(paymentUseCase.getPaymentsPage(PaymentFilter.NONE, 0, 100, FieldSet.ALL)).thenReturn(paymentList);
 
         // Act & Assert: Perform GET request and verify that the response contains two payments.
         mockMvc.perform(get("/api/admin/payments").with(csrf()))
@@ -67,7 +82,7 @@ public class PaymentControllerTest {
                 .andExpect(jsonPath("$", hasSize(2)))
                 .andDo(print());
 
-        verify(paymentUseCase, times(1)).getAllPayments();
+        verify(paymentUseCase, times(1)).getPaymentsPage(PaymentFilter.NONE, 0, 100, FieldSet.ALL);
     }
 
     /**
@@ -79,7 +94,7 @@ public class PaymentControllerTest {
     public void whenGetAllPayments_failure_thenReturnsNotFound() throws Exception {
         // Arrange: Prepare an empty payment list.
         List<Payment> paymentList = new ArrayList<>();
-        when(paymentUseCase.getAllPayments()).thenReturn(paymentList);
+        when(paymentUseCase.getPaymentsPage(PaymentFilter.NONE, 0, 100, FieldSet.ALL)).thenReturn(paymentList);
 
         // Act & Assert: Perform GET request and verify that a 404 status is returned with the expected message.
         mockMvc.perform(get("/api/admin/payments")
@@ -87,7 +102,7 @@ public class PaymentControllerTest {
                 .andExpect(status().isNotFound())
                 .andExpect(content().string("No hay pagos registrados en el sistema."));
 
-        verify(paymentUseCase).getAllPayments();
+        verify(paymentUseCase).getPaymentsPage(PaymentFilter.NONE, 0, 100, FieldSet.ALL);
     }
 
     /**
@@ -239,6 +254,29 @@ public class PaymentControllerTest {
                 .andDo(print());
     }
 
+    /**
+     * Tests that updating a payment changed since the If-Match version returns a 412 Precondition Failed.
+     *
+     * @throws Exception if an error occurs during the HTTP request
+     */
+    @Test
+    public void whenUpdatePayment_staleIfMatch_thenReturnsPreconditionFailed() throws Exception {
+        // Arrange: Stub updatePayment to report a concurrent modification.
+        long paymentId = 1L;
+        when(paymentUseCase.updatePayment(any(), eq(paymentId)))
+                .thenThrow(new OptimisticLockingFailureException("El pago ha sido modificado"));
+
+        // Act & Assert: Perform PUT request with an If-Match header and verify the 412 response.
+        mockMvc.perform(put("/api/superadmin/payment/{id}", paymentId)
+                        .header("If-Match", "W/\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"method\":\"CASH\"}")
+                        .with(csrf()))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(content().string("El pago ha sido modificado"))
+                .andDo(print());
+    }
+
     /**
      * Tests that when deleting a payment successfully, the endpoint returns a success message.
      *
@@ -292,4 +330,83 @@ public class PaymentControllerTest {
                 .andExpect(content().string("Error de servicio."))
                 .andDo(print());
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that a client sending back the current tag of the payment list gets a 304 Not Modified response
+     * without the payments being read again.
+     *
+     * @throws Exception if an error occurs during the HTTP request
+     */
+    @Test
+    public void whenGetAllPayments_withCurrentETag_thenReturnsNotModified() throws Exception {
+        // Arrange
+        when(paymentUseCase.getPaymentsPage(PaymentFilter.NONE, 0, 100, FieldSet.ALL))
+                .thenReturn(List.of(new Payment()));
+        String eTag = mockMvc.perform(get("/api/admin/payments").with(csrf()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act & Assert
+        mockMvc.perform(get("/api/admin/payments").header("If-None-Match", "\"other\", W/" + eTag)
+                        .with(csrf()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andDo(print());
+        verify(paymentUseCase, times(1)).getPaymentsPage(PaymentFilter.NONE, 0, 100, FieldSet.ALL);
+    }
+
+    /**
+     * Tests that the payments of a date range are streamed as CSV, with a header line and one line per payment.
+     *
+     * @throws Exception if an error occurs during the HTTP request
+     */
+    @Test
+    public void whenExportPayments_csv_thenStreamsRows() throws Exception {
+        // Arrange
+        PaymentFilter filter = new PaymentFilter(null, null, LocalDate.of(2025, 5, 1), LocalDate.of(2025, 5, 31));
+        doAnswer(invocation -> {
+            Consumer<Payment> action = invocation.getArgument(1);
+            action.accept(new Payment(1L, 10L, new BigDecimal("120.50"), LocalDate.of(2025, 5, 2), MethodPayment.CARD));
+            action.accept(new Payment(2L, 11L, new BigDecimal("80.00"), LocalDate.of(2025, 5, 9), null));
+            return null;
+        }).when(paymentUseCase).exportPayments(eq(filter), any());
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/admin/payments/export")
+                        .param("format", "csv")
+                        .param("from", "2025-05-01")
+                        .param("to", "2025-05-31"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"payments.csv\""))
+                .andExpect(content().string("id,reservation_id,amount,payment_date,method\r\n" +
+                        "1,10,120.50,2025-05-02,CARD\r\n" +
+                        "2,11,80.00,2025-05-09,\r\n"))
+                .andDo(print());
+    }
+
+    /**
+     * Tests that an export in an unknown format is refused with a 400 Bad Request response.
+     *
+     * @throws Exception if an error occurs during the HTTP request
+     */
+    @Test
+    public void whenExportPayments_unknownFormat_thenReturnsBadRequest() throws Exception {
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/admin/payments/export").param("format", "xlsx"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Formato de exportación no admitido: hay que pedir ndjson o csv"))
+                .andDo(print());
+        verifyNoInteractions(paymentUseCase);
+    }
+}
@@ -0,0 +1,142 @@
+package com.alfre.DHHotel.controller;
+
+import com.alfre.DHHotel.adapter.web.controller.PaymentImportController;
+import com.alfre.DHHotel.adapter.web.dto.PaymentImportResultDTO;
+import com.alfre.DHHotel.adapter.web.dto.PaymentImportRow;
+import com.alfre.DHHotel.domain.model.MethodPayment;
+import com.alfre.DHHotel.usecase.PaymentImportUseCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the settlement file payment import controller, including the reading of the uploaded files.
+ *
+ * @author Alfredo Sobrados González
+ */
+@ExtendWith(MockitoExtension.class)
+public class PaymentImportControllerTest {
+    @Mock
+    private PaymentImportUseCase paymentImportUseCase;
+
+    @InjectMocks
+    private PaymentImportController paymentImportController;
+
+    private MockMvc mockMvc;
+    private final List<PaymentImportRow> rows = new ArrayList<>();
+
+    /**
+     * Configures MockMvc in standalone mode.
+     */
+    @BeforeEach
+    public void setup() {
+        mockMvc = MockMvcBuilders.standaloneSetup(paymentImportController).build();
+    }
+
+    private void collectRows() {
+        when(paymentImportUseCase.importPayments(any())).thenAnswer(invocation -> {
+            Iterator<PaymentImportRow> iterator = invocation.getArgument(0);
+            iterator.forEachRemaining(rows::add);
+            PaymentImportResultDTO result = new PaymentImportResultDTO();
+            result.imported = rows.size();
+            return result;
+        });
+    }
+
+    /**
+     * Tests that a CSV settlement file is read by column name, with the line of each row and an error for the bad
+     * ones.
+     *
+     * @throws Exception if an error occurs during the HTTP request
+     */
+    @Test
+    public void whenImportCsv_thenReadsRowsByColumnName() throws Exception {
+        // Arrange
+        collectRows();
+        String csv = """
+                payment_date,reservation_id,amount,method
+                2024-03-01,7,150.00,
+                "2024-03-02",8,80.50,transfer
+
+                01/03/2024,9,50.00,CARD
+                2024-03-04,10
+                """;
+
+        // Act & Assert
+        mockMvc.perform(post("/api/admin/payments/import").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(4))
+                .andDo(print());
+
+        assertEquals(List.of(2L, 3L, 5L, 6L), rows.stream().map(row -> row.line).toList());
+        assertEquals(7L, rows.get(0).payment.reservation_id);
+        assertNull(rows.get(0).payment.method);
+        assertEquals(new BigDecimal("80.50"), rows.get(1).payment.amount);
+        assertEquals(LocalDate.of(2024, 3, 2), rows.get(1).payment.payment_date);
+        assertEquals(MethodPayment.TRANSFER, rows.get(1).payment.method);
+        assertEquals("Valor no válido en la columna payment_date", rows.get(2).error);
+        assertNotNull(rows.get(3).error);
+    }
+
+    /**
+     * Tests that a newline-delimited JSON settlement file is read one payment per line.
+     *
+     * @throws Exception if an error occurs during the HTTP request
+     */
+    @Test
+    public void whenImportNdjson_thenReadsOnePaymentPerLine() throws Exception {
+        // Arrange
+        collectRows();
+        String ndjson = """
+                {"reservation_id":7,"amount":150.00,"payment_date":"2024-03-01","method":"CARD"}
+                {"reservation_id":8,"amount":"mucho","payment_date":"2024-03-01"}
+                """;
+
+        // Act & Assert
+        mockMvc.perform(post("/api/admin/payments/import").contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andDo(print());
+
+        assertEquals(LocalDate.of(2024, 3, 1), rows.get(0).payment.payment_date);
+        assertEquals("La fila no es un pago en JSON válido", rows.get(1).error);
+    }
+
+    /**
+     * Tests that a CSV settlement file without the required columns is refused with a 400 Bad Request response.
+     *
+     * @throws Exception if an error occurs during the HTTP request
+     */
+    @Test
+    public void whenImportCsv_missingColumns_thenReturnsBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/admin/payments/import").contentType("text/csv")
+                        .content("reservation_id,amount\n7,150.00"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(
+                        "La cabecera del fichero debe incluir las columnas reservation_id, amount, payment_date"))
+                .andDo(print());
+
+        verifyNoInteractions(paymentImportUseCase);
+    }
+}
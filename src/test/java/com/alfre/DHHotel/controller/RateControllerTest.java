@@ -0,0 +1,108 @@
+package com.alfre.DHHotel.controller;
+
+import com.alfre.DHHotel.adapter.web.controller.RateController;
+import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.domain.model.SeasonalRate;
+import com.alfre.DHHotel.usecase.RateUseCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the seasonal rates operations controller.
+ *
+ * @author Alfredo Sobrados González
+ */
+@ExtendWith(MockitoExtension.class)
+public class RateControllerTest {
+    @Mock
+    private RateUseCase rateUseCase;
+
+    @InjectMocks
+    private RateController rateController;
+
+    private MockMvc mockMvc;
+
+    /**
+     * Configures MockMvc in standalone mode with the RateController before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        mockMvc = MockMvcBuilders.standaloneSetup(rateController).build();
+    }
+
+    /**
+     * Tests that the stored seasonal rates are returned as a JSON list.
+     *
+     * @throws Exception if an error occurs during the HTTP request
+     */
+    @Test
+    public void whenGetAllRates_success_thenReturnsRateList() throws Exception {
+        // Arrange
+        SeasonalRate rate = new SeasonalRate(1L, RoomType.SUITE, LocalDate.of(2025, 8, 1),
+                LocalDate.of(2025, 8, 31), 150, 180);
+        when(rateUseCase.getAllRates()).thenReturn(List.of(rate));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/admin/rates"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].percentage").value(150))
+                .andDo(print());
+    }
+
+    /**
+     * Tests that an invalid seasonal rate returns a 400 Bad Request response with the validation message.
+     *
+     * @throws Exception if an error occurs during the HTTP request
+     */
+    @Test
+    public void whenCreateRate_invalidDates_thenReturnsBadRequest() throws Exception {
+        // Arrange
+        when(rateUseCase.createRate(any(SeasonalRate.class)))
+                .thenThrow(new IllegalArgumentException("La fecha de fin no puede ser anterior a la fecha de inicio"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/admin/rate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"room_type\":\"SUITE\",\"start_date\":\"2025-08-31\"," +
+                                "\"end_date\":\"2025-08-01\",\"percentage\":150}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("La fecha de fin no puede ser anterior a la fecha de inicio"))
+                .andDo(print());
+    }
+
+    /**
+     * Tests that deleting an existing seasonal rate returns a confirmation message.
+     *
+     * @throws Exception if an error occurs during the HTTP request
+     */
+    @Test
+    public void whenDeleteRate_success_thenReturnsOk() throws Exception {
+        // Arrange
+        when(rateUseCase.deleteRate(1L)).thenReturn(1);
+
+        // Act & Assert
+        mockMvc.perform(delete("/api/admin/rate/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("La tarifa con id: 1 se ha eliminado correctamente"))
+                .andDo(print());
+    }
+}
@@ -1,8 +1,16 @@
 package com.alfre.DHHotel.controller;
 
+import com.alfre.DHHotel.adapter.cache.IdempotencyStore;
+import com.alfre.DHHotel.adapter.persistence.DataVersions;
 import com.alfre.DHHotel.adapter.web.controller.ReservationController;
+import com.alfre.DHHotel.adapter.web.dto.GroupReservationRequest;
+import com.alfre.DHHotel.adapter.web.dto.OccupancyCalendarDTO;
+import com.alfre.DHHotel.domain.model.FieldSet;
 import com.alfre.DHHotel.domain.model.Payment;
 import com.alfre.DHHotel.domain.model.Reservation;
+import com.alfre.DHHotel.domain.model.ReservationFilter;
+import com.alfre.DHHotel.domain.model.ReservationStatus;
+import com.alfre.DHHotel.domain.model.RoomStatus;
 import com.alfre.DHHotel.domain.model.User;
 import com.alfre.DHHotel.usecase.ReservationUseCase;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,19 +18,31 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -41,6 +61,12 @@ public class ReservationControllerTest {
     @Mock
     private ReservationUseCase reservationUseCase;
 
+    @Spy
+    private DataVersions versions = new DataVersions();
+
+    @Spy
+    private IdempotencyStore idempotencyStore = new IdempotencyStore();
+
     @InjectMocks
     private ReservationController reservationController;
 
@@ -64,7 +90,8 @@ public class ReservationControllerTest {
     public void whenGetAllReservations_success_thenReturnsReservationList() throws Exception {
         // Prepare test data
         List<Reservation> reservationList = Arrays.asList(new Reservation(), new Reservation());
-        when(reservationUseCase.getAllReservations()).thenReturn(reservationList);
+        when(reservationUseCase.getReservationsPage(ReservationFilter.NONE, 0, 100, FieldSet.ALL))
+                .thenReturn(reservationList);
 
         // Execute and Verify
         mockMvc.perform(get("/api/admin/reservations").with(csrf()))
@@ -73,7 +100,7 @@ public class ReservationControllerTest {
                 .andExpect(jsonPath("$", hasSize(2)))
                 .andDo(print());
 
-        verify(reservationUseCase, times(1)).getAllReservations();
+        verify(reservationUseCase, times(1)).getReservationsPage(ReservationFilter.NONE, 0, 100, FieldSet.ALL);
     }
 
     /**
@@ -84,7 +111,8 @@ public class ReservationControllerTest {
     @Test
     public void whenGetAllReservations_failure_thenReturnsNotFound() throws Exception {
         // Prepare test data
-        when(reservationUseCase.getAllReservations()).thenReturn(Collections.emptyList());
+        when(reservationUseCase.getReservationsPage(ReservationFilter.NONE, 0, 100, FieldSet.ALL))
+                .thenReturn(Collections.emptyList());
 
         // Execute and Verify
         mockMvc.perform(get("/api/admin/reservations").with(csrf()))
@@ -92,7 +120,66 @@ public class ReservationControllerTest {
                 .andExpect(content().string("No hay reservas registradas en el sistema."))
                 .andDo(print());
 
-        verify(reservationUseCase).getAllReservations();
+        verify(reservationUseCase).getReservationsPage(ReservationFilter.NONE, 0, 100, FieldSet.ALL);
+    }
+
+    /**
+     * Tests that the filters and the cursor reach the use case and that a full page links to the page after it.
+     *
+     * @throws Exception if an error occurs during test execution.
+     */
+    @Test
+    public void whenGetAllReservations_fullPage_thenLinksNextPage() throws Exception {
+        // Prepare test data
+        ReservationFilter filter = new ReservationFilter(ReservationStatus.CONFIRMED, 3L, null,
+                LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 30));
+        Reservation first = new Reservation(41L, 1L, 3L, null, null, null, ReservationStatus.CONFIRMED);
+        Reservation second = new Reservation(57L, 2L, 3L, null, null, null, ReservationStatus.CONFIRMED);
+        when(reservationUseCase.getReservationsPage(filter, 40L, 2, FieldSet.ALL)).thenReturn(List.of(first, second));
+
+        // Execute and Verify
+        mockMvc.perform(get("/api/admin/reservations?after=40&limit=2&status=CONFIRMED&roomId=3" +
+                        "&from=2025-06-01&to=2025-06-30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().string("Link", "<http://localhost/api/admin/reservations?limit=2&status=CONFIRMED" +
+                        "&roomId=3&from=2025-06-01&to=2025-06-30&after=57>; rel=\"next\""))
+                .andDo(print());
+    }
+
+    /**
+     * Tests that a later page may be empty, and that then it has no link to a next page.
+     *
+     * @throws Exception if an error occurs during test execution.
+     */
+    @Test
+    public void whenGetAllReservations_emptyLaterPage_thenReturnsEmptyList() throws Exception {
+        // Prepare test data
+        when(reservationUseCase.getReservationsPage(ReservationFilter.NONE, 57L, 100, FieldSet.ALL))
+                .thenReturn(Collections.emptyList());
+
+        // Execute and Verify
+        mockMvc.perform(get("/api/admin/reservations?after=57"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)))
+                .andExpect(header().doesNotExist("Link"))
+                .andDo(print());
+    }
+
+    /**
+     * Tests that a page larger than allowed is refused with a 400 Bad Request response.
+     *
+     * @throws Exception if an error occurs during test execution.
+     */
+    @Test
+    public void whenGetAllReservations_limitTooLarge_thenReturnsBadRequest() throws Exception {
+        // Execute and Verify
+        mockMvc.perform(get("/api/admin/reservations?limit=5000"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("El tamaño de página debe estar entre 1 y 1000"))
+                .andDo(print());
+
+        verifyNoInteractions(reservationUseCase);
     }
 
     /**
@@ -224,6 +311,92 @@ public class ReservationControllerTest {
                 .andDo(print());
     }
 
+    /**
+     * Tests that a retried reservation request with the same Idempotency-Key gets the identifier of the first one
+     * without creating the reservation again.
+     *
+     * @throws Exception if an error occurs during test execution.
+     */
+    @Test
+    public void whenCreateReservation_retriedWithSameKey_thenReturnsFirstReservation() throws Exception {
+        // Simulate that the use case returns a new reservation id
+        when(reservationUseCase.createReservation(any(Reservation.class), any(User.class)))
+                .thenReturn(1L, 2L);
+
+        // Execute and Verify
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/api/client/reservation")
+                            .with(csrf())
+                            .header("Idempotency-Key", "3f1c2a9e-7b4d-4e8a-9c61-0d2f5b8a4e17")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{}")
+                            .principal(() -> "dummyUser"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string("1"))
+                    .andDo(print());
+        }
+
+        verify(reservationUseCase, times(1)).createReservation(any(Reservation.class), any(User.class));
+    }
+
+    /**
+     * Tests that a reservation request whose Idempotency-Key is still being processed on another node returns a
+     * 409 Conflict without creating the reservation.
+     *
+     * @throws Exception if an error occurs during test execution.
+     */
+    @Test
+    public void whenCreateReservation_keyInProgress_thenReturnsConflict() throws Exception {
+        // Prepare test data
+        doThrow(new ConcurrencyFailureException("Ya se está procesando una petición con la misma clave"))
+                .when(idempotencyStore).execute(anyString(), anyString(), any());
+
+        // Execute and Verify
+        mockMvc.perform(post("/api/client/reservation")
+                        .with(csrf())
+                        .header("Idempotency-Key", "3f1c2a9e-7b4d-4e8a-9c61-0d2f5b8a4e17")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}")
+                        .principal(() -> "dummyUser"))
+                .andExpect(status().isConflict())
+                .andDo(print());
+
+        verifyNoInteractions(reservationUseCase);
+    }
+
+    /**
+     * Tests that a reservation request that reuses an Idempotency-Key with a different body returns a
+     * 422 Unprocessable Entity without creating a second reservation.
+     *
+     * @throws Exception if an error occurs during test execution.
+     */
+    @Test
+    public void whenCreateReservation_sameKeyDifferentBody_thenReturnsUnprocessableEntity() throws Exception {
+        // Simulate that the use case returns a new reservation id
+        when(reservationUseCase.createReservation(any(Reservation.class), any(User.class))).thenReturn(1L);
+
+        // Execute and Verify
+        mockMvc.perform(post("/api/client/reservation")
+                        .with(csrf())
+                        .header("Idempotency-Key", "3f1c2a9e-7b4d-4e8a-9c61-0d2f5b8a4e17")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"room_id\": 1}")
+                        .principal(() -> "dummyUser"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("1"));
+        mockMvc.perform(post("/api/client/reservation")
+                        .with(csrf())
+                        .header("Idempotency-Key", "3f1c2a9e-7b4d-4e8a-9c61-0d2f5b8a4e17")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"room_id\": 2}")
+                        .principal(() -> "dummyUser"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(content().string("La clave de idempotencia ya se ha usado con una petición distinta"))
+                .andDo(print());
+
+        verify(reservationUseCase, times(1)).createReservation(any(Reservation.class), any(User.class));
+    }
+
     /**
      * Tests that updating a reservation successfully returns a 200 OK status with a success message.
      *
@@ -323,6 +496,295 @@ public class ReservationControllerTest {
                 .andDo(print());
     }
 
+    /**
+     * Tests that a group reservation returns the created reservations.
+     *
+     * @throws Exception if an error occurs during test execution.
+     */
+    @Test
+    public void whenCreateGroupReservation_success_thenReturnsReservations() throws Exception {
+        // Prepare test data
+        when(reservationUseCase.createGroupReservation(any(GroupReservationRequest.class), any()))
+                .thenReturn(Arrays.asList(new Reservation(), new Reservation()));
+
+        // Execute and Verify
+        mockMvc.perform(post("/api/client/reservations/group")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"room_ids\":[1,2],\"start_date\":\"2025-06-01\",\"end_date\":\"2025-06-04\"}")
+                        .principal(() -> "dummyUser"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andDo(print());
+    }
+
+    /**
+     * Tests that a group reservation that cannot be fully booked returns a 400 Bad Request with the reason.
+     *
+     * @throws Exception if an error occurs during test execution.
+     */
+    @Test
+    public void whenCreateGroupReservation_roomNotAvailable_thenReturnsBadRequest() throws Exception {
+        // Prepare test data
+        when(reservationUseCase.createGroupReservation(any(GroupReservationRequest.class), any()))
+                .thenThrow(new RuntimeException("Habitaciones no disponibles en las fechas solicitadas: [102]"));
+
+        // Execute and Verify
+        mockMvc.perform(post("/api/client/reservations/group")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"room_ids\":[1,2],\"start_date\":\"2025-06-01\",\"end_date\":\"2025-06-04\"}")
+                        .principal(() -> "dummyUser"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Habitaciones no disponibles en las fechas solicitadas: [102]"))
+                .andDo(print());
+    }
+
+    /**
+     * Tests that the occupancy calendar is streamed as a compact rooms × days matrix.
+     *
+     * @throws Exception if an error occurs during test execution.
+     */
+    @Test
+    public void whenGetOccupancyCalendar_success_thenStreamsMatrix() throws Exception {
+        // Prepare test data
+        LocalDate startDate = LocalDate.of(2025, 6, 1);
+        LocalDate endDate = LocalDate.of(2025, 6, 4);
+        OccupancyCalendarDTO calendar = OccupancyCalendarDTO.builder()
+                .start_date(startDate)
+                .end_date(endDate)
+                .days(4)
+                .rooms(List.of(OccupancyCalendarDTO.RoomRow.builder()
+                        .id(1L).room_number(101).status(RoomStatus.AVAILABLE).cells(".CC.")
+                        .reservations(List.<long[]>of(new long[]{7L, 1, 2})).build()))
+                .build();
+        when(reservationUseCase.getOccupancyCalendar(startDate, endDate)).thenReturn(calendar);
+
+        // Execute and Verify
+        MvcResult result = mockMvc.perform(get("/api/admin/reservations/calendar")
+                        .param("startDate", "2025-06-01")
+                        .param("endDate", "2025-06-04")
+                        .with(csrf()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.days").value(4))
+                .andExpect(jsonPath("$.rooms[0].room_number").value(101))
+                .andExpect(jsonPath("$.rooms[0].cells").value(".CC."))
+                .andExpect(jsonPath("$.rooms[0].reservations[0][0]").value(7))
+                .andDo(print());
+    }
+
+    /**
+     * Tests that a sparse fieldset reads only the fields asked, plus the ID, and writes only those properties.
+     *
+     * @throws Exception if an error occurs during test execution.
+     */
+    @Test
+    public void whenGetAllReservations_withFields_thenReturnsOnlyThoseProperties() throws Exception {
+        // Prepare test data
+        FieldSet fields = new FieldSet(List.of("id", "start_date", "status"));
+        Reservation reservation = new Reservation(7L, null, null, null, LocalDate.of(2025, 6, 1), null,
+                ReservationStatus.CONFIRMED, null);
+        when(reservationUseCase.getReservationsPage(ReservationFilter.NONE, 0, 100, fields))
+                .thenReturn(List.of(reservation));
+
+        // Execute and Verify
+        mockMvc.perform(get("/api/admin/reservations").param("fields", "status, start_date"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(7))
+                .andExpect(jsonPath("$[0].start_date").exists())
+                .andExpect(jsonPath("$[0].status").value("CONFIRMED"))
+                .andExpect(jsonPath("$[0].total_price").doesNotExist())
+                .andExpect(jsonPath("$[0].version").doesNotExist())
+                .andDo(print());
+    }
+
+    /**
+     * Tests that a sparse fieldset naming an unknown field returns a 400 Bad Request.
+     *
+     * @throws Exception if an error occurs during test execution.
+     */
+    @Test
+    public void whenGetAllReservations_withUnknownField_thenReturnsBadRequest() throws Exception {
+        // Execute and Verify
+        mockMvc.perform(get("/api/admin/reservations").param("fields", "status,password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Campo no admitido: password"))
+                .andDo(print());
+
+        verifyNoInteractions(reservationUseCase);
+    }
+
+    /**
+     * Tests that the reservations are exported as newline-delimited JSON, one object per line.
+     *
+     * @throws Exception if an error occurs during test execution.
+     */
+    @Test
+    public void whenExportReservations_ndjson_thenStreamsOneObjectPerLine() throws Exception {
+        // Prepare test data
+        doAnswer(invocation -> {
+            Consumer<Reservation> action = invocation.getArgument(1);
+            action.accept(new Reservation(5L, 2L, 3L, new BigDecimal("300.00"), LocalDate.of(2025, 6, 1),
+                    LocalDate.of(2025, 6, 4), ReservationStatus.CONFIRMED, 2L, new BigDecimal("300.00")));
+            action.accept(new Reservation(6L, 2L, 4L, null, LocalDate.of(2025, 6, 2),
+                    LocalDate.of(2025, 6, 3), ReservationStatus.PENDING));
+            return null;
+        }).when(reservationUseCase).exportReservations(eq(ReservationFilter.NONE), any());
+
+        // Execute and Verify
+        MvcResult result = mockMvc.perform(get("/api/admin/reservations/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"reservations.ndjson\""))
+                .andExpect(content().string("""
+                        {"id":5,"client_id":2,"room_id":3,"total_price":300.00,"start_date":"2025-06-01",\
+                        "end_date":"2025-06-04","status":"CONFIRMED","paid_total":300.00}
+                        {"id":6,"client_id":2,"room_id":4,"total_price":null,"start_date":"2025-06-02",\
+                        "end_date":"2025-06-03","status":"PENDING","paid_total":null}
+                        """))
+                .andDo(print());
+    }
+
+    /**
+     * Tests that an export whose dates are inverted returns a 400 Bad Request without reading any reservation.
+     *
+     * @throws Exception if an error occurs during test execution.
+     */
+    @Test
+    public void whenExportReservations_invertedDates_thenReturnsBadRequest() throws Exception {
+        // Execute and Verify
+        MvcResult result = mockMvc.perform(get("/api/admin/reservations/export")
+                        .param("from", "2025-06-30")
+                        .param("to", "2025-06-01"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("La fecha final no puede ser anterior a la fecha inicial"))
+                .andDo(print());
+        verifyNoInteractions(reservationUseCase);
+    }
+
+    /**
+     * Tests that an invalid occupancy calendar window returns a 400 Bad Request with the reason.
+     *
+     * @throws Exception if an error occurs during test execution.
+     */
+    @Test
+    public void whenGetOccupancyCalendar_invalidWindow_thenReturnsBadRequest() throws Exception {
+        // Prepare test data
+        when(reservationUseCase.getOccupancyCalendar(any(), any()))
+                .thenThrow(new IllegalArgumentException("La fecha de fin no puede ser anterior a la fecha de inicio"));
+
+        // Execute and Verify
+        MvcResult result = mockMvc.perform(get("/api/admin/reservations/calendar")
+                        .param("startDate", "2025-06-04")
+                        .param("endDate", "2025-06-01")
+                        .with(csrf()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("La fecha de fin no puede ser anterior a la fecha de inicio"))
+                .andDo(print());
+    }
+
+    /**
+     * Tests that retrieving a reservation returns its version in the ETag header.
+     *
+     * @throws Exception if an error occurs during test execution.
+     */
+    @Test
+    public void whenGetReservationById_thenReturnsVersionAsETag() throws Exception {
+        // Prepare test data
+        int reservationId = 1;
+        Reservation reservation = new Reservation();
+        reservation.version = 3L;
+        when(reservationUseCase.getReservationById(reservationId)).thenReturn(Optional.of(reservation));
+
+        // Execute and Verify
+        mockMvc.perform(get("/api/admin/reservation/{id}", reservationId).with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andDo(print());
+    }
+
+    /**
+     * Tests that the If-Match version is passed to the update and that the new version is returned in the ETag
+     * header.
+     *
+     * @throws Exception if an error occurs during test execution.
+     */
+    @Test
+    public void whenUpdateReservation_withIfMatch_thenReturnsNewETag() throws Exception {
+        // Prepare test data: the use case records the expected version and writes back the new one
+        long reservationId = 1L;
+        List<Long> expectedVersions = new ArrayList<>();
+        when(reservationUseCase.updateReservation(eq(reservationId), any(Reservation.class), any()))
+                .thenAnswer(invocation -> {
+                    Reservation updated = invocation.getArgument(1);
+                    expectedVersions.add(updated.version);
+                    updated.setVersion(updated.version + 1);
+                    return 1;
+                });
+
+        // Execute and Verify
+        mockMvc.perform(put("/api/reservation/{id}", reservationId)
+                        .with(csrf())
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}")
+                        .principal(() -> "dummyUser"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andDo(print());
+
+        assertEquals(List.of(3L), expectedVersions);
+    }
+
+    /**
+     * Tests that a reservation modified since the If-Match version returns a 412 Precondition Failed status,
+     * and a 409 Conflict status when the version was not sent in the header.
+     *
+     * @throws Exception if an error occurs during test execution.
+     */
+    @Test
+    public void whenUpdateReservation_conflict_thenReturnsPreconditionFailedOrConflict() throws Exception {
+        // Prepare test data
+        long reservationId = 1L;
+        when(reservationUseCase.updateReservation(eq(reservationId), any(Reservation.class), any()))
+                .thenThrow(new OptimisticLockingFailureException("La reserva ha sido modificada"));
+
+        // Execute and Verify
+        mockMvc.perform(put("/api/reservation/{id}", reservationId)
+                        .with(csrf())
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}")
+                        .principal(() -> "dummyUser"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(content().string("La reserva ha sido modificada"));
+
+        mockMvc.perform(put("/api/reservation/{id}", reservationId)
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\":3}")
+                        .principal(() -> "dummyUser"))
+                .andExpect(status().isConflict())
+                .andExpect(content().string("La reserva ha sido modificada"));
+    }
+
     /**
      * Tests that cancelling a reservation successfully returns a 200 OK status with a success message.
      *
@@ -408,6 +870,35 @@ public class ReservationControllerTest {
         verify(reservationUseCase).createPayment(any(Payment.class), eq(reservationId), any(User.class));
     }
 
+    /**
+     * Tests that a retried payment request with the same Idempotency-Key gets the identifier of the first payment
+     * without creating it again, while a request for another reservation with the same key is a new payment.
+     *
+     * @throws Exception if an error occurs during test execution.
+     */
+    @Test
+    public void whenCreatePaymentOfReservation_retriedWithSameKey_thenReturnsFirstPayment() throws Exception {
+        // Prepare test data
+        when(reservationUseCase.createPayment(any(Payment.class), anyLong(), any(User.class)))
+                .thenReturn(2L, 3L);
+
+        // Execute and Verify
+        for (long reservationId : new long[]{1L, 1L, 5L}) {
+            mockMvc.perform(post("/api/admin/reservation/{id}/payment", reservationId)
+                            .with(csrf())
+                            .header("Idempotency-Key", "settlement-42")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{}")
+                            .principal(() -> "dummyUser"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(reservationId == 1L ? "2" : "3"))
+                    .andDo(print());
+        }
+
+        verify(reservationUseCase, times(1)).createPayment(any(Payment.class), eq(1L), any(User.class));
+        verify(reservationUseCase, times(1)).createPayment(any(Payment.class), eq(5L), any(User.class));
+    }
+
     /**
      * Tests that when an error occurs during the creation of a payment for a reservation,
      * the API returns a 400 Bad Request status with an error message.
@@ -474,4 +965,26 @@ public class ReservationControllerTest {
 
         verify(reservationUseCase).getPaymentsByClient(reservationId);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that a client sending back the current tag of the reservation list gets a 304 Not Modified response
+     * without the reservations being read again.
+     *
+     * @throws Exception if an error occurs during test execution.
+     */
+    @Test
+    public void whenGetAllReservations_withCurrentETag_thenReturnsNotModified() throws Exception {
+        // Prepare test data
+        when(reservationUseCase.getReservationsPage(ReservationFilter.NONE, 0, 100, FieldSet.ALL))
+                .thenReturn(List.of(new Reservation()));
+        String eTag = mockMvc.perform(get("/api/admin/reservations").with(csrf()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Execute and Verify
+        mockMvc.perform(get("/api/admin/reservations").header("If-None-Match", eTag).with(csrf()))
+                .andExpect(status().isNotModified())
+                .andDo(print());
+        verify(reservationUseCase, times(1)).getReservationsPage(ReservationFilter.NONE, 0, 100, FieldSet.ALL);
+    }
+}
@@ -0,0 +1,84 @@
+package com.alfre.DHHotel.controller;
+
+import com.alfre.DHHotel.adapter.web.controller.RevenueReportController;
+import com.alfre.DHHotel.adapter.web.dto.RevenueReportDTO;
+import com.alfre.DHHotel.usecase.RevenueReportUseCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the revenue and occupancy report controller.
+ *
+ * @author Alfredo Sobrados González
+ */
+@ExtendWith(MockitoExtension.class)
+public class RevenueReportControllerTest {
+    @Mock
+    private RevenueReportUseCase revenueReportUseCase;
+
+    @InjectMocks
+    private RevenueReportController revenueReportController;
+
+    private MockMvc mockMvc;
+
+    /**
+     * Configures MockMvc in standalone mode.
+     */
+    @BeforeEach
+    public void setup() {
+        mockMvc = MockMvcBuilders.standaloneSetup(revenueReportController).build();
+    }
+
+    /**
+     * Tests that the report of a valid range is returned with a 200 OK response.
+     *
+     * @throws Exception if an error occurs during the HTTP request
+     */
+    @Test
+    public void whenGetRevenueReport_thenReturnsReport() throws Exception {
+        // Arrange
+        RevenueReportDTO report = new RevenueReportDTO();
+        report.from = LocalDate.of(2024, 4, 1);
+        report.to = LocalDate.of(2024, 4, 30);
+        when(revenueReportUseCase.getRevenueReport(LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 30)))
+                .thenReturn(report);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/admin/reports/revenue").param("from", "2024-04-01").param("to", "2024-04-30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.days").isArray())
+                .andDo(print());
+    }
+
+    /**
+     * Tests that a range refused by the use case returns a 400 Bad Request response with its message.
+     *
+     * @throws Exception if an error occurs during the HTTP request
+     */
+    @Test
+    public void whenGetRevenueReport_invalidRange_thenReturnsBadRequest() throws Exception {
+        // Arrange
+        when(revenueReportUseCase.getRevenueReport(LocalDate.of(2024, 4, 30), LocalDate.of(2024, 4, 1)))
+                .thenThrow(new IllegalArgumentException("La fecha de fin no puede ser anterior a la fecha de inicio"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/admin/reports/revenue").param("from", "2024-04-30").param("to", "2024-04-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("La fecha de fin no puede ser anterior a la fecha de inicio"))
+                .andDo(print());
+    }
+}
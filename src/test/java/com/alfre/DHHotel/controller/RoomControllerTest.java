@@ -1,27 +1,35 @@
 package com.alfre.DHHotel.controller;
 
+import com.alfre.DHHotel.adapter.persistence.DataVersions;
 import com.alfre.DHHotel.adapter.web.controller.RoomController;
 import com.alfre.DHHotel.adapter.web.dto.RoomDTO;
+import com.alfre.DHHotel.adapter.web.dto.RoomQuoteDTO;
+import com.alfre.DHHotel.adapter.web.dto.RoomStatusUpdateRequest;
 import com.alfre.DHHotel.domain.model.Room;
 import com.alfre.DHHotel.domain.model.RoomStatus;
 import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.usecase.RoomChangeBroadcaster;
 import com.alfre.DHHotel.usecase.RoomUseCase;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static java.util.Collections.emptyList;
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
@@ -46,6 +54,9 @@ public class RoomControllerTest {
     @Mock
     private RoomUseCase roomUseCase;
 
+    @Spy
+    private DataVersions versions = new DataVersions();
+
     @InjectMocks
     private RoomController roomController;
 
@@ -69,7 +80,7 @@ public class RoomControllerTest {
     public void whenGetAllRooms_success_thenReturnsRoomList() throws Exception {
         // Arrange: Prepare a list of two rooms
         List<Room> rooms = Arrays.asList(new Room(), new Room());
-        when(roomUseCase.getAllRooms()).thenReturn(rooms);
+        when(roomUseCase.getRoomsPage(null, null, 0, 100)).thenReturn(rooms);
 
         // Act & Assert: Perform GET and verify response details
         mockMvc.perform(get("/api/admin/rooms"))
@@ -78,7 +89,7 @@ public class RoomControllerTest {
                 .andExpect(jsonPath("$", hasSize(2)))
                 .andDo(print());
 
-        verify(roomUseCase, times(1)).getAllRooms();
+        verify(roomUseCase, times(1)).getRoomsPage(null, null, 0, 100);
     }
 
     /**
@@ -90,7 +101,7 @@ public class RoomControllerTest {
     @Test
     public void whenGetAllRooms_empty_thenReturnsNotFound() throws Exception {
         // Arrange: Simulate an empty room list
-        when(roomUseCase.getAllRooms()).thenReturn(emptyList());
+        when(roomUseCase.getRoomsPage(null, null, 0, 100)).thenReturn(emptyList());
 
         // Act & Assert: Perform GET and verify that the response indicates not found
         mockMvc.perform(get("/api/admin/rooms"))
@@ -98,7 +109,26 @@ public class RoomControllerTest {
                 .andExpect(content().string("No hay habitaciones registrados en el sistema."))
                 .andDo(print());
 
-        verify(roomUseCase, times(1)).getAllRooms();
+        verify(roomUseCase, times(1)).getRoomsPage(null, null, 0, 100);
+    }
+
+    /**
+     * Tests that the type and status filters reach the use case and that a page smaller than the limit is the last.
+     *
+     * @throws Exception if an error occurs during the test execution.
+     */
+    @Test
+    public void whenGetAllRooms_filtered_thenReturnsLastPage() throws Exception {
+        // Arrange
+        when(roomUseCase.getRoomsPage(RoomType.SUITE, RoomStatus.AVAILABLE, 0, 10))
+                .thenReturn(List.of(new Room(9L, 901, RoomType.SUITE, new BigDecimal("250.00"), RoomStatus.AVAILABLE)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/admin/rooms?type=SUITE&status=AVAILABLE&limit=10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().doesNotExist("Link"))
+                .andDo(print());
     }
 
     /**
@@ -524,4 +554,231 @@ public class RoomControllerTest {
 
         verify(roomUseCase, times(1)).getRoomsInMaintenance();
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that searching free rooms for a stay returns the quoted rooms.
+     *
+     * @throws Exception if an error occurs during the test execution.
+     */
+    @Test
+    public void whenSearchAvailableRooms_success_thenReturnsQuotes() throws Exception {
+        // Arrange
+        LocalDate startDate = LocalDate.of(2025, 5, 1);
+        LocalDate endDate = LocalDate.of(2025, 5, 4);
+        RoomQuoteDTO quote = RoomQuoteDTO.builder().id(7L).room_number(105).type(RoomType.DOUBLE)
+                .price_per_night(BigDecimal.valueOf(80.0)).nights(3).total_price(BigDecimal.valueOf(240.0)).build();
+        when(roomUseCase.searchAvailableRooms(startDate, endDate, RoomType.DOUBLE, null, BigDecimal.valueOf(100)))
+                .thenReturn(List.of(quote));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/public/rooms/search")
+                        .param("startDate", "2025-05-01")
+                        .param("endDate", "2025-05-04")
+                        .param("type", "DOUBLE")
+                        .param("maxPrice", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(7))
+                .andExpect(jsonPath("$[0].nights").value(3))
+                .andDo(print());
+    }
+
+    /**
+     * Tests that invalid search parameters return a 400 Bad Request response with the validation message.
+     *
+     * @throws Exception if an error occurs during the test execution.
+     */
+    @Test
+    public void whenSearchAvailableRooms_invalidDates_thenReturnsBadRequest() throws Exception {
+        // Arrange
+        LocalDate date = LocalDate.of(2025, 5, 1);
+        when(roomUseCase.searchAvailableRooms(date, date, null, null, null))
+                .thenThrow(new IllegalArgumentException("La fecha de salida debe ser posterior a la fecha de entrada"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/public/rooms/search")
+                        .param("startDate", "2025-05-01")
+                        .param("endDate", "2025-05-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("La fecha de salida debe ser posterior a la fecha de entrada"))
+                .andDo(print());
+    }
+
+    /**
+     * Tests that the batch quote endpoint returns the quote of every requested room.
+     *
+     * @throws Exception if an error occurs during the test execution.
+     */
+    @Test
+    public void whenQuoteRooms_thenReturnsQuotes() throws Exception {
+        // Arrange
+        LocalDate startDate = LocalDate.of(2025, 8, 1);
+        LocalDate endDate = LocalDate.of(2025, 8, 3);
+        RoomQuoteDTO quote = RoomQuoteDTO.builder().id(7L).room_number(105).type(RoomType.DOUBLE)
+                .price_per_night(new BigDecimal("80.00")).nights(2).total_price(new BigDecimal("200.00")).build();
+        when(roomUseCase.quoteRooms(List.of(7L, 9L), startDate, endDate)).thenReturn(List.of(quote));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/public/rooms/quotes")
+                        .param("ids", "7", "9")
+                        .param("startDate", "2025-08-01")
+                        .param("endDate", "2025-08-03"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].total_price").value(200.00))
+                .andDo(print());
+    }
+
+    /**
+     * Tests that the room change stream starts an asynchronous Server-Sent Events response.
+     *
+     * @throws Exception if an error occurs during the test execution.
+     */
+    @Test
+    public void whenStreamRoomChanges_thenStartsEventStream() throws Exception {
+        // Arrange
+        RoomChangeBroadcaster broadcaster = new RoomChangeBroadcaster();
+        when(roomUseCase.subscribeToChanges(any())).thenAnswer(invocation ->
+                broadcaster.subscribe(invocation.getArgument(0)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/public/rooms/events"))
+                .andExpect(request().asyncStarted())
+                .andDo(print());
+        assertEquals(1, broadcaster.subscriberCount());
+    }
+
+    /**
+     * Tests that the room change stream is refused when there are too many subscribers.
+     *
+     * @throws Exception if an error occurs during the test execution.
+     */
+    @Test
+    public void whenStreamRoomChanges_tooManySubscribers_thenReturnsServiceUnavailable() throws Exception {
+        // Arrange
+        when(roomUseCase.subscribeToChanges(any()))
+                .thenThrow(new IllegalStateException("Se ha alcanzado el número máximo de suscripciones"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/public/rooms/events"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(content().string("Se ha alcanzado el número máximo de suscripciones"))
+                .andDo(print());
+    }
+
+    /**
+     * Tests that the public catalog is tagged and cacheable, and that a client sending back the current tag gets
+     * a 304 Not Modified response without the rooms being read again.
+     *
+     * @throws Exception if an error occurs during the test execution.
+     */
+    @Test
+    public void whenGetAvailableRooms_withCurrentETag_thenReturnsNotModified() throws Exception {
+        // Arrange
+        when(roomUseCase.getAvailableRooms()).thenReturn(List.of(RoomDTO.builder().build()));
+        String eTag = mockMvc.perform(get("/api/public/rooms/available"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "max-age=10, public"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act & Assert
+        mockMvc.perform(get("/api/public/rooms/available").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""))
+                .andDo(print());
+        verify(roomUseCase, times(1)).getAvailableRooms();
+    }
+
+    /**
+     * Tests that once the rooms change, the tag a client holds no longer matches and the rooms are read again.
+     *
+     * @throws Exception if an error occurs during the test execution.
+     */
+    @Test
+    public void whenGetAllRooms_afterRoomsChanged_thenReturnsRooms() throws Exception {
+        // Arrange
+        when(roomUseCase.getRoomsPage(null, null, 0, 100)).thenReturn(List.of(new Room()));
+        String eTag = mockMvc.perform(get("/api/admin/rooms"))
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andReturn().getResponse().getHeader("ETag");
+        versions.changed(DataVersions.Aggregate.ROOMS);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/admin/rooms").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andDo(print());
+        verify(roomUseCase, times(2)).getRoomsPage(null, null, 0, 100);
+    }
+
+    /**
+     * Tests that the tag is taken before the rooms are read, so a change committed while reading gives the old tag
+     * with the newer rooms, and the next request with that tag reads them again instead of getting a 304.
+     *
+     * @throws Exception if an error occurs during the test execution.
+     */
+    @Test
+    public void whenGetAllRooms_roomsChangedWhileReading_thenTagIsFromBeforeTheRead() throws Exception {
+        // Arrange
+        String before = "\"" + versions.tag(DataVersions.Aggregate.ROOMS) + "\"";
+        when(roomUseCase.getRoomsPage(null, null, 0, 100)).thenAnswer(invocation -> {
+            versions.changed(DataVersions.Aggregate.ROOMS);
+            return List.of(new Room());
+        });
+
+        // Act & Assert
+        String eTag = mockMvc.perform(get("/api/admin/rooms"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", before))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/admin/rooms").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andDo(print());
+        verify(roomUseCase, times(2)).getRoomsPage(null, null, 0, 100);
+    }
+
+    /**
+     * Tests that a bulk status update returns the number of rooms whose status changed.
+     *
+     * @throws Exception if an error occurs during the test execution.
+     */
+    @Test
+    public void whenUpdateStatuses_success_thenReturnsChangedCount() throws Exception {
+        // Arrange
+        when(roomUseCase.updateStatuses(any())).thenReturn(2);
+
+        // Act & Assert
+        mockMvc.perform(put("/api/admin/rooms/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"room_id\":1,\"status\":\"AVAILABLE\"}," +
+                                "{\"room_id\":2,\"status\":\"MAINTENANCE\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"))
+                .andDo(print());
+
+        verify(roomUseCase).updateStatuses(List.of(new RoomStatusUpdateRequest(1L, RoomStatus.AVAILABLE),
+                new RoomStatusUpdateRequest(2L, RoomStatus.MAINTENANCE)));
+    }
+
+    /**
+     * Tests that a bulk status update with a room that does not exist returns a 400 Bad Request response.
+     *
+     * @throws Exception if an error occurs during the test execution.
+     */
+    @Test
+    public void whenUpdateStatuses_missingRoom_thenReturnsBadRequest() throws Exception {
+        // Arrange
+        when(roomUseCase.updateStatuses(any()))
+                .thenThrow(new IllegalArgumentException("Las habitaciones [9] no existen"));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/admin/rooms/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"room_id\":9,\"status\":\"AVAILABLE\"}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Las habitaciones [9] no existen"))
+                .andDo(print());
+    }
+}
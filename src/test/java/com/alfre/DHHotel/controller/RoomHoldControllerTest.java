@@ -0,0 +1,85 @@
+package com.alfre.DHHotel.controller;
+
+import com.alfre.DHHotel.adapter.web.controller.RoomHoldController;
+import com.alfre.DHHotel.usecase.ReservationUseCase;
+import com.alfre.DHHotel.usecase.RoomHoldUseCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the room holds operations controller.
+ *
+ * @author Alfredo Sobrados González
+ */
+@ExtendWith(MockitoExtension.class)
+public class RoomHoldControllerTest {
+    @Mock
+    private RoomHoldUseCase roomHoldUseCase;
+
+    @Mock
+    private ReservationUseCase reservationUseCase;
+
+    @InjectMocks
+    private RoomHoldController roomHoldController;
+
+    private MockMvc mockMvc;
+
+    /**
+     * Configures MockMvc in standalone mode with the RoomHoldController before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        mockMvc = MockMvcBuilders.standaloneSetup(roomHoldController).build();
+    }
+
+    /**
+     * Tests that converting a hold returns the identifier of the new reservation.
+     *
+     * @throws Exception if an error occurs during the HTTP request
+     */
+    @Test
+    public void whenCreateReservationFromHold_success_thenReturnsReservationId() throws Exception {
+        // Arrange
+        when(reservationUseCase.createReservationFromHold(eq("abc"), any())).thenReturn(11L);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/client/holds/abc/reservation")
+                        .principal(() -> "dummyUser"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("11"))
+                .andDo(print());
+    }
+
+    /**
+     * Tests that releasing the hold of another user returns a 403 Forbidden response.
+     *
+     * @throws Exception if an error occurs during the HTTP request
+     */
+    @Test
+    public void whenReleaseHold_otherUser_thenReturnsForbidden() throws Exception {
+        // Arrange
+        doThrow(new AccessDeniedException("No autorizado")).when(roomHoldUseCase).releaseHold(eq("abc"), any());
+
+        // Act & Assert
+        mockMvc.perform(delete("/api/client/holds/abc")
+                        .principal(() -> "dummyUser"))
+                .andExpect(status().isForbidden())
+                .andExpect(content().string("No autorizado"))
+                .andDo(print());
+    }
+}
@@ -0,0 +1,138 @@
+package com.alfre.DHHotel.controller;
+
+import com.alfre.DHHotel.adapter.web.controller.RoomImportController;
+import com.alfre.DHHotel.adapter.web.dto.RoomImportResultDTO;
+import com.alfre.DHHotel.adapter.web.dto.RoomImportRow;
+import com.alfre.DHHotel.domain.model.RoomStatus;
+import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.usecase.RoomImportUseCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the bulk room import controller, including the reading of the uploaded files.
+ *
+ * @author Alfredo Sobrados González
+ */
+@ExtendWith(MockitoExtension.class)
+public class RoomImportControllerTest {
+    @Mock
+    private RoomImportUseCase roomImportUseCase;
+
+    @InjectMocks
+    private RoomImportController roomImportController;
+
+    private MockMvc mockMvc;
+    private final List<RoomImportRow> rows = new ArrayList<>();
+
+    /**
+     * Configures MockMvc in standalone mode and makes the use case collect the rows it is given.
+     */
+    @BeforeEach
+    public void setup() {
+        mockMvc = MockMvcBuilders.standaloneSetup(roomImportController).build();
+    }
+
+    private void collectRows() {
+        when(roomImportUseCase.importRooms(any())).thenAnswer(invocation -> {
+            Iterator<RoomImportRow> iterator = invocation.getArgument(0);
+            iterator.forEachRemaining(rows::add);
+            RoomImportResultDTO result = new RoomImportResultDTO();
+            result.imported = rows.size();
+            return result;
+        });
+    }
+
+    /**
+     * Tests that a CSV file is read by column name, with the line of each row and an error for the bad ones.
+     *
+     * @throws Exception if an error occurs during the HTTP request
+     */
+    @Test
+    public void whenImportCsv_thenReadsRowsByColumnName() throws Exception {
+        // Arrange
+        collectRows();
+        String csv = """
+                type,room_number,price_per_night,status
+                single,101,60.00,
+                "SUITE",102,150.00,MAINTENANCE
+
+                DOUBLE,abc,80.00,AVAILABLE
+                DOUBLE,104
+                """;
+
+        // Act & Assert
+        mockMvc.perform(post("/api/admin/rooms/import").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(4))
+                .andDo(print());
+
+        assertEquals(List.of(2L, 3L, 5L, 6L), rows.stream().map(row -> row.line).toList());
+        assertEquals(RoomType.SINGLE, rows.get(0).room.type);
+        assertNull(rows.get(0).room.status);
+        assertEquals(new BigDecimal("150.00"), rows.get(1).room.price_per_night);
+        assertEquals(RoomStatus.MAINTENANCE, rows.get(1).room.status);
+        assertEquals("Valor no válido en la columna room_number", rows.get(2).error);
+        assertNotNull(rows.get(3).error);
+    }
+
+    /**
+     * Tests that a newline-delimited JSON file is read one room per line.
+     *
+     * @throws Exception if an error occurs during the HTTP request
+     */
+    @Test
+    public void whenImportNdjson_thenReadsOneRoomPerLine() throws Exception {
+        // Arrange
+        collectRows();
+        String ndjson = """
+                {"room_number":201,"type":"DOUBLE","price_per_night":90.00}
+                {"room_number":202,"type":"PENTHOUSE","price_per_night":90.00}
+                """;
+
+        // Act & Assert
+        mockMvc.perform(post("/api/admin/rooms/import").contentType(MediaType.APPLICATION_NDJSON).content(ndjson))
+                .andExpect(status().isOk())
+                .andDo(print());
+
+        assertEquals(201, rows.get(0).room.room_number);
+        assertEquals("La fila no es una habitación en JSON válida", rows.get(1).error);
+    }
+
+    /**
+     * Tests that a CSV file without the required columns is refused with a 400 Bad Request response.
+     *
+     * @throws Exception if an error occurs during the HTTP request
+     */
+    @Test
+    public void whenImportCsv_missingColumns_thenReturnsBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/admin/rooms/import").contentType("text/csv").content("room_number,type\n1,SINGLE"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(
+                        "La cabecera del fichero debe incluir las columnas room_number, type, price_per_night"))
+                .andDo(print());
+
+        verifyNoInteractions(roomImportUseCase);
+    }
+}
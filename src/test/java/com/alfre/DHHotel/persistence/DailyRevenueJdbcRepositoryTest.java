@@ -0,0 +1,283 @@
+package com.alfre.DHHotel.persistence;
+
+import com.alfre.DHHotel.adapter.persistence.DailyRevenueJdbcRepository;
+import com.alfre.DHHotel.adapter.persistence.DailyRevenueJdbcRepository.RollupDrift;
+import com.alfre.DHHotel.domain.model.DailyRevenue;
+import com.alfre.DHHotel.domain.model.MethodPayment;
+import com.alfre.DHHotel.domain.model.Payment;
+import com.alfre.DHHotel.domain.model.Reservation;
+import com.alfre.DHHotel.domain.model.ReservationStatus;
+import com.alfre.DHHotel.domain.model.RoomType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the daily revenue rollups JDBC repository implementation.
+ *
+ * @author Alfredo Sobrados González
+ */
+@ExtendWith(MockitoExtension.class)
+public class DailyRevenueJdbcRepositoryTest {
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DailyRevenueJdbcRepository dailyRevenueRepository;
+
+    private static final LocalDate DAY = LocalDate.of(2024, 4, 1);
+
+    @BeforeEach
+    void setup() {
+        dailyRevenueRepository = new DailyRevenueJdbcRepository(jdbcTemplate, transactionManager);
+    }
+
+    private static Object roomType(SqlParameterSource params) {
+        return params.getValue("roomType");
+    }
+
+    private static Reservation reservation(String totalPrice, int nights, ReservationStatus status) {
+        return new Reservation(7L, 10L, 100L, new BigDecimal(totalPrice), DAY, DAY.plusDays(nights), status, 0L);
+    }
+
+    /**
+     * Tests that reservationsChanged() spreads the price of a new reservation over its nights, leaving out the
+     * check-out date, with the rounding difference on the last night, in a single batch.
+     */
+    @Test
+    public void testReservationsChanged_spreadsPriceOverDays() {
+        // Arrange
+        ArgumentCaptor<SqlParameterSource[]> captor = ArgumentCaptor.forClass(SqlParameterSource[].class);
+
+        // Act
+        dailyRevenueRepository.reservationsChanged(List.of(),
+                List.of(reservation("100.00", 3, ReservationStatus.PENDING)));
+
+        // Assert
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO DailyRevenue (day, room_type, rooms_sold"),
+                captor.capture());
+        SqlParameterSource[] batch = captor.getValue();
+        assertEquals(3, batch.length);
+        assertEquals(DAY, batch[0].getValue("day"));
+        assertEquals(100L, batch[0].getValue("roomId"));
+        assertEquals(1, batch[0].getValue("roomsSold"));
+        assertEquals(new BigDecimal("33.33"), batch[0].getValue("roomRevenue"));
+        assertEquals(DAY.plusDays(2), batch[2].getValue("day"));
+        assertEquals(new BigDecimal("33.34"), batch[2].getValue("roomRevenue"));
+    }
+
+    /**
+     * Tests that reservationsChanged() runs nothing for a stay that checks out on its check-in date.
+     */
+    @Test
+    public void testReservationsChanged_sameDayStaySellsNoNights() {
+        // Act
+        dailyRevenueRepository.reservationsChanged(List.of(),
+                List.of(reservation("100.00", 0, ReservationStatus.PENDING)));
+
+        // Assert
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    /**
+     * Tests that reservationsChanged() only writes the nights whose count or revenue changes when a stay is
+     * extended by one night at the same nightly price.
+     */
+    @Test
+    public void testReservationsChanged_skipsUnchangedDays() {
+        // Arrange
+        ArgumentCaptor<SqlParameterSource[]> captor = ArgumentCaptor.forClass(SqlParameterSource[].class);
+
+        // Act
+        dailyRevenueRepository.reservationsChanged(List.of(reservation("100.00", 2, ReservationStatus.CONFIRMED)),
+                List.of(reservation("150.00", 3, ReservationStatus.CONFIRMED)));
+
+        // Assert
+        verify(jdbcTemplate).batchUpdate(anyString(), captor.capture());
+        SqlParameterSource[] batch = captor.getValue();
+        assertEquals(1, batch.length);
+        assertEquals(DAY.plusDays(2), batch[0].getValue("day"));
+        assertEquals(new BigDecimal("50.00"), batch[0].getValue("roomRevenue"));
+    }
+
+    /**
+     * Tests that reservationsChanged() takes the nights of a canceled reservation away and runs nothing when the
+     * reservation was already canceled.
+     */
+    @Test
+    public void testReservationsChanged_canceledReservationBooksNoNights() {
+        // Arrange
+        ArgumentCaptor<SqlParameterSource[]> captor = ArgumentCaptor.forClass(SqlParameterSource[].class);
+
+        // Act
+        dailyRevenueRepository.reservationsChanged(List.of(reservation("100.00", 2, ReservationStatus.PENDING)),
+                List.of(reservation("100.00", 2, ReservationStatus.CANCELED)));
+        dailyRevenueRepository.reservationsChanged(List.of(reservation("100.00", 2, ReservationStatus.CANCELED)),
+                List.of(reservation("100.00", 2, ReservationStatus.CANCELED)));
+
+        // Assert
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), captor.capture());
+        SqlParameterSource[] batch = captor.getValue();
+        assertEquals(2, batch.length);
+        assertEquals(-1, batch[0].getValue("roomsSold"));
+        assertEquals(new BigDecimal("-50.00"), batch[0].getValue("roomRevenue"));
+    }
+
+    /**
+     * Tests that paymentsChanged() adds up the payments of the same day and reservation and writes the difference
+     * of an updated payment.
+     */
+    @Test
+    public void testPaymentsChanged_writesDifferencePerDayAndReservation() {
+        // Arrange
+        Payment before = new Payment(1L, 7L, new BigDecimal("50.00"), DAY, MethodPayment.CARD);
+        Payment after = new Payment(1L, 7L, new BigDecimal("80.00"), DAY, MethodPayment.CARD);
+        Payment other = new Payment(2L, 7L, new BigDecimal("20.00"), DAY, MethodPayment.CASH);
+        ArgumentCaptor<SqlParameterSource[]> captor = ArgumentCaptor.forClass(SqlParameterSource[].class);
+
+        // Act
+        dailyRevenueRepository.paymentsChanged(List.of(before), List.of(after, other));
+
+        // Assert
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO DailyRevenue (day, room_type, payments_total)"),
+                captor.capture());
+        SqlParameterSource[] batch = captor.getValue();
+        assertEquals(1, batch.length);
+        assertEquals(7L, batch[0].getValue("reservationId"));
+        assertEquals(new BigDecimal("50.00"), batch[0].getValue("amount"));
+    }
+
+    /**
+     * Tests that rebuild() locks and adds up again each rollup that drifted, including the ones that should no
+     * longer hold anything, in its own read-committed transaction, and leaves the matching ones alone.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testRebuild_correctsDriftedRollupsUnderRowLock() {
+        // Arrange
+        DailyRevenue matching = new DailyRevenue(DAY, RoomType.SINGLE, 1, new BigDecimal("50.00"),
+                new BigDecimal("0.00"));
+        DailyRevenue drifted = new DailyRevenue(DAY, RoomType.DOUBLE, 1, new BigDecimal("80.00"), BigDecimal.ZERO);
+        DailyRevenue stale = new DailyRevenue(DAY.plusDays(1), RoomType.SUITE, 1, new BigDecimal("200.00"),
+                BigDecimal.ZERO);
+        DailyRevenue doubleExpected = new DailyRevenue(DAY, RoomType.DOUBLE, 2, new BigDecimal("160.00"),
+                BigDecimal.ZERO);
+        when(jdbcTemplate.query(eq("SELECT * FROM DailyRevenue"), any(MapSqlParameterSource.class),
+                any(RowMapper.class))).thenReturn(List.of(matching, drifted, stale));
+        when(jdbcTemplate.query(contains("WHERE n.night < r.end_date\n"), any(MapSqlParameterSource.class),
+                any(RowMapper.class)))
+                .thenReturn(List.of(
+                        new DailyRevenue(DAY, RoomType.SINGLE, 1, new BigDecimal("50"), BigDecimal.ZERO),
+                        doubleExpected));
+        when(jdbcTemplate.queryForObject(startsWith("SELECT * FROM DailyRevenue WHERE day"),
+                any(SqlParameterSource.class), any(RowMapper.class)))
+                .thenAnswer(invocation -> "DOUBLE".equals(roomType(invocation.getArgument(1))) ? drifted : stale);
+        when(jdbcTemplate.query(contains("AND n.night = :day"), any(MapSqlParameterSource.class),
+                any(RowMapper.class)))
+                .thenAnswer(invocation -> "DOUBLE".equals(roomType(invocation.getArgument(1)))
+                        ? List.of(doubleExpected) : List.of());
+        ArgumentCaptor<SqlParameterSource> captor = ArgumentCaptor.forClass(SqlParameterSource.class);
+
+        // Act
+        int corrected = dailyRevenueRepository.rebuild();
+
+        // Assert
+        assertEquals(2, corrected);
+        verify(transactionManager, times(2)).getTransaction(argThat(definition ->
+                definition.getIsolationLevel() == TransactionDefinition.ISOLATION_READ_COMMITTED));
+        verify(jdbcTemplate, times(2)).update(contains("ON DUPLICATE KEY UPDATE rooms_sold = rooms_sold"),
+                any(SqlParameterSource.class));
+        verify(jdbcTemplate, times(2)).update(startsWith("UPDATE DailyRevenue SET"), captor.capture());
+        List<SqlParameterSource> rows = captor.getAllValues();
+        assertEquals("DOUBLE", rows.get(0).getValue("roomType"));
+        assertEquals(2, rows.get(0).getValue("roomsSold"));
+        assertEquals("SUITE", rows.get(1).getValue("roomType"));
+        assertEquals(0, rows.get(1).getValue("roomsSold"));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(SqlParameterSource[].class));
+    }
+
+    /**
+     * Tests that rebuild() leaves a rollup alone when, once locked, it already matches the amounts added up again,
+     * as happens when a reservation written after the unlocked check brought it back in line.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testRebuild_skipsRollupFixedByConcurrentWrite() {
+        // Arrange
+        DailyRevenue before = new DailyRevenue(DAY, RoomType.DOUBLE, 1, new BigDecimal("80.00"), BigDecimal.ZERO);
+        DailyRevenue after = new DailyRevenue(DAY, RoomType.DOUBLE, 2, new BigDecimal("160.00"), BigDecimal.ZERO);
+        when(jdbcTemplate.query(eq("SELECT * FROM DailyRevenue"), any(MapSqlParameterSource.class),
+                any(RowMapper.class))).thenReturn(List.of(before));
+        when(jdbcTemplate.query(contains("WHERE n.night < r.end_date\n"), any(MapSqlParameterSource.class),
+                any(RowMapper.class))).thenReturn(List.of(after));
+        when(jdbcTemplate.queryForObject(startsWith("SELECT * FROM DailyRevenue WHERE day"),
+                any(SqlParameterSource.class), any(RowMapper.class))).thenReturn(after);
+        when(jdbcTemplate.query(contains("AND n.night = :day"), any(MapSqlParameterSource.class),
+                any(RowMapper.class))).thenReturn(List.of(after));
+
+        // Act
+        int corrected = dailyRevenueRepository.rebuild();
+
+        // Assert
+        assertEquals(0, corrected);
+        verify(jdbcTemplate, never()).update(startsWith("UPDATE DailyRevenue SET"), any(SqlParameterSource.class));
+    }
+
+    /**
+     * Tests that findDrift() reports nothing when every rollup matches.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testFindDrift_noDrift() {
+        // Arrange
+        DailyRevenue rollup = new DailyRevenue(DAY, RoomType.SINGLE, 1, new BigDecimal("50.00"), BigDecimal.ZERO);
+        when(jdbcTemplate.query(anyString(), any(MapSqlParameterSource.class), any(RowMapper.class)))
+                .thenReturn(List.of(rollup));
+
+        // Act
+        List<RollupDrift> drift = dailyRevenueRepository.findDrift();
+
+        // Assert
+        assertTrue(drift.isEmpty());
+    }
+
+    /**
+     * Tests that rebuild() corrects nothing when the database cannot be read.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testRebuild_databaseUnavailable() {
+        // Arrange
+        when(jdbcTemplate.query(anyString(), any(MapSqlParameterSource.class), any(RowMapper.class)))
+                .thenThrow(new DataAccessResourceFailureException("sin conexión"));
+
+        // Act
+        int corrected = dailyRevenueRepository.rebuild();
+
+        // Assert
+        assertEquals(0, corrected);
+        verify(jdbcTemplate, never()).update(anyString(), any(SqlParameterSource.class));
+        verifyNoInteractions(transactionManager);
+    }
+}
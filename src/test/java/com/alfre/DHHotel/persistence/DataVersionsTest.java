@@ -0,0 +1,170 @@
+package com.alfre.DHHotel.persistence;
+
+import com.alfre.DHHotel.adapter.persistence.DataVersions;
+import com.alfre.DHHotel.adapter.persistence.DataVersions.Aggregate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the version counters behind the entity tags.
+ *
+ * @author Alfredo Sobrados González
+ */
+public class DataVersionsTest {
+    private final List<String> sent = new ArrayList<>();
+    private DataVersions versions;
+
+    @BeforeEach
+    void setup() {
+        versions = new DataVersions(sent::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Tests that a change only alters the tags built from the aggregate that changed, and is broadcast.
+     */
+    @Test
+    void testChangedAltersOnlyItsTags() {
+        String rooms = versions.tag(Aggregate.ROOMS);
+        String payments = versions.tag(Aggregate.PAYMENTS);
+
+        versions.changed(Aggregate.ROOMS);
+
+        assertEquals(1, versions.get(Aggregate.ROOMS));
+        assertNotEquals(rooms, versions.tag(Aggregate.ROOMS));
+        assertEquals(payments, versions.tag(Aggregate.PAYMENTS));
+        assertEquals(1, sent.size());
+    }
+
+    /**
+     * Tests that inside a transaction the version only changes once the transaction commits.
+     */
+    @Test
+    void testChangedInsideTransaction_appliesOnCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        versions.changed(Aggregate.RESERVATIONS);
+        assertEquals(0, versions.get(Aggregate.RESERVATIONS));
+        assertTrue(sent.isEmpty());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(1, versions.get(Aggregate.RESERVATIONS));
+    }
+
+    /**
+     * Tests that the changes broadcast by another node are applied and that the own ones are not applied twice.
+     */
+    @Test
+    void testOnMessage_appliesChangesOfOtherNodesOnly() {
+        DataVersions otherNode = new DataVersions(sent::add);
+        otherNode.changed(Aggregate.PAYMENTS);
+        versions.changed(Aggregate.ROOMS);
+
+        versions.onMessage(message(sent.get(0)), null);
+        versions.onMessage(message(sent.get(1)), null);
+        versions.onMessage(message("not a change"), null);
+
+        assertEquals(1, versions.get(Aggregate.PAYMENTS));
+        assertEquals(1, versions.get(Aggregate.ROOMS));
+    }
+
+    /**
+     * Tests that two nodes never hand out the same tag, even with the same counters.
+     */
+    @Test
+    void testTagsDifferBetweenNodes() {
+        assertNotEquals(new DataVersions().tag(Aggregate.ROOMS), versions.tag(Aggregate.ROOMS));
+    }
+
+    /**
+     * Tests that after a change broadcast by another node the tags stay marked until the caches of this node have
+     * had time to drop the old data, so a tag handed out in that window, possibly with stale data, stops matching.
+     */
+    @Test
+    void testOnMessage_marksTagsUntilTheChangeSettles() {
+        MutableClock clock = new MutableClock();
+        DataVersions node = new DataVersions(sent::add, clock);
+        new DataVersions(sent::add, clock).changed(Aggregate.ROOMS);
+        String before = node.tag(Aggregate.ROOMS);
+
+        node.onMessage(message(sent.get(0)), null);
+        String unsettled = node.tag(Aggregate.ROOMS);
+        clock.advance(Duration.ofSeconds(4));
+        assertEquals(unsettled, node.tag(Aggregate.ROOMS));
+        clock.advance(Duration.ofSeconds(2));
+        String settled = node.tag(Aggregate.ROOMS);
+
+        assertTrue(before.endsWith("-0"));
+        assertTrue(unsettled.endsWith("-1u"));
+        assertTrue(settled.endsWith("-1"));
+        assertNotEquals(unsettled, settled);
+    }
+
+    /**
+     * Tests that a change made on this node marks its tags as well, while the other aggregates keep theirs.
+     */
+    @Test
+    void testChanged_marksOnlyItsTagsUntilTheChangeSettles() {
+        MutableClock clock = new MutableClock();
+        DataVersions node = new DataVersions(sent::add, clock);
+
+        node.changed(Aggregate.PAYMENTS);
+
+        assertTrue(node.tag(Aggregate.ROOMS, Aggregate.PAYMENTS).endsWith("-0-1u"));
+        clock.advance(Duration.ofSeconds(6));
+        assertTrue(node.tag(Aggregate.ROOMS, Aggregate.PAYMENTS).endsWith("-0-1"));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage("dhhotel.data.versions".getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Clock whose time is moved by the tests, set a few seconds into a tag period.
+     */
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-06-01T10:00:10Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
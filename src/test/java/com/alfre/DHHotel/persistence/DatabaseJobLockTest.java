@@ -0,0 +1,118 @@
+package com.alfre.DHHotel.persistence;
+
+import com.alfre.DHHotel.adapter.persistence.DatabaseJobLock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the database lock that keeps a scheduled job to one node.
+ *
+ * @author Alfredo Sobrados González
+ */
+@ExtendWith(MockitoExtension.class)
+public class DatabaseJobLockTest {
+    private static final String NAME = "dhhotel.test.job";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement lockStatement;
+
+    @Mock
+    private PreparedStatement releaseStatement;
+
+    @Mock
+    private ResultSet lockResult;
+
+    @Mock
+    private ResultSet releaseResult;
+
+    private DatabaseJobLock jobLock;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() throws Exception {
+        jobLock = new DatabaseJobLock(jdbcTemplate);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+        when(connection.prepareStatement("SELECT GET_LOCK(?, 0)")).thenReturn(lockStatement);
+        when(lockStatement.executeQuery()).thenReturn(lockResult);
+        when(lockResult.next()).thenReturn(true);
+    }
+
+    /**
+     * Tests that the job runs on the connection that took the lock, which is released afterwards.
+     */
+    @Test
+    public void testRunExclusively_lockTaken_runsAndReleases() throws Exception {
+        // Arrange
+        when(lockResult.getInt(1)).thenReturn(1);
+        when(connection.prepareStatement("SELECT RELEASE_LOCK(?)")).thenReturn(releaseStatement);
+        when(releaseStatement.executeQuery()).thenReturn(releaseResult);
+        AtomicInteger runs = new AtomicInteger();
+
+        // Act
+        boolean ran = jobLock.runExclusively(NAME, runs::incrementAndGet);
+
+        // Assert
+        assertTrue(ran);
+        assertEquals(1, runs.get());
+        verify(lockStatement).setString(1, NAME);
+        verify(releaseStatement).setString(1, NAME);
+    }
+
+    /**
+     * Tests that the job is skipped without waiting when another node holds the lock.
+     */
+    @Test
+    public void testRunExclusively_lockHeldElsewhere_skipsJob() throws Exception {
+        // Arrange
+        when(lockResult.getInt(1)).thenReturn(0);
+        AtomicInteger runs = new AtomicInteger();
+
+        // Act
+        boolean ran = jobLock.runExclusively(NAME, runs::incrementAndGet);
+
+        // Assert
+        assertFalse(ran);
+        assertEquals(0, runs.get());
+        verify(connection, never()).prepareStatement("SELECT RELEASE_LOCK(?)");
+    }
+
+    /**
+     * Tests that the lock is released even when the job fails.
+     */
+    @Test
+    public void testRunExclusively_jobFails_releasesLock() throws Exception {
+        // Arrange
+        when(lockResult.getInt(1)).thenReturn(1);
+        when(connection.prepareStatement("SELECT RELEASE_LOCK(?)")).thenReturn(releaseStatement);
+        when(releaseStatement.executeQuery()).thenReturn(releaseResult);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> jobLock.runExclusively(NAME, () -> {
+            throw new IllegalStateException("fallo");
+        }));
+        verify(releaseStatement).setString(1, NAME);
+        verify(releaseStatement).executeQuery();
+    }
+}
@@ -0,0 +1,91 @@
+package com.alfre.DHHotel.persistence;
+
+import com.alfre.DHHotel.adapter.persistence.DataVersions;
+import com.alfre.DHHotel.adapter.persistence.DataVersions.Aggregate;
+import com.alfre.DHHotel.adapter.persistence.DatabaseJobLock;
+import com.alfre.DHHotel.adapter.persistence.PaidTotalEndpoint;
+import com.alfre.DHHotel.adapter.persistence.PaymentJdbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the nightly correction of the paid totals.
+ *
+ * @author Alfredo Sobrados González
+ */
+@ExtendWith(MockitoExtension.class)
+public class PaidTotalEndpointTest {
+    @Mock
+    private PaymentJdbcRepository paymentRepository;
+
+    @Mock
+    private DataVersions versions;
+
+    @Mock
+    private DatabaseJobLock jobLock;
+
+    private PaidTotalEndpoint endpoint;
+
+    @BeforeEach
+    void setup() {
+        endpoint = new PaidTotalEndpoint(paymentRepository, versions, jobLock);
+    }
+
+    /**
+     * Tests that the node that takes the lock corrects the paid totals and changes the version of the reservations.
+     */
+    @Test
+    public void testReconcileNightly_lockTaken_correctsPaidTotals() {
+        // Arrange
+        when(jobLock.runExclusively(anyString(), any(Runnable.class))).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return true;
+        });
+        when(paymentRepository.reconcilePaidTotals()).thenReturn(2);
+
+        // Act
+        endpoint.reconcileNightly();
+
+        // Assert
+        verify(paymentRepository).reconcilePaidTotals();
+        verify(versions).changed(Aggregate.RESERVATIONS);
+    }
+
+    /**
+     * Tests that a node skips the correction while another node holds the lock.
+     */
+    @Test
+    public void testReconcileNightly_lockHeldElsewhere_skipsCorrection() {
+        // Arrange
+        when(jobLock.runExclusively(anyString(), any(Runnable.class))).thenReturn(false);
+
+        // Act
+        endpoint.reconcileNightly();
+
+        // Assert
+        verifyNoInteractions(paymentRepository, versions);
+    }
+
+    /**
+     * Tests that a failure to take the lock is logged instead of reaching the scheduler.
+     */
+    @Test
+    public void testReconcileNightly_databaseUnavailable() {
+        // Arrange
+        when(jobLock.runExclusively(anyString(), any(Runnable.class)))
+                .thenThrow(new DataAccessResourceFailureException("sin conexión"));
+
+        // Act & Assert
+        assertDoesNotThrow(() -> endpoint.reconcileNightly());
+        verifyNoInteractions(paymentRepository, versions);
+    }
+}
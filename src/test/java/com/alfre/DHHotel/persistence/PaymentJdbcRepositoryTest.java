@@ -5,14 +5,20 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import javax.sql.DataSource;
 
+import com.alfre.DHHotel.domain.model.FieldSet;
 import com.alfre.DHHotel.domain.model.Payment;
+import com.alfre.DHHotel.domain.model.PaymentFilter;
 import com.alfre.DHHotel.domain.model.MethodPayment;
 import com.alfre.DHHotel.adapter.persistence.PaymentJdbcRepository;
 
@@ -20,12 +26,18 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.test.util.ReflectionTestUtils;
 
 /**
@@ -100,6 +112,69 @@ public class PaymentJdbcRepositoryTest {
         assertEquals(expected.method, actual.method, "El método de pago debe coincidir");
     }
 
+    /**
+     * Tests that getPaymentsPage() reads the page after the cursor filtered by method and date range.
+     */
+    @Test
+    public void testGetPaymentsPage_filtersByMethodAndDates() {
+        // Arrange
+        Payment payment = new Payment(8L, 100L, BigDecimal.valueOf(150.00),
+                LocalDate.of(2024, 3, 2), MethodPayment.CASH);
+        PaymentFilter filter = new PaymentFilter(null, MethodPayment.CASH,
+                LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31));
+        String sql = "SELECT id, reservation_id, amount, payment_date, method, version FROM " + table +
+                " WHERE id > :afterId AND method = :method AND payment_date >= :from AND payment_date <= :to " +
+                "ORDER BY id LIMIT :limit";
+        ArgumentCaptor<MapSqlParameterSource> captor = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        when(jdbcTemplate.query(eq(sql), captor.capture(), any(PaymentJdbcRepository.PaymentMapper.class)))
+                .thenReturn(List.of(payment));
+
+        // Act
+        List<Payment> result = paymentRepository.getPaymentsPage(filter, 0L, 100, FieldSet.ALL);
+
+        // Assert
+        assertEquals(1, result.size(), "Debe retornar 1 pago");
+        assertEquals("CASH", captor.getValue().getValue("method"));
+        assertEquals(0L, captor.getValue().getValue("afterId"));
+        assertFalse(captor.getValue().hasValue("reservationId"));
+    }
+
+    /**
+     * Tests that streamPayments() reads the date range in ID order through the streaming template, passing each
+     * payment on as its row is read.
+     *
+     * @throws SQLException never, the result set is a mock
+     */
+    @Test
+    public void testStreamPayments_readsRowByRow() throws SQLException {
+        // Arrange
+        NamedParameterJdbcTemplate exportTemplate = mock(NamedParameterJdbcTemplate.class);
+        ReflectionTestUtils.setField(paymentRepository, "exportTemplate", exportTemplate);
+        String sql = "SELECT * FROM " + table + " WHERE payment_date >= :from ORDER BY id";
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(4L);
+        when(rs.getLong("reservation_id")).thenReturn(100L);
+        when(rs.getBigDecimal("amount")).thenReturn(BigDecimal.valueOf(75.00));
+        when(rs.getObject("payment_date", LocalDate.class)).thenReturn(LocalDate.of(2024, 3, 5));
+        when(rs.getString("method")).thenReturn("CARD");
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            handler.processRow(rs);
+            handler.processRow(rs);
+            return null;
+        }).when(exportTemplate).query(eq(sql), any(MapSqlParameterSource.class), any(RowCallbackHandler.class));
+        List<Payment> read = new ArrayList<>();
+
+        // Act
+        paymentRepository.streamPayments(new PaymentFilter(null, null, LocalDate.of(2024, 3, 1), null), read::add);
+
+        // Assert
+        assertEquals(2, read.size(), "Debe pasar 2 pagos");
+        assertEquals(4L, read.getFirst().id);
+        assertEquals(MethodPayment.CARD, read.getFirst().method);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
     /**
      * Tests that getPaymentById(long) returns a Payment when found.
      * <p>
@@ -235,11 +310,14 @@ public class PaymentJdbcRepositoryTest {
         // Update some fields
         payment.amount = BigDecimal.valueOf(175.00);
         payment.payment_date = LocalDate.now();
+        payment.version = 4L;
 
-        String sql = "UPDATE " + table + " SET amount = :amount, payment_date = :paymentDate, method = :method" +
-                " WHERE id = :id";
+        String sql = "UPDATE " + table + " SET amount = :amount, payment_date = :paymentDate, method = :method, " +
+                "version = version + 1 WHERE id = :id AND version = :version";
 
         when(jdbcTemplate.update(eq(sql), any(MapSqlParameterSource.class))).thenReturn(1);
+        when(jdbcTemplate.update(startsWith("UPDATE Reservation r JOIN"), any(MapSqlParameterSource.class)))
+                .thenReturn(1);
 
         // Act
         int rows = paymentRepository.updatePayment(payment, payment.id);
@@ -254,6 +332,8 @@ public class PaymentJdbcRepositoryTest {
         assertEquals(payment.amount, params.getValue("amount"), "El monto debe coincidir");
         assertEquals(payment.payment_date, params.getValue("paymentDate"), "La fecha debe coincidir");
         assertEquals(payment.method.name(), params.getValue("method"), "El método debe coincidir");
+        assertEquals(4L, params.getValue("version"), "Se debe comprobar la versión leída");
+        assertEquals(5L, payment.version, "La versión debe incrementarse tras actualizar");
     }
 
     /**
@@ -269,6 +349,8 @@ public class PaymentJdbcRepositoryTest {
         long id = 1L;
         String sql = "DELETE FROM " + table + " WHERE id = :id";
         when(jdbcTemplate.update(eq(sql), any(MapSqlParameterSource.class))).thenReturn(1);
+        when(jdbcTemplate.update(startsWith("UPDATE Reservation r JOIN"), any(MapSqlParameterSource.class)))
+                .thenReturn(1);
 
         // Act
         int rows = paymentRepository.deletePayment(id);
@@ -368,4 +450,160 @@ public class PaymentJdbcRepositoryTest {
 
         assertEquals(expected.id, actual.id, "El ID debe coincidir");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that createPayment(Payment) adds the amount of the new payment to the paid total of its reservation.
+     */
+    @Test
+    public void testCreatePayment_addsAmountToPaidTotal() {
+        // Arrange
+        Payment payment = new Payment(0L, 100L, BigDecimal.valueOf(150.00),
+                LocalDate.now(), MethodPayment.CARD);
+        when(insert.executeAndReturnKey(any(MapSqlParameterSource.class))).thenReturn(1L);
+        String sql = "UPDATE Reservation SET paid_total = paid_total + :amount WHERE id = :reservationId";
+
+        // Act
+        paymentRepository.createPayment(payment);
+
+        // Assert
+        ArgumentCaptor<MapSqlParameterSource> captor = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbcTemplate).update(eq(sql), captor.capture());
+        assertEquals(100L, captor.getValue().getValue("reservationId"), "La reserva debe coincidir");
+        assertEquals(payment.amount, captor.getValue().getValue("amount"), "El monto debe coincidir");
+    }
+
+    /**
+     * Tests that updatePayment(Payment, long) adds the difference of the amounts to the paid total of the
+     * reservation before updating the payment, under the same version check.
+     */
+    @Test
+    public void testUpdatePayment_adjustsPaidTotalFirst() {
+        // Arrange
+        Payment payment = new Payment(1L, 100L, BigDecimal.valueOf(175.00),
+                LocalDate.now(), MethodPayment.CARD);
+        payment.version = 4L;
+        String paidTotalSql = "UPDATE Reservation r JOIN Payment p ON p.reservation_id = r.id " +
+                "SET r.paid_total = r.paid_total + :amount - p.amount WHERE p.id = :id AND p.version = :version";
+        when(jdbcTemplate.update(anyString(), any(MapSqlParameterSource.class))).thenReturn(1);
+
+        // Act
+        paymentRepository.updatePayment(payment, payment.id);
+
+        // Assert
+        InOrder inOrder = inOrder(jdbcTemplate);
+        ArgumentCaptor<MapSqlParameterSource> captor = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        inOrder.verify(jdbcTemplate).update(eq(paidTotalSql), captor.capture());
+        inOrder.verify(jdbcTemplate).update(startsWith("UPDATE " + table), any(MapSqlParameterSource.class));
+        assertEquals(payment.amount, captor.getValue().getValue("amount"), "El monto debe coincidir");
+        assertEquals(4L, captor.getValue().getValue("version"), "Se debe comprobar la versión leída");
+    }
+
+    /**
+     * Tests that deletePayment(long) takes the amount of the payment out of the paid total of its reservation
+     * while the payment still exists.
+     */
+    @Test
+    public void testDeletePayment_subtractsFromPaidTotalFirst() {
+        // Arrange
+        String paidTotalSql = "UPDATE Reservation r JOIN Payment p ON p.reservation_id = r.id " +
+                "SET r.paid_total = r.paid_total - p.amount WHERE p.id = :id";
+        String sql = "DELETE FROM " + table + " WHERE id = :id";
+
+        // Act
+        paymentRepository.deletePayment(1L);
+
+        // Assert
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).update(eq(paidTotalSql), any(MapSqlParameterSource.class));
+        inOrder.verify(jdbcTemplate).update(eq(sql), any(MapSqlParameterSource.class));
+    }
+
+    /**
+     * Tests that reconcilePaidTotals() corrects the paid totals when some of them do not match their payments,
+     * updating only the reservations found.
+     */
+    @Test
+    public void testReconcilePaidTotals_correctsMismatches() {
+        // Arrange
+        PaymentJdbcRepository.PaidTotalMismatch mismatch = new PaymentJdbcRepository.PaidTotalMismatch(7L,
+                new BigDecimal("50.00"), new BigDecimal("80.00"));
+        when(jdbcTemplate.query(contains("HAVING r.paid_total <> COALESCE(SUM(p.amount), 0)"),
+                any(MapSqlParameterSource.class),
+                ArgumentMatchers.<RowMapper<PaymentJdbcRepository.PaidTotalMismatch>>any()))
+                .thenReturn(List.of(mismatch));
+        ArgumentCaptor<MapSqlParameterSource> captor = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        when(jdbcTemplate.update(startsWith("UPDATE Reservation r\nSET r.paid_total"), captor.capture()))
+                .thenReturn(1);
+
+        // Act
+        int corrected = paymentRepository.reconcilePaidTotals();
+
+        // Assert
+        assertEquals(1, corrected, "Se debe corregir 1 reserva");
+        assertEquals(List.of(7L), captor.getValue().getValue("ids"), "Solo se debe corregir la reserva encontrada");
+    }
+
+    /**
+     * Tests that reconcilePaidTotals() writes nothing when every paid total matches its payments.
+     */
+    @Test
+    public void testReconcilePaidTotals_nothingToCorrect() {
+        // Arrange
+        when(jdbcTemplate.query(anyString(), any(MapSqlParameterSource.class),
+                ArgumentMatchers.<RowMapper<PaymentJdbcRepository.PaidTotalMismatch>>any()))
+                .thenReturn(List.of());
+
+        // Act
+        int corrected = paymentRepository.reconcilePaidTotals();
+
+        // Assert
+        assertEquals(0, corrected, "No se debe corregir ninguna reserva");
+        verify(jdbcTemplate, never()).update(anyString(), any(MapSqlParameterSource.class));
+    }
+
+    /**
+     * Tests that createPayments() inserts every payment with one batch, assigns the generated IDs in order and adds
+     * the amounts to the paid totals with a second batch holding one statement per reservation.
+     */
+    @Test
+    public void testCreatePayments_batchesInsertAndPaidTotals() {
+        // Arrange
+        List<Payment> payments = List.of(
+                new Payment(0L, 100L, new BigDecimal("50.00"), LocalDate.of(2024, 3, 1), MethodPayment.CARD),
+                new Payment(0L, 101L, new BigDecimal("80.00"), LocalDate.of(2024, 3, 1), MethodPayment.CARD),
+                new Payment(0L, 100L, new BigDecimal("25.00"), LocalDate.of(2024, 3, 2), MethodPayment.CARD));
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO Payment"), any(SqlParameterSource[].class),
+                any(KeyHolder.class), any(String[].class))).thenAnswer(invocation -> {
+                    KeyHolder keyHolder = invocation.getArgument(2);
+                    keyHolder.getKeyList().add(Map.of("insert_id", 31L));
+                    keyHolder.getKeyList().add(Map.of("insert_id", 32L));
+                    keyHolder.getKeyList().add(Map.of("insert_id", 33L));
+                    return new int[]{1, 1, 1};
+                });
+        ArgumentCaptor<SqlParameterSource[]> captor = ArgumentCaptor.forClass(SqlParameterSource[].class);
+
+        // Act
+        List<Long> ids = paymentRepository.createPayments(payments);
+
+        // Assert
+        assertEquals(List.of(31L, 32L, 33L), ids);
+        assertEquals(33L, payments.get(2).id);
+        verify(jdbcTemplate).batchUpdate(eq("UPDATE Reservation SET paid_total = paid_total + :amount " +
+                "WHERE id = :reservationId"), captor.capture());
+        SqlParameterSource[] paidTotals = captor.getValue();
+        assertEquals(2, paidTotals.length);
+        assertEquals(100L, paidTotals[0].getValue("reservationId"));
+        assertEquals(new BigDecimal("75.00"), paidTotals[0].getValue("amount"));
+        verifyNoInteractions(insert);
+    }
+
+    /**
+     * Tests that createPayments() runs nothing when there is no payment.
+     */
+    @Test
+    public void testCreatePayments_empty() {
+        assertTrue(paymentRepository.createPayments(List.of()).isEmpty());
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
+
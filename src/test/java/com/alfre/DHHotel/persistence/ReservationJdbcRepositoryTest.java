@@ -4,9 +4,13 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import com.alfre.DHHotel.domain.model.FieldSet;
 import com.alfre.DHHotel.domain.model.Reservation;
+import com.alfre.DHHotel.domain.model.ReservationFilter;
 import com.alfre.DHHotel.domain.model.ReservationStatus;
+import com.alfre.DHHotel.domain.model.RoomType;
 import com.alfre.DHHotel.adapter.persistence.ReservationJdbcRepository;
+import com.alfre.DHHotel.adapter.persistence.RoomAvailabilityIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,18 +18,27 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import javax.sql.DataSource;
 import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.Month;
+import java.time.YearMonth;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -50,6 +63,9 @@ public class ReservationJdbcRepositoryTest {
 
     private final String table = "Reservation";
 
+    private static final String INSERT_NIGHTS =
+            "INSERT INTO RoomNight (room_id, night, reservation_id) VALUES (:roomId, :night, :reservationId)";
+
     /**
      * Initializes the test environment before each test.
      * Injects jdbcTemplate and dataSource into the repository constructor,
@@ -168,6 +184,83 @@ public class ReservationJdbcRepositoryTest {
         assertEquals(res1, result.getFirst(), "The first reservation should match the expected one");
     }
 
+    /**
+     * Tests that getReservationsPage() reads the page after the cursor with only the criteria provided.
+     */
+    @Test
+    void testGetReservationsPage_addsOnlyGivenFilters() {
+        // Arrange
+        Reservation res = new Reservation(11L, 10L, 100L, BigDecimal.valueOf(500.0),
+                LocalDate.of(2023, Month.JANUARY, 1),
+                LocalDate.of(2023, Month.JANUARY, 5), ReservationStatus.CONFIRMED);
+        ReservationFilter filter = new ReservationFilter(ReservationStatus.CONFIRMED, null, 10L,
+                LocalDate.of(2023, Month.JANUARY, 1), null);
+        String sql = "SELECT id, client_id, room_id, total_price, start_date, end_date, status, version, paid_total " +
+                "FROM " + table + " WHERE id > :afterId AND status = :status AND client_id = :clientId " +
+                "AND end_date >= :from ORDER BY id LIMIT :limit";
+        ArgumentCaptor<MapSqlParameterSource> captor = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        when(jdbcTemplate.query(eq(sql), captor.capture(), any(ReservationJdbcRepository.ReservationMapper.class)))
+                .thenReturn(List.of(res));
+
+        // Act
+        List<Reservation> result = reservationRepository.getReservationsPage(filter, 10L, 50, FieldSet.ALL);
+
+        // Assert
+        assertEquals(List.of(res), result);
+        MapSqlParameterSource params = captor.getValue();
+        assertEquals(10L, params.getValue("afterId"));
+        assertEquals(50, params.getValue("limit"));
+        assertEquals("CONFIRMED", params.getValue("status"));
+        assertFalse(params.hasValue("roomId"));
+        assertFalse(params.hasValue("to"));
+    }
+
+    /**
+     * Tests that getReservationsPage() selects only the fields asked and maps only their columns.
+     *
+     * @throws SQLException never, the result set is a mock
+     */
+    @Test
+    void testGetReservationsPage_selectsOnlyGivenFields() throws SQLException {
+        // Arrange
+        FieldSet fields = new FieldSet(List.of("id", "start_date", "status"));
+        String sql = "SELECT id, start_date, status FROM " + table + " WHERE id > :afterId ORDER BY id LIMIT :limit";
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getInt("id")).thenReturn(11);
+        when(rs.getObject("start_date", LocalDate.class)).thenReturn(LocalDate.of(2023, Month.JANUARY, 1));
+        when(rs.getString("status")).thenReturn("CONFIRMED");
+        when(jdbcTemplate.query(eq(sql), any(MapSqlParameterSource.class),
+                any(ReservationJdbcRepository.ReservationMapper.class)))
+                .thenAnswer(invocation -> {
+                    RowMapper<Reservation> rowMapper = invocation.getArgument(2);
+                    return List.of(rowMapper.mapRow(rs, 0));
+                });
+
+        // Act
+        List<Reservation> result = reservationRepository.getReservationsPage(ReservationFilter.NONE, 0L, 100, fields);
+
+        // Assert
+        Reservation reservation = result.getFirst();
+        assertEquals(11L, reservation.id);
+        assertEquals(ReservationStatus.CONFIRMED, reservation.status);
+        assertNull(reservation.total_price);
+        assertNull(reservation.version);
+        assertNull(reservation.paid_total);
+        verify(rs, never()).getBigDecimal("total_price");
+    }
+
+    /**
+     * Tests that getReservationsPage() refuses a field that is not a column of the table.
+     */
+    @Test
+    void testGetReservationsPage_unknownField_throwsException() {
+        FieldSet fields = new FieldSet(List.of("id", "password"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> reservationRepository.getReservationsPage(ReservationFilter.NONE, 0L, 100, fields));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
     /**
      * Tests that createReservation() correctly creates a new reservation and returns the generated ID.
      */
@@ -198,6 +291,8 @@ public class ReservationJdbcRepositoryTest {
         assertEquals(newRes.start_date, params.getValue("startDate"), "The startDate should match");
         assertEquals(newRes.end_date, params.getValue("endDate"), "The endDate should match");
         assertEquals(newRes.status.name(), params.getValue("status"), "The status should match");
+        assertEquals(BigDecimal.ZERO, params.getValue("paid_total"), "Nothing should be paid yet");
+        assertEquals(BigDecimal.ZERO, newRes.paid_total, "Nothing should be paid yet");
     }
 
     /**
@@ -211,10 +306,11 @@ public class ReservationJdbcRepositoryTest {
                 LocalDate.of(2023, Month.JANUARY, 5), ReservationStatus.CONFIRMED);
         // Modify a field (for example, total_price)
         updatedRes.total_price = BigDecimal.valueOf(550.0);
+        updatedRes.version = 4L;
 
         String sql = "UPDATE " + table + " SET client_id = :clientId, room_id = :roomId, " +
-                "total_price = :totalPrice, start_date = :startDate, end_date = :endDate, status = :status" +
-                " WHERE id = :id";
+                "total_price = :totalPrice, start_date = :startDate, end_date = :endDate, status = :status, " +
+                "version = version + 1 WHERE id = :id AND version = :version";
 
         when(jdbcTemplate.update(eq(sql), any(MapSqlParameterSource.class))).thenReturn(1);
 
@@ -237,6 +333,8 @@ public class ReservationJdbcRepositoryTest {
         assertEquals(updatedRes.start_date, params.getValue("startDate"), "The start_date should match");
         assertEquals(updatedRes.end_date, params.getValue("endDate"), "The end_date should match");
         assertEquals(updatedRes.status.name(), params.getValue("status"), "The status should match");
+        assertEquals(4L, params.getValue("version"), "The version read should be checked");
+        assertEquals(5L, updatedRes.version, "The version should be increased after the update");
     }
 
     /**
@@ -375,4 +473,336 @@ public class ReservationJdbcRepositoryTest {
 
         assertTrue(ex.getMessage().contains("Error al verificar la disponibilidad de la habitación"));
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that isRoomAvailable() answers from the loaded availability index without querying the database
+     * when the index reports the room as free.
+     */
+    @Test
+    void testIsRoomAvailable_servedFromIndex() {
+        // Arrange: Load an index holding one reservation of room 100
+        RoomAvailabilityIndex index = new RoomAvailabilityIndex();
+        LocalDate today = LocalDate.now();
+        index.rebuild(List.of(new Reservation(1L, 10L, 100L, BigDecimal.valueOf(500.0), today.plusDays(1),
+                today.plusDays(4), ReservationStatus.PENDING)), today);
+        reservationRepository = new ReservationJdbcRepository(jdbcTemplate, dataSource, index);
+
+        // Act & Assert
+        assertTrue(reservationRepository.isRoomAvailable(100L, today.plusDays(5), today.plusDays(6)));
+        assertTrue(reservationRepository.isRoomAvailable(200L, today.plusDays(1), today.plusDays(6)));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    /**
+     * Tests that isRoomAvailable() confirms against the database a room the index reports as busy, so a stay
+     * released on another node does not keep the room unavailable.
+     */
+    @Test
+    void testIsRoomAvailable_busyInIndexConfirmedByDatabase() {
+        // Arrange: The index still holds a stay the database no longer has
+        RoomAvailabilityIndex index = new RoomAvailabilityIndex();
+        LocalDate today = LocalDate.now();
+        index.rebuild(List.of(new Reservation(1L, 10L, 100L, BigDecimal.valueOf(500.0), today.plusDays(1),
+                today.plusDays(4), ReservationStatus.PENDING)), today);
+        reservationRepository = new ReservationJdbcRepository(jdbcTemplate, dataSource, index);
+        when(jdbcTemplate.queryForObject(anyString(), any(MapSqlParameterSource.class), eq(Integer.class)))
+                .thenReturn(0, 1);
+
+        // Act & Assert
+        assertTrue(reservationRepository.isRoomAvailable(100L, today.plusDays(3), today.plusDays(6)));
+        assertFalse(reservationRepository.isRoomAvailable(100L, today.plusDays(3), today.plusDays(6)));
+        verify(jdbcTemplate, times(2)).queryForObject(anyString(), any(MapSqlParameterSource.class),
+                eq(Integer.class));
+    }
+
+    /**
+     * Tests that createReservation() writes one room night per booked day, check-out included, in a single batch.
+     */
+    @Test
+    void testCreateReservation_writesRoomNightsInOneBatch() {
+        // Arrange
+        Reservation newRes = new Reservation(0L, 10L, 100L, BigDecimal.valueOf(500.0),
+                LocalDate.of(2023, Month.JANUARY, 1),
+                LocalDate.of(2023, Month.JANUARY, 5), ReservationStatus.PENDING);
+        when(insert.executeAndReturnKey(any(MapSqlParameterSource.class))).thenReturn(7L);
+        ArgumentCaptor<SqlParameterSource[]> captor = ArgumentCaptor.forClass(SqlParameterSource[].class);
+
+        // Act
+        reservationRepository.createReservation(newRes);
+
+        // Assert
+        verify(jdbcTemplate).batchUpdate(eq(INSERT_NIGHTS), captor.capture());
+        SqlParameterSource[] nights = captor.getValue();
+        assertEquals(5, nights.length);
+        assertEquals(LocalDate.of(2023, Month.JANUARY, 1), nights[0].getValue("night"));
+        assertEquals(LocalDate.of(2023, Month.JANUARY, 5), nights[4].getValue("night"));
+        assertEquals(7L, nights[0].getValue("reservationId"));
+        assertEquals(100L, nights[0].getValue("roomId"));
+    }
+
+    /**
+     * Tests that createReservation() rejects the reservation and removes its row when the room-night ledger
+     * reports that one of the nights is already booked.
+     */
+    @Test
+    void testCreateReservation_nightAlreadyBooked() {
+        // Arrange
+        Reservation newRes = new Reservation(0L, 10L, 100L, BigDecimal.valueOf(500.0),
+                LocalDate.of(2023, Month.JANUARY, 1),
+                LocalDate.of(2023, Month.JANUARY, 5), ReservationStatus.PENDING);
+        when(insert.executeAndReturnKey(any(MapSqlParameterSource.class))).thenReturn(7L);
+        when(jdbcTemplate.batchUpdate(eq(INSERT_NIGHTS), any(SqlParameterSource[].class)))
+                .thenThrow(new DuplicateKeyException("Duplicate entry '100-2023-01-03' for key 'PRIMARY'"));
+
+        // Act & Assert
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () ->
+                reservationRepository.createReservation(newRes));
+        assertEquals("Habitación no disponible en las fechas solicitadas", ex.getMessage());
+        verify(jdbcTemplate).update(eq("DELETE FROM " + table + " WHERE id = :id"), any(MapSqlParameterSource.class));
+        verify(jdbcTemplate, never()).queryForObject(anyString(), any(MapSqlParameterSource.class),
+                eq(Integer.class));
+    }
+
+    /**
+     * Tests that canceling a reservation through updateReservation() releases its nights without booking new ones.
+     */
+    @Test
+    void testUpdateReservation_cancelReleasesNights() {
+        // Arrange
+        Reservation canceled = new Reservation(3L, 10L, 100L, BigDecimal.valueOf(500.0),
+                LocalDate.of(2023, Month.JANUARY, 1),
+                LocalDate.of(2023, Month.JANUARY, 5), ReservationStatus.CANCELED);
+        when(jdbcTemplate.update(startsWith("UPDATE " + table), any(MapSqlParameterSource.class))).thenReturn(1);
+
+        // Act
+        reservationRepository.updateReservation(canceled);
+
+        // Assert
+        ArgumentCaptor<MapSqlParameterSource> captor = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbcTemplate).update(eq("DELETE FROM RoomNight WHERE reservation_id = :reservationId"),
+                captor.capture());
+        assertEquals(3L, captor.getValue().getValue("reservationId"));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(SqlParameterSource[].class));
+    }
+
+    /**
+     * Tests that the backfill writes the nights of reservations without ledger rows and skips the ones that clash.
+     */
+    @Test
+    void testBackfillRoomNights() {
+        // Arrange
+        Reservation free = new Reservation(1L, 10L, 100L, BigDecimal.valueOf(500.0),
+                LocalDate.of(2023, Month.JANUARY, 1),
+                LocalDate.of(2023, Month.JANUARY, 2), ReservationStatus.CONFIRMED);
+        Reservation clashing = new Reservation(2L, 11L, 100L, BigDecimal.valueOf(500.0),
+                LocalDate.of(2023, Month.JANUARY, 2),
+                LocalDate.of(2023, Month.JANUARY, 3), ReservationStatus.PENDING);
+        when(jdbcTemplate.query(contains("NOT EXISTS"), any(ReservationJdbcRepository.ReservationMapper.class)))
+                .thenReturn(List.of(free, clashing));
+        when(jdbcTemplate.batchUpdate(eq(INSERT_NIGHTS), any(SqlParameterSource[].class)))
+                .thenReturn(new int[]{1, 1})
+                .thenThrow(new DuplicateKeyException("Duplicate entry"));
+
+        // Act
+        int written = reservationRepository.backfillRoomNights();
+
+        // Assert
+        assertEquals(1, written);
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(INSERT_NIGHTS), any(SqlParameterSource[].class));
+        verify(jdbcTemplate).update(eq("DELETE FROM RoomNight WHERE reservation_id = :reservationId"),
+                any(MapSqlParameterSource.class));
+    }
+
+    /**
+     * Tests that createReservations() inserts every reservation with one batch, assigns the generated IDs in order
+     * and writes the nights of the whole group with a second batch.
+     */
+    @Test
+    void testCreateReservations_singleBatch() {
+        // Arrange
+        List<Reservation> group = List.of(
+                new Reservation(0L, 10L, 100L, BigDecimal.valueOf(100.0), LocalDate.of(2023, Month.JANUARY, 1),
+                        LocalDate.of(2023, Month.JANUARY, 2), ReservationStatus.PENDING),
+                new Reservation(0L, 10L, 101L, BigDecimal.valueOf(100.0), LocalDate.of(2023, Month.JANUARY, 1),
+                        LocalDate.of(2023, Month.JANUARY, 2), ReservationStatus.PENDING));
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO Reservation"), any(SqlParameterSource[].class),
+                any(KeyHolder.class), any(String[].class))).thenAnswer(invocation -> {
+                    KeyHolder keyHolder = invocation.getArgument(2);
+                    keyHolder.getKeyList().add(Map.of("insert_id", 21L));
+                    keyHolder.getKeyList().add(Map.of("insert_id", 22L));
+                    return new int[]{1, 1};
+                });
+        ArgumentCaptor<SqlParameterSource[]> captor = ArgumentCaptor.forClass(SqlParameterSource[].class);
+
+        // Act
+        List<Long> ids = reservationRepository.createReservations(group);
+
+        // Assert
+        assertEquals(List.of(21L, 22L), ids);
+        assertEquals(22L, group.get(1).id);
+        verify(jdbcTemplate).batchUpdate(eq(INSERT_NIGHTS), captor.capture());
+        assertEquals(4, captor.getValue().length);
+        assertEquals(22L, captor.getValue()[3].getValue("reservationId"));
+        verifyNoInteractions(insert);
+    }
+
+    /**
+     * Tests that getUnavailableRoomIds() checks all the rooms with one query on the room-night ledger.
+     */
+    @Test
+    void testGetUnavailableRoomIds() {
+        // Arrange
+        String sql = "SELECT DISTINCT room_id FROM RoomNight WHERE room_id IN (:roomIds) " +
+                "AND night BETWEEN :startDate AND :endDate ORDER BY room_id";
+        when(jdbcTemplate.queryForList(eq(sql), any(MapSqlParameterSource.class), eq(Long.class)))
+                .thenReturn(List.of(101L));
+
+        // Act
+        List<Long> result = reservationRepository.getUnavailableRoomIds(List.of(100L, 101L),
+                LocalDate.of(2023, Month.JANUARY, 1), LocalDate.of(2023, Month.JANUARY, 5));
+
+        // Assert
+        assertEquals(List.of(101L), result);
+    }
+
+    /**
+     * Tests that getReservationsBetween() reads the reservations of a calendar window with one range query.
+     */
+    @Test
+    void testGetReservationsBetween() {
+        // Arrange
+        String sql = "SELECT * FROM Reservation WHERE status <> 'CANCELED' AND start_date <= :endDate " +
+                "AND end_date >= :startDate ORDER BY room_id, start_date";
+        Reservation reservation = new Reservation(1L, 10L, 100L, BigDecimal.valueOf(200),
+                LocalDate.of(2023, Month.JANUARY, 3), LocalDate.of(2023, Month.JANUARY, 6),
+                ReservationStatus.CONFIRMED);
+        when(jdbcTemplate.query(eq(sql), any(MapSqlParameterSource.class),
+                any(ReservationJdbcRepository.ReservationMapper.class)))
+                .thenReturn(List.of(reservation));
+
+        // Act
+        List<Reservation> result = reservationRepository.getReservationsBetween(
+                LocalDate.of(2023, Month.JANUARY, 1), LocalDate.of(2023, Month.JANUARY, 31));
+
+        // Assert
+        assertEquals(List.of(reservation), result);
+    }
+
+    /**
+     * Tests that getBookedNights() reads the booked nights of a room type with one range lookup on the room-night
+     * ledger.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetBookedNights() {
+        // Arrange
+        String sql = "SELECT n.room_id, n.night FROM RoomNight n JOIN Room r ON r.id = n.room_id " +
+                "WHERE r.type = :type AND n.night BETWEEN :startDate AND :endDate ORDER BY n.room_id, n.night";
+        Map<Long, List<LocalDate>> nights = Map.of(100L, List.of(LocalDate.of(2023, Month.JANUARY, 3)));
+        ArgumentCaptor<MapSqlParameterSource> params = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        when(jdbcTemplate.query(eq(sql), params.capture(), any(ResultSetExtractor.class))).thenReturn(nights);
+
+        // Act
+        Map<Long, List<LocalDate>> result = reservationRepository.getBookedNights(RoomType.SUITE,
+                LocalDate.of(2023, Month.JANUARY, 1), LocalDate.of(2023, Month.JANUARY, 31));
+
+        // Assert
+        assertEquals(nights, result);
+        assertEquals("SUITE", params.getValue().getValue("type"));
+    }
+
+    /**
+     * Tests that getBookedMonths() reads the months of a room from the room-night ledger with one query.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    void testGetBookedMonths() {
+        // Arrange
+        ArgumentCaptor<MapSqlParameterSource> params = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        when(jdbcTemplate.query(contains("FROM RoomNight WHERE room_id = :roomId"), params.capture(),
+                any(RowMapper.class))).thenReturn(List.of(YearMonth.of(2023, 1), YearMonth.of(2023, 2)));
+
+        // Act
+        List<YearMonth> result = reservationRepository.getBookedMonths(100L);
+
+        // Assert
+        assertEquals(List.of(YearMonth.of(2023, 1), YearMonth.of(2023, 2)), result);
+        assertEquals(100L, params.getValue().getValue("roomId"));
+    }
+
+    /**
+     * Tests that getReservationsByIds() reads every reservation with one IN query, and none for no IDs.
+     */
+    @Test
+    void testGetReservationsByIds_singleInQuery() {
+        // Arrange
+        Reservation reservation = new Reservation(7L, 10L, 100L, BigDecimal.valueOf(200),
+                LocalDate.of(2023, Month.JANUARY, 3), LocalDate.of(2023, Month.JANUARY, 6),
+                ReservationStatus.PENDING);
+        ArgumentCaptor<MapSqlParameterSource> params = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        when(jdbcTemplate.query(eq("SELECT * FROM Reservation WHERE id IN (:ids)"), params.capture(),
+                any(ReservationJdbcRepository.ReservationMapper.class)))
+                .thenReturn(List.of(reservation));
+
+        // Act
+        List<Reservation> result = reservationRepository.getReservationsByIds(List.of(7L, 8L));
+
+        // Assert
+        assertEquals(List.of(reservation), result);
+        assertEquals(List.of(7L, 8L), params.getValue().getValue("ids"));
+        assertTrue(reservationRepository.getReservationsByIds(List.of()).isEmpty());
+        verify(jdbcTemplate, times(1)).query(anyString(), any(MapSqlParameterSource.class),
+                any(ReservationJdbcRepository.ReservationMapper.class));
+    }
+
+    /**
+     * Tests that confirmPaidReservations() confirms the fully paid pending reservations with one update, and runs
+     * nothing for no IDs.
+     */
+    @Test
+    void testConfirmPaidReservations_singleUpdate() {
+        // Arrange
+        String sql = "UPDATE Reservation SET status = 'CONFIRMED', version = version + 1 " +
+                "WHERE id IN (:ids) AND status = 'PENDING' AND paid_total >= total_price";
+        when(jdbcTemplate.update(eq(sql), any(MapSqlParameterSource.class))).thenReturn(2);
+
+        // Act & Assert
+        assertEquals(2, reservationRepository.confirmPaidReservations(List.of(7L, 8L)));
+        assertEquals(0, reservationRepository.confirmPaidReservations(List.of()));
+        verify(jdbcTemplate, times(1)).update(anyString(), any(MapSqlParameterSource.class));
+    }
+
+    /**
+     * Tests that reopenUnpaidReservations() sets back to pending the confirmed reservations no longer fully paid
+     * with one update, and runs nothing for no IDs.
+     */
+    @Test
+    void testReopenUnpaidReservations_singleUpdate() {
+        // Arrange
+        String sql = "UPDATE Reservation SET status = 'PENDING', version = version + 1 " +
+                "WHERE id IN (:ids) AND status = 'CONFIRMED' AND paid_total < total_price";
+        when(jdbcTemplate.update(eq(sql), any(MapSqlParameterSource.class))).thenReturn(1);
+
+        // Act & Assert
+        assertEquals(1, reservationRepository.reopenUnpaidReservations(List.of(7L)));
+        assertEquals(0, reservationRepository.reopenUnpaidReservations(List.of()));
+        verify(jdbcTemplate, times(1)).update(anyString(), any(MapSqlParameterSource.class));
+    }
+
+    /**
+     * Tests that lockReservations() locks the rows in ID order with {@code SELECT ... FOR UPDATE}.
+     */
+    @Test
+    void testLockReservations_forUpdateInIdOrder() {
+        // Arrange
+        Reservation reservation = new Reservation();
+        reservation.id = 7L;
+        when(jdbcTemplate.query(eq("SELECT * FROM Reservation WHERE id IN (:ids) ORDER BY id FOR UPDATE"),
+                any(MapSqlParameterSource.class), any(ReservationJdbcRepository.ReservationMapper.class)))
+                .thenReturn(List.of(reservation));
+
+        // Act & Assert
+        assertEquals(List.of(reservation), reservationRepository.lockReservations(List.of(7L)));
+        assertEquals(List.of(), reservationRepository.lockReservations(List.of()));
+    }
+}
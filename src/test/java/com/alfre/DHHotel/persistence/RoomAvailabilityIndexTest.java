@@ -0,0 +1,163 @@
+package com.alfre.DHHotel.persistence;
+
+import com.alfre.DHHotel.adapter.persistence.RoomAvailabilityIndex;
+import com.alfre.DHHotel.domain.model.Reservation;
+import com.alfre.DHHotel.domain.model.ReservationStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the in-memory room availability index.
+ *
+ * @author Alfredo Sobrados González
+ */
+public class RoomAvailabilityIndexTest {
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 1);
+
+    private RoomAvailabilityIndex index;
+
+    /**
+     * Loads the index with one pending reservation of room 1 from the 10th to the 15th of March.
+     */
+    @BeforeEach
+    void setup() {
+        index = new RoomAvailabilityIndex();
+        index.rebuild(List.of(reservation(1L, 1L, 10, 15, ReservationStatus.PENDING)), TODAY);
+    }
+
+    /**
+     * Tests that an unloaded index does not claim to cover any range.
+     */
+    @Test
+    void testUnloadedIndexCoversNothing() {
+        RoomAvailabilityIndex unloaded = new RoomAvailabilityIndex();
+
+        assertFalse(unloaded.covers(TODAY, TODAY.plusDays(2)));
+        assertThrows(IllegalStateException.class, () -> unloaded.isAvailable(1L, TODAY, TODAY.plusDays(2)));
+    }
+
+    /**
+     * Tests that ranges before the window are not covered, so callers fall back to the database.
+     */
+    @Test
+    void testRangeBeforeWindowIsNotCovered() {
+        assertFalse(index.covers(TODAY.minusYears(1), TODAY));
+        assertTrue(index.covers(TODAY, TODAY.plusDays(30)));
+    }
+
+    /**
+     * Tests that overlapping ranges, including ranges that only share the check-in or check-out day, are rejected
+     * as the SQL availability query does.
+     */
+    @Test
+    void testOverlapUsesInclusiveDays() {
+        assertFalse(index.isAvailable(1L, march(12), march(13)));
+        assertFalse(index.isAvailable(1L, march(5), march(10)));
+        assertFalse(index.isAvailable(1L, march(15), march(20)));
+        assertTrue(index.isAvailable(1L, march(16), march(20)));
+        assertTrue(index.isAvailable(1L, march(1), march(9)));
+        assertTrue(index.isAvailable(2L, march(12), march(13)));
+    }
+
+    /**
+     * Tests that canceling a reservation frees its days without freeing days of another overlapping reservation.
+     */
+    @Test
+    void testCancelKeepsOtherStaysOfTheRoom() {
+        index.apply(reservation(2L, 1L, 14, 18, ReservationStatus.CONFIRMED));
+
+        index.apply(reservation(1L, 1L, 10, 15, ReservationStatus.CANCELED));
+
+        assertTrue(index.isAvailable(1L, march(10), march(13)));
+        assertFalse(index.isAvailable(1L, march(14), march(14)));
+    }
+
+    /**
+     * Tests that moving a reservation to another room and dates releases the old days.
+     */
+    @Test
+    void testUpdateMovesReservation() {
+        index.apply(reservation(1L, 2L, 20, 22, ReservationStatus.PENDING));
+
+        assertTrue(index.isAvailable(1L, march(10), march(15)));
+        assertFalse(index.isAvailable(2L, march(21), march(21)));
+    }
+
+    /**
+     * Tests that the consistency check reports missing, stale and mismatched reservations.
+     */
+    @Test
+    void testVerifyReportsDifferences() {
+        index.apply(reservation(3L, 3L, 1, 2, ReservationStatus.PENDING));
+
+        RoomAvailabilityIndex.ConsistencyReport report = index.verify(List.of(
+                reservation(1L, 1L, 10, 16, ReservationStatus.PENDING),
+                reservation(2L, 2L, 5, 6, ReservationStatus.CONFIRMED)));
+
+        assertFalse(report.consistent());
+        assertEquals(List.of(2L), report.missing());
+        assertEquals(List.of(3L), report.stale());
+        assertEquals(List.of(1L), report.mismatched());
+    }
+
+    /**
+     * Tests that the consistency check passes when the index matches the database.
+     */
+    @Test
+    void testVerifyConsistent() {
+        RoomAvailabilityIndex.ConsistencyReport report =
+                index.verify(List.of(reservation(1L, 1L, 10, 15, ReservationStatus.PENDING)));
+
+        assertTrue(report.consistent());
+        assertEquals(1, report.indexed());
+    }
+
+    /**
+     * Tests that the stays booked and released on another node are applied, and that the own messages are ignored.
+     */
+    @Test
+    void testOnMessage_appliesChangesOfOtherNodesOnly() {
+        List<String> sent = new ArrayList<>();
+        RoomAvailabilityIndex otherNode = new RoomAvailabilityIndex(sent::add);
+        otherNode.rebuild(List.of(), TODAY);
+        RoomAvailabilityIndex node = new RoomAvailabilityIndex(sent::add);
+        node.rebuild(List.of(), TODAY);
+
+        otherNode.publish(reservation(2L, 2L, 20, 22, ReservationStatus.PENDING));
+        node.onMessage(message(sent.get(0)), null);
+        assertFalse(node.isAvailable(2L, march(21), march(21)));
+
+        otherNode.publish(reservation(2L, 2L, 20, 22, ReservationStatus.CANCELED));
+        node.onMessage(message(sent.get(1)), null);
+        assertTrue(node.isAvailable(2L, march(21), march(21)));
+
+        node.publish(reservation(3L, 3L, 5, 6, ReservationStatus.PENDING));
+        node.remove(3L);
+        node.onMessage(message(sent.get(2)), null);
+        node.onMessage(message("not a change"), null);
+        assertTrue(node.isAvailable(3L, march(5), march(6)));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage("dhhotel.rooms.availability".getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static LocalDate march(int day) {
+        return LocalDate.of(2025, 3, day);
+    }
+
+    private static Reservation reservation(long id, long roomId, int startDay, int endDay, ReservationStatus status) {
+        return new Reservation(id, 1L, roomId, BigDecimal.valueOf(100.0), march(startDay), march(endDay), status);
+    }
+}
@@ -0,0 +1,148 @@
+package com.alfre.DHHotel.persistence;
+
+import com.alfre.DHHotel.adapter.persistence.RoomCatalog;
+import com.alfre.DHHotel.domain.model.Room;
+import com.alfre.DHHotel.domain.model.RoomStatus;
+import com.alfre.DHHotel.domain.model.RoomType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the in-memory room catalog.
+ *
+ * @author Alfredo Sobrados González
+ */
+public class RoomCatalogTest {
+    private final List<String> sent = new ArrayList<>();
+    private RoomCatalog catalog;
+
+    /**
+     * Loads the catalog with an available single, an occupied double and a suite in maintenance.
+     */
+    @BeforeEach
+    void setup() {
+        catalog = new RoomCatalog(sent::add);
+        catalog.rebuild(List.of(
+                room(3L, RoomType.SUITE, RoomStatus.MAINTENANCE),
+                room(1L, RoomType.SINGLE, RoomStatus.AVAILABLE),
+                room(2L, RoomType.DOUBLE, RoomStatus.OCCUPIED)), catalog.changes());
+    }
+
+    /**
+     * Tests that the rooms are indexed by ID, type and status, ordered by ID.
+     */
+    @Test
+    void testSnapshotIndexes() {
+        RoomCatalog.Snapshot snapshot = catalog.snapshot();
+
+        assertEquals(List.of(1L, 2L, 3L), ids(snapshot.getAllRooms()));
+        assertEquals(RoomType.DOUBLE, snapshot.getRoom(2L).type);
+        assertNull(snapshot.getRoom(9L));
+        assertEquals(List.of(1L, 3L), ids(snapshot.getRooms(List.of(3L, 9L, 1L, 3L))));
+        assertEquals(List.of(3L), ids(snapshot.getRoomsByType(RoomType.SUITE)));
+        assertEquals(List.of(1L), ids(snapshot.getRoomsByStatus(RoomStatus.AVAILABLE)));
+        assertTrue(snapshot.getRoomsByStatus(RoomStatus.OCCUPIED).stream().allMatch(room -> room.id == 2L));
+    }
+
+    /**
+     * Tests that a page of the catalog starts after the given ID, keeps to the filters and stops at the limit.
+     */
+    @Test
+    void testSnapshotPages() {
+        RoomCatalog.Snapshot snapshot = catalog.snapshot();
+
+        assertEquals(List.of(1L, 2L), ids(snapshot.getRoomsPage(null, null, 0, 2)));
+        assertEquals(List.of(3L), ids(snapshot.getRoomsPage(null, null, 2L, 2)));
+        assertEquals(List.of(), ids(snapshot.getRoomsPage(null, null, 3L, 2)));
+        assertEquals(List.of(2L), ids(snapshot.getRoomsPage(null, RoomStatus.OCCUPIED, 0, 10)));
+        assertEquals(List.of(), ids(snapshot.getRoomsPage(RoomType.SUITE, RoomStatus.AVAILABLE, 0, 10)));
+    }
+
+    /**
+     * Tests that a change swaps in a new snapshot and leaves the one already handed out untouched.
+     */
+    @Test
+    void testPutAndRemoveSwapSnapshot() {
+        RoomCatalog.Snapshot before = catalog.snapshot();
+
+        catalog.put(room(1L, RoomType.SINGLE, RoomStatus.MAINTENANCE));
+        catalog.put(room(4L, RoomType.DOUBLE, RoomStatus.AVAILABLE));
+        catalog.remove(3L);
+
+        RoomCatalog.Snapshot after = catalog.snapshot();
+        assertEquals(List.of(1L), ids(before.getRoomsByStatus(RoomStatus.AVAILABLE)));
+        assertEquals(List.of(4L), ids(after.getRoomsByStatus(RoomStatus.AVAILABLE)));
+        assertEquals(List.of(1L), ids(after.getRoomsByStatus(RoomStatus.MAINTENANCE)));
+        assertEquals(List.of(1L, 2L, 4L), ids(after.getAllRooms()));
+    }
+
+    /**
+     * Tests that callers cannot change the rooms held by the catalog.
+     */
+    @Test
+    void testReturnedRoomsAreCopies() {
+        Room room = catalog.snapshot().getRoom(1L);
+        room.setStatus(RoomStatus.OCCUPIED);
+
+        assertEquals(RoomStatus.AVAILABLE, catalog.snapshot().getRoom(1L).status);
+    }
+
+    /**
+     * Tests that rooms read before a change are not kept, as they may be older than the change.
+     */
+    @Test
+    void testRebuildAfterChangeIsNotKept() {
+        catalog.invalidate();
+        long changes = catalog.changes();
+        catalog.put(room(1L, RoomType.SINGLE, RoomStatus.OCCUPIED));
+
+        RoomCatalog.Snapshot rebuilt = catalog.rebuild(List.of(room(1L, RoomType.SINGLE, RoomStatus.AVAILABLE)),
+                changes);
+
+        assertEquals(List.of(1L), ids(rebuilt.getAllRooms()));
+        assertNull(catalog.snapshot());
+    }
+
+    /**
+     * Tests that a change made by another node drops the snapshot and that the messages sent by this node are
+     * ignored.
+     */
+    @Test
+    void testChangeMessages() {
+        catalog.publishChange();
+        catalog.onMessage(new DefaultMessage(new byte[0], sent.getFirst().getBytes(StandardCharsets.UTF_8)), null);
+        assertNotNull(catalog.snapshot());
+
+        catalog.onMessage(new DefaultMessage(new byte[0], "other-node".getBytes(StandardCharsets.UTF_8)), null);
+        assertNull(catalog.snapshot());
+    }
+
+    /**
+     * Tests that a failed broadcast does not fail the change.
+     */
+    @Test
+    void testFailedBroadcastIsIgnored() {
+        RoomCatalog isolated = new RoomCatalog(payload -> {
+            throw new IllegalStateException("Redis caído");
+        });
+
+        assertDoesNotThrow(isolated::publishChange);
+    }
+
+    private static Room room(long id, RoomType type, RoomStatus status) {
+        return new Room(id, (int) (100 + id), type, BigDecimal.valueOf(100), status);
+    }
+
+    private static List<Long> ids(List<Room> rooms) {
+        return rooms.stream().map(room -> room.id).toList();
+    }
+}
@@ -5,8 +5,12 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.math.BigDecimal;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import javax.sql.DataSource;
@@ -14,6 +18,7 @@ import javax.sql.DataSource;
 import com.alfre.DHHotel.domain.model.Room;
 import com.alfre.DHHotel.domain.model.RoomStatus;
 import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.adapter.persistence.RoomCatalog;
 import com.alfre.DHHotel.adapter.persistence.RoomJdbcRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,7 +29,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.test.util.ReflectionTestUtils;
 
 /**
@@ -317,4 +324,184 @@ public class RoomJdbcRepositoryTest {
         assertEquals(1, result.size(), "Should return 1 room");
         assertEquals(room1, result.getFirst(), "The room should match the expected one");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that lockRooms() fetches and locks all the rooms with one ordered FOR UPDATE query.
+     */
+    @Test
+    void testLockRooms() {
+        // Arrange
+        String sql = "SELECT * FROM Room WHERE id IN (:ids) ORDER BY id FOR UPDATE";
+        Room room = new Room(1L, 101, RoomType.SINGLE, BigDecimal.valueOf(50.0), RoomStatus.AVAILABLE);
+        when(jdbcTemplate.query(eq(sql), any(MapSqlParameterSource.class), any(RoomJdbcRepository.RoomMapper.class)))
+                .thenReturn(List.of(room));
+
+        // Act
+        List<Room> result = roomRepository.lockRooms(List.of(1L, 2L));
+
+        // Assert
+        assertEquals(List.of(room), result);
+        assertTrue(roomRepository.lockRooms(List.of()).isEmpty());
+        verify(jdbcTemplate, times(1)).query(anyString(), any(MapSqlParameterSource.class),
+                any(RoomJdbcRepository.RoomMapper.class));
+    }
+
+    /**
+     * Tests that searchAvailableRooms() resolves availability with one anti-join query
+     * and only adds the filters that were provided.
+     */
+    @Test
+    void testSearchAvailableRooms() {
+        // Arrange
+        LocalDate startDate = LocalDate.of(2025, 5, 1);
+        LocalDate endDate = LocalDate.of(2025, 5, 4);
+        Room room = new Room(1L, 101, RoomType.SINGLE, BigDecimal.valueOf(50.0), RoomStatus.AVAILABLE);
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<MapSqlParameterSource> paramsCaptor = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        when(jdbcTemplate.query(sqlCaptor.capture(), paramsCaptor.capture(),
+                any(RoomJdbcRepository.RoomMapper.class))).thenReturn(List.of(room));
+
+        // Act
+        List<Room> result = roomRepository.searchAvailableRooms(startDate, endDate, RoomType.SINGLE, null,
+                BigDecimal.valueOf(60));
+
+        // Assert
+        assertEquals(List.of(room), result);
+        String sql = sqlCaptor.getValue();
+        assertTrue(sql.contains("NOT EXISTS"), "Availability should be resolved with an anti-join");
+        assertTrue(sql.contains("FROM RoomNight n"), "Availability should be read from the room-night ledger");
+        assertTrue(sql.contains("r.type = :type"));
+        assertTrue(sql.contains("r.price_per_night <= :maxPrice"));
+        assertFalse(sql.contains(":minPrice"));
+        assertEquals("SINGLE", paramsCaptor.getValue().getValue("type"));
+        assertEquals(startDate, paramsCaptor.getValue().getValue("startDate"));
+    }
+
+    /**
+     * Tests that with a room catalog every read is served from one load of the table, by ID, type and status.
+     */
+    @Test
+    void testReadsFromCatalog_loadTableOnce() {
+        // Arrange
+        RoomJdbcRepository cachedRepository = new RoomJdbcRepository(jdbcTemplate, dataSource, new RoomCatalog());
+        Room single = new Room(2L, 102, RoomType.SINGLE, BigDecimal.valueOf(50.0), RoomStatus.AVAILABLE);
+        Room suite = new Room(1L, 201, RoomType.SUITE, BigDecimal.valueOf(200.0), RoomStatus.MAINTENANCE);
+        when(jdbcTemplate.query(eq("SELECT * FROM " + table), any(RoomJdbcRepository.RoomMapper.class)))
+                .thenReturn(List.of(single, suite));
+
+        // Act & Assert
+        assertEquals(List.of(suite, single), cachedRepository.getAllRooms());
+        assertEquals(Optional.of(single), cachedRepository.getRoomById(2L));
+        assertTrue(cachedRepository.getRoomById(9L).isEmpty());
+        assertEquals(List.of(single), cachedRepository.getRoomsByType(RoomType.SINGLE));
+        assertEquals(List.of(single), cachedRepository.getAvailableRooms());
+        assertEquals(List.of(suite), cachedRepository.getRoomsInMaintenance());
+        assertEquals(List.of(suite, single), cachedRepository.getRoomsByIds(List.of(2L, 1L)));
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RoomJdbcRepository.RoomMapper.class));
+        verify(jdbcTemplate, never()).queryForObject(anyString(), any(MapSqlParameterSource.class),
+                any(RoomJdbcRepository.RoomMapper.class));
+    }
+
+    /**
+     * Tests that a status change outside a transaction reads the room back into the catalog and tells the other
+     * nodes about it.
+     */
+    @Test
+    void testUpdateStatus_refreshesCatalog() {
+        // Arrange
+        List<String> sent = new ArrayList<>();
+        RoomCatalog catalog = new RoomCatalog(sent::add);
+        RoomJdbcRepository cachedRepository = new RoomJdbcRepository(jdbcTemplate, dataSource, catalog);
+        Room room = new Room(1L, 101, RoomType.DOUBLE, BigDecimal.valueOf(80.0), RoomStatus.AVAILABLE);
+        Room inMaintenance = new Room(1L, 101, RoomType.DOUBLE, BigDecimal.valueOf(80.0), RoomStatus.MAINTENANCE);
+        when(jdbcTemplate.query(eq("SELECT * FROM " + table), any(RoomJdbcRepository.RoomMapper.class)))
+                .thenReturn(List.of(room));
+        when(jdbcTemplate.update(anyString(), any(MapSqlParameterSource.class))).thenReturn(1);
+        when(jdbcTemplate.queryForObject(eq("SELECT * FROM " + table + " WHERE id = :id"),
+                any(MapSqlParameterSource.class), any(RoomJdbcRepository.RoomMapper.class))).thenReturn(inMaintenance);
+        assertEquals(List.of(room), cachedRepository.getAvailableRooms());
+
+        // Act
+        int rows = cachedRepository.updateStatus(1L, RoomStatus.MAINTENANCE);
+
+        // Assert
+        assertEquals(1, rows);
+        assertTrue(cachedRepository.getAvailableRooms().isEmpty());
+        assertEquals(List.of(inMaintenance), cachedRepository.getRoomsInMaintenance());
+        assertEquals(1, sent.size());
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RoomJdbcRepository.RoomMapper.class));
+    }
+
+    /**
+     * Tests that several rooms are created with a single multi-row insert, get their generated IDs and are added to
+     * the loaded catalog with a single change message.
+     */
+    @Test
+    void testCreateRooms_singleInsert_addsToCatalog() {
+        // Arrange
+        List<String> sent = new ArrayList<>();
+        RoomCatalog catalog = new RoomCatalog(sent::add);
+        RoomJdbcRepository cachedRepository = new RoomJdbcRepository(jdbcTemplate, dataSource, catalog);
+        when(jdbcTemplate.query(eq("SELECT * FROM " + table), any(RoomJdbcRepository.RoomMapper.class)))
+                .thenReturn(List.of());
+        assertTrue(cachedRepository.getAllRooms().isEmpty());
+        when(jdbcTemplate.update(anyString(), any(MapSqlParameterSource.class), any(KeyHolder.class),
+                any(String[].class))).thenAnswer(invocation -> {
+                    KeyHolder keyHolder = invocation.getArgument(2);
+                    keyHolder.getKeyList().add(Map.of("id", 7L));
+                    keyHolder.getKeyList().add(Map.of("id", 8L));
+                    return 2;
+                });
+        Room first = new Room(0L, 301, RoomType.SINGLE, BigDecimal.valueOf(60.0), RoomStatus.AVAILABLE);
+        Room second = new Room(0L, 302, RoomType.SUITE, BigDecimal.valueOf(180.0), RoomStatus.AVAILABLE);
+
+        // Act
+        List<Long> ids = cachedRepository.createRooms(List.of(first, second));
+
+        // Assert
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).update(sqlCaptor.capture(), any(MapSqlParameterSource.class), any(KeyHolder.class),
+                any(String[].class));
+        assertEquals("INSERT INTO Room (room_number, type, price_per_night, status) VALUES " +
+                "(:room_number0, :type0, :price_per_night0, :status0), " +
+                "(:room_number1, :type1, :price_per_night1, :status1)", sqlCaptor.getValue());
+        assertEquals(List.of(7L, 8L), ids);
+        assertEquals(8L, second.id);
+        assertEquals(List.of(301, 302), cachedRepository.getAllRooms().stream().map(room -> room.room_number)
+                .toList());
+        assertEquals(1, sent.size());
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RoomJdbcRepository.RoomMapper.class));
+    }
+
+    /**
+     * Tests that several status changes are sent as one batch and that the catalog is refreshed with one query and
+     * a single change message.
+     */
+    @Test
+    void testUpdateStatuses_batchedAndRefreshesCatalogOnce() {
+        // Arrange
+        List<String> sent = new ArrayList<>();
+        RoomCatalog catalog = new RoomCatalog(sent::add);
+        RoomJdbcRepository cachedRepository = new RoomJdbcRepository(jdbcTemplate, dataSource, catalog);
+        Room first = new Room(1L, 101, RoomType.SINGLE, BigDecimal.valueOf(60.0), RoomStatus.OCCUPIED);
+        Room second = new Room(2L, 102, RoomType.SINGLE, BigDecimal.valueOf(60.0), RoomStatus.OCCUPIED);
+        when(jdbcTemplate.query(eq("SELECT * FROM " + table), any(RoomJdbcRepository.RoomMapper.class)))
+                .thenReturn(List.of(first, second));
+        assertTrue(cachedRepository.getAvailableRooms().isEmpty());
+        when(jdbcTemplate.batchUpdate(eq("UPDATE " + table + " SET status = :status WHERE id = :id"),
+                any(SqlParameterSource[].class))).thenReturn(new int[]{1, Statement.SUCCESS_NO_INFO});
+        when(jdbcTemplate.query(eq("SELECT * FROM " + table + " WHERE id IN (:ids)"), any(MapSqlParameterSource.class),
+                any(RoomJdbcRepository.RoomMapper.class))).thenReturn(List.of(
+                new Room(1L, 101, RoomType.SINGLE, BigDecimal.valueOf(60.0), RoomStatus.AVAILABLE),
+                new Room(2L, 102, RoomType.SINGLE, BigDecimal.valueOf(60.0), RoomStatus.AVAILABLE)));
+
+        // Act
+        int rows = cachedRepository.updateStatuses(Map.of(1L, RoomStatus.AVAILABLE, 2L, RoomStatus.AVAILABLE));
+
+        // Assert
+        assertEquals(2, rows);
+        assertEquals(2, cachedRepository.getAvailableRooms().size());
+        assertEquals(1, sent.size());
+        verify(jdbcTemplate, never()).update(anyString(), any(MapSqlParameterSource.class));
+    }
+}
@@ -0,0 +1,111 @@
+package com.alfre.DHHotel.persistence;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import com.alfre.DHHotel.adapter.persistence.SeasonalRateJdbcRepository;
+import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.domain.model.SeasonalRate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the seasonal rates operations JDBC repository implementation.
+ *
+ * @author Alfredo Sobrados González
+ */
+@ExtendWith(MockitoExtension.class)
+public class SeasonalRateJdbcRepositoryTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private SimpleJdbcInsert insert;
+
+    private SeasonalRateJdbcRepository rateRepository;
+
+    /**
+     * Configures the SeasonalRateJdbcRepository instance with mocked jdbcTemplate, dataSource, and SimpleJdbcInsert.
+     */
+    @BeforeEach
+    void setup() {
+        rateRepository = new SeasonalRateJdbcRepository(jdbcTemplate, dataSource);
+        ReflectionTestUtils.setField(rateRepository, "insert", insert);
+    }
+
+    /**
+     * Tests that getAllRates() reads the rates in creation order.
+     */
+    @Test
+    public void testGetAllRates() {
+        // Arrange
+        SeasonalRate rate = new SeasonalRate(1L, null, LocalDate.of(2025, 12, 20),
+                LocalDate.of(2026, 1, 6), 130, null);
+        when(jdbcTemplate.query(eq("SELECT * FROM SeasonalRate ORDER BY id"),
+                any(SeasonalRateJdbcRepository.SeasonalRateMapper.class))).thenReturn(List.of(rate));
+
+        // Act
+        List<SeasonalRate> result = rateRepository.getAllRates();
+
+        // Assert
+        assertEquals(List.of(rate), result);
+    }
+
+    /**
+     * Tests that createRate() inserts the rate, storing the room type by name, and returns the generated key.
+     */
+    @Test
+    public void testCreateRate() {
+        // Arrange
+        SeasonalRate rate = new SeasonalRate(0L, RoomType.SUITE, LocalDate.of(2025, 8, 1),
+                LocalDate.of(2025, 8, 31), 150, 180);
+        when(insert.executeAndReturnKey(any(MapSqlParameterSource.class))).thenReturn(5L);
+
+        // Act
+        long id = rateRepository.createRate(rate);
+
+        // Assert
+        assertEquals(5L, id);
+        ArgumentCaptor<MapSqlParameterSource> captor = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(insert).executeAndReturnKey(captor.capture());
+        MapSqlParameterSource params = captor.getValue();
+        assertEquals("SUITE", params.getValue("room_type"));
+        assertEquals(180, params.getValue("weekend_percentage"));
+    }
+
+    /**
+     * Tests that deleteRate(long) deletes the rate and returns the number of rows deleted.
+     */
+    @Test
+    public void testDeleteRate() {
+        // Arrange
+        String sql = "DELETE FROM SeasonalRate WHERE id = :id";
+        when(jdbcTemplate.update(eq(sql), any(MapSqlParameterSource.class))).thenReturn(1);
+
+        // Act
+        int rows = rateRepository.deleteRate(3L);
+
+        // Assert
+        assertEquals(1, rows, "Se debe eliminar 1 fila");
+    }
+}
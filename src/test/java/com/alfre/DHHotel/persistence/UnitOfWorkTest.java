@@ -0,0 +1,132 @@
+package com.alfre.DHHotel.persistence;
+
+import com.alfre.DHHotel.adapter.persistence.QueryCountingDataSource;
+import com.alfre.DHHotel.adapter.persistence.RoomJdbcRepository;
+import com.alfre.DHHotel.adapter.persistence.UnitOfWork;
+import com.alfre.DHHotel.adapter.persistence.UnitOfWorkRoomRepository;
+import com.alfre.DHHotel.adapter.web.UnitOfWorkFilter;
+import com.alfre.DHHotel.domain.model.Room;
+import com.alfre.DHHotel.domain.model.RoomStatus;
+import com.alfre.DHHotel.domain.model.RoomType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the request unit of work: the identity map, the repository decorators and the query counts.
+ *
+ * @author Alfredo Sobrados González
+ */
+public class UnitOfWorkTest {
+    private final Room room = new Room(1L, 101, RoomType.SINGLE, BigDecimal.valueOf(50), RoomStatus.AVAILABLE);
+
+    /**
+     * Tests that without an open unit of work every lookup goes to the repository.
+     */
+    @Test
+    void testLookupsOutsideUnitOfWorkAreNotCached() {
+        RoomJdbcRepository delegate = mock(RoomJdbcRepository.class);
+        when(delegate.getRoomById(1L)).thenReturn(Optional.of(room));
+        UnitOfWorkRoomRepository repository = new UnitOfWorkRoomRepository(delegate);
+
+        repository.getRoomById(1L);
+        repository.getRoomById(1L);
+
+        assertTrue(UnitOfWork.current().isEmpty());
+        verify(delegate, times(2)).getRoomById(1L);
+    }
+
+    /**
+     * Tests that inside a unit of work the same room is fetched once and the same instance is returned.
+     */
+    @Test
+    void testSameEntityIsFetchedOncePerUnitOfWork() {
+        RoomJdbcRepository delegate = mock(RoomJdbcRepository.class);
+        when(delegate.getRoomById(1L)).thenReturn(Optional.of(room));
+        UnitOfWorkRoomRepository repository = new UnitOfWorkRoomRepository(delegate);
+
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            Room first = repository.getRoomById(1L).orElseThrow();
+            Room second = repository.getRoomById(1L).orElseThrow();
+
+            assertSame(first, second);
+            assertEquals(1, unitOfWork.getIdentityHits());
+        }
+        verify(delegate, times(1)).getRoomById(1L);
+        assertTrue(UnitOfWork.current().isEmpty());
+    }
+
+    /**
+     * Tests that a write to a room forgets the rooms read before, so the next lookup reads the database.
+     */
+    @Test
+    void testWriteEvictsEntitiesOfTheSameType() {
+        RoomJdbcRepository delegate = mock(RoomJdbcRepository.class);
+        when(delegate.getRoomById(1L)).thenReturn(Optional.of(room));
+        UnitOfWorkRoomRepository repository = new UnitOfWorkRoomRepository(delegate);
+
+        try (UnitOfWork ignored = UnitOfWork.begin()) {
+            repository.getRoomById(1L);
+            repository.updateStatus(1L, RoomStatus.MAINTENANCE);
+            repository.getRoomById(1L);
+        }
+        verify(delegate, times(2)).getRoomById(1L);
+    }
+
+    /**
+     * Tests that the statements prepared on the counting data source are counted in the current unit of work.
+     *
+     * @throws Exception if the mocked connection fails
+     */
+    @Test
+    void testStatementsAreCounted() throws Exception {
+        DataSource pool = mock(DataSource.class);
+        when(pool.getConnection()).thenReturn(mock(Connection.class));
+        QueryCountingDataSource dataSource = new QueryCountingDataSource(pool);
+
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            Connection connection = dataSource.getConnection();
+            connection.prepareStatement("SELECT 1");
+            connection.createStatement();
+            connection.setAutoCommit(false);
+
+            assertEquals(2, unitOfWork.getQueries());
+        }
+    }
+
+    /**
+     * Tests that the filter opens a unit of work for the request and publishes its query count.
+     *
+     * @throws Exception if the filter chain fails
+     */
+    @Test
+    void testFilterRecordsQueriesPerRequest() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UnitOfWorkFilter filter = new UnitOfWorkFilter(registry);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/public/rooms");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            assertTrue(UnitOfWork.current().isPresent());
+            DataSource pool = mock(DataSource.class);
+            try {
+                when(pool.getConnection()).thenReturn(mock(Connection.class));
+                new QueryCountingDataSource(pool).getConnection().prepareStatement("SELECT 1");
+            } catch (Exception e) {
+                fail(e);
+            }
+        });
+
+        assertTrue(UnitOfWork.current().isEmpty());
+        assertEquals(1.0, registry.get("dhhotel.request.queries").tag("method", "GET").summary().totalAmount());
+    }
+}
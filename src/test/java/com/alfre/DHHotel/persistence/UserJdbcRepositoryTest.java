@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.Optional;
 
 import javax.sql.DataSource;
@@ -18,6 +20,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
@@ -108,6 +111,37 @@ public class UserJdbcRepositoryTest {
         assertFalse(result.isPresent(), "No se debe encontrar el usuario");
     }
 
+    /**
+     * Tests that getPrincipalByEmail reads the identity and the role of the user but never the password hash.
+     *
+     * @throws SQLException never, the result set is a mock
+     */
+    @Test
+    void testGetPrincipalByEmail_skipsPassword() throws SQLException {
+        // Arrange
+        String email = "user@example.com";
+        String sql = "SELECT id, email, role FROM " + table + " WHERE email = :email";
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(1L);
+        when(rs.getString("email")).thenReturn(email);
+        when(rs.getString("role")).thenReturn("CLIENT");
+        when(jdbcTemplate.queryForObject(eq(sql), any(MapSqlParameterSource.class), any(RowMapper.class)))
+                .thenAnswer(invocation -> {
+                    RowMapper<User> rowMapper = invocation.getArgument(2);
+                    return rowMapper.mapRow(rs, 0);
+                });
+
+        // Act
+        Optional<User> result = userRepository.getPrincipalByEmail(email);
+
+        // Assert
+        assertTrue(result.isPresent(), "El usuario debe existir");
+        assertEquals(email, result.get().getUsername(), "El email debe coincidir");
+        assertEquals(Role.CLIENT, result.get().role, "El role debe coincidir");
+        assertNull(result.get().getPassword(), "El password no se debe leer");
+        verify(rs, never()).getString("password");
+    }
+
     /**
      * Tests that createUser correctly inserts a new user and returns the generated ID.
      * <p>
@@ -147,7 +181,8 @@ public class UserJdbcRepositoryTest {
         // Arrange
         Role role = Role.ADMIN;
         User user = new User(1L, "updated@example.com", "updatedPass", role);
-        String sql = "UPDATE " + table + " SET email = :email, password = :password, role = :role WHERE id = :id";
+        String sql = "UPDATE " + table + " SET email = :email, password = COALESCE(:password, password), " +
+                "role = :role WHERE id = :id";
         when(jdbcTemplate.update(eq(sql), any(MapSqlParameterSource.class))).thenReturn(1);
 
         // Act
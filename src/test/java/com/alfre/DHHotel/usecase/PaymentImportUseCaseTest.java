@@ -0,0 +1,143 @@
+package com.alfre.DHHotel.usecase;
+
+import com.alfre.DHHotel.adapter.web.dto.PaymentImportResultDTO;
+import com.alfre.DHHotel.adapter.web.dto.PaymentImportRow;
+import com.alfre.DHHotel.domain.model.MethodPayment;
+import com.alfre.DHHotel.domain.model.Payment;
+import com.alfre.DHHotel.domain.model.Reservation;
+import com.alfre.DHHotel.domain.model.ReservationStatus;
+import com.alfre.DHHotel.domain.repository.PaymentRepository;
+import com.alfre.DHHotel.domain.repository.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the settlement file payment import business logic.
+ *
+ * @author Alfredo Sobrados González
+ */
+@ExtendWith(MockitoExtension.class)
+public class PaymentImportUseCaseTest {
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    private PaymentImportUseCase paymentImportUseCase;
+
+    @BeforeEach
+    public void setup() {
+        paymentImportUseCase = new PaymentImportUseCase(paymentRepository, reservationRepository,
+                TransactionOperations.withoutTransaction(), 3);
+    }
+
+    private static PaymentImportRow row(long line, long reservationId, String amount) {
+        return PaymentImportRow.of(line, new Payment(0, reservationId, new BigDecimal(amount),
+                LocalDate.of(2024, 3, 1), null));
+    }
+
+    private static Reservation reservation(long id, String totalPrice, String paidTotal, ReservationStatus status) {
+        Reservation reservation = new Reservation(id, 10L, 100L, new BigDecimal(totalPrice),
+                LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 3), status, 0L);
+        reservation.setPaid_total(new BigDecimal(paidTotal));
+        return reservation;
+    }
+
+    /**
+     * Tests that each chunk reads its reservations with one query and records its payments with one batch, that
+     * the reservations completed are confirmed in bulk, and that the unmatched and overpaid lines are reported.
+     */
+    @Test
+    public void importPayments_recordsChunksInBulk_andReportsUnmatchedAndOverpaidLines() {
+        when(reservationRepository.lockReservations(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return List.of(
+                    reservation(1L, "300.00", "100.00", ReservationStatus.PENDING),
+                    reservation(2L, "200.00", "0.00", ReservationStatus.CANCELED),
+                    reservation(4L, "150.00", "0.00", ReservationStatus.PENDING)).stream()
+                    .filter(reservation -> ids.contains(reservation.id))
+                    .toList();
+        });
+        List<List<Payment>> batches = new ArrayList<>();
+        when(paymentRepository.createPayments(anyList())).thenAnswer(invocation -> {
+            List<Payment> payments = invocation.getArgument(0);
+            batches.add(payments);
+            return payments.stream().map(payment -> payment.reservation_id).toList();
+        });
+        when(reservationRepository.confirmPaidReservations(anyCollection())).thenReturn(1);
+
+        PaymentImportResultDTO result = paymentImportUseCase.importPayments(List.of(
+                row(2, 1L, "150.00"),
+                row(3, 2L, "50.00"),
+                row(4, 1L, "50.00"),
+                PaymentImportRow.invalid(5, "Valor no válido en la columna amount"),
+                row(6, 3L, "50.00"),
+                row(7, 4L, "0"),
+                row(8, 4L, "100.00"),
+                row(9, 4L, "60.00")).iterator());
+
+        assertEquals(3, result.imported);
+        assertEquals(1, result.confirmed);
+        assertEquals(2, result.rejected);
+        assertEquals(List.of(5L, 7L), result.errors.stream().map(error -> error.line).toList());
+        assertEquals(2, result.unmatched);
+        assertEquals(List.of(3L, 6L), result.unmatchedLines.stream().map(line -> line.line).toList());
+        assertEquals("La reserva está cancelada", result.unmatchedLines.get(0).message);
+        assertEquals("La reserva no existe", result.unmatchedLines.get(1).message);
+        assertEquals(1, result.overpaid);
+        assertEquals(9L, result.overpaidLines.getFirst().line);
+        assertEquals(new BigDecimal("60.00"), result.overpaidLines.getFirst().amount);
+        assertEquals("El pago excede el monto pendiente de 50.00", result.overpaidLines.getFirst().message);
+
+        assertEquals(2, batches.size());
+        assertEquals(List.of(1L, 1L), batches.get(0).stream().map(payment -> payment.reservation_id).toList());
+        assertEquals(MethodPayment.CARD, batches.get(0).getFirst().method);
+        assertEquals(List.of(4L), batches.get(1).stream().map(payment -> payment.reservation_id).toList());
+        verify(reservationRepository, times(2)).lockReservations(anyCollection());
+        verify(reservationRepository, times(1)).confirmPaidReservations(List.of(1L));
+        verify(reservationRepository, never()).getReservationById(anyLong());
+        verify(paymentRepository, never()).createPayment(any(Payment.class));
+    }
+
+    /**
+     * Tests that a file without valid lines writes nothing.
+     */
+    @Test
+    public void importPayments_noValidLines_writesNothing() {
+        PaymentImportResultDTO result = paymentImportUseCase.importPayments(List.of(
+                PaymentImportRow.invalid(2, "La fila no es un pago en JSON válido")).iterator());
+
+        assertEquals(0, result.imported);
+        assertEquals(1, result.rejected);
+        verifyNoInteractions(paymentRepository, reservationRepository);
+    }
+
+    /**
+     * Tests that the chunk size is bounded.
+     */
+    @Test
+    public void constructor_invalidChunkSize_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new PaymentImportUseCase(paymentRepository,
+                reservationRepository, TransactionOperations.withoutTransaction(), 0));
+        assertThrows(IllegalArgumentException.class, () -> new PaymentImportUseCase(paymentRepository,
+                reservationRepository, TransactionOperations.withoutTransaction(), 1001));
+    }
+}
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -123,15 +124,16 @@ public class PaymentUseCaseTest {
         Reservation reservation = new Reservation();
         reservation.id = 100L;
         reservation.total_price = new BigDecimal("100.00");
-        when(reservationRepository.getReservationById(payment.reservation_id))
-                .thenReturn(Optional.of(reservation));
+        reservation.status = ReservationStatus.PENDING;
+        when(reservationRepository.lockReservations(List.of(payment.reservation_id)))
+                .thenReturn(List.of(reservation));
 
-        // Stub: updatePayment returns 1 row updated.
+        // Stub: updatePayment returns 1 row updated and the reservation is confirmed.
         when(paymentRepository.updatePayment(payment, id)).thenReturn(1);
+        when(reservationRepository.confirmPaidReservations(List.of(100L))).thenReturn(1);
 
-        // Stub: total paid equals reservation total.
-        when(paymentRepository.getTotalPaid(reservation.id))
-                .thenReturn(new BigDecimal("100.00"));
+        // Paid total before the update: 70 - 20 + 50 equals the reservation total.
+        reservation.paid_total = new BigDecimal("70.00");
 
         // Act: Execute updatePayment.
         int rowsAffected = paymentUseCase.updatePayment(updatedPayment, id);
@@ -142,10 +144,39 @@ public class PaymentUseCaseTest {
 
         // Verify expected method calls.
         verify(paymentRepository).getPaymentById(id);
-        verify(reservationRepository).getReservationById(payment.reservation_id);
+        verify(reservationRepository).lockReservations(List.of(payment.reservation_id));
         verify(paymentRepository).updatePayment(payment, id);
-        verify(paymentRepository).getTotalPaid(reservation.id);
-        verify(reservationRepository).updateReservation(reservation);
+        verify(paymentRepository, never()).getTotalPaid(anyLong());
+        verify(reservationRepository).confirmPaidReservations(List.of(100L));
+        verify(reservationRepository, never()).updateReservation(any());
+        assertEquals(new BigDecimal("100.00"), reservation.paid_total);
+    }
+
+    /**
+     * Tests that updatePayment() throws an OptimisticLockingFailureException and writes nothing when the client
+     * sends a version of the payment that is no longer current.
+     */
+    @Test
+    public void updatePayment_staleVersion_throwsConflict() {
+        // Arrange
+        long id = 1L;
+        Payment payment = new Payment();
+        payment.reservation_id = 100L;
+        payment.version = 2L;
+
+        Payment updatedPayment = new Payment();
+        updatedPayment.method = MethodPayment.CASH;
+        updatedPayment.version = 1L;
+
+        when(paymentRepository.getPaymentById(id)).thenReturn(Optional.of(payment));
+        when(reservationRepository.lockReservations(List.of(payment.reservation_id)))
+                .thenReturn(List.of(new Reservation()));
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () ->
+                paymentUseCase.updatePayment(updatedPayment, id)
+        );
+        verify(paymentRepository, never()).updatePayment(any(), anyLong());
     }
 
     /**
@@ -180,7 +211,7 @@ public class PaymentUseCaseTest {
         updatedPayment.amount = new BigDecimal("50.00");
 
         when(paymentRepository.getPaymentById(id)).thenReturn(Optional.of(payment));
-        when(reservationRepository.getReservationById(payment.reservation_id)).thenReturn(Optional.empty());
+        when(reservationRepository.lockReservations(List.of(payment.reservation_id))).thenReturn(List.of());
 
         // Act & Assert: Verify that a RuntimeException is thrown with the expected message.
         Exception ex = assertThrows(RuntimeException.class, () ->
@@ -188,7 +219,7 @@ public class PaymentUseCaseTest {
         );
         assertEquals("Reserva asociada al pago no encontrada", ex.getMessage());
         verify(paymentRepository).getPaymentById(id);
-        verify(reservationRepository).getReservationById(payment.reservation_id);
+        verify(reservationRepository).lockReservations(List.of(payment.reservation_id));
     }
 
     /**
@@ -207,7 +238,7 @@ public class PaymentUseCaseTest {
         Reservation reservation = new Reservation();
         reservation.id = 100L;
         reservation.total_price = new BigDecimal("100.00");
-        when(reservationRepository.getReservationById(payment.reservation_id)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.lockReservations(List.of(payment.reservation_id))).thenReturn(List.of(reservation));
 
         // Act & Assert: Expect RuntimeException for missing update fields.
         Exception ex = assertThrows(RuntimeException.class, () ->
@@ -215,7 +246,7 @@ public class PaymentUseCaseTest {
         );
         assertEquals("Debes indicar algún campo para actualizar", ex.getMessage());
         verify(paymentRepository).getPaymentById(id);
-        verify(reservationRepository).getReservationById(payment.reservation_id);
+        verify(reservationRepository).lockReservations(List.of(payment.reservation_id));
     }
 
     /**
@@ -240,7 +271,7 @@ public class PaymentUseCaseTest {
         Reservation reservation = new Reservation();
         reservation.id = 100L;
         reservation.total_price = new BigDecimal("100.00");
-        when(reservationRepository.getReservationById(payment.reservation_id)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.lockReservations(List.of(payment.reservation_id))).thenReturn(List.of(reservation));
 
         // Stub: updatePayment returns success.
         when(paymentRepository.updatePayment(payment, id)).thenReturn(1);
@@ -255,7 +286,8 @@ public class PaymentUseCaseTest {
 
         verify(paymentRepository).updatePayment(payment, id);
         // Reservation should not be updated.
-        verify(reservationRepository, never()).updateReservation(any());
+        verify(reservationRepository, never()).confirmPaidReservations(any());
+        verify(reservationRepository, never()).reopenUnpaidReservations(any());
     }
 
     /**
@@ -280,22 +312,24 @@ public class PaymentUseCaseTest {
         Reservation reservation = new Reservation();
         reservation.id = 100L;
         reservation.total_price = new BigDecimal("100.00");
-        when(reservationRepository.getReservationById(payment.reservation_id)).thenReturn(Optional.of(reservation));
+        reservation.status = ReservationStatus.CONFIRMED;
+        when(reservationRepository.lockReservations(List.of(payment.reservation_id))).thenReturn(List.of(reservation));
         when(paymentRepository.updatePayment(payment, id)).thenReturn(1);
+        when(reservationRepository.reopenUnpaidReservations(List.of(100L))).thenReturn(1);
 
-        // Total paid is less than total_price.
-        when(paymentRepository.getTotalPaid(reservation.id)).thenReturn(new BigDecimal("70.00"));
+        // Total paid after the update (40 - 20 + 50) is less than total_price.
+        reservation.paid_total = new BigDecimal("40.00");
 
         // Act
         int rowsAffected = paymentUseCase.updatePayment(updatedPayment, id);
 
-        // Assert: Verify that the update succeeded and the reservation status remains PENDING.
+        // Assert: Verify that the update succeeded and the reservation status is back to PENDING.
         assertEquals(1, rowsAffected);
         assertEquals(ReservationStatus.PENDING, reservation.status);
 
         verify(paymentRepository).updatePayment(payment, id);
-        verify(paymentRepository).getTotalPaid(reservation.id);
-        verify(reservationRepository).updateReservation(reservation);
+        verify(paymentRepository, never()).getTotalPaid(anyLong());
+        verify(reservationRepository).reopenUnpaidReservations(List.of(100L));
     }
 
     /**
@@ -320,11 +354,13 @@ public class PaymentUseCaseTest {
         Reservation reservation = new Reservation();
         reservation.id = 100L;
         reservation.total_price = new BigDecimal("100.00");
-        when(reservationRepository.getReservationById(payment.reservation_id)).thenReturn(Optional.of(reservation));
+        reservation.status = ReservationStatus.PENDING;
+        when(reservationRepository.lockReservations(List.of(payment.reservation_id))).thenReturn(List.of(reservation));
         when(paymentRepository.updatePayment(payment, id)).thenReturn(1);
+        when(reservationRepository.confirmPaidReservations(List.of(100L))).thenReturn(1);
 
-        // Total paid equals total_price.
-        when(paymentRepository.getTotalPaid(reservation.id)).thenReturn(new BigDecimal("100.00"));
+        // Total paid after the update (70 - 20 + 50) equals total_price.
+        reservation.paid_total = new BigDecimal("70.00");
 
         // Act
         int rowsAffected = paymentUseCase.updatePayment(updatedPayment, id);
@@ -334,8 +370,8 @@ public class PaymentUseCaseTest {
         assertEquals(ReservationStatus.CONFIRMED, reservation.status);
 
         verify(paymentRepository).updatePayment(payment, id);
-        verify(paymentRepository).getTotalPaid(reservation.id);
-        verify(reservationRepository).updateReservation(reservation);
+        verify(paymentRepository, never()).getTotalPaid(anyLong());
+        verify(reservationRepository).confirmPaidReservations(List.of(100L));
     }
 
     /**
@@ -360,11 +396,11 @@ public class PaymentUseCaseTest {
         Reservation reservation = new Reservation();
         reservation.id = 100L;
         reservation.total_price = new BigDecimal("100.00");
-        when(reservationRepository.getReservationById(payment.reservation_id)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.lockReservations(List.of(payment.reservation_id))).thenReturn(List.of(reservation));
         when(paymentRepository.updatePayment(payment, id)).thenReturn(1);
 
-        // Total paid is greater than total_price.
-        when(paymentRepository.getTotalPaid(reservation.id)).thenReturn(new BigDecimal("150.00"));
+        // Total paid after the update (120 - 20 + 50) is greater than total_price.
+        reservation.paid_total = new BigDecimal("120.00");
 
         // Act
         Exception ex = assertThrows(RuntimeException.class, () ->
@@ -375,8 +411,8 @@ public class PaymentUseCaseTest {
         assertEquals("El importe del pago excede el precio total de la reserva asociada", ex.getMessage());
 
         verify(paymentRepository).updatePayment(payment, id);
-        verify(paymentRepository).getTotalPaid(reservation.id);
-        verify(reservationRepository, never()).updateReservation(any());
+        verify(paymentRepository, never()).getTotalPaid(anyLong());
+        verify(reservationRepository, never()).confirmPaidReservations(any());
     }
 
     /**
@@ -406,7 +442,7 @@ public class PaymentUseCaseTest {
         Payment payment = new Payment();
         payment.reservation_id = 100L;
         when(paymentRepository.getPaymentById(id)).thenReturn(Optional.of(payment));
-        when(reservationRepository.getReservationById(payment.reservation_id)).thenReturn(Optional.empty());
+        when(reservationRepository.lockReservations(List.of(payment.reservation_id))).thenReturn(List.of());
 
         // Act & Assert: Verify that a RuntimeException is thrown with the correct message.
         Exception ex = assertThrows(RuntimeException.class, () ->
@@ -414,7 +450,7 @@ public class PaymentUseCaseTest {
         );
         assertEquals("Reserva asociada al pago no encontrada", ex.getMessage());
         verify(paymentRepository).getPaymentById(id);
-        verify(reservationRepository).getReservationById(payment.reservation_id);
+        verify(reservationRepository).lockReservations(List.of(payment.reservation_id));
     }
 
     /**
@@ -434,13 +470,16 @@ public class PaymentUseCaseTest {
         Reservation reservation = new Reservation();
         reservation.id = 100L;
         reservation.total_price = new BigDecimal("100.00");
-        when(reservationRepository.getReservationById(payment.reservation_id))
-                .thenReturn(Optional.of(reservation));
+        reservation.setStatus(ReservationStatus.CONFIRMED);
+        when(reservationRepository.lockReservations(List.of(payment.reservation_id)))
+                .thenReturn(List.of(reservation));
 
         int rowsAffected = 1;
         when(paymentRepository.deletePayment(id)).thenReturn(rowsAffected);
-        // Simulate total paid less than total_price (e.g., 80.00)
-        when(paymentRepository.getTotalPaid(reservation.id)).thenReturn(new BigDecimal("80.00"));
+        when(reservationRepository.reopenUnpaidReservations(List.of(100L))).thenReturn(1);
+        // Total paid after the deletion (100 - 20) is less than total_price
+        payment.amount = new BigDecimal("20.00");
+        reservation.paid_total = new BigDecimal("100.00");
 
         // Act
         int result = paymentUseCase.deletePayment(id);
@@ -449,10 +488,10 @@ public class PaymentUseCaseTest {
         assertEquals(rowsAffected, result);
         assertEquals(ReservationStatus.PENDING, reservation.status);
         verify(paymentRepository).getPaymentById(id);
-        verify(reservationRepository).getReservationById(payment.reservation_id);
+        verify(reservationRepository).lockReservations(List.of(payment.reservation_id));
         verify(paymentRepository).deletePayment(id);
-        verify(paymentRepository).getTotalPaid(reservation.id);
-        verify(reservationRepository).updateReservation(reservation);
+        verify(paymentRepository, never()).getTotalPaid(anyLong());
+        verify(reservationRepository).reopenUnpaidReservations(List.of(100L));
     }
 
     /**
@@ -473,23 +512,86 @@ public class PaymentUseCaseTest {
         reservation.id = 100L;
         reservation.total_price = new BigDecimal("100.00");
         reservation.setStatus(ReservationStatus.CONFIRMED);
-        when(reservationRepository.getReservationById(payment.reservation_id))
-                .thenReturn(Optional.of(reservation));
+        when(reservationRepository.lockReservations(List.of(payment.reservation_id)))
+                .thenReturn(List.of(reservation));
 
         int rowsAffected = 1;
         when(paymentRepository.deletePayment(id)).thenReturn(rowsAffected);
-        // Simulate total paid equal to total_price (100.00)
-        when(paymentRepository.getTotalPaid(reservation.id)).thenReturn(new BigDecimal("100.00"));
+        // Total paid after the deletion (120 - 20) equals total_price
+        payment.amount = new BigDecimal("20.00");
+        reservation.paid_total = new BigDecimal("120.00");
 
         // Act
         int result = paymentUseCase.deletePayment(id);
 
-        // Assert: Verify that the result is as expected and that updateReservation is not invoked.
+        // Assert: Verify that the result is as expected and that the status is not changed.
         assertEquals(rowsAffected, result);
         verify(paymentRepository).getPaymentById(id);
-        verify(reservationRepository).getReservationById(payment.reservation_id);
+        verify(reservationRepository).lockReservations(List.of(payment.reservation_id));
         verify(paymentRepository).deletePayment(id);
-        verify(paymentRepository).getTotalPaid(reservation.id);
+        verify(paymentRepository, never()).getTotalPaid(anyLong());
+        verify(reservationRepository, never()).reopenUnpaidReservations(any());
+    }
+
+    /**
+     * Tests that deletePayment() leaves a canceled reservation canceled when its paid total falls below its price.
+     */
+    @Test
+    public void deletePayment_canceledReservation_keepsStatus() {
+        // Arrange
+        long id = 1L;
+        Payment payment = new Payment();
+        payment.reservation_id = 100L;
+        payment.amount = new BigDecimal("20.00");
+        when(paymentRepository.getPaymentById(id)).thenReturn(Optional.of(payment));
+
+        Reservation reservation = new Reservation();
+        reservation.id = 100L;
+        reservation.total_price = new BigDecimal("100.00");
+        reservation.paid_total = new BigDecimal("20.00");
+        reservation.setStatus(ReservationStatus.CANCELED);
+        when(reservationRepository.lockReservations(List.of(payment.reservation_id)))
+                .thenReturn(List.of(reservation));
+        when(paymentRepository.deletePayment(id)).thenReturn(1);
+
+        // Act
+        paymentUseCase.deletePayment(id);
+
+        // Assert
+        assertEquals(ReservationStatus.CANCELED, reservation.status);
+        verify(reservationRepository, never()).reopenUnpaidReservations(any());
         verify(reservationRepository, never()).updateReservation(any());
     }
+
+    /**
+     * Tests that updatePayment() throws an OptimisticLockingFailureException when the conditional update does not
+     * confirm the reservation, instead of dropping the status change silently.
+     */
+    @Test
+    public void updatePayment_confirmationNotApplied_throwsConflict() {
+        // Arrange
+        long id = 1L;
+        Payment payment = new Payment();
+        payment.reservation_id = 100L;
+        payment.amount = new BigDecimal("20.00");
+        Payment updatedPayment = new Payment();
+        updatedPayment.amount = new BigDecimal("50.00");
+        when(paymentRepository.getPaymentById(id)).thenReturn(Optional.of(payment));
+
+        Reservation reservation = new Reservation();
+        reservation.id = 100L;
+        reservation.total_price = new BigDecimal("100.00");
+        reservation.paid_total = new BigDecimal("70.00");
+        reservation.status = ReservationStatus.PENDING;
+        when(reservationRepository.lockReservations(List.of(payment.reservation_id)))
+                .thenReturn(List.of(reservation));
+        when(paymentRepository.updatePayment(payment, id)).thenReturn(1);
+        when(reservationRepository.confirmPaidReservations(List.of(100L))).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () ->
+                paymentUseCase.updatePayment(updatedPayment, id)
+        );
+        assertEquals(ReservationStatus.PENDING, reservation.status);
+    }
 }
\ No newline at end of file
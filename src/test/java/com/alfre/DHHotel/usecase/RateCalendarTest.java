@@ -0,0 +1,102 @@
+package com.alfre.DHHotel.usecase;
+
+import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.domain.model.SeasonalRate;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the precomputed rate calendar used to quote stays.
+ *
+ * @author Alfredo Sobrados González
+ */
+public class RateCalendarTest {
+    // 2025-06-02 is a Monday
+    private static final LocalDate ORIGIN = LocalDate.of(2025, 6, 1);
+    private static final LocalDate MONDAY = LocalDate.of(2025, 6, 2);
+
+    /**
+     * Tests that without rates every night is charged the base price and the result has two decimals.
+     */
+    @Test
+    void testQuoteWithoutRatesChargesBasePrice() {
+        RateCalendar calendar = new RateCalendar();
+
+        BigDecimal total = calendar.quote(RoomType.SINGLE, BigDecimal.valueOf(49.99), MONDAY, MONDAY.plusDays(7));
+
+        assertEquals(new BigDecimal("349.93"), total);
+    }
+
+    /**
+     * Tests that Friday and Saturday nights are charged the configured weekend percentage.
+     */
+    @Test
+    void testWeekendNightsUseWeekendPercentage() {
+        RateCalendar calendar = new RateCalendar(120);
+        calendar.rebuild(List.of(), ORIGIN);
+
+        assertEquals(100, calendar.percentageOn(RoomType.DOUBLE, MONDAY.plusDays(3)));
+        assertEquals(120, calendar.percentageOn(RoomType.DOUBLE, MONDAY.plusDays(4)));
+        assertEquals(120, calendar.percentageOn(RoomType.DOUBLE, MONDAY.plusDays(5)));
+        assertEquals(100, calendar.percentageOn(RoomType.DOUBLE, MONDAY.plusDays(6)));
+        assertEquals(new BigDecimal("740.00"),
+                calendar.quote(RoomType.DOUBLE, new BigDecimal("100.00"), MONDAY, MONDAY.plusDays(7)));
+    }
+
+    /**
+     * Tests that rates for a room type win over rates for every type, whatever their creation order,
+     * and that later rates win over earlier ones of the same scope.
+     */
+    @Test
+    void testRatePrecedence() {
+        RateCalendar calendar = new RateCalendar();
+        calendar.rebuild(List.of(
+                new SeasonalRate(3L, null, MONDAY, MONDAY.plusDays(6), 200, null),
+                new SeasonalRate(1L, RoomType.SUITE, MONDAY, MONDAY.plusDays(6), 150, 180),
+                new SeasonalRate(2L, RoomType.SUITE, MONDAY.plusDays(1), MONDAY.plusDays(1), 50, null)), ORIGIN);
+
+        assertEquals(150, calendar.percentageOn(RoomType.SUITE, MONDAY));
+        assertEquals(50, calendar.percentageOn(RoomType.SUITE, MONDAY.plusDays(1)));
+        assertEquals(180, calendar.percentageOn(RoomType.SUITE, MONDAY.plusDays(4)));
+        assertEquals(200, calendar.percentageOn(RoomType.SINGLE, MONDAY));
+        assertEquals(200, calendar.percentageOn(null, MONDAY));
+        assertEquals(100, calendar.percentageOn(RoomType.SINGLE, MONDAY.plusDays(7)));
+    }
+
+    /**
+     * Tests that stays outside the precomputed window are priced the same way night by night.
+     */
+    @Test
+    void testStaysOutsideWindowAreQuotedNightByNight() {
+        LocalDate farStart = ORIGIN.plusDays(RateCalendar.WINDOW_DAYS - 2);
+        LocalDate farEnd = farStart.plusDays(10);
+        List<SeasonalRate> rates = List.of(new SeasonalRate(1L, RoomType.DOUBLE, ORIGIN, farEnd, 130, 160));
+
+        RateCalendar calendar = new RateCalendar(110);
+        calendar.rebuild(rates, ORIGIN);
+
+        long expectedCents = 0;
+        for (LocalDate night = farStart; night.isBefore(farEnd); night = night.plusDays(1)) {
+            expectedCents += 8000L * calendar.percentageOn(RoomType.DOUBLE, night) / 100;
+        }
+        assertEquals(BigDecimal.valueOf(expectedCents, 2),
+                calendar.quote(RoomType.DOUBLE, new BigDecimal("80.00"), farStart, farEnd));
+        assertEquals(new BigDecimal("88.00"),
+                calendar.quote(RoomType.DOUBLE, new BigDecimal("80.00"), ORIGIN.minusDays(1), ORIGIN));
+    }
+
+    /**
+     * Tests that the weekend percentage must be positive.
+     */
+    @Test
+    void testInvalidWeekendPercentage() {
+        Exception ex = assertThrows(IllegalArgumentException.class, () -> new RateCalendar(0));
+        assertEquals("El porcentaje de fin de semana debe ser mayor que 0", ex.getMessage());
+    }
+}
@@ -0,0 +1,98 @@
+package com.alfre.DHHotel.usecase;
+
+import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.domain.model.SeasonalRate;
+import com.alfre.DHHotel.domain.repository.SeasonalRateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the seasonal rate use case and the broadcast of the rate changes.
+ *
+ * @author Alfredo Sobrados González
+ */
+@ExtendWith(MockitoExtension.class)
+public class RateUseCaseTest {
+    private static final LocalDate MONDAY = LocalDate.of(2025, 6, 2);
+
+    @Mock
+    private SeasonalRateRepository rateRepository;
+
+    private final List<String> sent = new ArrayList<>();
+    private RateCalendar rateCalendar;
+    private RateUseCase rateUseCase;
+
+    @BeforeEach
+    void setup() {
+        rateCalendar = new RateCalendar();
+        rateUseCase = new RateUseCase(rateRepository, rateCalendar, sent::add);
+    }
+
+    /**
+     * Tests that creating a rate rebuilds the local calendar and broadcasts the change once.
+     */
+    @Test
+    void testCreateRate_reloadsAndBroadcasts() {
+        SeasonalRate rate = new SeasonalRate(1L, null, MONDAY, MONDAY.plusDays(6), 150, null);
+        when(rateRepository.createRate(rate)).thenReturn(1L);
+        when(rateRepository.getAllRates()).thenReturn(List.of(rate));
+
+        assertEquals(1L, rateUseCase.createRate(rate));
+
+        assertEquals(150, rateCalendar.percentageOn(RoomType.DOUBLE, MONDAY));
+        assertEquals(1, sent.size());
+    }
+
+    /**
+     * Tests that deleting a rate that does not exist neither reloads the calendar nor broadcasts anything.
+     */
+    @Test
+    void testDeleteRate_notFound_doesNotBroadcast() {
+        when(rateRepository.deleteRate(9L)).thenReturn(0);
+
+        assertEquals(0, rateUseCase.deleteRate(9L));
+
+        verify(rateRepository, never()).getAllRates();
+        assertTrue(sent.isEmpty());
+    }
+
+    /**
+     * Tests that a change broadcast by another node rebuilds the calendar and that the own ones are ignored.
+     */
+    @Test
+    void testReceive_reloadsOnChangesOfOtherNodesOnly() {
+        SeasonalRate rate = new SeasonalRate(1L, null, MONDAY, MONDAY.plusDays(6), 150, null);
+        when(rateRepository.deleteRate(1L)).thenReturn(1);
+        when(rateRepository.getAllRates()).thenReturn(List.of()).thenReturn(List.of(rate));
+        rateUseCase.deleteRate(1L);
+
+        rateUseCase.receive(sent.get(0));
+        verify(rateRepository, times(1)).getAllRates();
+
+        new RateUseCase(rateRepository, new RateCalendar(), sent::add).deleteRate(1L);
+        rateUseCase.receive(sent.get(1));
+        assertEquals(150, rateCalendar.percentageOn(RoomType.DOUBLE, MONDAY));
+    }
+
+    /**
+     * Tests that a failed reload after a remote change keeps the previous calendar instead of failing.
+     */
+    @Test
+    void testReceive_databaseError_keepsCalendar() {
+        when(rateRepository.getAllRates()).thenThrow(new DataAccessException("DB error") {});
+
+        assertDoesNotThrow(() -> rateUseCase.receive("other-node"));
+    }
+}
@@ -1,5 +1,9 @@
 package com.alfre.DHHotel.usecase;
 
+import com.alfre.DHHotel.adapter.web.dto.GroupReservationRequest;
+import com.alfre.DHHotel.adapter.web.dto.OccupancyCalendarDTO;
+import com.alfre.DHHotel.domain.event.EventPublisher;
+import com.alfre.DHHotel.domain.event.GroupBookingCreatedEvent;
 import com.alfre.DHHotel.domain.model.*;
 import com.alfre.DHHotel.domain.repository.ClientRepository;
 import com.alfre.DHHotel.domain.repository.PaymentRepository;
@@ -8,8 +12,10 @@ import com.alfre.DHHotel.domain.repository.RoomRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 
 import java.math.BigDecimal;
@@ -17,6 +23,7 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -69,6 +76,36 @@ public class ReservationUseCaseTest {
         verify(reservationRepository).getAllReservations();
     }
 
+    /**
+     * Tests that the criteria of the reservation list refuse a date range that ends before it starts.
+     */
+    @Test
+    public void reservationFilter_invertedDates_throwsException() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> new ReservationFilter(null, null, null, LocalDate.of(2025, 6, 30), LocalDate.of(2025, 6, 1)));
+
+        assertEquals("La fecha final no puede ser anterior a la fecha inicial", exception.getMessage());
+    }
+
+    /**
+     * Tests that exportReservations() hands the reservations read by the repository to the given action.
+     */
+    @Test
+    public void exportReservations_passesEveryRowToAction() {
+        ReservationFilter filter = new ReservationFilter(null, null, null, LocalDate.of(2025, 6, 1), null);
+        Reservation reservation = new Reservation();
+        doAnswer(invocation -> {
+            Consumer<Reservation> action = invocation.getArgument(1);
+            action.accept(reservation);
+            return null;
+        }).when(reservationRepository).streamReservations(eq(filter), any());
+        List<Reservation> exported = new ArrayList<>();
+
+        reservationUseCase.exportReservations(filter, exported::add);
+
+        assertEquals(List.of(reservation), exported);
+    }
+
     /**
      * Tests that getReservationById() returns the reservation when a valid id is provided.
      */
@@ -205,6 +242,236 @@ public class ReservationUseCaseTest {
         verify(roomRepository).getRoomById(newReservation.room_id);
     }
 
+    /**
+     * Tests that the room row is locked before the availability of the room is checked.
+     */
+    @Test
+    public void createReservation_locksRoomBeforeCheckingAvailability() {
+        // Arrange
+        Reservation newReservation = new Reservation();
+        newReservation.setRoom_id(2L);
+
+        User user = new User();
+        user.setRole(Role.ADMIN);
+
+        when(reservationRepository.isRoomAvailable(newReservation.room_id, newReservation.start_date,
+                newReservation.end_date)).thenReturn(true);
+        when(reservationUseCase.calculateTotal(newReservation.start_date, newReservation.end_date,
+                newReservation.room_id)).thenReturn(BigDecimal.ONE);
+        when(roomRepository.getRoomById(newReservation.room_id)).thenReturn(Optional.of(new Room()));
+        when(reservationRepository.createReservation(newReservation)).thenReturn(5L);
+
+        // Act
+        reservationUseCase.createReservation(newReservation, user);
+
+        // Assert
+        InOrder inOrder = inOrder(roomRepository, reservationRepository);
+        inOrder.verify(roomRepository).lockRoom(2L);
+        inOrder.verify(reservationRepository).isRoomAvailable(newReservation.room_id, newReservation.start_date,
+                newReservation.end_date);
+        inOrder.verify(reservationRepository).createReservation(newReservation);
+    }
+
+    /**
+     * Tests that a group reservation books every room with one batch insert and publishes a single event.
+     */
+    @Test
+    public void createGroupReservation_success() {
+        // Arrange
+        EventPublisher eventPublisher = mock(EventPublisher.class);
+        ReservationUseCase groupUseCase = new ReservationUseCase(reservationRepository, paymentRepository,
+                roomRepository, clientRepository, null, eventPublisher, new RoomBookingLocks(), new RateCalendar());
+        LocalDate startDate = LocalDate.of(2025, 6, 1);
+        LocalDate endDate = LocalDate.of(2025, 6, 4);
+        GroupReservationRequest request = GroupReservationRequest.builder()
+                .room_ids(List.of(2L, 1L)).start_date(startDate).end_date(endDate).build();
+
+        User user = new User();
+        user.setId(6L);
+        user.setRole(Role.CLIENT);
+        Client client = new Client();
+        client.setId(9L);
+        Room first = new Room(1L, 101, RoomType.SINGLE, BigDecimal.valueOf(50), RoomStatus.AVAILABLE);
+        Room second = new Room(2L, 102, RoomType.DOUBLE, BigDecimal.valueOf(80), RoomStatus.AVAILABLE);
+
+        when(roomRepository.lockRooms(List.of(1L, 2L))).thenReturn(List.of(first, second));
+        when(reservationRepository.getUnavailableRoomIds(List.of(1L, 2L), startDate, endDate)).thenReturn(List.of());
+        when(clientRepository.getClientByUserId(6L)).thenReturn(Optional.of(client));
+
+        // Act
+        List<Reservation> result = groupUseCase.createGroupReservation(request, user);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals(1L, result.get(0).room_id);
+        assertEquals(0, BigDecimal.valueOf(150).compareTo(result.get(0).total_price));
+        assertEquals(0, BigDecimal.valueOf(240).compareTo(result.get(1).total_price));
+        assertEquals(9L, result.get(1).client_id);
+        assertEquals(ReservationStatus.PENDING, result.get(1).status);
+
+        verify(reservationRepository).createReservations(result);
+        verify(reservationRepository, never()).createReservation(any());
+        verify(roomRepository, never()).getRoomById(anyLong());
+        verify(eventPublisher).publishGroupBookingCreated(any(GroupBookingCreatedEvent.class));
+    }
+
+    /**
+     * Tests that an active hold is turned into a reservation for its owner and released only after the commit,
+     * while the room stays blocked for other clients until then.
+     */
+    @Test
+    public void createReservationFromHold_success() {
+        // Arrange
+        RoomHolds roomHolds = new RoomHolds();
+        ReservationUseCase holdUseCase = new ReservationUseCase(reservationRepository, paymentRepository,
+                roomRepository, clientRepository, null, null, new RoomBookingLocks(), new RateCalendar(), roomHolds);
+        LocalDate startDate = LocalDate.of(2025, 7, 1);
+        LocalDate endDate = LocalDate.of(2025, 7, 3);
+        RoomHold hold = roomHolds.hold(3L, startDate, endDate, 6L, java.time.Duration.ofMinutes(10));
+
+        User user = new User();
+        user.setId(6L);
+        user.setRole(Role.CLIENT);
+        Client client = new Client();
+        client.setId(9L);
+        Room room = new Room(3L, 103, RoomType.SINGLE, new BigDecimal("50.00"), RoomStatus.AVAILABLE);
+
+        when(reservationRepository.isRoomAvailable(3L, startDate, endDate)).thenReturn(true);
+        when(roomRepository.getRoomById(3L)).thenReturn(Optional.of(room));
+        when(clientRepository.getClientByUserId(6L)).thenReturn(Optional.of(client));
+        when(reservationRepository.createReservation(any(Reservation.class))).thenReturn(11L);
+
+        // Act
+        long reservationId = holdUseCase.createReservationFromHold(hold.id, user);
+
+        // Assert
+        assertEquals(11L, reservationId);
+        verify(reservationRepository).createReservation(argThat(reservation ->
+                reservation.room_id == 3L && reservation.client_id == 9L &&
+                        new BigDecimal("100.00").equals(reservation.total_price)));
+        verify(roomRepository).lockRoom(3L);
+        assertTrue(roomHolds.get(hold.id).isEmpty());
+    }
+
+    /**
+     * Tests that a room held by another client cannot be booked, nor can the hold be converted by someone else.
+     */
+    @Test
+    public void createReservation_roomHeldByOtherClient_shouldThrowException() {
+        // Arrange
+        RoomHolds roomHolds = new RoomHolds();
+        ReservationUseCase holdUseCase = new ReservationUseCase(reservationRepository, paymentRepository,
+                roomRepository, clientRepository, null, null, new RoomBookingLocks(), new RateCalendar(), roomHolds);
+        LocalDate startDate = LocalDate.of(2025, 7, 1);
+        LocalDate endDate = LocalDate.of(2025, 7, 3);
+        RoomHold hold = roomHolds.hold(3L, startDate, endDate, 6L, java.time.Duration.ofMinutes(10));
+
+        User other = new User();
+        other.setId(7L);
+        other.setRole(Role.CLIENT);
+        Reservation newReservation = new Reservation();
+        newReservation.setRoom_id(3L);
+        newReservation.setStart_date(startDate.plusDays(1));
+        newReservation.setEnd_date(endDate.plusDays(1));
+        when(reservationRepository.isRoomAvailable(3L, newReservation.start_date, newReservation.end_date))
+                .thenReturn(true);
+
+        // Act & Assert
+        Exception ex = assertThrows(RuntimeException.class, () ->
+                holdUseCase.createReservation(newReservation, other));
+        assertEquals("Habitación retenida por otro cliente en las fechas solicitadas", ex.getMessage());
+        assertThrows(AccessDeniedException.class, () -> holdUseCase.createReservationFromHold(hold.id, other));
+        verify(reservationRepository, never()).createReservation(any());
+    }
+
+    /**
+     * Tests that a group reservation creates nothing when one of the rooms is already booked.
+     */
+    @Test
+    public void createGroupReservation_roomNotAvailable_shouldThrowException() {
+        // Arrange
+        LocalDate startDate = LocalDate.of(2025, 6, 1);
+        LocalDate endDate = LocalDate.of(2025, 6, 4);
+        GroupReservationRequest request = GroupReservationRequest.builder()
+                .room_ids(List.of(1L, 2L)).start_date(startDate).end_date(endDate).build();
+        User user = new User();
+        user.setRole(Role.ADMIN);
+        Room first = new Room(1L, 101, RoomType.SINGLE, BigDecimal.valueOf(50), RoomStatus.AVAILABLE);
+        Room second = new Room(2L, 102, RoomType.DOUBLE, BigDecimal.valueOf(80), RoomStatus.AVAILABLE);
+
+        when(roomRepository.lockRooms(List.of(1L, 2L))).thenReturn(List.of(first, second));
+        when(reservationRepository.getUnavailableRoomIds(List.of(1L, 2L), startDate, endDate))
+                .thenReturn(List.of(2L));
+
+        // Act & Assert
+        Exception exception = assertThrows(RuntimeException.class, () ->
+                reservationUseCase.createGroupReservation(request, user));
+        assertEquals("Habitaciones no disponibles en las fechas solicitadas: [102]", exception.getMessage());
+        verify(reservationRepository, never()).createReservations(any());
+    }
+
+    /**
+     * Tests that a group reservation listing the same room twice is rejected before touching the repositories.
+     */
+    @Test
+    public void createGroupReservation_duplicatedRoom_shouldThrowException() {
+        // Arrange
+        GroupReservationRequest request = GroupReservationRequest.builder()
+                .room_ids(List.of(1L, 1L)).start_date(LocalDate.of(2025, 6, 1))
+                .end_date(LocalDate.of(2025, 6, 4)).build();
+
+        // Act & Assert
+        Exception exception = assertThrows(IllegalArgumentException.class, () ->
+                reservationUseCase.createGroupReservation(request, new User()));
+        assertEquals("No se puede reservar la misma habitación dos veces en un grupo", exception.getMessage());
+        verifyNoInteractions(roomRepository, reservationRepository);
+    }
+
+    /**
+     * Tests that the occupancy calendar marks every booked day of each room and clips stays to the window.
+     */
+    @Test
+    public void getOccupancyCalendar_success() {
+        // Arrange
+        LocalDate startDate = LocalDate.of(2025, 6, 1);
+        LocalDate endDate = LocalDate.of(2025, 6, 7);
+        Room first = new Room(1L, 101, RoomType.SINGLE, BigDecimal.valueOf(50), RoomStatus.AVAILABLE);
+        Room second = new Room(2L, 102, RoomType.DOUBLE, BigDecimal.valueOf(80), RoomStatus.MAINTENANCE);
+        Reservation confirmed = new Reservation(7L, 1L, 1L, BigDecimal.valueOf(150), LocalDate.of(2025, 5, 30),
+                LocalDate.of(2025, 6, 2), ReservationStatus.CONFIRMED);
+        Reservation pending = new Reservation(8L, 1L, 1L, BigDecimal.valueOf(100), LocalDate.of(2025, 6, 5),
+                LocalDate.of(2025, 6, 6), ReservationStatus.PENDING);
+
+        when(roomRepository.getAllRooms()).thenReturn(List.of(second, first));
+        when(reservationRepository.getReservationsBetween(startDate, endDate)).thenReturn(List.of(confirmed, pending));
+
+        // Act
+        OccupancyCalendarDTO result = reservationUseCase.getOccupancyCalendar(startDate, endDate);
+
+        // Assert
+        assertEquals(7, result.days);
+        assertEquals(2, result.rooms.size());
+        assertEquals(101, result.rooms.get(0).room_number);
+        assertEquals("CC..PP.", result.rooms.get(0).cells);
+        assertArrayEquals(new long[]{7L, 0, 1}, result.rooms.get(0).reservations.get(0));
+        assertArrayEquals(new long[]{8L, 4, 5}, result.rooms.get(0).reservations.get(1));
+        assertEquals(".......", result.rooms.get(1).cells);
+        assertEquals(RoomStatus.MAINTENANCE, result.rooms.get(1).status);
+        verify(reservationRepository, never()).getAllReservations();
+    }
+
+    /**
+     * Tests that an occupancy calendar longer than a year is rejected before querying the repositories.
+     */
+    @Test
+    public void getOccupancyCalendar_windowTooLong_shouldThrowException() {
+        // Act & Assert
+        Exception exception = assertThrows(IllegalArgumentException.class, () ->
+                reservationUseCase.getOccupancyCalendar(LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 2)));
+        assertEquals("El calendario no puede abarcar más de 366 días", exception.getMessage());
+        verifyNoInteractions(roomRepository, reservationRepository);
+    }
+
     /**
      * Tests that createReservation() throws an exception when the room is not available for the selected dates.
      */
@@ -549,6 +816,35 @@ public class ReservationUseCaseTest {
         assertEquals(new BigDecimal("600.00"), result);
     }
 
+    /**
+     * Tests that calculateTotal() charges each night the percentage of the seasonal rate that covers it.
+     */
+    @Test
+    public void calculateTotal_seasonalRate_appliesRateCalendar() {
+        // Arrange
+        // checkIn = 2023-03-01 (Wednesday), checkOut = 2023-03-05 → Wednesday to Saturday nights
+        LocalDate startDate = LocalDate.of(2023, 3, 1);
+        LocalDate endDate = startDate.plusDays(4);
+        long roomId = 1L;
+
+        RateCalendar rateCalendar = new RateCalendar(150);
+        rateCalendar.rebuild(List.of(new SeasonalRate(1L, RoomType.SUITE, LocalDate.of(2023, 3, 2),
+                LocalDate.of(2023, 3, 2), 200, null)));
+        ReservationUseCase ratedUseCase = new ReservationUseCase(reservationRepository, paymentRepository,
+                roomRepository, clientRepository, null, null, new RoomBookingLocks(), rateCalendar);
+
+        Room room = new Room(roomId, 301, RoomType.SUITE, new BigDecimal("100.00"), RoomStatus.AVAILABLE);
+        when(roomRepository.getRoomById(roomId)).thenReturn(Optional.of(room));
+
+        // Act
+        BigDecimal result = ratedUseCase.calculateTotal(startDate, endDate, roomId);
+
+        // Assert
+        // Wednesday 100 + Thursday 200 + Friday 150 + Saturday 150 = 600% of 100.00
+        assertEquals(new BigDecimal("600.00"), result);
+        verify(roomRepository, times(1)).getRoomById(roomId);
+    }
+
     /**
      * Tests that updateReservation() throws an exception when the reservation is not found.
      */
@@ -817,6 +1113,47 @@ public class ReservationUseCaseTest {
         verify(reservationRepository).updateReservation(reservation);
     }
 
+    /**
+     * Tests that updateReservation() locks the new room and rejects moving a reservation onto dates held by another
+     * client, without writing it.
+     */
+    @Test
+    public void updateReservation_ontoDatesHeldByOtherClient_shouldThrowException() {
+        // Arrange
+        RoomHolds roomHolds = new RoomHolds();
+        ReservationUseCase holdUseCase = new ReservationUseCase(reservationRepository, paymentRepository,
+                roomRepository, clientRepository, null, null, new RoomBookingLocks(), new RateCalendar(), roomHolds);
+        LocalDate startDate = LocalDate.of(2025, 7, 1);
+        LocalDate endDate = LocalDate.of(2025, 7, 3);
+        roomHolds.hold(3L, startDate, endDate, 6L, java.time.Duration.ofMinutes(10));
+
+        long id = 1L;
+        Reservation reservation = new Reservation();
+        reservation.status = ReservationStatus.PENDING;
+        reservation.room_id = 2L;
+        reservation.start_date = startDate;
+        reservation.end_date = endDate;
+
+        User user = new User();
+        user.id = 20L;
+        user.role = Role.ADMIN;
+
+        Reservation updatedReservation = new Reservation();
+        updatedReservation.room_id = 3L;
+        updatedReservation.start_date = startDate.plusDays(1);
+        updatedReservation.end_date = endDate.plusDays(1);
+
+        when(reservationRepository.getReservationById(id)).thenReturn(Optional.of(reservation));
+
+        // Act & Assert
+        Exception ex = assertThrows(RuntimeException.class, () ->
+                holdUseCase.updateReservation(id, updatedReservation, user));
+        assertEquals("Habitación retenida por otro cliente en las fechas solicitadas", ex.getMessage());
+        assertEquals(2L, reservation.room_id);
+        verify(roomRepository).lockRoom(3L);
+        verify(reservationRepository, never()).updateReservation(any());
+    }
+
     /**
      * Tests that cancelReservation() successfully cancels a pending reservation and updates its status to CANCELED.
      */
@@ -876,6 +1213,56 @@ public class ReservationUseCaseTest {
         assertEquals("No se puede cancelar una reserva confirmada.", exception.getMessage());
     }
 
+    /**
+     * Tests that updateReservation() rejects an update based on an old version of the reservation without
+     * writing it.
+     */
+    @Test
+    public void updateReservation_staleVersion_shouldThrowConflict() {
+        // Arrange
+        long id = 1L;
+        Reservation reservation = new Reservation();
+        reservation.status = ReservationStatus.PENDING;
+        reservation.version = 3L;
+
+        User user = new User();
+        user.role = Role.ADMIN;
+
+        Reservation updatedReservation = new Reservation();
+        updatedReservation.start_date = LocalDate.now().plusDays(4);
+        updatedReservation.end_date = LocalDate.now().plusDays(6);
+        updatedReservation.version = 2L;
+
+        when(reservationRepository.getReservationById(id)).thenReturn(Optional.of(reservation));
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () ->
+                reservationUseCase.updateReservation(id, updatedReservation, user));
+        verify(reservationRepository, never()).updateReservation(any());
+    }
+
+    /**
+     * Tests that cancelReservation() reports a conflict when the version-checked update touches no rows because
+     * the reservation was modified after being read.
+     */
+    @Test
+    public void cancelReservation_concurrentUpdate_shouldThrowConflict() {
+        // Arrange
+        long reservationId = 1L;
+        Reservation reservation = new Reservation();
+        reservation.setStatus(ReservationStatus.PENDING);
+        reservation.setVersion(0L);
+
+        when(reservationRepository.getReservationById(reservationId)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.updateReservation(reservation)).thenReturn(0);
+
+        // Act & Assert
+        Exception exception = assertThrows(OptimisticLockingFailureException.class, () ->
+                reservationUseCase.cancelReservation(reservationId));
+        assertEquals("La reserva ha sido modificada por otra petición. Vuelve a consultarla antes de modificarla.",
+                exception.getMessage());
+    }
+
     /**
      * Tests that createPayment() throws an exception when the reservation for the payment is not found.
      */
@@ -886,14 +1273,14 @@ public class ReservationUseCaseTest {
         Payment newPayment = new Payment();
         newPayment.amount = new BigDecimal("50.00");
         User user = new User();
-        when(reservationRepository.getReservationById(reservationId)).thenReturn(Optional.empty());
+        when(reservationRepository.lockReservations(List.of(reservationId))).thenReturn(List.of());
 
         // Act & Assert
         Exception ex = assertThrows(IllegalArgumentException.class, () ->
                 reservationUseCase.createPayment(newPayment, reservationId, user)
         );
         assertEquals("La reserva no existe", ex.getMessage());
-        verify(reservationRepository).getReservationById(reservationId);
+        verify(reservationRepository).lockReservations(List.of(reservationId));
     }
 
     /**
@@ -917,7 +1304,7 @@ public class ReservationUseCaseTest {
         reservation.total_price = new BigDecimal("200.00");
         reservation.status = ReservationStatus.PENDING;
 
-        when(reservationRepository.getReservationById(reservationId)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.lockReservations(List.of(reservationId))).thenReturn(List.of(reservation));
 
         // Act & Assert
         Exception ex = assertThrows(AccessDeniedException.class, () ->
@@ -944,7 +1331,7 @@ public class ReservationUseCaseTest {
         reservation.total_price = new BigDecimal("200.00");
         reservation.status = ReservationStatus.CANCELED;
 
-        when(reservationRepository.getReservationById(reservationId)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.lockReservations(List.of(reservationId))).thenReturn(List.of(reservation));
 
         // Act & Assert
         Exception ex = assertThrows(RuntimeException.class, () ->
@@ -972,9 +1359,9 @@ public class ReservationUseCaseTest {
         reservation.total_price = new BigDecimal("200.00");
         reservation.status = ReservationStatus.CONFIRMED;
 
-        when(reservationRepository.getReservationById(reservationId)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.lockReservations(List.of(reservationId))).thenReturn(List.of(reservation));
         // Assume that 150 has already been paid, so remaining = 50
-        when(paymentRepository.getTotalPaid(reservationId)).thenReturn(new BigDecimal("150.00"));
+        reservation.paid_total = new BigDecimal("150.00");
 
         // Act & Assert
         Exception ex = assertThrows(RuntimeException.class, () ->
@@ -1002,9 +1389,9 @@ public class ReservationUseCaseTest {
         reservation.total_price = new BigDecimal("200.00");
         reservation.status = ReservationStatus.PENDING;
 
-        when(reservationRepository.getReservationById(reservationId)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.lockReservations(List.of(reservationId))).thenReturn(List.of(reservation));
         // Assume that 150 has already been paid, remaining = 50.
-        when(paymentRepository.getTotalPaid(reservationId)).thenReturn(new BigDecimal("150.00"));
+        reservation.paid_total = new BigDecimal("150.00");
 
         // Act & Assert
         Exception ex = assertThrows(RuntimeException.class, () ->
@@ -1035,11 +1422,12 @@ public class ReservationUseCaseTest {
         reservation.status = ReservationStatus.PENDING;
         reservation.client_id = 10L;
 
-        when(reservationRepository.getReservationById(reservationId)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.lockReservations(List.of(reservationId))).thenReturn(List.of(reservation));
         // For this case, assume that 150 has already been paid.
-        when(paymentRepository.getTotalPaid(reservationId)).thenReturn(new BigDecimal("150.00"));
-        // Simulate payment creation
+        reservation.paid_total = new BigDecimal("150.00");
+        // Simulate payment creation and the conditional confirmation
         when(paymentRepository.createPayment(newPayment)).thenReturn(7L);
+        when(reservationRepository.confirmPaidReservations(List.of(reservationId))).thenReturn(1);
 
         // Act & Assert
         long savedPaymentId = reservationUseCase.createPayment(newPayment, reservationId, user);
@@ -1050,7 +1438,36 @@ public class ReservationUseCaseTest {
         // Since 150 + 50 = 200, the status is updated to CONFIRMED
         assertEquals(ReservationStatus.CONFIRMED, reservation.status);
         verify(paymentRepository).createPayment(newPayment);
-        verify(reservationRepository).updateReservation(reservation);
+        verify(reservationRepository).confirmPaidReservations(List.of(reservationId));
+        verify(reservationRepository, never()).updateReservation(any());
+    }
+
+    /**
+     * Tests that createPayment() fails with a conflict instead of dropping the confirmation when the conditional
+     * update confirms nothing.
+     */
+    @Test
+    public void createPayment_confirmationNotApplied_throwsConflict() {
+        // Arrange
+        long reservationId = 1L;
+        Payment newPayment = new Payment();
+        newPayment.amount = new BigDecimal("50.00");
+        User user = new User();
+        user.role = Role.ADMIN;
+
+        Reservation reservation = new Reservation();
+        reservation.total_price = new BigDecimal("200.00");
+        reservation.paid_total = new BigDecimal("150.00");
+        reservation.status = ReservationStatus.PENDING;
+        when(reservationRepository.lockReservations(List.of(reservationId))).thenReturn(List.of(reservation));
+        when(paymentRepository.createPayment(newPayment)).thenReturn(7L);
+        when(reservationRepository.confirmPaidReservations(List.of(reservationId))).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () ->
+                reservationUseCase.createPayment(newPayment, reservationId, user)
+        );
+        assertEquals(ReservationStatus.PENDING, reservation.status);
     }
 
     /**
@@ -1073,9 +1490,9 @@ public class ReservationUseCaseTest {
         reservation.status = ReservationStatus.PENDING;
         reservation.client_id = 10L;
 
-        when(reservationRepository.getReservationById(reservationId)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.lockReservations(List.of(reservationId))).thenReturn(List.of(reservation));
         // Assume that 100 has already been paid, so remaining = 100 and 50 < 100.
-        when(paymentRepository.getTotalPaid(reservationId)).thenReturn(new BigDecimal("100.00"));
+        reservation.paid_total = new BigDecimal("100.00");
         when(paymentRepository.createPayment(newPayment)).thenReturn(7L);
 
         // Act & Assert
@@ -1084,9 +1501,10 @@ public class ReservationUseCaseTest {
         assertEquals(7L, savedPaymentId);
         // Reservation remains in PENDING status
         assertEquals(ReservationStatus.PENDING, reservation.status);
+        assertEquals(new BigDecimal("150.00"), reservation.paid_total);
 
         verify(paymentRepository).createPayment(newPayment);
-        verify(reservationRepository, never()).updateReservation(any());
+        verify(reservationRepository, never()).confirmPaidReservations(any());
     }
 
     /**
@@ -0,0 +1,109 @@
+package com.alfre.DHHotel.usecase;
+
+import com.alfre.DHHotel.adapter.web.dto.RevenueReportDTO;
+import com.alfre.DHHotel.domain.model.DailyRevenue;
+import com.alfre.DHHotel.domain.model.Room;
+import com.alfre.DHHotel.domain.model.RoomStatus;
+import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.domain.repository.DailyRevenueRepository;
+import com.alfre.DHHotel.domain.repository.RoomRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the revenue and occupancy report business logic.
+ *
+ * @author Alfredo Sobrados González
+ */
+@ExtendWith(MockitoExtension.class)
+public class RevenueReportUseCaseTest {
+    @Mock
+    private DailyRevenueRepository dailyRevenueRepository;
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @InjectMocks
+    private RevenueReportUseCase revenueReportUseCase;
+
+    private static final LocalDate DAY = LocalDate.of(2024, 4, 1);
+
+    private static Room room(long id, RoomType type) {
+        return new Room(id, (int) id, type, new BigDecimal("100.00"), RoomStatus.AVAILABLE);
+    }
+
+    /**
+     * Tests that getRevenueReport() computes the occupancy rate, ADR and RevPAR of each day and type from the
+     * rollups, with zeros for the days and types without rollup, and adds them up over the range.
+     */
+    @Test
+    public void testGetRevenueReport_computesMetricsPerDayAndType() {
+        // Arrange
+        when(roomRepository.getAllRooms()).thenReturn(List.of(room(1, RoomType.SINGLE), room(2, RoomType.SINGLE),
+                room(3, RoomType.SINGLE), room(4, RoomType.SINGLE), room(5, RoomType.SUITE)));
+        when(dailyRevenueRepository.getDailyRevenue(DAY, DAY.plusDays(1))).thenReturn(List.of(
+                new DailyRevenue(DAY, RoomType.SINGLE, 3, new BigDecimal("240.00"), new BigDecimal("100.00")),
+                new DailyRevenue(DAY.plusDays(1), RoomType.SINGLE, 1, new BigDecimal("90.00"), BigDecimal.ZERO)));
+
+        // Act
+        RevenueReportDTO report = revenueReportUseCase.getRevenueReport(DAY, DAY.plusDays(1));
+
+        // Assert
+        assertEquals(6, report.days.size());
+        RevenueReportDTO.Line single = report.days.get(0);
+        assertEquals(RoomType.SINGLE, single.room_type);
+        assertEquals(4, single.rooms_available);
+        assertEquals(new BigDecimal("0.7500"), single.occupancy_rate);
+        assertEquals(new BigDecimal("80.00"), single.adr);
+        assertEquals(new BigDecimal("60.00"), single.revpar);
+        assertEquals(new BigDecimal("100.00"), single.payments_total);
+
+        RevenueReportDTO.Line doubleRooms = report.days.get(1);
+        assertEquals(0, doubleRooms.rooms_available);
+        assertEquals(0, doubleRooms.rooms_sold);
+        assertEquals(new BigDecimal("0.00"), doubleRooms.adr);
+
+        RevenueReportDTO.Line singleTotal = report.totals.get(0);
+        assertNull(singleTotal.day);
+        assertEquals(8, singleTotal.rooms_available);
+        assertEquals(4, singleTotal.rooms_sold);
+        assertEquals(new BigDecimal("0.5000"), singleTotal.occupancy_rate);
+        assertEquals(new BigDecimal("82.50"), singleTotal.adr);
+        assertEquals(new BigDecimal("41.25"), singleTotal.revpar);
+        assertEquals(3, report.totals.size());
+    }
+
+    /**
+     * Tests that getRevenueReport() rejects a reversed range without reading anything.
+     */
+    @Test
+    public void testGetRevenueReport_reversedRange() {
+        // Act & Assert
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> revenueReportUseCase.getRevenueReport(DAY, DAY.minusDays(1)));
+        assertEquals("La fecha de fin no puede ser anterior a la fecha de inicio", e.getMessage());
+        verifyNoInteractions(dailyRevenueRepository, roomRepository);
+    }
+
+    /**
+     * Tests that getRevenueReport() rejects a range longer than the maximum.
+     */
+    @Test
+    public void testGetRevenueReport_rangeTooLong() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> revenueReportUseCase.getRevenueReport(DAY, DAY.plusDays(RevenueReportUseCase.MAX_REPORT_DAYS)));
+        verifyNoInteractions(dailyRevenueRepository, roomRepository);
+    }
+}
@@ -0,0 +1,158 @@
+package com.alfre.DHHotel.usecase;
+
+import com.alfre.DHHotel.domain.model.Room;
+import com.alfre.DHHotel.domain.model.RoomStatus;
+import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.domain.repository.ReservationRepository;
+import com.alfre.DHHotel.domain.repository.RoomRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Hit-rate benchmark of the room availability cache. It replays the same mix of availability searches and bookings
+ * against the cache twice: evicting every entry on each booking, as the old {@code allEntries} eviction did, and
+ * evicting only the room type and months each booking touches. Searches and bookings mostly target the next two
+ * months, with a long tail up to a year ahead, and several look-to-book ratios are measured.
+ * <p>
+ * Every search result is also checked against the booked nights, so the targeted eviction is shown to never serve
+ * a stale answer. Run it with {@code ./gradlew benchmark}; it is excluded from the regular test task.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Tag("benchmark")
+public class RoomAvailabilityCacheBenchmark {
+    private static final int OPERATIONS = 50_000;
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 1);
+    private static final long SEED = 42;
+
+    /**
+     * Runs both eviction strategies for every look-to-book ratio and prints the hit-rate table.
+     */
+    @Test
+    public void compareHitRate() {
+        System.out.printf("%-10s %-13s %10s %10s %9s%n", "eviction", "searches/book", "lookups", "db reads",
+                "hit rate");
+        for (int searchesPerBooking : new int[]{10, 50, 200}) {
+            for (boolean targeted : new boolean[]{false, true}) {
+                Result result = run(targeted, searchesPerBooking);
+                System.out.printf("%-10s %-13d %10d %10d %8.1f%%%n", targeted ? "targeted" : "all", searchesPerBooking,
+                        result.lookups(), result.loads(), 100.0 * (result.lookups() - result.loads()) /
+                                result.lookups());
+                assertEquals(0, result.staleAnswers(), "A search returned a stale availability");
+            }
+        }
+    }
+
+    private Result run(boolean targeted, int searchesPerBooking) {
+        List<Room> rooms = createRooms();
+        Map<Long, Set<LocalDate>> ledger = new HashMap<>();
+        AtomicLong loads = new AtomicLong();
+
+        ReservationRepository reservationRepository = mock(ReservationRepository.class);
+        when(reservationRepository.getBookedNights(any(), any(), any())).thenAnswer(invocation -> {
+            loads.incrementAndGet();
+            return bookedNights(rooms, ledger, invocation.getArgument(0), invocation.getArgument(1),
+                    invocation.getArgument(2));
+        });
+        RoomRepository roomRepository = mock(RoomRepository.class);
+        when(roomRepository.getRoomById(anyLong())).thenAnswer(invocation ->
+                Optional.of(rooms.get((int) (long) invocation.getArgument(0, Long.class) - 1)));
+
+        ConcurrentMapCache cache = new ConcurrentMapCache(RoomAvailabilityCache.CACHE_NAME);
+        RoomAvailabilityCache availabilityCache = new RoomAvailabilityCache(cache, reservationRepository,
+                roomRepository);
+
+        Random random = new Random(SEED);
+        long lookups = 0;
+        int staleAnswers = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            LocalDate startDate = TODAY.plusDays(random.nextInt(10) < 8 ? random.nextInt(60) : random.nextInt(365));
+            LocalDate endDate = startDate.plusDays(1 + random.nextInt(7));
+
+            if (random.nextInt(searchesPerBooking + 1) == 0) {
+                Room room = rooms.get(random.nextInt(rooms.size()));
+                Set<LocalDate> nights = ledger.computeIfAbsent(room.id, ignored -> new HashSet<>());
+                if (startDate.datesUntil(endDate.plusDays(1)).noneMatch(nights::contains)) {
+                    startDate.datesUntil(endDate.plusDays(1)).forEach(nights::add);
+                    if (targeted) {
+                        availabilityCache.evictAfterCommit(room.id, startDate, endDate);
+                    } else {
+                        cache.clear();
+                    }
+                }
+                continue;
+            }
+
+            RoomType type = random.nextInt(5) == 0 ? null : RoomType.values()[random.nextInt(3)];
+            Set<Long> booked = availabilityCache.getBookedRoomIds(type, startDate, endDate);
+            lookups += (type == null ? RoomType.values().length : 1) *
+                    (ChronoUnit.MONTHS.between(YearMonth.from(startDate), YearMonth.from(endDate)) + 1);
+            if (!booked.equals(expectedBooked(rooms, ledger, type, startDate, endDate))) {
+                staleAnswers++;
+            }
+        }
+        return new Result(lookups, loads.get(), staleAnswers);
+    }
+
+    private static List<Room> createRooms() {
+        List<Room> rooms = new ArrayList<>();
+        for (long id = 1; id <= 120; id++) {
+            RoomType type = id <= 60 ? RoomType.SINGLE : id <= 100 ? RoomType.DOUBLE : RoomType.SUITE;
+            rooms.add(new Room(id, (int) (100 + id), type, BigDecimal.valueOf(100), RoomStatus.AVAILABLE));
+        }
+        return rooms;
+    }
+
+    private static Map<Long, List<LocalDate>> bookedNights(List<Room> rooms, Map<Long, Set<LocalDate>> ledger,
+                                                           RoomType type, LocalDate startDate, LocalDate endDate) {
+        Map<Long, List<LocalDate>> nights = new HashMap<>();
+        for (Room room : rooms) {
+            if (room.type != type) {
+                continue;
+            }
+            List<LocalDate> inRange = new TreeSet<>(ledger.getOrDefault(room.id, Set.of()))
+                    .subSet(startDate, true, endDate, true).stream().toList();
+            if (!inRange.isEmpty()) {
+                nights.put(room.id, inRange);
+            }
+        }
+        return nights;
+    }
+
+    private static Set<Long> expectedBooked(List<Room> rooms, Map<Long, Set<LocalDate>> ledger, RoomType type,
+                                            LocalDate startDate, LocalDate endDate) {
+        Set<Long> booked = new HashSet<>();
+        for (Room room : rooms) {
+            if ((type == null || room.type == type) && startDate.datesUntil(endDate.plusDays(1))
+                    .anyMatch(night -> ledger.getOrDefault(room.id, Set.of()).contains(night))) {
+                booked.add(room.id);
+            }
+        }
+        return booked;
+    }
+
+    private record Result(long lookups, long loads, int staleAnswers) { }
+}
@@ -0,0 +1,187 @@
+package com.alfre.DHHotel.usecase;
+
+import com.alfre.DHHotel.domain.model.MonthOccupancy;
+import com.alfre.DHHotel.domain.model.Room;
+import com.alfre.DHHotel.domain.model.RoomStatus;
+import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.domain.repository.ReservationRepository;
+import com.alfre.DHHotel.domain.repository.RoomRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class contains the unit tests of the cache of the booked nights by room type and month.
+ *
+ * @author Alfredo Sobrados González
+ */
+@ExtendWith(MockitoExtension.class)
+public class RoomAvailabilityCacheTest {
+    private static final LocalDate JULY_1 = LocalDate.of(2025, 7, 1);
+    private static final LocalDate JULY_31 = LocalDate.of(2025, 7, 31);
+    private static final LocalDate AUGUST_1 = LocalDate.of(2025, 8, 1);
+    private static final LocalDate AUGUST_31 = LocalDate.of(2025, 8, 31);
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    private ConcurrentMapCache cache;
+    private RoomAvailabilityCache availabilityCache;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new ConcurrentMapCache(RoomAvailabilityCache.CACHE_NAME);
+        availabilityCache = new RoomAvailabilityCache(cache, reservationRepository, roomRepository);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Tests that a room is booked for a range when any of its nights in the range is booked, both ends included,
+     * and that every type and month is read from the database only once.
+     */
+    @Test
+    public void getBookedRoomIds_readsEachMonthOnce_andUsesInclusiveRange() {
+        // Arrange
+        when(reservationRepository.getBookedNights(RoomType.DOUBLE, JULY_1, JULY_31))
+                .thenReturn(Map.of(1L, List.of(LocalDate.of(2025, 7, 31)), 2L, List.of(LocalDate.of(2025, 7, 10))));
+        when(reservationRepository.getBookedNights(RoomType.DOUBLE, AUGUST_1, AUGUST_31))
+                .thenReturn(Map.of(3L, List.of(LocalDate.of(2025, 8, 2))));
+
+        // Act
+        Set<Long> firstSearch = availabilityCache.getBookedRoomIds(RoomType.DOUBLE, LocalDate.of(2025, 7, 31),
+                LocalDate.of(2025, 8, 2));
+        Set<Long> secondSearch = availabilityCache.getBookedRoomIds(RoomType.DOUBLE, LocalDate.of(2025, 7, 11),
+                LocalDate.of(2025, 8, 1));
+
+        // Assert
+        assertEquals(Set.of(1L, 3L), firstSearch);
+        assertEquals(Set.of(1L), secondSearch);
+        verify(reservationRepository, times(2)).getBookedNights(eq(RoomType.DOUBLE), any(), any());
+    }
+
+    /**
+     * Tests that a booking only evicts the months of its nights for the type of its room.
+     */
+    @Test
+    public void evictAfterCommit_withoutTransaction_evictsOnlyAffectedEntries() {
+        // Arrange
+        when(reservationRepository.getBookedNights(any(), any(), any())).thenReturn(Map.of());
+        availabilityCache.getBookedRoomIds(null, JULY_1, AUGUST_31);
+        when(roomRepository.getRoomById(5L)).thenReturn(Optional.of(
+                new Room(5L, 105, RoomType.SUITE, BigDecimal.valueOf(200), RoomStatus.AVAILABLE)));
+
+        // Act
+        availabilityCache.evictAfterCommit(5L, LocalDate.of(2025, 8, 10), LocalDate.of(2025, 8, 12));
+
+        // Assert
+        assertNull(cache.get(RoomAvailabilityCache.key(RoomType.SUITE, YearMonth.of(2025, 8))));
+        assertNotNull(cache.get(RoomAvailabilityCache.key(RoomType.SUITE, YearMonth.of(2025, 7))));
+        assertNotNull(cache.get(RoomAvailabilityCache.key(RoomType.DOUBLE, YearMonth.of(2025, 8))));
+        assertNotNull(cache.get(RoomAvailabilityCache.key(RoomType.SINGLE, YearMonth.of(2025, 8))));
+    }
+
+    /**
+     * Tests that inside a transaction the entries stay cached until the transaction commits.
+     */
+    @Test
+    public void evictAfterCommit_insideTransaction_evictsOnCommit() {
+        // Arrange
+        when(reservationRepository.getBookedNights(any(), any(), any())).thenReturn(Map.of());
+        availabilityCache.getOccupancy(RoomType.SINGLE, YearMonth.of(2025, 7));
+        when(roomRepository.getRoomById(1L)).thenReturn(Optional.of(
+                new Room(1L, 101, RoomType.SINGLE, BigDecimal.valueOf(50), RoomStatus.AVAILABLE)));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        availabilityCache.evictAfterCommit(1L, JULY_1, JULY_1);
+
+        // Assert
+        String key = RoomAvailabilityCache.key(RoomType.SINGLE, YearMonth.of(2025, 7));
+        assertNotNull(cache.get(key));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertNull(cache.get(key));
+    }
+
+    /**
+     * Tests that evicting a room only drops the entries of the given types for the months the room has nights in,
+     * once the transaction commits.
+     */
+    @Test
+    public void evictRoomAfterCommit_evictsTypesAndMonthsOfRoom() {
+        // Arrange
+        YearMonth july = YearMonth.of(2025, 7);
+        YearMonth august = YearMonth.of(2025, 8);
+        for (RoomType type : RoomType.values()) {
+            cache.put(RoomAvailabilityCache.key(type, july), "cached");
+            cache.put(RoomAvailabilityCache.key(type, august), "cached");
+        }
+        when(reservationRepository.getBookedMonths(7L)).thenReturn(List.of(july));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        availabilityCache.evictRoomAfterCommit(7L, List.of(RoomType.SINGLE, RoomType.DOUBLE));
+        assertNotNull(cache.get(RoomAvailabilityCache.key(RoomType.SINGLE, july)));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // Assert
+        assertNull(cache.get(RoomAvailabilityCache.key(RoomType.SINGLE, july)));
+        assertNull(cache.get(RoomAvailabilityCache.key(RoomType.DOUBLE, july)));
+        assertNotNull(cache.get(RoomAvailabilityCache.key(RoomType.SUITE, july)));
+        assertNotNull(cache.get(RoomAvailabilityCache.key(RoomType.SINGLE, august)));
+    }
+
+    /**
+     * Tests that the day bitmap of a month covers the days of the range within the month, both ends included.
+     */
+    @Test
+    public void dayMask_coversRangeWithinMonth() {
+        YearMonth july = YearMonth.of(2025, 7);
+
+        assertEquals(0b1110, RoomAvailabilityCache.dayMask(july, LocalDate.of(2025, 7, 2), LocalDate.of(2025, 7, 4)));
+        assertEquals(Integer.MAX_VALUE, RoomAvailabilityCache.dayMask(july, LocalDate.of(2025, 6, 20), AUGUST_1));
+        assertEquals(1 << 30, RoomAvailabilityCache.dayMask(july, JULY_31, AUGUST_1));
+    }
+
+    /**
+     * Tests that the cached occupancy survives the JSON serialization used by the Redis cache.
+     */
+    @Test
+    public void monthOccupancy_roundTripsThroughRedisSerializer() {
+        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+        MonthOccupancy occupancy = new MonthOccupancy(RoomType.DOUBLE, "2025-07", Map.of(7L, 0b101));
+
+        Object result = serializer.deserialize(serializer.serialize(occupancy));
+
+        assertEquals(occupancy, result);
+        assertEquals(0b101, ((MonthOccupancy) result).booked_days.get(7L));
+    }
+}
@@ -0,0 +1,109 @@
+package com.alfre.DHHotel.usecase;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Contention benchmark of the booking locks. It compares a single global lock with the striped room locks under a
+ * hot-room workload (most bookings target a couple of rooms) and a uniform workload (bookings spread over the whole
+ * hotel). The critical section parks the thread to stand in for the database round trips of a booking.
+ * <p>
+ * Run it with {@code ./gradlew benchmark}; it is excluded from the regular test task.
+ * </p>
+ *
+ * @author Alfredo Sobrados González
+ */
+@Tag("benchmark")
+public class RoomBookingLocksBenchmark {
+    private static final int THREADS = 16;
+    private static final int BOOKINGS_PER_THREAD = 200;
+    private static final int ROOMS = 200;
+    private static final long CRITICAL_SECTION_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    /**
+     * Runs every lock strategy against both workloads, prints the throughput table and checks that no two bookings
+     * of the same room ever ran at the same time.
+     *
+     * @throws Exception if a worker thread fails
+     */
+    @Test
+    public void compareThroughput() throws Exception {
+        System.out.printf("%-10s %-8s %12s%n", "locks", "workload", "bookings/s");
+        for (Workload workload : Workload.values()) {
+            for (int stripes : new int[]{1, RoomBookingLocks.DEFAULT_STRIPES}) {
+                RoomBookingLocks locks = new RoomBookingLocks(stripes, RoomBookingLocks.Mode.STRIPED);
+                Result result = run(locks, workload);
+                System.out.printf("%-10s %-8s %12.0f%n", stripes == 1 ? "global" : "striped",
+                        workload.name().toLowerCase(), result.throughput());
+                assertEquals(0, result.violations(), "Two bookings of the same room overlapped");
+            }
+        }
+    }
+
+    private Result run(RoomBookingLocks locks, Workload workload) throws Exception {
+        AtomicInteger[] insideRoom = new AtomicInteger[ROOMS];
+        for (int i = 0; i < ROOMS; i++) {
+            insideRoom[i] = new AtomicInteger();
+        }
+        AtomicInteger violations = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < BOOKINGS_PER_THREAD; i++) {
+                    int room = workload.nextRoom(random);
+                    try (RoomBookingLocks.RoomLock ignored = locks.lock(room)) {
+                        if (insideRoom[room].incrementAndGet() > 1) {
+                            violations.incrementAndGet();
+                        }
+                        LockSupport.parkNanos(CRITICAL_SECTION_NANOS);
+                        insideRoom[room].decrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - began;
+        executor.shutdown();
+
+        double throughput = THREADS * BOOKINGS_PER_THREAD / (elapsed / 1_000_000_000.0);
+        return new Result(throughput, violations.get());
+    }
+
+    private record Result(double throughput, int violations) { }
+
+    private enum Workload {
+        HOT {
+            @Override
+            int nextRoom(ThreadLocalRandom random) {
+                return random.nextInt(10) < 8 ? random.nextInt(2) : random.nextInt(ROOMS);
+            }
+        },
+        UNIFORM {
+            @Override
+            int nextRoom(ThreadLocalRandom random) {
+                return random.nextInt(ROOMS);
+            }
+        };
+
+        abstract int nextRoom(ThreadLocalRandom random);
+    }
+}
@@ -0,0 +1,139 @@
+package com.alfre.DHHotel.usecase;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the striped room booking locks.
+ *
+ * @author Alfredo Sobrados González
+ */
+public class RoomBookingLocksTest {
+
+    /**
+     * Clears any transaction synchronization registered by a test.
+     */
+    @AfterEach
+    void cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Tests that a second booking of the same room waits until the first handle is closed.
+     *
+     * @throws Exception if the waiting thread fails
+     */
+    @Test
+    void testSameRoomIsSerialized() throws Exception {
+        RoomBookingLocks locks = new RoomBookingLocks();
+        RoomBookingLocks.RoomLock first = locks.lock(7L);
+
+        CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> {
+            try (RoomBookingLocks.RoomLock ignored = locks.lock(7L)) {
+                return true;
+            }
+        });
+
+        assertThrows(Exception.class, () -> second.get(100, TimeUnit.MILLISECONDS));
+        first.close();
+        assertTrue(second.get(1, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests that inside a transaction the lock is kept after closing the handle and released on completion.
+     */
+    @Test
+    void testLockHeldUntilTransactionCompletes() {
+        RoomBookingLocks locks = new RoomBookingLocks();
+        TransactionSynchronizationManager.initSynchronization();
+
+        locks.lock(3L).close();
+        assertTrue(locks.stripeOf(3L).isLocked());
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        assertFalse(locks.stripeOf(3L).isLocked());
+    }
+
+    /**
+     * Tests that the stripe count is rounded up to a power of two and that the NONE mode takes no lock.
+     */
+    @Test
+    void testStripesAndNoneMode() {
+        RoomBookingLocks locks = new RoomBookingLocks(5, RoomBookingLocks.Mode.NONE);
+
+        assertSame(locks.stripeOf(1L), locks.stripeOf(9L));
+        locks.lock(1L);
+        assertFalse(locks.stripeOf(1L).isLocked());
+        assertThrows(IllegalArgumentException.class, () -> new RoomBookingLocks(0, RoomBookingLocks.Mode.STRIPED));
+    }
+
+    /**
+     * Tests that two groups whose rooms hash onto the same two stripes in opposite room order never deadlock:
+     * rooms {2, 65} fall on stripes 2 and 1 and rooms {1, 66} on stripes 1 and 2.
+     *
+     * @throws Exception if a group does not finish in time
+     */
+    @Test
+    void testLockAllCrossingStripesDoesNotDeadlock() throws Exception {
+        RoomBookingLocks locks = new RoomBookingLocks();
+        assertSame(locks.stripeOf(1L), locks.stripeOf(65L));
+        assertSame(locks.stripeOf(2L), locks.stripeOf(66L));
+        CountDownLatch start = new CountDownLatch(1);
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(
+                () -> lockRepeatedly(locks, List.of(2L, 65L), start));
+        CompletableFuture<Void> second = CompletableFuture.runAsync(
+                () -> lockRepeatedly(locks, List.of(1L, 66L), start));
+        start.countDown();
+
+        CompletableFuture.allOf(first, second).get(10, TimeUnit.SECONDS);
+        assertFalse(locks.stripeOf(1L).isLocked());
+        assertFalse(locks.stripeOf(2L).isLocked());
+    }
+
+    private static void lockRepeatedly(RoomBookingLocks locks, List<Long> roomIds, CountDownLatch start) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (int i = 0; i < 10_000; i++) {
+            try (RoomBookingLocks.RoomLock ignored = locks.lockAll(roomIds)) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Tests that inside a transaction every stripe taken by lockAll() is kept until the transaction completes.
+     */
+    @Test
+    void testLockAllHeldUntilTransactionCompletes() {
+        RoomBookingLocks locks = new RoomBookingLocks();
+        TransactionSynchronizationManager.initSynchronization();
+
+        locks.lockAll(List.of(3L, 4L, 67L)).close();
+        assertTrue(locks.stripeOf(3L).isLocked());
+        assertTrue(locks.stripeOf(4L).isLocked());
+        assertEquals(1, locks.stripeOf(67L).getHoldCount());
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        assertFalse(locks.stripeOf(3L).isLocked());
+        assertFalse(locks.stripeOf(4L).isLocked());
+    }
+}
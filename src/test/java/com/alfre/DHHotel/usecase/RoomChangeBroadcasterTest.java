@@ -0,0 +1,165 @@
+package com.alfre.DHHotel.usecase;
+
+import com.alfre.DHHotel.domain.event.RoomChangeEvent;
+import com.alfre.DHHotel.domain.model.RoomStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains the unit tests of the broadcaster of the room changes. The tasks that drain the subscribers
+ * are queued and run by hand, so the tests decide when each subscriber catches up.
+ *
+ * @author Alfredo Sobrados González
+ */
+public class RoomChangeBroadcasterTest {
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final List<String> relayed = new ArrayList<>();
+    private RoomChangeBroadcaster broadcaster;
+
+    @BeforeEach
+    public void setUp() {
+        broadcaster = new RoomChangeBroadcaster(3, 2, relayed::add, tasks::add);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.removeFirst().run();
+        }
+    }
+
+    /**
+     * Tests that every subscriber receives the changes in order and that they are relayed to the other nodes.
+     */
+    @Test
+    public void publish_deliversToEverySubscriberInOrder() {
+        List<RoomChangeEvent> first = new ArrayList<>();
+        List<RoomChangeEvent> second = new ArrayList<>();
+        broadcaster.subscribe(first::add);
+        broadcaster.subscribe(second::add);
+        RoomChangeEvent status = RoomChangeEvent.status(1L, RoomStatus.MAINTENANCE);
+        RoomChangeEvent availability = RoomChangeEvent.availability(2L, LocalDate.of(2025, 7, 1),
+                LocalDate.of(2025, 7, 3));
+
+        broadcaster.publish(status);
+        broadcaster.publish(availability);
+        runTasks();
+
+        assertEquals(List.of(status, availability), first);
+        assertEquals(List.of(status, availability), second);
+        assertEquals(2, relayed.size());
+    }
+
+    /**
+     * Tests that a subscriber that falls behind gets a single resync event instead of an unbounded backlog, without
+     * affecting the other subscribers.
+     */
+    @Test
+    public void publish_slowSubscriber_getsResyncWhenBufferIsFull() {
+        List<RoomChangeEvent> slow = new ArrayList<>();
+        broadcaster.subscribe(slow::add);
+
+        for (long roomId = 1; roomId <= 4; roomId++) {
+            broadcaster.publish(RoomChangeEvent.status(roomId, RoomStatus.OCCUPIED));
+        }
+        broadcaster.publish(RoomChangeEvent.status(5L, RoomStatus.AVAILABLE));
+        runTasks();
+
+        assertEquals(List.of(RoomChangeEvent.resync(), RoomChangeEvent.status(5L, RoomStatus.AVAILABLE)), slow);
+    }
+
+    /**
+     * Tests that inside a transaction the change is only delivered once the transaction commits.
+     */
+    @Test
+    public void publish_insideTransaction_deliversOnCommit() {
+        List<RoomChangeEvent> received = new ArrayList<>();
+        broadcaster.subscribe(received::add);
+        TransactionSynchronizationManager.initSynchronization();
+
+        broadcaster.publish(RoomChangeEvent.status(1L, RoomStatus.OCCUPIED));
+        runTasks();
+        assertTrue(received.isEmpty());
+        assertTrue(relayed.isEmpty());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        runTasks();
+        assertEquals(List.of(RoomChangeEvent.status(1L, RoomStatus.OCCUPIED)), received);
+    }
+
+    /**
+     * Tests that a change relayed by another node is delivered and that the changes relayed by this node are not
+     * delivered twice.
+     */
+    @Test
+    public void receive_deliversChangesOfOtherNodesOnly() {
+        RoomChangeBroadcaster otherNode = new RoomChangeBroadcaster(3, 2, relayed::add, tasks::add);
+        List<RoomChangeEvent> received = new ArrayList<>();
+        broadcaster.subscribe(received::add);
+        RoomChangeEvent availability = RoomChangeEvent.availability(7L, LocalDate.of(2025, 8, 1),
+                LocalDate.of(2025, 8, 2));
+
+        otherNode.publish(availability);
+        broadcaster.receive(relayed.getFirst());
+        broadcaster.publish(RoomChangeEvent.status(7L, RoomStatus.OCCUPIED));
+        broadcaster.receive(relayed.getLast());
+        broadcaster.receive("not a change");
+        runTasks();
+
+        assertEquals(List.of(availability, RoomChangeEvent.status(7L, RoomStatus.OCCUPIED)), received);
+    }
+
+    /**
+     * Tests that the number of subscribers is bounded and that a subscription whose sink fails is closed.
+     */
+    @Test
+    public void subscribe_isBounded_andFailingSinksAreClosed() {
+        broadcaster.subscribe(event -> {
+            throw new IllegalStateException("Cliente desconectado");
+        });
+        RoomChangeBroadcaster.Subscription second = broadcaster.subscribe(event -> { });
+        assertThrows(IllegalStateException.class, () -> broadcaster.subscribe(event -> { }));
+
+        broadcaster.publish(RoomChangeEvent.status(1L, RoomStatus.OCCUPIED));
+        runTasks();
+        assertEquals(1, broadcaster.subscriberCount());
+
+        second.close();
+        assertEquals(0, broadcaster.subscriberCount());
+    }
+
+    /**
+     * Tests that several changes published together are relayed in a single message and delivered in order by the
+     * other nodes.
+     */
+    @Test
+    public void publishAll_relaysOneMessage_deliveredInOrderByOtherNodes() {
+        RoomChangeBroadcaster otherNode = new RoomChangeBroadcaster(3, 2, relayed::add, tasks::add);
+        List<RoomChangeEvent> received = new ArrayList<>();
+        broadcaster.subscribe(received::add);
+        List<RoomChangeEvent> changes = List.of(RoomChangeEvent.status(1L, RoomStatus.AVAILABLE),
+                RoomChangeEvent.status(2L, RoomStatus.MAINTENANCE));
+
+        otherNode.publishAll(changes);
+        broadcaster.receive(relayed.getFirst());
+        runTasks();
+
+        assertEquals(1, relayed.size());
+        assertEquals(changes, received);
+    }
+}
@@ -0,0 +1,107 @@
+package com.alfre.DHHotel.usecase;
+
+import com.alfre.DHHotel.adapter.web.dto.RoomHoldRequest;
+import com.alfre.DHHotel.domain.model.*;
+import com.alfre.DHHotel.domain.repository.ReservationRepository;
+import com.alfre.DHHotel.domain.repository.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the room holds business logic.
+ *
+ * @author Alfredo Sobrados González
+ */
+@ExtendWith(MockitoExtension.class)
+public class RoomHoldUseCaseTest {
+    private static final LocalDate START = LocalDate.of(2025, 7, 1);
+    private static final LocalDate END = LocalDate.of(2025, 7, 3);
+
+    @Mock
+    private ReservationRepository reservationRepository;
+    @Mock
+    private RoomRepository roomRepository;
+
+    private RoomHolds roomHolds;
+    private RoomHoldUseCase roomHoldUseCase;
+    private User user;
+
+    /**
+     * Creates the use case with an empty hold registry and a client user.
+     */
+    @BeforeEach
+    public void setup() {
+        roomHolds = new RoomHolds();
+        roomHoldUseCase = new RoomHoldUseCase(reservationRepository, roomRepository, new RoomBookingLocks(),
+                roomHolds);
+        user = new User();
+        user.setId(6L);
+        user.setRole(Role.CLIENT);
+    }
+
+    /**
+     * Tests that a free room is held for the default duration after locking it and checking its availability.
+     */
+    @Test
+    public void placeHold_success() {
+        // Arrange
+        Room room = new Room(3L, 103, RoomType.SINGLE, new BigDecimal("50.00"), RoomStatus.AVAILABLE);
+        when(roomRepository.getRoomById(3L)).thenReturn(Optional.of(room));
+        when(reservationRepository.isRoomAvailable(3L, START, END)).thenReturn(true);
+
+        // Act
+        RoomHold hold = roomHoldUseCase.placeHold(RoomHoldRequest.builder().room_id(3L).start_date(START)
+                .end_date(END).build(), user);
+
+        // Assert
+        assertEquals(3L, hold.room_id);
+        assertEquals(6L, hold.user_id);
+        assertTrue(roomHolds.isHeldByOthers(3L, START, END, 7L));
+        verify(roomRepository).lockRoom(3L);
+    }
+
+    /**
+     * Tests that a booked room is not held.
+     */
+    @Test
+    public void placeHold_roomNotAvailable_shouldThrowException() {
+        // Arrange
+        Room room = new Room(3L, 103, RoomType.SINGLE, new BigDecimal("50.00"), RoomStatus.AVAILABLE);
+        when(roomRepository.getRoomById(3L)).thenReturn(Optional.of(room));
+        when(reservationRepository.isRoomAvailable(3L, START, END)).thenReturn(false);
+
+        // Act & Assert
+        Exception ex = assertThrows(RuntimeException.class, () -> roomHoldUseCase.placeHold(
+                RoomHoldRequest.builder().room_id(3L).start_date(START).end_date(END).build(), user));
+        assertEquals("Habitación no disponible en las fechas solicitadas", ex.getMessage());
+        assertEquals(0, roomHolds.size());
+    }
+
+    /**
+     * Tests that only the owner of a hold can see or release it.
+     */
+    @Test
+    public void releaseHold_otherUser_shouldThrowAccessDenied() {
+        // Arrange
+        RoomHold hold = roomHolds.hold(3L, START, END, 6L, java.time.Duration.ofMinutes(5));
+        User other = new User();
+        other.setId(7L);
+
+        // Act & Assert
+        assertThrows(AccessDeniedException.class, () -> roomHoldUseCase.releaseHold(hold.id, other));
+        roomHoldUseCase.releaseHold(hold.id, user);
+        assertEquals(0, roomHolds.size());
+    }
+}
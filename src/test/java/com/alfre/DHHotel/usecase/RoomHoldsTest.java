@@ -0,0 +1,134 @@
+package com.alfre.DHHotel.usecase;
+
+import com.alfre.DHHotel.domain.model.RoomHold;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the in-memory registry of room holds.
+ *
+ * @author Alfredo Sobrados González
+ */
+public class RoomHoldsTest {
+    private static final LocalDate START = LocalDate.of(2025, 7, 1);
+    private static final LocalDate END = LocalDate.of(2025, 7, 4);
+
+    private final MutableClock clock = new MutableClock();
+    private final RoomHolds holds = new RoomHolds(clock, 30);
+
+    /**
+     * Clears any transaction synchronization registered by a test.
+     */
+    @AfterEach
+    void cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Tests that a hold blocks other users for overlapping dates but not its owner, and expires on time.
+     */
+    @Test
+    void testHoldBlocksOthersUntilItExpires() {
+        RoomHold hold = holds.hold(7L, START, END, 1L, Duration.ofMinutes(10));
+
+        assertTrue(holds.isHeldByOthers(7L, END, END.plusDays(2), 2L));
+        assertTrue(holds.isHeldByOthers(7L, START, END, null));
+        assertFalse(holds.isHeldByOthers(7L, START, END, 1L));
+        assertFalse(holds.isHeldByOthers(7L, END.plusDays(1), END.plusDays(3), 2L));
+        assertFalse(holds.isHeldByOthers(8L, START, END, 2L));
+
+        clock.advance(Duration.ofMinutes(10).minusSeconds(1));
+        assertEquals(Set.of(7L), holds.getRoomsHeldByOthers(List.of(7L, 8L), START, END, 2L));
+
+        clock.advance(Duration.ofSeconds(1));
+        assertFalse(holds.isHeldByOthers(7L, START, END, 2L));
+        assertTrue(holds.get(hold.id).isEmpty());
+        assertEquals(0, holds.size());
+    }
+
+    /**
+     * Tests that a second user cannot hold a room already held for overlapping dates.
+     */
+    @Test
+    void testOverlappingHoldOfAnotherUserIsRejected() {
+        holds.hold(7L, START, END, 1L, Duration.ofMinutes(10));
+
+        Exception ex = assertThrows(RuntimeException.class, () ->
+                holds.hold(7L, START.plusDays(1), END.plusDays(1), 2L, Duration.ofMinutes(10)));
+        assertEquals("La habitación ya está retenida por otro cliente para esas fechas", ex.getMessage());
+        assertThrows(IllegalArgumentException.class, () ->
+                holds.hold(8L, START, END, 2L, Duration.ofMinutes(31)));
+    }
+
+    /**
+     * Tests that a released hold frees the room at once and is ignored when its expiry comes.
+     */
+    @Test
+    void testReleasedHoldFreesRoom() {
+        RoomHold hold = holds.hold(7L, START, END, 1L, Duration.ofMinutes(10));
+
+        assertTrue(holds.release(hold.id));
+        assertFalse(holds.release(hold.id));
+        RoomHold other = holds.hold(7L, START, END, 2L, Duration.ofMinutes(20));
+
+        clock.advance(Duration.ofMinutes(15));
+        assertTrue(holds.get(other.id).isPresent());
+    }
+
+    /**
+     * Tests that a hold released after commit keeps blocking the room until the transaction commits.
+     */
+    @Test
+    void testReleaseAfterCommitWaitsForTheCommit() {
+        RoomHold hold = holds.hold(7L, START, END, 1L, Duration.ofMinutes(10));
+        TransactionSynchronizationManager.initSynchronization();
+
+        holds.releaseAfterCommit(hold.id);
+        assertTrue(holds.get(hold.id).isPresent());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertTrue(holds.get(hold.id).isEmpty());
+    }
+
+    /**
+     * Clock whose time is moved by the tests.
+     */
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-06-01T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
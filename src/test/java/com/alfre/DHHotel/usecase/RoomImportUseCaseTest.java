@@ -0,0 +1,109 @@
+package com.alfre.DHHotel.usecase;
+
+import com.alfre.DHHotel.adapter.web.dto.RoomImportResultDTO;
+import com.alfre.DHHotel.adapter.web.dto.RoomImportRow;
+import com.alfre.DHHotel.domain.model.Room;
+import com.alfre.DHHotel.domain.model.RoomStatus;
+import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.domain.repository.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the bulk room import business logic.
+ *
+ * @author Alfredo Sobrados González
+ */
+@ExtendWith(MockitoExtension.class)
+public class RoomImportUseCaseTest {
+    @Mock
+    private RoomRepository roomRepository;
+
+    private RoomImportUseCase roomImportUseCase;
+
+    @BeforeEach
+    public void setup() {
+        roomImportUseCase = new RoomImportUseCase(roomRepository, 2);
+    }
+
+    private static RoomImportRow row(long line, int roomNumber, String price) {
+        return RoomImportRow.of(line, new Room(0, roomNumber, RoomType.SINGLE, new BigDecimal(price), null));
+    }
+
+    /**
+     * Tests that the valid rows are created in batches of the configured size and that every invalid row is
+     * reported with its line, including numbers that already exist or repeat an earlier row.
+     */
+    @Test
+    public void importRooms_createsValidRowsInBatches_andReportsInvalidOnes() {
+        when(roomRepository.getAllRooms()).thenReturn(List.of(new Room(1L, 100, RoomType.DOUBLE,
+                new BigDecimal("80.00"), RoomStatus.AVAILABLE)));
+        List<List<Room>> batches = new ArrayList<>();
+        when(roomRepository.createRooms(anyList())).thenAnswer(invocation -> {
+            List<Room> rooms = invocation.getArgument(0);
+            batches.add(rooms);
+            return rooms.stream().map(room -> (long) room.room_number).toList();
+        });
+
+        RoomImportResultDTO result = roomImportUseCase.importRooms(List.of(
+                row(2, 201, "50.00"),
+                row(3, 100, "50.00"),
+                row(4, 202, "0"),
+                RoomImportRow.invalid(5, "Valor no válido en la columna type"),
+                row(6, 203, "50.00"),
+                row(7, 201, "60.00"),
+                row(8, 204, "55.00")).iterator());
+
+        assertEquals(3, result.imported);
+        assertEquals(4, result.rejected);
+        assertEquals(List.of(3L, 4L, 5L, 7L), result.errors.stream().map(error -> error.line).toList());
+        assertEquals("El número de habitación 100 ya existe", result.errors.getFirst().message);
+        assertEquals(2, batches.size());
+        assertEquals(List.of(201, 203), batches.get(0).stream().map(room -> room.room_number).toList());
+        assertEquals(RoomStatus.AVAILABLE, batches.get(0).getFirst().status);
+    }
+
+    /**
+     * Tests that when a room number is taken by another request during the import, the batch is created row by
+     * row and only the taken number is rejected.
+     */
+    @Test
+    public void importRooms_numberTakenMeanwhile_retriesBatchRowByRow() {
+        when(roomRepository.getAllRooms()).thenReturn(List.of());
+        when(roomRepository.createRooms(anyList())).thenThrow(new DuplicateKeyException("Duplicate entry"));
+        when(roomRepository.createRoom(any(Room.class))).thenReturn(1L)
+                .thenThrow(new DuplicateKeyException("Duplicate entry"));
+
+        RoomImportResultDTO result = roomImportUseCase.importRooms(List.of(
+                row(1, 301, "70.00"),
+                row(2, 302, "70.00")).iterator());
+
+        assertEquals(1, result.imported);
+        assertEquals(1, result.rejected);
+        assertEquals(2L, result.errors.getFirst().line);
+        verify(roomRepository, times(2)).createRoom(any(Room.class));
+    }
+
+    /**
+     * Tests that the batch size is bounded.
+     */
+    @Test
+    public void constructor_invalidBatchSize_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new RoomImportUseCase(roomRepository, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RoomImportUseCase(roomRepository, 1001));
+    }
+}
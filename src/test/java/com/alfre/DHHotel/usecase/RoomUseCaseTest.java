@@ -1,25 +1,39 @@
 package com.alfre.DHHotel.usecase;
 
 import com.alfre.DHHotel.adapter.web.dto.RoomDTO;
+import com.alfre.DHHotel.adapter.web.dto.RoomQuoteDTO;
+import com.alfre.DHHotel.adapter.web.dto.RoomStatusUpdateRequest;
+import com.alfre.DHHotel.domain.event.RoomChangeEvent;
 import com.alfre.DHHotel.domain.model.Reservation;
 import com.alfre.DHHotel.domain.model.Room;
 import com.alfre.DHHotel.domain.model.RoomStatus;
 import com.alfre.DHHotel.domain.model.RoomType;
+import com.alfre.DHHotel.domain.model.SeasonalRate;
+import com.alfre.DHHotel.domain.repository.ReservationRepository;
 import com.alfre.DHHotel.domain.repository.RoomRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -33,6 +47,9 @@ public class RoomUseCaseTest {
     @Mock
     private RoomRepository roomRepository;
 
+    @Mock
+    private ReservationRepository reservationRepository;
+
     private RoomUseCase roomUseCase;
 
     /**
@@ -141,6 +158,41 @@ public class RoomUseCaseTest {
         verify(roomRepository).updateRoom(updatedRoom, id);
     }
 
+    /**
+     * Tests that updateRoom() evicts the cached availability of the old and new type of the room only for the months
+     * the room has booked nights in, and leaves the cache alone when the type does not change.
+     */
+    @Test
+    public void updateRoom_typeChanged_evictsOnlyMonthsOfRoom() {
+        // Arrange
+        ConcurrentMapCache cache = new ConcurrentMapCache(RoomAvailabilityCache.CACHE_NAME);
+        RoomUseCase cachedUseCase = new RoomUseCase(roomRepository, new RateCalendar(), new RoomHolds(),
+                new RoomAvailabilityCache(cache, reservationRepository, roomRepository));
+        YearMonth may = YearMonth.of(2025, 5);
+        for (RoomType type : RoomType.values()) {
+            cache.put(RoomAvailabilityCache.key(type, may), "cached");
+            cache.put(RoomAvailabilityCache.key(type, may.plusMonths(1)), "cached");
+        }
+        Room room = new Room(5L, 101, RoomType.SINGLE, BigDecimal.valueOf(60.0), RoomStatus.AVAILABLE);
+        Room sameType = new Room(5L, 101, RoomType.SINGLE, BigDecimal.valueOf(70.0), RoomStatus.AVAILABLE);
+        Room newType = new Room(5L, 101, RoomType.DOUBLE, BigDecimal.valueOf(70.0), RoomStatus.AVAILABLE);
+        when(roomRepository.getRoomById(5L)).thenReturn(Optional.of(room));
+        when(roomRepository.updateRoom(any(Room.class), anyLong())).thenReturn(1);
+        when(reservationRepository.getBookedMonths(5L)).thenReturn(List.of(may));
+
+        // Act
+        cachedUseCase.updateRoom(sameType, 5L);
+        assertNotNull(cache.get(RoomAvailabilityCache.key(RoomType.SINGLE, may)));
+        cachedUseCase.updateRoom(newType, 5L);
+
+        // Assert
+        assertNull(cache.get(RoomAvailabilityCache.key(RoomType.SINGLE, may)));
+        assertNull(cache.get(RoomAvailabilityCache.key(RoomType.DOUBLE, may)));
+        assertNotNull(cache.get(RoomAvailabilityCache.key(RoomType.SUITE, may)));
+        assertNotNull(cache.get(RoomAvailabilityCache.key(RoomType.SINGLE, may.plusMonths(1))));
+        verify(reservationRepository, times(1)).getBookedMonths(5L);
+    }
+
     /**
      * Tests that updateRoom() throws an exception when the room does not exist.
      */
@@ -297,6 +349,60 @@ public class RoomUseCaseTest {
         verify(roomRepository).updateStatus(id, newStatus);
     }
 
+    /**
+     * Tests that updateStatuses() locks the rooms with one query, updates only the rooms whose status changes with
+     * one call and pushes their changes together.
+     */
+    @Test
+    public void updateStatuses_updatesChangedRoomsOnly_andPublishesTogether() {
+        // Arrange
+        List<String> relayed = new ArrayList<>();
+        List<RoomChangeEvent> received = new ArrayList<>();
+        RoomChangeBroadcaster broadcaster = new RoomChangeBroadcaster(16, 1, relayed::add, Runnable::run);
+        broadcaster.subscribe(received::add);
+        roomUseCase = new RoomUseCase(roomRepository, new RateCalendar(), new RoomHolds(), null, broadcaster);
+        when(roomRepository.lockRooms(any())).thenReturn(List.of(
+                new Room(1L, 101, RoomType.SINGLE, BigDecimal.TEN, RoomStatus.OCCUPIED),
+                new Room(2L, 102, RoomType.SINGLE, BigDecimal.TEN, RoomStatus.AVAILABLE),
+                new Room(3L, 103, RoomType.SINGLE, BigDecimal.TEN, RoomStatus.AVAILABLE)));
+
+        // Act
+        int result = roomUseCase.updateStatuses(List.of(
+                new RoomStatusUpdateRequest(3L, RoomStatus.MAINTENANCE),
+                new RoomStatusUpdateRequest(1L, RoomStatus.AVAILABLE),
+                new RoomStatusUpdateRequest(2L, RoomStatus.AVAILABLE)));
+
+        // Assert
+        assertEquals(2, result);
+        verify(roomRepository).updateStatuses(Map.of(1L, RoomStatus.AVAILABLE, 3L, RoomStatus.MAINTENANCE));
+        assertEquals(List.of(RoomChangeEvent.status(1L, RoomStatus.AVAILABLE),
+                RoomChangeEvent.status(3L, RoomStatus.MAINTENANCE)), received);
+        assertEquals(1, relayed.size());
+    }
+
+    /**
+     * Tests that updateStatuses() changes nothing when a room does not exist or is repeated.
+     */
+    @Test
+    public void updateStatuses_invalidRooms_throwsException() {
+        // Arrange
+        when(roomRepository.lockRooms(any())).thenReturn(List.of(
+                new Room(1L, 101, RoomType.SINGLE, BigDecimal.TEN, RoomStatus.OCCUPIED)));
+
+        // Act & Assert
+        Exception missing = assertThrows(IllegalArgumentException.class, () -> roomUseCase.updateStatuses(List.of(
+                new RoomStatusUpdateRequest(1L, RoomStatus.AVAILABLE),
+                new RoomStatusUpdateRequest(9L, RoomStatus.AVAILABLE))));
+        assertEquals("Las habitaciones [9] no existen", missing.getMessage());
+
+        Exception repeated = assertThrows(IllegalArgumentException.class, () -> roomUseCase.updateStatuses(List.of(
+                new RoomStatusUpdateRequest(1L, RoomStatus.AVAILABLE),
+                new RoomStatusUpdateRequest(1L, RoomStatus.MAINTENANCE))));
+        assertEquals("La habitación 1 está repetida", repeated.getMessage());
+
+        verify(roomRepository, never()).updateStatuses(any());
+    }
+
     /**
      * Tests that getRoomsInMaintenance() returns the list of rooms that are in maintenance.
      */
@@ -316,4 +422,112 @@ public class RoomUseCaseTest {
         assertEquals(rooms, result);
         verify(roomRepository).getRoomsInMaintenance();
     }
+
+    /**
+     * Tests that searchAvailableRooms() quotes every free room returned by the repository for the whole stay.
+     */
+    @Test
+    public void searchAvailableRooms_success_returnsQuotes() {
+        // Arrange
+        LocalDate startDate = LocalDate.of(2025, 5, 1);
+        LocalDate endDate = LocalDate.of(2025, 5, 4);
+        Room room = new Room(7L, 105, RoomType.DOUBLE, BigDecimal.valueOf(80.0), RoomStatus.OCCUPIED);
+        when(roomRepository.searchAvailableRooms(startDate, endDate, RoomType.DOUBLE, null, null))
+                .thenReturn(List.of(room));
+
+        // Act
+        List<RoomQuoteDTO> result = roomUseCase.searchAvailableRooms(startDate, endDate, RoomType.DOUBLE, null,
+                null);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals(7L, result.getFirst().id);
+        assertEquals(3, result.getFirst().nights);
+        assertEquals(0, BigDecimal.valueOf(240.0).compareTo(result.getFirst().total_price));
+    }
+
+    /**
+     * Tests that searchAvailableRooms() with the availability cache filters the room catalog with the cached booked
+     * nights and reads each month of the stay from the database only once.
+     */
+    @Test
+    public void searchAvailableRooms_withAvailabilityCache_skipsBookedRooms() {
+        // Arrange
+        RoomAvailabilityCache availabilityCache = new RoomAvailabilityCache(
+                new ConcurrentMapCache(RoomAvailabilityCache.CACHE_NAME), reservationRepository, roomRepository);
+        RoomUseCase cachedUseCase = new RoomUseCase(roomRepository, new RateCalendar(), new RoomHolds(),
+                availabilityCache);
+        LocalDate startDate = LocalDate.of(2025, 5, 1);
+        LocalDate endDate = LocalDate.of(2025, 5, 4);
+        Room booked = new Room(1L, 101, RoomType.DOUBLE, BigDecimal.valueOf(60.0), RoomStatus.AVAILABLE);
+        Room free = new Room(2L, 102, RoomType.DOUBLE, BigDecimal.valueOf(80.0), RoomStatus.OCCUPIED);
+        Room inMaintenance = new Room(3L, 103, RoomType.DOUBLE, BigDecimal.valueOf(70.0), RoomStatus.MAINTENANCE);
+        Room suite = new Room(4L, 201, RoomType.SUITE, BigDecimal.valueOf(150.0), RoomStatus.AVAILABLE);
+        when(roomRepository.getAllRooms()).thenReturn(List.of(booked, free, inMaintenance, suite));
+        when(reservationRepository.getBookedNights(RoomType.DOUBLE, LocalDate.of(2025, 5, 1),
+                LocalDate.of(2025, 5, 31))).thenReturn(Map.of(1L, List.of(LocalDate.of(2025, 5, 4))));
+
+        // Act
+        List<RoomQuoteDTO> first = cachedUseCase.searchAvailableRooms(startDate, endDate, RoomType.DOUBLE, null,
+                null);
+        List<RoomQuoteDTO> second = cachedUseCase.searchAvailableRooms(startDate, endDate, RoomType.DOUBLE, null,
+                null);
+
+        // Assert
+        assertEquals(List.of(2L), first.stream().map(quote -> quote.id).toList());
+        assertEquals(List.of(2L), second.stream().map(quote -> quote.id).toList());
+        verify(reservationRepository).getBookedNights(RoomType.DOUBLE, LocalDate.of(2025, 5, 1),
+                LocalDate.of(2025, 5, 31));
+        verify(roomRepository, never()).searchAvailableRooms(any(), any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that quoteRooms() reads every room with one query and prices the stay with the rate calendar,
+     * keeping the order of the requested IDs and skipping the rooms that do not exist.
+     */
+    @Test
+    public void quoteRooms_success_appliesSeasonalRates() {
+        // Arrange
+        RateCalendar rateCalendar = new RateCalendar();
+        rateCalendar.rebuild(List.of(new SeasonalRate(1L, RoomType.DOUBLE, LocalDate.of(2025, 8, 1),
+                LocalDate.of(2025, 8, 31), 150, null)));
+        RoomUseCase ratedUseCase = new RoomUseCase(roomRepository, rateCalendar);
+        LocalDate startDate = LocalDate.of(2025, 7, 30);
+        LocalDate endDate = LocalDate.of(2025, 8, 2);
+        Room single = new Room(1L, 101, RoomType.SINGLE, new BigDecimal("50.00"), RoomStatus.AVAILABLE);
+        Room doubleRoom = new Room(7L, 105, RoomType.DOUBLE, new BigDecimal("80.00"), RoomStatus.AVAILABLE);
+        when(roomRepository.getRoomsByIds(List.of(7L, 1L, 9L))).thenReturn(List.of(single, doubleRoom));
+
+        // Act
+        List<RoomQuoteDTO> result = ratedUseCase.quoteRooms(List.of(7L, 1L, 9L, 7L), startDate, endDate);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals(7L, result.get(0).id);
+        assertEquals(new BigDecimal("280.00"), result.get(0).total_price);
+        assertEquals(1L, result.get(1).id);
+        assertEquals(new BigDecimal("150.00"), result.get(1).total_price);
+        verify(roomRepository, never()).getRoomById(anyLong());
+    }
+
+    /**
+     * Tests that searchAvailableRooms() rejects stays without nights and inverted price bands
+     * without querying the repository.
+     */
+    @Test
+    public void searchAvailableRooms_invalidParameters_throwsException() {
+        // Arrange
+        LocalDate date = LocalDate.of(2025, 5, 1);
+
+        // Act & Assert
+        Exception ex1 = assertThrows(IllegalArgumentException.class, () ->
+                roomUseCase.searchAvailableRooms(date, date, null, null, null));
+        assertEquals("La fecha de salida debe ser posterior a la fecha de entrada", ex1.getMessage());
+
+        Exception ex2 = assertThrows(IllegalArgumentException.class, () ->
+                roomUseCase.searchAvailableRooms(date, date.plusDays(1), null, BigDecimal.TEN, BigDecimal.ONE));
+        assertEquals("El precio mínimo no puede ser mayor que el precio máximo", ex2.getMessage());
+
+        verifyNoInteractions(roomRepository);
+    }
 }
\ No newline at end of file
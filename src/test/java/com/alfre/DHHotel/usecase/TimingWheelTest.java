@@ -0,0 +1,71 @@
+package com.alfre.DHHotel.usecase;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains the attributes and methods for realize the unit tests
+ * of the hierarchical timing wheel used to expire the room holds.
+ *
+ * @author Alfredo Sobrados González
+ */
+public class TimingWheelTest {
+
+    /**
+     * Tests that an item is due once its deadline has passed and not before.
+     */
+    @Test
+    void testItemIsDueAtItsDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 0);
+        wheel.schedule("hold", 5_000);
+
+        assertTrue(wheel.advance(4_999).isEmpty());
+        assertEquals(List.of("hold"), wheel.advance(5_000));
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Tests that items far away in the higher wheels are cascaded down and expire on the first advance after
+     * their deadline, with random deadlines and random steps.
+     */
+    @Test
+    void testRandomDeadlinesAcrossWheels() {
+        Random random = new Random(42);
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 0);
+        int scheduled = 2_000;
+        for (int i = 0; i < scheduled; i++) {
+            long deadline = 1 + random.nextInt(300_000);
+            wheel.schedule(deadline, deadline);
+        }
+
+        long previous = 0;
+        int expired = 0;
+        while (wheel.size() > 0) {
+            long now = previous + 1 + random.nextInt(500);
+            for (long deadline : wheel.advance(now)) {
+                assertTrue(deadline > previous && deadline <= now,
+                        "El elemento " + deadline + " debe vencer en el avance hasta " + now);
+                expired++;
+            }
+            previous = now;
+        }
+        assertEquals(scheduled, expired);
+    }
+
+    /**
+     * Tests that deadlines beyond the range of the wheels are kept until they are due.
+     */
+    @Test
+    void testDeadlineBeyondRange() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 0);
+        long deadline = 1L << 26;
+        wheel.schedule("far", deadline);
+
+        assertTrue(wheel.advance(deadline - 1).isEmpty());
+        assertEquals(List.of("far"), wheel.advance(deadline));
+    }
+}